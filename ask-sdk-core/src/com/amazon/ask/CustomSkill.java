@@ -11,9 +11,14 @@ import com.amazon.ask.request.impl.BaseUnmarshalledRequest;
 import com.amazon.ask.util.JacksonSerializer;
 import com.amazon.ask.util.impl.JacksonJsonMarshaller;
 import com.amazon.ask.util.impl.JacksonJsonUnmarshaller;
+import com.amazon.ask.attributes.PersistentAttributesPrefetcher;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
 import com.amazon.ask.builder.CustomSkillConfiguration;
+import com.amazon.ask.dispatcher.DeadlineEnforcer;
 import com.amazon.ask.dispatcher.request.handler.HandlerInput;
+import com.amazon.ask.exception.DeadlineExceededException;
+import com.amazon.ask.exception.UnhandledSkillException;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.model.Response;
 import com.amazon.ask.model.ResponseEnvelope;
@@ -21,14 +26,22 @@ import com.amazon.ask.model.services.ApiClient;
 import com.amazon.ask.model.services.ApiConfiguration;
 import com.amazon.ask.model.services.DefaultApiConfiguration;
 import com.amazon.ask.model.services.ServiceClientFactory;
+import com.amazon.ask.request.Deadline;
+import com.amazon.ask.request.exception.handler.GenericExceptionHandler;
+import com.amazon.ask.request.exception.mapper.GenericExceptionMapper;
 import com.amazon.ask.response.template.TemplateFactory;
 import com.amazon.ask.util.SdkConstants;
 import com.amazon.ask.util.UserAgentUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -77,6 +90,21 @@ public class CustomSkill extends AbstractSkill<RequestEnvelope, ResponseEnvelope
      */
     protected final TemplateFactory<HandlerInput, Response> templateFactory;
 
+    /**
+     * Prefetcher starting persistent attribute retrieval as soon as a request is unmarshalled, null if disabled.
+     */
+    protected final PersistentAttributesPrefetcher persistentAttributesPrefetcher;
+
+    /**
+     * Enforcer of request deadlines on dispatch, null if disabled.
+     */
+    protected final DeadlineEnforcer deadlineEnforcer;
+
+    /**
+     * Exception mapper finding the handler of requests abandoned at their deadline.
+     */
+    protected final GenericExceptionMapper<HandlerInput, Optional<Response>> exceptionMapper;
+
     /**
      * Constructor for CustomSkill.
      * @param configuration custom skill configuration.
@@ -98,6 +126,9 @@ public class CustomSkill extends AbstractSkill<RequestEnvelope, ResponseEnvelope
         this.customUserAgent = configuration.getCustomUserAgent();
         this.skillId = configuration.getSkillId();
         this.templateFactory = configuration.getTemplateFactory();
+        this.persistentAttributesPrefetcher = configuration.getPersistentAttributesPrefetcher();
+        this.deadlineEnforcer = configuration.getDeadlineEnforcer();
+        this.exceptionMapper = configuration.getExceptionMapper();
     }
 
     /**
@@ -122,6 +153,22 @@ public class CustomSkill extends AbstractSkill<RequestEnvelope, ResponseEnvelope
      * @return optional request envelope
      */
     protected ResponseEnvelope invoke(final UnmarshalledRequest<RequestEnvelope> unmarshalledRequest, final Object context) {
+        return invoke(unmarshalledRequest, context, null);
+    }
+
+    /**
+     * Invokes the dispatcher to handler the request envelope and construct the handler input. The deadline of the
+     * request, net of the safety margin of the {@link DeadlineEnforcer} if one is configured, is passed to handlers,
+     * service calls and persistence operations, and enforced on dispatch if a {@link DeadlineEnforcer} is configured.
+     * @param unmarshalledRequest unmarshalled output from {@link JacksonJsonUnmarshaller}, containing a
+     *                            {@link RequestEnvelope} and a JSON representation of the request.
+     * @param context context
+     * @param requestDeadline deadline by which the request must be answered, or null
+     * @return optional request envelope
+     */
+    @Override
+    protected ResponseEnvelope invoke(final UnmarshalledRequest<RequestEnvelope> unmarshalledRequest, final Object context,
+                                      final Deadline requestDeadline) {
         RequestEnvelope requestEnvelope = unmarshalledRequest.getUnmarshalledRequest();
         JsonNode requestEnvelopeJson = unmarshalledRequest.getRequestJson();
 
@@ -131,28 +178,135 @@ public class CustomSkill extends AbstractSkill<RequestEnvelope, ResponseEnvelope
             return null;
         }
 
+        Deadline deadline = requestDeadline != null && deadlineEnforcer != null
+                ? deadlineEnforcer.getHandlingDeadline(requestDeadline) : requestDeadline;
+
+        CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes = persistentAttributesPrefetcher != null
+                ? persistentAttributesPrefetcher.prefetch(persistenceAdapter, requestEnvelope) : null;
+
         ServiceClientFactory serviceClientFactory = apiClient != null ? ServiceClientFactory.builder()
-                .withDefaultApiConfiguration(getApiConfiguration(requestEnvelope))
+                .withDefaultApiConfiguration(withDeadline(getApiConfiguration(requestEnvelope), deadline))
                 .build() : null;
 
-        HandlerInput handlerInput = HandlerInput.builder()
+        HandlerInput.Builder handlerInputBuilder = HandlerInput.builder()
                 .withRequestEnvelope(requestEnvelope)
                 .withPersistenceAdapter(persistenceAdapter)
                 .withContext(context)
                 .withRequestEnvelopeJson(requestEnvelopeJson)
                 .withServiceClientFactory(serviceClientFactory)
                 .withTemplateFactory(templateFactory)
-                .build();
+                .withPrefetchedPersistentAttributes(prefetchedPersistentAttributes)
+                .withDeadline(deadline);
+
+        return dispatch(handlerInputBuilder, deadline);
+    }
+
+    /**
+     * {@inheritDoc}.
+     */
+    @Override
+    public String getSkillId() {
+        return skillId;
+    }
 
-        Optional<Response> response = requestDispatcher.dispatch(handlerInput);
+    /**
+     * Dispatches a request, within its deadline if a {@link DeadlineEnforcer} is configured. A request not handled in
+     * time is abandoned and passed to the exception handler of the {@link DeadlineExceededException}, with a handler
+     * input of its own: a fresh response builder and the session attributes the request started with, so the abandoned
+     * handler, which may still be running, cannot affect the response.
+     * @param handlerInputBuilder builder of the handler input of the request.
+     * @param deadline deadline of request handling, or null.
+     * @return response envelope.
+     * @throws UnhandledSkillException if the deadline was exceeded and no exception handler handles it.
+     */
+    private ResponseEnvelope dispatch(final HandlerInput.Builder handlerInputBuilder, final Deadline deadline) {
+        HandlerInput handlerInput = handlerInputBuilder.build();
+        if (deadline == null || deadlineEnforcer == null) {
+            return buildResponseEnvelope(handlerInput, requestDispatcher.dispatch(handlerInput));
+        }
+        Map<String, Object> initialSessionAttributes = handlerInput.getRequestEnvelope().getSession() != null
+                ? copyAttributes(handlerInput.getAttributesManager().getSessionAttributes()) : null;
+        try {
+            return buildResponseEnvelope(handlerInput, deadlineEnforcer.dispatchWithin(deadline, () -> requestDispatcher.dispatch(handlerInput)));
+        } catch (DeadlineExceededException e) {
+            LOGGER.warn("[{}] Request handling abandoned at its deadline",
+                    handlerInput.getRequestEnvelope().getRequest().getRequestId());
+            HandlerInput fallbackInput = handlerInputBuilder.build();
+            if (initialSessionAttributes != null) {
+                fallbackInput.getAttributesManager().setSessionAttributes(initialSessionAttributes);
+            }
+            Optional<GenericExceptionHandler<HandlerInput, Optional<Response>>> exceptionHandler = exceptionMapper != null
+                    ? exceptionMapper.getHandler(fallbackInput, e) : Optional.empty();
+            if (exceptionHandler.isPresent()) {
+                return buildResponseEnvelope(fallbackInput, exceptionHandler.get().handle(fallbackInput, e));
+            }
+            throw new UnhandledSkillException(e);
+        }
+    }
+
+    /**
+     * Builds the response envelope from the response and the session attributes of a handler input.
+     * @param handlerInput handler input the response was produced with.
+     * @param response response, or null.
+     * @return response envelope.
+     */
+    private ResponseEnvelope buildResponseEnvelope(final HandlerInput handlerInput, final Optional<Response> response) {
         return ResponseEnvelope.builder()
                 .withResponse(response != null ? response.orElse(null) : null)
-                .withSessionAttributes(requestEnvelope.getSession() != null ? handlerInput.getAttributesManager().getSessionAttributes() : null)
+                .withSessionAttributes(handlerInput.getRequestEnvelope().getSession() != null
+                        ? handlerInput.getAttributesManager().getSessionAttributes() : null)
                 .withVersion(SdkConstants.FORMAT_VERSION)
                 .withUserAgent(UserAgentUtils.getUserAgent(customUserAgent))
                 .build();
     }
 
+    /**
+     * Copies attributes, nested maps and lists are copied so the copy is not affected by modifications.
+     * @param attributes attributes to copy.
+     * @return copy of the attributes.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copyAttributes(final Map<String, Object> attributes) {
+        return (Map<String, Object>) copyAttributeValue(attributes);
+    }
+
+    /**
+     * Copies a single attribute value.
+     * @param value value to copy.
+     * @return copy of maps and lists, the value itself otherwise.
+     */
+    private static Object copyAttributeValue(final Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new HashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> copy.put(k, copyAttributeValue(v)));
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            ((List<?>) value).forEach(v -> copy.add(copyAttributeValue(v)));
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Makes service calls made with an Api configuration fail fast once the deadline of the request expired.
+     * @param apiConfiguration Api configuration.
+     * @param deadline deadline of request handling, or null.
+     * @return {@link ApiConfiguration}.
+     */
+    private static ApiConfiguration withDeadline(final ApiConfiguration apiConfiguration, final Deadline deadline) {
+        if (deadline == null || apiConfiguration.getApiClient() == null) {
+            return apiConfiguration;
+        }
+        return DefaultApiConfiguration.builder()
+                .withApiClient(new DeadlineAwareApiClient(apiConfiguration.getApiClient(), deadline))
+                .withApiEndpoint(apiConfiguration.getApiEndpoint())
+                .withAuthorizationValue(apiConfiguration.getAuthorizationValue())
+                .withSerializer(apiConfiguration.getSerializer())
+                .build();
+    }
+
     /**
      * Getter for Api configuration.
      * @param requestEnvelope request envelope.
@@ -0,0 +1,56 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask;
+
+import com.amazon.ask.model.services.ApiClient;
+import com.amazon.ask.model.services.ApiClientRequest;
+import com.amazon.ask.model.services.ApiClientResponse;
+import com.amazon.ask.request.Deadline;
+
+/**
+ * {@link ApiClient} refusing to start service calls once the deadline of the request expired, since their response
+ * could no longer be used.
+ */
+final class DeadlineAwareApiClient implements ApiClient {
+
+    /**
+     * Client making the service calls.
+     */
+    private final ApiClient delegate;
+
+    /**
+     * Deadline of the request.
+     */
+    private final Deadline deadline;
+
+    /**
+     * Constructor for DeadlineAwareApiClient.
+     * @param delegate client making the service calls.
+     * @param deadline deadline of the request.
+     */
+    DeadlineAwareApiClient(final ApiClient delegate, final Deadline deadline) {
+        this.delegate = delegate;
+        this.deadline = deadline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ApiClientResponse invoke(final ApiClientRequest request) {
+        deadline.check("service call to " + request.getUrl());
+        return delegate.invoke(request);
+    }
+
+}
@@ -16,11 +16,28 @@ package com.amazon.ask.attributes;
 import com.amazon.ask.model.Request;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.DeadlineExceededException;
+import com.amazon.ask.exception.PersistenceConflictException;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.request.Deadline;
+import com.amazon.ask.util.impl.ObjectMapperFactory;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BinaryOperator;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -53,6 +70,11 @@ public class AttributesManager {
      */
     private static Logger logger = getLogger(AttributesManager.class);
 
+    /**
+     * Maximum number of times a conflicting save is merged and retried.
+     */
+    private static final int MAX_MERGE_RETRIES = 3;
+
     /**
      * Request envelope object which encapsulates Request, Session, context and the current version.
      */
@@ -83,14 +105,74 @@ public class AttributesManager {
      */
     protected boolean persistenceAttributesSet;
 
+    /**
+     * Snapshot of the persistent attributes as last retrieved from or saved to the persistence layer, used to skip
+     * saves when nothing changed. Null if no snapshot could be taken.
+     */
+    protected JsonNode persistentAttributesSnapshot;
+
+    /**
+     * Check to see if persistence attributes exist in the persistence layer, partial updates are only made to
+     * existing attributes.
+     */
+    protected boolean persistentAttributesStored;
+
+    /**
+     * Check to see if persistence attributes were retrieved from a {@link VersionedPersistenceAdapter}, saves are then
+     * conditional on {@link #persistentAttributesVersion}.
+     */
+    protected boolean persistentAttributesVersioned;
+
+    /**
+     * Version of the persistence attributes as last retrieved from or saved to the persistence layer.
+     */
+    protected Long persistentAttributesVersion;
+
+    /**
+     * In flight retrieval of the persistence attributes started by a {@link PersistentAttributesPrefetcher}, joined on
+     * first access. Null if attributes were not prefetched.
+     */
+    protected CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes;
+
+    /**
+     * Deadline of the request, after which no persistence operation is started. Null if the request has no deadline.
+     */
+    protected final Deadline deadline;
+
     /**
      * Constructor for AttributesManager.
      * @param persistenceAdapter Adapter layer used to persist Skill data.
      * @param requestEnvelope Request envelope object which encapsulates Request, Session, context and the current version.
      */
     protected AttributesManager(final PersistenceAdapter persistenceAdapter, final RequestEnvelope requestEnvelope) {
+        this(persistenceAdapter, requestEnvelope, null);
+    }
+
+    /**
+     * Constructor for AttributesManager.
+     * @param persistenceAdapter Adapter layer used to persist Skill data.
+     * @param requestEnvelope Request envelope object which encapsulates Request, Session, context and the current version.
+     * @param prefetchedPersistentAttributes In flight retrieval of the persistence attributes, or null.
+     */
+    protected AttributesManager(final PersistenceAdapter persistenceAdapter, final RequestEnvelope requestEnvelope,
+                                final CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes) {
+        this(persistenceAdapter, requestEnvelope, prefetchedPersistentAttributes, null);
+    }
+
+    /**
+     * Constructor for AttributesManager.
+     * @param persistenceAdapter Adapter layer used to persist Skill data.
+     * @param requestEnvelope Request envelope object which encapsulates Request, Session, context and the current version.
+     * @param prefetchedPersistentAttributes In flight retrieval of the persistence attributes, or null.
+     * @param deadline Deadline of the request, or null.
+     */
+    protected AttributesManager(final PersistenceAdapter persistenceAdapter, final RequestEnvelope requestEnvelope,
+                                final CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes,
+                                final Deadline deadline) {
+        this.deadline = deadline;
         this.persistenceAdapter = persistenceAdapter;
         this.requestEnvelope = requestEnvelope;
+        this.prefetchedPersistentAttributes = prefetchedPersistentAttributes;
         this.requestAttributes = new HashMap<>();
 
         if (requestEnvelope.getSession() != null) {
@@ -153,7 +235,25 @@ public class AttributesManager {
             throw new IllegalStateException("Attempting to read persistence attributes without configured persistence adapter");
         }
         if (!persistenceAttributesSet) {
-            Optional<Map<String, Object>> retrievedAttributes = persistenceAdapter.getAttributes(requestEnvelope);
+            Optional<Map<String, Object>> retrievedAttributes;
+            boolean versioned = persistenceAdapter instanceof VersionedPersistenceAdapter
+                    && ((VersionedPersistenceAdapter) persistenceAdapter).isVersioned();
+            if (prefetchedPersistentAttributes != null) {
+                Optional<VersionedAttributes> prefetchedAttributes = joinPrefetchedPersistentAttributes();
+                retrievedAttributes = prefetchedAttributes.map(VersionedAttributes::getAttributes);
+                persistentAttributesVersion = prefetchedAttributes.map(VersionedAttributes::getVersion).orElse(null);
+                persistentAttributesVersioned = versioned;
+            } else if (versioned) {
+                checkDeadline("retrieving persistence attributes");
+                Optional<VersionedAttributes> versionedAttributes =
+                        ((VersionedPersistenceAdapter) persistenceAdapter).getVersionedAttributes(requestEnvelope);
+                retrievedAttributes = versionedAttributes.map(VersionedAttributes::getAttributes);
+                persistentAttributesVersion = versionedAttributes.map(VersionedAttributes::getVersion).orElse(null);
+                persistentAttributesVersioned = true;
+            } else {
+                checkDeadline("retrieving persistence attributes");
+                retrievedAttributes = persistenceAdapter.getAttributes(requestEnvelope);
+            }
             if (retrievedAttributes.isPresent()) {
                 logger.debug("[{}] Found existing persistence attributes", request.getRequestId());
                 persistentAttributes = retrievedAttributes.get();
@@ -162,10 +262,49 @@ public class AttributesManager {
                 persistentAttributes = new HashMap<>();
             }
             persistenceAttributesSet = true;
+            persistentAttributesSnapshot = snapshot(persistentAttributes);
+            persistentAttributesStored = retrievedAttributes.isPresent();
         }
         return persistentAttributes;
     }
 
+    /**
+     * Waits for the prefetched persistence attributes, at most until the deadline of the request, rethrowing a failed
+     * retrieval as it would have been thrown by the persistence adapter.
+     * @return prefetched attributes.
+     * @throws PersistenceException if the attributes could not be retrieved.
+     * @throws DeadlineExceededException if the attributes were not retrieved before the deadline of the request.
+     */
+    private Optional<VersionedAttributes> joinPrefetchedPersistentAttributes() {
+        CompletableFuture<Optional<VersionedAttributes>> prefetched = prefetchedPersistentAttributes;
+        prefetchedPersistentAttributes = null;
+        try {
+            return deadline != null
+                    ? prefetched.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS) : prefetched.join();
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PersistenceException("Failed to retrieve persistence attributes", e.getCause());
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Deadline exceeded while retrieving persistence attributes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while retrieving persistence attributes", e);
+        }
+    }
+
+    /**
+     * Fails a persistence operation about to start if the deadline of the request expired.
+     * @param operation description of the operation.
+     * @throws DeadlineExceededException if the deadline of the request expired.
+     */
+    private void checkDeadline(final String operation) {
+        if (deadline != null) {
+            deadline.check(operation);
+        }
+    }
+
     /**
      * Sets persistent attributes. The attributes set using this method will replace any existing persistent attributes,
      * but the changes will not be persisted back until {@link #savePersistentAttributes()} is called. Use this method
@@ -206,18 +345,130 @@ public class AttributesManager {
     /**
      * Saves the current persistent attribute state back to the persistence layer. This method should only be called
      * when all attribute modifications are complete, and generally should only be called once since to avoid
-     * unnecessary writes to the persistence tier. An exception is thrown if this method is called when a
-     * {@link PersistenceAdapter} is not configured on the SDK.
+     * unnecessary writes to the persistence tier. If the attributes are unchanged since they were retrieved or last
+     * saved no write is made, if only some top level attributes changed only those are passed to
+     * {@link PersistenceAdapter#updateAttributes(RequestEnvelope, Map, Set)}. If the attributes were retrieved from a
+     * {@link VersionedPersistenceAdapter} the save fails if they were modified concurrently since. An exception is
+     * thrown if this method is called when a {@link PersistenceAdapter} is not configured on the SDK.
      *
      * @throws IllegalStateException if no {@link PersistenceAdapter} is configured
+     * @throws PersistenceConflictException if the attributes were modified concurrently
      */
     public void savePersistentAttributes() {
+        savePersistentAttributes(null);
+    }
+
+    /**
+     * Saves the current persistent attribute state back to the persistence layer like {@link #savePersistentAttributes()},
+     * resolving conflicting concurrent modifications with a merge function. If the attributes were retrieved from a
+     * {@link VersionedPersistenceAdapter} and modified concurrently since, the latest stored attributes are retrieved,
+     * merged with the current attributes and the save is retried, up to {@value #MAX_MERGE_RETRIES} times. The merged
+     * attributes replace the current persistent attributes.
+     *
+     * @param mergeFunction function receiving the current and the latest stored attributes, returning the attributes
+     *                      to save, or null to fail on conflicts
+     * @throws IllegalStateException if no {@link PersistenceAdapter} is configured
+     * @throws PersistenceConflictException if the attributes were still modified concurrently after all retries
+     */
+    public void savePersistentAttributes(final BinaryOperator<Map<String, Object>> mergeFunction) {
         if (persistenceAdapter == null) {
             throw new IllegalStateException("Attempting to save persistence attributes without configured persistence adapter");
         }
-        if (persistenceAttributesSet) {
+        if (!persistenceAttributesSet) {
+            return;
+        }
+        JsonNode current = snapshot(persistentAttributes);
+        Set<String> changedKeys = persistentAttributesSnapshot != null && current != null
+                ? changedKeys(persistentAttributesSnapshot, current) : null;
+        if (changedKeys != null && changedKeys.isEmpty()) {
+            logger.debug("[{}] Persistence attributes unchanged, skipping save", requestEnvelope.getRequest().getRequestId());
+            return;
+        }
+        checkDeadline("saving persistence attributes");
+        if (persistentAttributesVersioned) {
+            saveVersionedPersistentAttributes(mergeFunction);
+            current = snapshot(persistentAttributes);
+        } else if (changedKeys != null) {
+            if (persistentAttributesStored) {
+                persistenceAdapter.updateAttributes(requestEnvelope, persistentAttributes, changedKeys);
+            } else {
+                persistenceAdapter.saveAttributes(requestEnvelope, persistentAttributes);
+            }
+        } else {
             persistenceAdapter.saveAttributes(requestEnvelope, persistentAttributes);
         }
+        persistentAttributesSnapshot = current;
+        persistentAttributesStored = true;
+    }
+
+    /**
+     * Saves the persistent attributes conditional on their version, merging and retrying on conflicts if a merge
+     * function is given.
+     * @param mergeFunction function merging the current and the latest stored attributes, or null.
+     * @throws PersistenceConflictException if the attributes were still modified concurrently after all retries.
+     */
+    private void saveVersionedPersistentAttributes(final BinaryOperator<Map<String, Object>> mergeFunction) {
+        VersionedPersistenceAdapter versionedAdapter = (VersionedPersistenceAdapter) persistenceAdapter;
+        int retries = 0;
+        while (true) {
+            try {
+                persistentAttributesVersion = versionedAdapter.saveVersionedAttributes(requestEnvelope, persistentAttributes,
+                        persistentAttributesVersion);
+                return;
+            } catch (PersistenceConflictException e) {
+                if (mergeFunction == null || retries++ >= MAX_MERGE_RETRIES) {
+                    throw e;
+                }
+                logger.debug("[{}] Persistence attributes modified concurrently, merging and retrying save",
+                        requestEnvelope.getRequest().getRequestId());
+                Optional<VersionedAttributes> latest = versionedAdapter.getVersionedAttributes(requestEnvelope);
+                persistentAttributes = mergeFunction.apply(persistentAttributes,
+                        latest.map(VersionedAttributes::getAttributes).orElseGet(HashMap::new));
+                persistentAttributesVersion = latest.map(VersionedAttributes::getVersion).orElse(null);
+            }
+        }
+    }
+
+    /**
+     * Takes a deep snapshot of the given attributes.
+     * @param attributes attributes to snapshot.
+     * @return snapshot of the attributes, or null if they cannot be represented as JSON.
+     */
+    private static JsonNode snapshot(final Map<String, Object> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        try {
+            return ObjectMapperFactory.getMapper().valueToTree(attributes);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Unable to snapshot persistence attributes, changes will not be tracked: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Finds the top level keys which were added, modified or removed between two snapshots.
+     * @param previous previous snapshot.
+     * @param current current snapshot.
+     * @return changed top level keys.
+     */
+    private static Set<String> changedKeys(final JsonNode previous, final JsonNode current) {
+        Set<String> changedKeys = new HashSet<>();
+        Iterator<Map.Entry<String, JsonNode>> currentFields = current.fields();
+        while (currentFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = currentFields.next();
+            if (!field.getValue().equals(previous.get(field.getKey()))) {
+                changedKeys.add(field.getKey());
+            }
+        }
+        Iterator<String> previousFieldNames = previous.fieldNames();
+        while (previousFieldNames.hasNext()) {
+            String fieldName = previousFieldNames.next();
+            if (!current.has(fieldName)) {
+                changedKeys.add(fieldName);
+            }
+        }
+        return changedKeys;
     }
 
     /**
@@ -230,9 +481,15 @@ public class AttributesManager {
         if (persistenceAdapter == null) {
             throw new IllegalStateException("Attempting to delete persistence attributes without a configured persistence adapter");
         }
+        checkDeadline("deleting persistence attributes");
         persistenceAdapter.deleteAttributes(requestEnvelope);
         persistentAttributes = null;
         persistenceAttributesSet = false;
+        persistentAttributesSnapshot = null;
+        persistentAttributesStored = false;
+        persistentAttributesVersioned = false;
+        persistentAttributesVersion = null;
+        prefetchedPersistentAttributes = null;
     }
 
     /**
@@ -250,6 +507,16 @@ public class AttributesManager {
          */
         private RequestEnvelope requestEnvelope;
 
+        /**
+         * In flight retrieval of the persistence attributes.
+         */
+        private CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes;
+
+        /**
+         * Deadline of the request.
+         */
+        private Deadline deadline;
+
         /**
          * Prevent instantiation.
          */
@@ -275,12 +542,33 @@ public class AttributesManager {
             return this;
         }
 
+        /**
+         * Adds an in flight retrieval of the persistence attributes, started by a
+         * {@link PersistentAttributesPrefetcher}, to AttributesManager.
+         * @param prefetchedPersistentAttributes future completed with the stored persistence attributes.
+         * @return {@link Builder}.
+         */
+        public Builder withPrefetchedPersistentAttributes(final CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes) {
+            this.prefetchedPersistentAttributes = prefetchedPersistentAttributes;
+            return this;
+        }
+
+        /**
+         * Adds the deadline of the request to AttributesManager, after which no persistence operation is started.
+         * @param deadline deadline of the request.
+         * @return {@link Builder}.
+         */
+        public Builder withDeadline(final Deadline deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
         /**
          * Builds an instance of AttributesManager with the provided configuration.
          * @return {@link AttributesManager}.
          */
         public AttributesManager build() {
-            return new AttributesManager(persistenceAdapter, requestEnvelope);
+            return new AttributesManager(persistenceAdapter, requestEnvelope, prefetchedPersistentAttributes, deadline);
         }
     }
 }
@@ -0,0 +1,199 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes;
+
+import com.amazon.ask.attributes.persistence.AsyncPersistenceAdapter;
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.util.ValidationUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Starts retrieving persistent attributes as soon as a request envelope is unmarshalled, so the read overlaps request
+ * mapping and interceptors instead of starting when a handler first calls
+ * {@link AttributesManager#getPersistentAttributes()}. The {@link AttributesManager} joins the in flight read on first
+ * access, a result which is never accessed is discarded.
+ *
+ * Reads are made with {@link AsyncPersistenceAdapter#getAttributesAsync(RequestEnvelope)} if the adapter supports it,
+ * otherwise the blocking read is run on the configured executor. A prefetch policy selects the requests worth
+ * prefetching for, such as requests routed to handlers which use persistent attributes. If the executor rejects a
+ * read, such as when all its threads are busy with a slow persistence layer, attributes are not prefetched and are
+ * read on first access instead.
+ */
+public final class PersistentAttributesPrefetcher {
+
+    /**
+     * Default maximum number of threads of the default executor.
+     */
+    public static final int DEFAULT_MAX_PREFETCH_THREADS = 64;
+
+    /**
+     * Time in seconds an idle thread of the default executor is kept.
+     */
+    private static final long PREFETCH_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Default executor running blocking reads, shared by all prefetchers. Threads are created on demand, up to
+     * {@link #DEFAULT_MAX_PREFETCH_THREADS}, and are daemon threads, so they don't prevent the JVM from exiting.
+     * Reads are not queued: once all threads are busy, reads are rejected and made on first access instead.
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = new ThreadPoolExecutor(0, DEFAULT_MAX_PREFETCH_THREADS,
+            PREFETCH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), new PrefetchThreadFactory());
+
+    /**
+     * Selects the requests persistent attributes are prefetched for.
+     */
+    private final Predicate<RequestEnvelope> prefetchPolicy;
+
+    /**
+     * Executor running blocking reads.
+     */
+    private final Executor executor;
+
+    /**
+     * Private constructor to build an instance of {@link PersistentAttributesPrefetcher}.
+     * @param builder instance of {@link Builder}.
+     */
+    private PersistentAttributesPrefetcher(final Builder builder) {
+        this.prefetchPolicy = ValidationUtils.assertNotNull(builder.prefetchPolicy, "prefetch policy");
+        this.executor = ValidationUtils.assertNotNull(builder.executor, "executor");
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts retrieving the persistent attributes of a request, if the prefetch policy selects it. Attributes are
+     * retrieved with their version if the adapter is a versioned {@link VersionedPersistenceAdapter}, other adapters
+     * return attributes without a version.
+     * @param persistenceAdapter adapter to retrieve attributes from, may be null.
+     * @param requestEnvelope request envelope to retrieve attributes for.
+     * @return future completed with the stored attributes, or null if attributes are not prefetched, including when
+     *         the executor rejects the read.
+     */
+    public CompletableFuture<Optional<VersionedAttributes>> prefetch(final PersistenceAdapter persistenceAdapter,
+                                                                     final RequestEnvelope requestEnvelope) {
+        if (persistenceAdapter == null || !prefetchPolicy.test(requestEnvelope)) {
+            return null;
+        }
+        try {
+            if (persistenceAdapter instanceof VersionedPersistenceAdapter
+                    && ((VersionedPersistenceAdapter) persistenceAdapter).isVersioned()) {
+                VersionedPersistenceAdapter versionedAdapter = (VersionedPersistenceAdapter) persistenceAdapter;
+                return CompletableFuture.supplyAsync(() -> versionedAdapter.getVersionedAttributes(requestEnvelope), executor);
+            }
+            if (persistenceAdapter instanceof AsyncPersistenceAdapter) {
+                return ((AsyncPersistenceAdapter) persistenceAdapter).getAttributesAsync(requestEnvelope)
+                        .thenApply(attributes -> attributes.map(value -> new VersionedAttributes(value, null)));
+            }
+            return CompletableFuture.supplyAsync(() -> persistenceAdapter.getAttributes(requestEnvelope)
+                    .map(attributes -> new VersionedAttributes(attributes, null)), executor);
+        } catch (RejectedExecutionException e) {
+            // read lazily by the attributes manager on first access
+            return null;
+        }
+    }
+
+    /**
+     * Creates the daemon threads of the default executor.
+     */
+    private static final class PrefetchThreadFactory implements ThreadFactory {
+        /**
+         * Number of threads created.
+         */
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "ask-sdk-attributes-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Static builder class to build an instance of {@link PersistentAttributesPrefetcher}.
+     */
+    public static final class Builder {
+
+        /**
+         * Selects the requests persistent attributes are prefetched for.
+         */
+        private Predicate<RequestEnvelope> prefetchPolicy = requestEnvelope -> true;
+
+        /**
+         * Executor running blocking reads.
+         */
+        private Executor executor = DEFAULT_EXECUTOR;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Optional policy selecting the requests persistent attributes are prefetched for. By default attributes are
+         * prefetched for every request.
+         * @param prefetchPolicy predicate returning true for requests to prefetch attributes for
+         * @return {@link Builder}
+         */
+        public Builder withPrefetchPolicy(final Predicate<RequestEnvelope> prefetchPolicy) {
+            this.prefetchPolicy = prefetchPolicy;
+            return this;
+        }
+
+        /**
+         * Optional executor running blocking reads. By default a shared pool of up to
+         * {@value PersistentAttributesPrefetcher#DEFAULT_MAX_PREFETCH_THREADS} daemon threads is used. The executor
+         * should be bounded, reads it rejects are made on first access instead.
+         * @param executor executor running blocking reads
+         * @return {@link Builder}
+         */
+        public Builder withExecutor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of PersistentAttributesPrefetcher.
+         * @return {@link PersistentAttributesPrefetcher}.
+         */
+        public PersistentAttributesPrefetcher build() {
+            return new PersistentAttributesPrefetcher(this);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence adapter with non-blocking variants of the attribute operations. Calls return immediately with a
+ * {@link CompletableFuture}, allowing attribute retrieval to start as soon as a request is received and saves to
+ * overlap with other work. Futures complete exceptionally with a {@link PersistenceException} if the operation fails.
+ */
+public interface AsyncPersistenceAdapter extends PersistenceAdapter {
+
+    /**
+     * Retrieves attributes from persistence without blocking.
+     *
+     * @param envelope the current request envelope
+     * @return future completed with existing attributes if they exist, or empty if not
+     */
+    CompletableFuture<Optional<Map<String, Object>>> getAttributesAsync(RequestEnvelope envelope);
+
+    /**
+     * Saves attributes to persistence without blocking.
+     *
+     * @param envelope the current request envelope
+     * @param attributes attributes to persist
+     * @return future completed once attributes are saved
+     */
+    CompletableFuture<Void> saveAttributesAsync(RequestEnvelope envelope, Map<String, Object> attributes);
+
+    /**
+     * Deletes attributes from persistence without blocking.
+     *
+     * @param envelope the current request envelope
+     * @return future completed once attributes are deleted
+     */
+    CompletableFuture<Void> deleteAttributesAsync(RequestEnvelope envelope);
+
+}
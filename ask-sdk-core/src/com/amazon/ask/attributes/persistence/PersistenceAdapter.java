@@ -13,8 +13,12 @@
 
 package com.amazon.ask.attributes.persistence;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.exception.PersistenceException;
 
@@ -35,6 +39,24 @@ public interface PersistenceAdapter {
      */
     Optional<Map<String, Object>> getAttributes(RequestEnvelope envelope) throws PersistenceException;
 
+    /**
+     * Retrieves attributes for several requests from persistence. Adapters backed by a store that supports batched
+     * reads should override this method to retrieve all attributes in as few calls as possible, by default attributes
+     * are retrieved one request at a time.
+     *
+     * @param envelopes request envelopes to retrieve attributes for
+     * @return list containing an {@link Optional} with existing attributes, or empty if none exist, for each request
+     *         envelope in the iteration order of the given collection
+     * @throws PersistenceException if attributes could not be retrieved due to an error
+     */
+    default List<Optional<Map<String, Object>>> batchGetAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        List<Optional<Map<String, Object>>> attributes = new ArrayList<>(envelopes.size());
+        for (RequestEnvelope envelope : envelopes) {
+            attributes.add(getAttributes(envelope));
+        }
+        return attributes;
+    }
+
     /**
      * Saves attributes to persistence. A {@link RequestEnvelope} is passed to the adapter so current request parameters
      * can be used as an attribute key.
@@ -45,6 +67,21 @@ public interface PersistenceAdapter {
      */
     void saveAttributes(RequestEnvelope envelope, Map<String, Object> attributes) throws PersistenceException;
 
+    /**
+     * Saves attributes to persistence when only some top level attributes changed since they were last retrieved.
+     * Adapters backed by a store that supports partial updates can override this method to only write the changed
+     * keys, by default all attributes are saved with {@link #saveAttributes(RequestEnvelope, Map)}.
+     *
+     * @param envelope the current request envelope
+     * @param attributes attributes to persist
+     * @param changedKeys top level keys which were added, modified or removed, removed keys are absent from attributes
+     * @throws PersistenceException if attributes could not be saved due to an error
+     */
+    default void updateAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes,
+                                  final Set<String> changedKeys) throws PersistenceException {
+        saveAttributes(envelope, attributes);
+    }
+
     /**
      * Deletes attributes from persistence. A {@link RequestEnvelope} is passed to the adapter so current request parameters
      * can be used as an attribute key.
@@ -54,4 +91,18 @@ public interface PersistenceAdapter {
      */
     void deleteAttributes(RequestEnvelope envelope) throws PersistenceException;
 
+    /**
+     * Deletes attributes for several requests from persistence. Adapters backed by a store that supports batched
+     * writes should override this method to delete all attributes in as few calls as possible, by default attributes
+     * are deleted one request at a time.
+     *
+     * @param envelopes request envelopes to delete attributes for
+     * @throws PersistenceException if attributes could not be deleted due to an error
+     */
+    default void batchDeleteAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        for (RequestEnvelope envelope : envelopes) {
+            deleteAttributes(envelope);
+        }
+    }
+
 }
@@ -0,0 +1,60 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence;
+
+import java.util.Map;
+
+/**
+ * Persistent attributes together with the version they were stored with.
+ */
+public final class VersionedAttributes {
+
+    /**
+     * Stored attributes.
+     */
+    private final Map<String, Object> attributes;
+
+    /**
+     * Version of the stored attributes, null if they were stored without a version.
+     */
+    private final Long version;
+
+    /**
+     * Constructor for VersionedAttributes.
+     * @param attributes stored attributes.
+     * @param version version of the stored attributes, null if they were stored without a version.
+     */
+    public VersionedAttributes(final Map<String, Object> attributes, final Long version) {
+        this.attributes = attributes;
+        this.version = version;
+    }
+
+    /**
+     * Returns the stored attributes.
+     * @return stored attributes.
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Returns the version of the stored attributes.
+     * @return version, or null if the attributes were stored without a version.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence;
+
+import com.amazon.ask.exception.PersistenceConflictException;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistence adapter supporting optimistic concurrency. Attributes are stored with a version which is incremented
+ * on every save, and a versioned save only succeeds if the stored version still matches the version the attributes
+ * were retrieved with. Concurrent requests for the same key can then detect lost updates instead of the last write
+ * silently winning.
+ *
+ * Persistent attributes of the {@link com.amazon.ask.attributes.AttributesManager} are read and written through this
+ * interface when the configured adapter implements it and {@link #isVersioned()} returns true.
+ */
+public interface VersionedPersistenceAdapter extends PersistenceAdapter {
+
+    /**
+     * Checks whether attributes are versioned, adapters with optional versioning return false when it is disabled
+     * and attributes are then read and written through the {@link PersistenceAdapter} methods.
+     *
+     * @return true if attributes are versioned
+     */
+    default boolean isVersioned() {
+        return true;
+    }
+
+    /**
+     * Retrieves attributes together with their version.
+     *
+     * @param envelope the current request envelope
+     * @return {@link Optional} containing existing attributes and their version if they exist, or empty if not
+     * @throws PersistenceException if attributes could not be retrieved due to an error
+     */
+    Optional<VersionedAttributes> getVersionedAttributes(RequestEnvelope envelope) throws PersistenceException;
+
+    /**
+     * Saves attributes if the stored version matches the expected version, incrementing the version.
+     *
+     * @param envelope the current request envelope
+     * @param attributes attributes to persist
+     * @param expectedVersion version the attributes were retrieved with, null if they did not exist or were stored
+     *                        without a version
+     * @return new version of the stored attributes, null if versioning is disabled on the adapter
+     * @throws PersistenceConflictException if the stored version does not match the expected version
+     * @throws PersistenceException if attributes could not be saved due to an error
+     */
+    Long saveVersionedAttributes(RequestEnvelope envelope, Map<String, Object> attributes, Long expectedVersion)
+            throws PersistenceException;
+
+}
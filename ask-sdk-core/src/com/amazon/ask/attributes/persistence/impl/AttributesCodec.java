@@ -0,0 +1,42 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+
+import java.util.Map;
+
+/**
+ * Encodes persistent attributes into a compact binary representation for persistence adapters storing attributes
+ * as a single binary value, and decodes them back. Built in codecs are provided by {@link AttributesCodecs}.
+ */
+public interface AttributesCodec {
+
+    /**
+     * Encodes attributes.
+     * @param attributes attributes to encode.
+     * @return encoded attributes.
+     * @throws PersistenceException if attributes could not be encoded.
+     */
+    byte[] encode(Map<String, Object> attributes) throws PersistenceException;
+
+    /**
+     * Decodes attributes previously encoded by this codec.
+     * @param encoded encoded attributes.
+     * @return decoded attributes.
+     * @throws PersistenceException if attributes could not be decoded.
+     */
+    Map<String, Object> decode(byte[] encoded) throws PersistenceException;
+
+}
@@ -0,0 +1,205 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.util.ValidationUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Provides {@link AttributesCodec} implementations for storing attributes as a single binary value.
+ */
+public final class AttributesCodecs {
+
+    /**
+     * Default size in bytes from which encoded attributes are compressed.
+     */
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    /**
+     * First byte of GZIP data. It is not a well formed first byte of CBOR data, so compressed and uncompressed
+     * values can be told apart.
+     */
+    private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+
+    /**
+     * Second byte of GZIP data.
+     */
+    private static final int GZIP_MAGIC_SECOND_BYTE = 0x8b;
+
+    /**
+     * Buffer size used when decompressing.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Type of decoded attributes.
+     */
+    private static final TypeReference<LinkedHashMap<String, Object>> ATTRIBUTES_TYPE =
+            new TypeReference<LinkedHashMap<String, Object>>() { };
+
+    /** Prevent instantiation. */
+    private AttributesCodecs() { }
+
+    /**
+     * Produces a codec encoding attributes as CBOR, a binary JSON representation. Decoded numbers are returned
+     * as {@link BigDecimal} and collections as {@link List}, matching attributes read from the map format except
+     * that sets are returned as lists. Requires {@code jackson-dataformat-cbor}, an optional dependency of
+     * {@code ask-sdk-core} which the persistence adapter modules supporting codecs declare.
+     * @return CBOR attributes codec
+     */
+    public static AttributesCodec cbor() {
+        return new AttributesCodec() {
+            @Override
+            public byte[] encode(final Map<String, Object> attributes) {
+                try {
+                    return CborMapperHolder.MAPPER.writeValueAsBytes(attributes);
+                } catch (IOException e) {
+                    throw new PersistenceException("Failed to encode attributes as CBOR", e);
+                }
+            }
+
+            @Override
+            public Map<String, Object> decode(final byte[] encoded) {
+                try {
+                    Map<String, Object> attributes = CborMapperHolder.MAPPER.readValue(encoded, ATTRIBUTES_TYPE);
+                    attributes.replaceAll((key, value) -> normalize(value));
+                    return attributes;
+                } catch (IOException e) {
+                    throw new PersistenceException("Failed to decode CBOR attributes", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Produces a codec GZIP compressing the output of the given codec once it is at least
+     * {@value #DEFAULT_COMPRESSION_THRESHOLD} bytes.
+     * @param codec codec producing the data to compress.
+     * @return compressing attributes codec
+     */
+    public static AttributesCodec compressed(final AttributesCodec codec) {
+        return compressed(codec, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Produces a codec GZIP compressing the output of the given codec once it reaches the given size. Compressed
+     * and uncompressed values are both decoded, so the threshold can be changed and compression can be enabled for
+     * a store already holding values of the given codec.
+     * @param codec codec producing the data to compress, must not produce data starting with the GZIP header.
+     * @param threshold size in bytes from which encoded attributes are compressed.
+     * @return compressing attributes codec
+     */
+    public static AttributesCodec compressed(final AttributesCodec codec, final int threshold) {
+        ValidationUtils.assertNotNull(codec, "codec");
+        return new AttributesCodec() {
+            @Override
+            public byte[] encode(final Map<String, Object> attributes) {
+                byte[] encoded = codec.encode(attributes);
+                if (encoded.length < threshold) {
+                    return encoded;
+                }
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(encoded.length / 2);
+                try (OutputStream out = new GZIPOutputStream(compressed)) {
+                    out.write(encoded);
+                } catch (IOException e) {
+                    throw new PersistenceException("Failed to compress attributes", e);
+                }
+                return compressed.toByteArray();
+            }
+
+            @Override
+            public Map<String, Object> decode(final byte[] encoded) {
+                if (!isGzip(encoded)) {
+                    return codec.decode(encoded);
+                }
+                ByteArrayOutputStream decompressed = new ByteArrayOutputStream(encoded.length * 4);
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        decompressed.write(buffer, 0, read);
+                    }
+                } catch (IOException e) {
+                    throw new PersistenceException("Failed to decompress attributes", e);
+                }
+                return codec.decode(decompressed.toByteArray());
+            }
+        };
+    }
+
+    /**
+     * Checks whether data starts with the GZIP header.
+     * @param data data to check.
+     * @return true if the data is GZIP compressed.
+     */
+    private static boolean isGzip(final byte[] data) {
+        return data.length > 1 && (data[0] & 0xff) == GZIP_MAGIC_FIRST_BYTE && (data[1] & 0xff) == GZIP_MAGIC_SECOND_BYTE;
+    }
+
+    /**
+     * Converts decoded numbers to {@link BigDecimal} so attributes have the same types as in the map format.
+     * @param value decoded value.
+     * @return normalized value.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object normalize(final Object value) {
+        if (value instanceof BigDecimal) {
+            return value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        } else if (value instanceof Map) {
+            ((Map<String, Object>) value).replaceAll((key, nested) -> normalize(nested));
+            return value;
+        } else if (value instanceof Collection) {
+            List<Object> list = new ArrayList<>();
+            ((Collection<Object>) value).forEach(element -> list.add(normalize(element)));
+            return list;
+        }
+        return value;
+    }
+
+    /**
+     * Holds the CBOR mapper, so the optional CBOR dependency is only loaded once a CBOR codec is used.
+     */
+    private static final class CborMapperHolder {
+        /**
+         * Mapper writing and reading CBOR.
+         */
+        private static final ObjectMapper MAPPER = new ObjectMapper(new CBORFactory());
+
+        /** Prevent instantiation. */
+        private CborMapperHolder() { }
+    }
+
+}
@@ -0,0 +1,820 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.Session;
+import com.amazon.ask.util.ValidationUtils;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link PersistenceAdapter} decorator which keeps a bounded in-process cache of attributes in front of another
+ * adapter, saving a read from the persistence layer for consecutive requests of the same user on a warm container.
+ *
+ * Cached attributes are served for at most the configured time to live, which bounds how stale attributes written by
+ * other containers can be. With session aware invalidation, which is enabled by default, attributes are only served
+ * from cache to requests of the same session that loaded or saved them, and are always reloaded at the start of a new
+ * session.
+ *
+ * Saves are written through to the wrapped adapter by default. When a write behind delay is configured, saves are
+ * queued instead and saves for the same key within the delay are coalesced into a single write. Queued saves are
+ * lost if the process terminates before they are flushed, call {@link #close()} to flush them on shutdown. A queued save
+ * which cannot be written is retried up to the configured number of attempts, after which the failure is thrown by the
+ * next read or save of the same key. Deletes wait for an in-flight write of the same key, so they are never overwritten
+ * by it.
+ *
+ * Cached and queued attributes carry no version, so a {@link VersionedPersistenceAdapter} with versioning enabled
+ * can't be wrapped: optimistic concurrency would silently be turned off.
+ */
+public class CachingPersistenceAdapter implements PersistenceAdapter, Closeable {
+
+    /**
+     * Logger instance to log information for debugging purposes.
+     */
+    private static final Logger LOGGER = getLogger(CachingPersistenceAdapter.class);
+
+    /**
+     * Default maximum number of cached entries.
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /**
+     * Default time to live of cached entries in milliseconds.
+     */
+    private static final long DEFAULT_TIME_TO_LIVE_MILLIS = 30000L;
+
+    /**
+     * Default value for session aware invalidation.
+     */
+    private static final boolean DEFAULT_SESSION_AWARE_INVALIDATION = true;
+
+    /**
+     * Default write behind delay, saves are written through.
+     */
+    private static final long DEFAULT_WRITE_BEHIND_DELAY_MILLIS = 0L;
+
+    /**
+     * Default number of attempts to write a queued save.
+     */
+    private static final int DEFAULT_MAX_FLUSH_ATTEMPTS = 3;
+
+    /**
+     * Wrapped persistence adapter.
+     */
+    protected final PersistenceAdapter delegate;
+
+    /**
+     * Generates the cache key of a request, should match the key used by the wrapped adapter.
+     */
+    protected final Function<RequestEnvelope, String> keyGenerator;
+
+    /**
+     * Maximum number of cached entries.
+     */
+    protected final int maxEntries;
+
+    /**
+     * Time to live of cached entries in milliseconds.
+     */
+    protected final long timeToLiveMillis;
+
+    /**
+     * When set to true, entries are only served to requests of the session that cached them.
+     */
+    protected final boolean sessionAwareInvalidation;
+
+    /**
+     * Delay in milliseconds saves are queued for, 0 if saves are written through.
+     */
+    protected final long writeBehindDelayMillis;
+
+    /**
+     * Number of attempts to write a queued save before the failure is reported.
+     */
+    protected final int maxFlushAttempts;
+
+    /**
+     * Cached entries in access order, guarded by this instance.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Queued saves by key, guarded by this instance.
+     */
+    private final Map<String, PendingWrite> pendingWrites;
+
+    /**
+     * Keys whose queued save is being written to the wrapped adapter, guarded by this instance.
+     */
+    private final Set<String> flushingKeys;
+
+    /**
+     * Failures of queued saves by key, reported by the next read or save of the key, guarded by this instance.
+     */
+    private final Map<String, PersistenceException> failedWrites;
+
+    /**
+     * Set once the adapter is closing, queued saves are then retried by {@link #close()} instead of the scheduler.
+     */
+    private boolean closing;
+
+    /**
+     * Scheduler flushing queued saves, null if saves are written through.
+     */
+    private final ScheduledExecutorService writeBehindScheduler;
+
+    /**
+     * Constructor for CachingPersistenceAdapter.
+     * @param builder instance of {@link Builder}.
+     */
+    protected CachingPersistenceAdapter(final Builder builder) {
+        this.delegate = ValidationUtils.assertNotNull(builder.delegate, "delegate");
+        if (delegate instanceof VersionedPersistenceAdapter && ((VersionedPersistenceAdapter) delegate).isVersioned()) {
+            throw new IllegalArgumentException("versioned persistence adapter can't be wrapped by a caching adapter");
+        }
+        this.keyGenerator = ValidationUtils.assertNotNull(builder.keyGenerator, "keyGenerator");
+        this.maxEntries = ValidationUtils.assertIsPositive(builder.maxEntries, "maxEntries");
+        this.timeToLiveMillis = builder.timeToLiveMillis;
+        this.sessionAwareInvalidation = builder.sessionAwareInvalidation;
+        this.writeBehindDelayMillis = builder.writeBehindDelayMillis;
+        this.maxFlushAttempts = ValidationUtils.assertIsPositive(builder.maxFlushAttempts, "maxFlushAttempts");
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > CachingPersistenceAdapter.this.maxEntries;
+            }
+        };
+        this.pendingWrites = new HashMap<>();
+        this.flushingKeys = new HashSet<>();
+        this.failedWrites = new HashMap<>();
+        this.writeBehindScheduler = writeBehindDelayMillis > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ask-sdk-persistence-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Static method which builds an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Retrieves attributes from a queued save or the cache if available, otherwise from the wrapped adapter.
+     * @param envelope the current request envelope.
+     * @return {@link Optional} containing existing attributes if they exist, or empty if not.
+     * @throws PersistenceException if attributes could not be retrieved due to an error, or a queued save of the same
+     * key failed.
+     */
+    @Override
+    public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        String key = keyGenerator.apply(envelope);
+        throwIfWriteFailed(key);
+        Optional<Optional<Map<String, Object>>> cached = getCached(key, envelope);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<Map<String, Object>> attributes = delegate.getAttributes(envelope);
+        cache(key, envelope, attributes.orElse(null));
+        return attributes.map(CachingPersistenceAdapter::copy);
+    }
+
+    /**
+     * Retrieves attributes for several requests, only requests without a usable cache entry are read from the
+     * wrapped adapter with a single batch call.
+     * @param envelopes request envelopes to retrieve attributes for.
+     * @return attributes for each request envelope in iteration order.
+     * @throws PersistenceException if attributes could not be retrieved due to an error, or a queued save of one of
+     * the keys failed.
+     */
+    @Override
+    public List<Optional<Map<String, Object>>> batchGetAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        List<Optional<Map<String, Object>>> results = new ArrayList<>(envelopes.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        List<RequestEnvelope> missEnvelopes = new ArrayList<>();
+        for (RequestEnvelope envelope : envelopes) {
+            String key = keyGenerator.apply(envelope);
+            throwIfWriteFailed(key);
+            Optional<Optional<Map<String, Object>>> cached = getCached(key, envelope);
+            if (!cached.isPresent()) {
+                missIndexes.add(results.size());
+                missEnvelopes.add(envelope);
+            }
+            results.add(cached.orElse(null));
+        }
+        if (!missEnvelopes.isEmpty()) {
+            List<Optional<Map<String, Object>>> loaded = delegate.batchGetAttributes(missEnvelopes);
+            for (int i = 0; i < missEnvelopes.size(); i++) {
+                RequestEnvelope envelope = missEnvelopes.get(i);
+                cache(keyGenerator.apply(envelope), envelope, loaded.get(i).orElse(null));
+                results.set(missIndexes.get(i), loaded.get(i).map(CachingPersistenceAdapter::copy));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Saves attributes to the cache, and writes them through to the wrapped adapter or queues the write.
+     * @param envelope the current request envelope.
+     * @param attributes attributes to persist.
+     * @throws PersistenceException if attributes could not be saved due to an error, or a queued save of the same key
+     * failed.
+     */
+    @Override
+    public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) throws PersistenceException {
+        write(envelope, attributes, null);
+    }
+
+    /**
+     * Saves changed attributes to the cache, and writes them through to the wrapped adapter or queues the write.
+     * Queued changes for the same key are merged.
+     * @param envelope the current request envelope.
+     * @param attributes attributes to persist.
+     * @param changedKeys top level keys which were added, modified or removed.
+     * @throws PersistenceException if attributes could not be saved due to an error, or a queued save of the same key
+     * failed.
+     */
+    @Override
+    public void updateAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes,
+                                 final Set<String> changedKeys) throws PersistenceException {
+        write(envelope, attributes, changedKeys);
+    }
+
+    /**
+     * Deletes attributes using the wrapped adapter, discarding cached attributes, queued saves and failures of queued
+     * saves. An in-flight write of the same key is waited for, so it cannot overwrite the delete.
+     * @param envelope the current request envelope.
+     * @throws PersistenceException if attributes could not be deleted due to an error.
+     */
+    @Override
+    public void deleteAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        discard(keyGenerator.apply(envelope));
+        delegate.deleteAttributes(envelope);
+    }
+
+    /**
+     * Deletes attributes for several requests using the wrapped adapter, discarding cached attributes, queued saves
+     * and failures of queued saves. In-flight writes of the same keys are waited for.
+     * @param envelopes request envelopes to delete attributes for.
+     * @throws PersistenceException if attributes could not be deleted due to an error.
+     */
+    @Override
+    public void batchDeleteAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        for (RequestEnvelope envelope : envelopes) {
+            discard(keyGenerator.apply(envelope));
+        }
+        delegate.batchDeleteAttributes(envelopes);
+    }
+
+    /**
+     * Removes the cached attributes of a request, the next read is served by the wrapped adapter.
+     * @param envelope request envelope whose attributes are invalidated.
+     */
+    public void invalidate(final RequestEnvelope envelope) {
+        String key = keyGenerator.apply(envelope);
+        synchronized (this) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Get cache size.
+     * @return number of cached entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Flushes all queued saves, retrying failed writes up to the configured number of attempts, and stops the write
+     * behind scheduler.
+     * @throws PersistenceException if any queued save could not be written.
+     */
+    @Override
+    public void close() throws PersistenceException {
+        synchronized (this) {
+            closing = true;
+        }
+        while (true) {
+            List<String> keys;
+            synchronized (this) {
+                keys = new ArrayList<>(pendingWrites.keySet());
+            }
+            if (keys.isEmpty()) {
+                break;
+            }
+            keys.forEach(this::flush);
+        }
+        if (writeBehindScheduler != null) {
+            writeBehindScheduler.shutdown();
+        }
+        synchronized (this) {
+            if (!failedWrites.isEmpty()) {
+                PersistenceException failure = failedWrites.values().iterator().next();
+                throw new PersistenceException(String.format("%d queued saves could not be written: %s",
+                        failedWrites.size(), failure.getMessage()), failure.getCause());
+            }
+        }
+    }
+
+    /**
+     * Throws and clears the failure of the queued save of a key, if any.
+     * @param key cache key.
+     * @throws PersistenceException if the queued save of the key failed.
+     */
+    private synchronized void throwIfWriteFailed(final String key) throws PersistenceException {
+        PersistenceException failure = failedWrites.remove(key);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits for an in-flight write of a key, then discards its cached attributes, queued save and save failure.
+     * @param key cache key.
+     * @throws PersistenceException if interrupted while waiting for the in-flight write.
+     */
+    private synchronized void discard(final String key) throws PersistenceException {
+        while (flushingKeys.contains(key)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PersistenceException("Interrupted while waiting for queued attributes save", e);
+            }
+        }
+        entries.remove(key);
+        pendingWrites.remove(key);
+        failedWrites.remove(key);
+    }
+
+    /**
+     * Looks up attributes from queued saves and usable cache entries.
+     * @param key cache key.
+     * @param envelope the current request envelope.
+     * @return empty on cache miss, otherwise a copy of the cached attributes or empty if none exist.
+     */
+    private synchronized Optional<Optional<Map<String, Object>>> getCached(final String key, final RequestEnvelope envelope) {
+        PendingWrite pendingWrite = pendingWrites.get(key);
+        if (pendingWrite != null) {
+            return Optional.of(Optional.of(copy(pendingWrite.attributes)));
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (!isUsable(entry, envelope)) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(Optional.ofNullable(entry.attributes).map(CachingPersistenceAdapter::copy));
+    }
+
+    /**
+     * Checks whether a cache entry may be served to a request.
+     * @param entry cache entry.
+     * @param envelope the current request envelope.
+     * @return true if the entry is within its time to live and, with session aware invalidation, was cached by the
+     * same session.
+     */
+    private boolean isUsable(final Entry entry, final RequestEnvelope envelope) {
+        if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.cachedAtNanos) > timeToLiveMillis) {
+            return false;
+        }
+        if (!sessionAwareInvalidation) {
+            return true;
+        }
+        Session session = envelope.getSession();
+        return session != null && !Boolean.TRUE.equals(session.getNew())
+                && session.getSessionId() != null && session.getSessionId().equals(entry.sessionId);
+    }
+
+    /**
+     * Caches a copy of the given attributes.
+     * @param key cache key.
+     * @param envelope request envelope the attributes belong to.
+     * @param attributes attributes, or null if none exist.
+     */
+    private void cache(final String key, final RequestEnvelope envelope, final Map<String, Object> attributes) {
+        String sessionId = envelope.getSession() != null ? envelope.getSession().getSessionId() : null;
+        Entry entry = new Entry(attributes != null ? copy(attributes) : null, sessionId, System.nanoTime());
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Caches saved attributes and writes them through or queues the write.
+     * @param envelope the current request envelope.
+     * @param attributes attributes to persist.
+     * @param changedKeys changed top level keys, or null if all attributes are saved.
+     */
+    private void write(final RequestEnvelope envelope, final Map<String, Object> attributes, final Set<String> changedKeys) {
+        String key = keyGenerator.apply(envelope);
+        throwIfWriteFailed(key);
+        if (writeBehindScheduler == null) {
+            if (changedKeys == null) {
+                delegate.saveAttributes(envelope, attributes);
+            } else {
+                delegate.updateAttributes(envelope, attributes, changedKeys);
+            }
+            cache(key, envelope, attributes);
+            return;
+        }
+        cache(key, envelope, attributes);
+        synchronized (this) {
+            PendingWrite previous = pendingWrites.get(key);
+            Set<String> mergedKeys = previous != null ? mergeChangedKeys(previous.changedKeys, changedKeys)
+                    : changedKeys != null ? new HashSet<>(changedKeys) : null;
+            pendingWrites.put(key, new PendingWrite(envelope, copy(attributes), mergedKeys, 0));
+            if (previous == null) {
+                scheduleFlush(key);
+            }
+        }
+    }
+
+    /**
+     * Schedules the queued save of a key to be written after the write behind delay, unless the adapter is closing
+     * in which case {@link #close()} writes it.
+     * @param key cache key.
+     */
+    private synchronized void scheduleFlush(final String key) {
+        if (!closing) {
+            writeBehindScheduler.schedule(() -> flush(key), writeBehindDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Merges the changed keys of two saves.
+     * @param first changed keys of the first save, or null if all attributes are saved.
+     * @param second changed keys of the second save, or null if all attributes are saved.
+     * @return union of both, or null if either save saves all attributes.
+     */
+    private static Set<String> mergeChangedKeys(final Set<String> first, final Set<String> second) {
+        if (first == null || second == null) {
+            return null;
+        }
+        Set<String> merged = new HashSet<>(first);
+        merged.addAll(second);
+        return merged;
+    }
+
+    /**
+     * Writes the queued save for a key to the wrapped adapter, after an in-flight write of the same key completed.
+     * @param key cache key.
+     */
+    private void flush(final String key) {
+        PendingWrite pendingWrite;
+        synchronized (this) {
+            boolean interrupted = false;
+            while (flushingKeys.contains(key)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            pendingWrite = pendingWrites.remove(key);
+            if (pendingWrite == null) {
+                return;
+            }
+            flushingKeys.add(key);
+        }
+        try {
+            if (pendingWrite.changedKeys == null) {
+                delegate.saveAttributes(pendingWrite.envelope, pendingWrite.attributes);
+            } else {
+                delegate.updateAttributes(pendingWrite.envelope, pendingWrite.attributes, pendingWrite.changedKeys);
+            }
+        } catch (RuntimeException e) {
+            onFlushFailure(key, pendingWrite, e);
+        } finally {
+            synchronized (this) {
+                flushingKeys.remove(key);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Handles a failed write of a queued save. A save queued for the same key meanwhile takes over the changed keys of
+     * the failed one, otherwise the save is queued again until the maximum number of attempts is reached, after which
+     * the failure is recorded for the next read or save of the key.
+     * @param key cache key.
+     * @param pendingWrite queued save which failed.
+     * @param e failure of the write.
+     */
+    private synchronized void onFlushFailure(final String key, final PendingWrite pendingWrite, final RuntimeException e) {
+        PendingWrite newer = pendingWrites.get(key);
+        if (newer != null) {
+            pendingWrites.put(key, new PendingWrite(newer.envelope, newer.attributes,
+                    mergeChangedKeys(pendingWrite.changedKeys, newer.changedKeys), newer.attempts));
+            LOGGER.warn(String.format("Fail to flush queued attributes save with error: %s, superseded by a newer save.", e.getMessage()));
+            return;
+        }
+        int attempts = pendingWrite.attempts + 1;
+        if (attempts < maxFlushAttempts) {
+            pendingWrites.put(key, new PendingWrite(pendingWrite.envelope, pendingWrite.attributes, pendingWrite.changedKeys, attempts));
+            scheduleFlush(key);
+            LOGGER.warn(String.format("Fail to flush queued attributes save with error: %s, retrying.", e.getMessage()));
+            return;
+        }
+        entries.remove(key);
+        failedWrites.put(key, new PersistenceException(String.format("Queued attributes save failed after %d attempts: %s",
+                attempts, e.getMessage()), e));
+        LOGGER.error(String.format("Fail to flush queued attributes save with error: %s, cache entry invalidated.", e.getMessage()));
+    }
+
+    /**
+     * Copies attributes, nested maps and lists are copied so cached attributes are not affected by modifications.
+     * @param attributes attributes to copy.
+     * @return copy of the attributes.
+     */
+    private static Map<String, Object> copy(final Map<String, Object> attributes) {
+        return (Map<String, Object>) copyValue(attributes);
+    }
+
+    /**
+     * Copies a single attribute value. Sorted and insertion ordered collections are copied into collections of the
+     * same kind, so their ordering is preserved.
+     * @param value value to copy.
+     * @return copy of maps, lists and sets, the value itself otherwise.
+     */
+    private static Object copyValue(final Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy;
+            if (value instanceof SortedMap) {
+                copy = new TreeMap<>(((SortedMap<Object, ?>) value).comparator());
+            } else if (value instanceof LinkedHashMap) {
+                copy = new LinkedHashMap<>();
+            } else {
+                copy = new HashMap<>();
+            }
+            ((Map<?, ?>) value).forEach((k, v) -> copy.put(k, copyValue(v)));
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = value instanceof LinkedList ? new LinkedList<>() : new ArrayList<>();
+            ((List<?>) value).forEach(v -> copy.add(copyValue(v)));
+            return copy;
+        }
+        if (value instanceof Set) {
+            Set<Object> copy;
+            if (value instanceof SortedSet) {
+                copy = new TreeSet<>(((SortedSet<Object>) value).comparator());
+            } else if (value instanceof LinkedHashSet) {
+                copy = new LinkedHashSet<>();
+            } else {
+                copy = new HashSet<>();
+            }
+            ((Set<?>) value).forEach(v -> copy.add(copyValue(v)));
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Cached attributes of a single key.
+     */
+    private static final class Entry {
+        /**
+         * Cached attributes, null if none exist.
+         */
+        private final Map<String, Object> attributes;
+
+        /**
+         * Session the attributes were cached by.
+         */
+        private final String sessionId;
+
+        /**
+         * Time the attributes were cached at.
+         */
+        private final long cachedAtNanos;
+
+        /**
+         * Constructor for Entry.
+         * @param attributes cached attributes, null if none exist.
+         * @param sessionId session the attributes were cached by.
+         * @param cachedAtNanos time the attributes were cached at.
+         */
+        private Entry(final Map<String, Object> attributes, final String sessionId, final long cachedAtNanos) {
+            this.attributes = attributes;
+            this.sessionId = sessionId;
+            this.cachedAtNanos = cachedAtNanos;
+        }
+    }
+
+    /**
+     * Save queued for write behind.
+     */
+    private static final class PendingWrite {
+        /**
+         * Request envelope of the latest save.
+         */
+        private final RequestEnvelope envelope;
+
+        /**
+         * Attributes to persist.
+         */
+        private final Map<String, Object> attributes;
+
+        /**
+         * Changed top level keys, or null if all attributes are saved.
+         */
+        private final Set<String> changedKeys;
+
+        /**
+         * Number of failed attempts to write the save.
+         */
+        private final int attempts;
+
+        /**
+         * Constructor for PendingWrite.
+         * @param envelope request envelope of the latest save.
+         * @param attributes attributes to persist.
+         * @param changedKeys changed top level keys, or null if all attributes are saved.
+         * @param attempts number of failed attempts to write the save.
+         */
+        private PendingWrite(final RequestEnvelope envelope, final Map<String, Object> attributes, final Set<String> changedKeys,
+                             final int attempts) {
+            this.envelope = envelope;
+            this.attributes = attributes;
+            this.changedKeys = changedKeys;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * Caching Persistence Adapter Builder.
+     */
+    public static final class Builder {
+        /**
+         * Wrapped persistence adapter.
+         */
+        private PersistenceAdapter delegate;
+
+        /**
+         * Generates the cache key of a request.
+         */
+        private Function<RequestEnvelope, String> keyGenerator;
+
+        /**
+         * Maximum number of cached entries.
+         */
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        /**
+         * Time to live of cached entries in milliseconds.
+         */
+        private long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+
+        /**
+         * When set to true, entries are only served to requests of the session that cached them.
+         */
+        private boolean sessionAwareInvalidation = DEFAULT_SESSION_AWARE_INVALIDATION;
+
+        /**
+         * Delay in milliseconds saves are queued for.
+         */
+        private long writeBehindDelayMillis = DEFAULT_WRITE_BEHIND_DELAY_MILLIS;
+
+        /**
+         * Number of attempts to write a queued save.
+         */
+        private int maxFlushAttempts = DEFAULT_MAX_FLUSH_ATTEMPTS;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Persistence adapter reads and writes are passed to. Must not be a {@link VersionedPersistenceAdapter} with
+         * versioning enabled.
+         * @param delegate wrapped persistence adapter.
+         * @return {@link Builder}.
+         */
+        public Builder withPersistenceAdapter(final PersistenceAdapter delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Function deriving the cache key from a {@link RequestEnvelope}. This should be the partition key generator
+         * used by the wrapped adapter.
+         * @param keyGenerator cache key generator.
+         * @return {@link Builder}.
+         */
+        public Builder withKeyGenerator(final Function<RequestEnvelope, String> keyGenerator) {
+            this.keyGenerator = keyGenerator;
+            return this;
+        }
+
+        /**
+         * Optional maximum number of cached entries. By default {@value #DEFAULT_MAX_ENTRIES} is used.
+         * @param maxEntries maximum number of cached entries.
+         * @return {@link Builder}.
+         */
+        public Builder withMaxEntries(final int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Optional time to live of cached entries in milliseconds, which bounds how stale served attributes can be.
+         * By default {@value #DEFAULT_TIME_TO_LIVE_MILLIS} is used.
+         * @param timeToLiveMillis time to live in milliseconds.
+         * @return {@link Builder}.
+         */
+        public Builder withTimeToLive(final long timeToLiveMillis) {
+            this.timeToLiveMillis = timeToLiveMillis;
+            return this;
+        }
+
+        /**
+         * Optional flag specifying whether cached attributes are only served to requests of the session that cached
+         * them. If not specified, this behavior defaults to true.
+         * @param sessionAwareInvalidation true if cached attributes are invalidated across sessions.
+         * @return {@link Builder}.
+         */
+        public Builder withSessionAwareInvalidation(final boolean sessionAwareInvalidation) {
+            this.sessionAwareInvalidation = sessionAwareInvalidation;
+            return this;
+        }
+
+        /**
+         * Optional delay in milliseconds saves are queued for before being written to the wrapped adapter, saves for
+         * the same key within the delay are coalesced. By default saves are written through.
+         * @param writeBehindDelayMillis write behind delay in milliseconds, 0 to write through.
+         * @return {@link Builder}.
+         */
+        public Builder withWriteBehindDelay(final long writeBehindDelayMillis) {
+            this.writeBehindDelayMillis = writeBehindDelayMillis;
+            return this;
+        }
+
+        /**
+         * Optional number of attempts to write a queued save before the failure is thrown by the next read or save of
+         * the same key. By default {@value #DEFAULT_MAX_FLUSH_ATTEMPTS} is used.
+         * @param maxFlushAttempts number of attempts to write a queued save.
+         * @return {@link Builder}.
+         */
+        public Builder withMaxFlushAttempts(final int maxFlushAttempts) {
+            this.maxFlushAttempts = maxFlushAttempts;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of CachingPersistenceAdapter.
+         * @return {@link CachingPersistenceAdapter}.
+         */
+        public CachingPersistenceAdapter build() {
+            return new CachingPersistenceAdapter(this);
+        }
+    }
+
+}
@@ -0,0 +1,481 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.util.ValidationUtils;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * {@link PersistenceAdapter} decorator which coalesces attribute reads issued concurrently by separate requests into
+ * a single {@link PersistenceAdapter#batchGetAttributes(Collection)} call on the wrapped adapter.
+ *
+ * The first read starts a batch window, reads arriving within the window join the same batch. The batch is
+ * dispatched once the window elapses or the maximum batch size is reached, whichever comes first. Batches whose
+ * window elapsed are handed off to an executor, so a slow batch does not hold up later ones. Each caller blocks until
+ * its own result is available, at most for the read timeout after the batch window. Saves and deletes are passed
+ * straight through to the wrapped adapter.
+ *
+ * Versioned attributes can't be read in batches, so a {@link VersionedPersistenceAdapter} with versioning enabled
+ * can't be wrapped: optimistic concurrency would silently be turned off.
+ */
+public class CoalescingPersistenceAdapter implements PersistenceAdapter, Closeable {
+
+    /**
+     * Logger instance to log information for debugging purposes.
+     */
+    private static final Logger LOGGER = getLogger(CoalescingPersistenceAdapter.class);
+
+    /**
+     * Default batch window in milliseconds.
+     */
+    private static final long DEFAULT_BATCH_WINDOW_MILLIS = 10L;
+
+    /**
+     * Default maximum number of reads in a single batch.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /**
+     * Default time in milliseconds a read waits for its batch result once the batch window elapsed.
+     */
+    private static final long DEFAULT_READ_TIMEOUT_MILLIS = 5000L;
+
+    /**
+     * Default number of threads dispatching batches.
+     */
+    private static final int DEFAULT_DISPATCH_THREADS = 4;
+
+    /**
+     * Wrapped persistence adapter.
+     */
+    protected final PersistenceAdapter delegate;
+
+    /**
+     * Time in milliseconds reads are collected before a batch is dispatched.
+     */
+    protected final long batchWindowMillis;
+
+    /**
+     * Maximum number of reads in a single batch.
+     */
+    protected final int maxBatchSize;
+
+    /**
+     * Time in milliseconds a read waits for its batch result once the batch window elapsed.
+     */
+    protected final long readTimeoutMillis;
+
+    /**
+     * Scheduler handing batches off to the dispatch executor once their window elapses.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Executor dispatching batches to the wrapped adapter.
+     */
+    private final ExecutorService dispatchExecutor;
+
+    /**
+     * True if the dispatch executor was created by this adapter, and is shut down when it is closed.
+     */
+    private final boolean ownsDispatchExecutor;
+
+    /**
+     * Reads collected for the batch currently being filled, guarded by this instance.
+     */
+    private List<PendingRead> currentBatch;
+
+    /**
+     * True once the adapter is closed, guarded by this instance.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor for CoalescingPersistenceAdapter.
+     * @param delegate wrapped persistence adapter.
+     * @param batchWindowMillis time in milliseconds reads are collected before a batch is dispatched.
+     * @param maxBatchSize maximum number of reads in a single batch.
+     */
+    protected CoalescingPersistenceAdapter(final PersistenceAdapter delegate, final long batchWindowMillis, final int maxBatchSize) {
+        this(delegate, batchWindowMillis, maxBatchSize, DEFAULT_READ_TIMEOUT_MILLIS, null);
+    }
+
+    /**
+     * Constructor for CoalescingPersistenceAdapter.
+     * @param delegate wrapped persistence adapter.
+     * @param batchWindowMillis time in milliseconds reads are collected before a batch is dispatched.
+     * @param maxBatchSize maximum number of reads in a single batch.
+     * @param readTimeoutMillis time in milliseconds a read waits for its batch result once the batch window elapsed.
+     * @param dispatchExecutor executor dispatching batches, or null to use a small pool of daemon threads.
+     */
+    protected CoalescingPersistenceAdapter(final PersistenceAdapter delegate, final long batchWindowMillis, final int maxBatchSize,
+                                           final long readTimeoutMillis, final ExecutorService dispatchExecutor) {
+        this.delegate = ValidationUtils.assertNotNull(delegate, "delegate");
+        if (delegate instanceof VersionedPersistenceAdapter && ((VersionedPersistenceAdapter) delegate).isVersioned()) {
+            throw new IllegalArgumentException("versioned persistence adapter can't be wrapped by a coalescing adapter");
+        }
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxBatchSize = ValidationUtils.assertIsPositive(maxBatchSize, "maxBatchSize");
+        if (readTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("readTimeoutMillis must be positive");
+        }
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ask-sdk-persistence-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ownsDispatchExecutor = dispatchExecutor == null;
+        this.dispatchExecutor = ownsDispatchExecutor ? Executors.newFixedThreadPool(DEFAULT_DISPATCH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "ask-sdk-persistence-batch-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        }) : dispatchExecutor;
+        this.currentBatch = new ArrayList<>();
+    }
+
+    /**
+     * Static method which builds an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Retrieves attributes as part of the current batch, blocking until the batch has been dispatched.
+     * @param envelope the current request envelope.
+     * @return {@link Optional} containing existing attributes if they exist, or empty if not.
+     * @throws PersistenceException if attributes could not be retrieved due to an error.
+     */
+    @Override
+    public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        PendingRead read = new PendingRead(envelope);
+        List<PendingRead> fullBatch = null;
+        synchronized (this) {
+            if (closed) {
+                throw new PersistenceException("Coalescing persistence adapter is closed");
+            }
+            List<PendingRead> batch = currentBatch;
+            batch.add(read);
+            if (batch.size() >= maxBatchSize) {
+                currentBatch = new ArrayList<>();
+                fullBatch = batch;
+            } else if (batch.size() == 1) {
+                try {
+                    scheduler.schedule(() -> handOffIfCurrent(batch), batchWindowMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    currentBatch = new ArrayList<>();
+                    throw new PersistenceException("Unable to schedule batched attribute retrieval", e);
+                }
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        try {
+            return read.result.get(saturatedAdd(batchWindowMillis, readTimeoutMillis), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting for batched attributes", e);
+        } catch (TimeoutException e) {
+            throw new PersistenceException("Timed out waiting for batched attributes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PersistenceException) {
+                throw (PersistenceException) e.getCause();
+            }
+            throw new PersistenceException("Failed to retrieve batched attributes", e.getCause());
+        }
+    }
+
+    /**
+     * Retrieves attributes for several requests directly from the wrapped adapter.
+     * @param envelopes request envelopes to retrieve attributes for.
+     * @return attributes for each request envelope in iteration order.
+     * @throws PersistenceException if attributes could not be retrieved due to an error.
+     */
+    @Override
+    public List<Optional<Map<String, Object>>> batchGetAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        return delegate.batchGetAttributes(envelopes);
+    }
+
+    /**
+     * Saves attributes using the wrapped adapter.
+     * @param envelope the current request envelope.
+     * @param attributes attributes to persist.
+     * @throws PersistenceException if attributes could not be saved due to an error.
+     */
+    @Override
+    public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) throws PersistenceException {
+        delegate.saveAttributes(envelope, attributes);
+    }
+
+    /**
+     * Saves changed attributes using the wrapped adapter.
+     * @param envelope the current request envelope.
+     * @param attributes attributes to persist.
+     * @param changedKeys top level keys which were added, modified or removed.
+     * @throws PersistenceException if attributes could not be saved due to an error.
+     */
+    @Override
+    public void updateAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes,
+                                 final Set<String> changedKeys) throws PersistenceException {
+        delegate.updateAttributes(envelope, attributes, changedKeys);
+    }
+
+    /**
+     * Deletes attributes using the wrapped adapter.
+     * @param envelope the current request envelope.
+     * @throws PersistenceException if attributes could not be deleted due to an error.
+     */
+    @Override
+    public void deleteAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        delegate.deleteAttributes(envelope);
+    }
+
+    /**
+     * Deletes attributes for several requests using the wrapped adapter.
+     * @param envelopes request envelopes to delete attributes for.
+     * @throws PersistenceException if attributes could not be deleted due to an error.
+     */
+    @Override
+    public void batchDeleteAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        delegate.batchDeleteAttributes(envelopes);
+    }
+
+    /**
+     * Dispatches any pending reads, rejects further reads and stops the batch scheduler. A dispatch executor supplied
+     * to the builder is left running, it is owned by the caller.
+     */
+    @Override
+    public void close() {
+        List<PendingRead> batch;
+        synchronized (this) {
+            closed = true;
+            batch = currentBatch;
+            currentBatch = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+        scheduler.shutdown();
+        if (ownsDispatchExecutor) {
+            dispatchExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Hands the given batch off to the dispatch executor once its window elapsed, unless it was already dispatched
+     * for reaching the maximum batch size.
+     * @param batch batch the window was started for.
+     */
+    private void handOffIfCurrent(final List<PendingRead> batch) {
+        synchronized (this) {
+            if (currentBatch != batch) {
+                return;
+            }
+            currentBatch = new ArrayList<>();
+        }
+        try {
+            dispatchExecutor.execute(() -> dispatch(batch));
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug(String.format("Dispatch of %d batched reads rejected with error: %s", batch.size(), e.getMessage()));
+            PersistenceException failure = new PersistenceException("Unable to dispatch batched attribute retrieval", e);
+            batch.forEach(read -> read.result.completeExceptionally(failure));
+        }
+    }
+
+    /**
+     * Retrieves attributes for all reads in the batch with a single call and completes each read.
+     * @param batch reads to dispatch.
+     */
+    private void dispatch(final List<PendingRead> batch) {
+        List<RequestEnvelope> envelopes = batch.stream().map(read -> read.envelope).collect(Collectors.toList());
+        try {
+            List<Optional<Map<String, Object>>> results = delegate.batchGetAttributes(envelopes);
+            if (results.size() != batch.size()) {
+                throw new PersistenceException(String.format("Expected %d batched results but received %d",
+                        batch.size(), results.size()));
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+            LOGGER.debug(String.format("Retrieved attributes for %d coalesced reads.", batch.size()));
+        } catch (RuntimeException e) {
+            LOGGER.debug(String.format("Batched retrieval of %d reads failed with error: %s", batch.size(), e.getMessage()));
+            batch.forEach(read -> read.result.completeExceptionally(e));
+        } catch (Error e) {
+            // waiters must never be left blocked, even if the wrapped adapter fails fatally
+            batch.forEach(read -> read.result.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Adds two non-negative durations, saturating instead of overflowing.
+     * @param a first duration.
+     * @param b second duration.
+     * @return sum of both durations, or {@link Long#MAX_VALUE} if it overflows.
+     */
+    private static long saturatedAdd(final long a, final long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Read waiting for its batch to be dispatched.
+     */
+    private static final class PendingRead {
+        /**
+         * Request envelope to retrieve attributes for.
+         */
+        private final RequestEnvelope envelope;
+
+        /**
+         * Result completed once the batch is dispatched.
+         */
+        private final CompletableFuture<Optional<Map<String, Object>>> result;
+
+        /**
+         * Constructor for PendingRead.
+         * @param envelope request envelope to retrieve attributes for.
+         */
+        private PendingRead(final RequestEnvelope envelope) {
+            this.envelope = envelope;
+            this.result = new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * Coalescing Persistence Adapter Builder.
+     */
+    public static final class Builder {
+        /**
+         * Wrapped persistence adapter.
+         */
+        private PersistenceAdapter delegate;
+
+        /**
+         * Time in milliseconds reads are collected before a batch is dispatched.
+         */
+        private long batchWindowMillis = DEFAULT_BATCH_WINDOW_MILLIS;
+
+        /**
+         * Maximum number of reads in a single batch.
+         */
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+        /**
+         * Time in milliseconds a read waits for its batch result once the batch window elapsed.
+         */
+        private long readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+        /**
+         * Executor dispatching batches.
+         */
+        private ExecutorService dispatchExecutor;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Persistence adapter batched reads are dispatched to. Must not be a {@link VersionedPersistenceAdapter} with
+         * versioning enabled.
+         * @param delegate wrapped persistence adapter.
+         * @return {@link Builder}.
+         */
+        public Builder withPersistenceAdapter(final PersistenceAdapter delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Optional time in milliseconds reads are collected before a batch is dispatched. By default
+         * {@value #DEFAULT_BATCH_WINDOW_MILLIS} is used.
+         * @param batchWindowMillis batch window in milliseconds.
+         * @return {@link Builder}.
+         */
+        public Builder withBatchWindow(final long batchWindowMillis) {
+            this.batchWindowMillis = batchWindowMillis;
+            return this;
+        }
+
+        /**
+         * Optional maximum number of reads in a single batch. By default {@value #DEFAULT_MAX_BATCH_SIZE} is used.
+         * @param maxBatchSize maximum batch size.
+         * @return {@link Builder}.
+         */
+        public Builder withMaxBatchSize(final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Optional time in milliseconds a read waits for its batch result once the batch window elapsed, after which
+         * it fails with a {@link PersistenceException}. By default {@value #DEFAULT_READ_TIMEOUT_MILLIS} is used.
+         * @param readTimeoutMillis read timeout in milliseconds.
+         * @return {@link Builder}.
+         */
+        public Builder withReadTimeout(final long readTimeoutMillis) {
+            this.readTimeoutMillis = readTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Optional executor dispatching batches to the wrapped adapter. By default a pool of
+         * {@value #DEFAULT_DISPATCH_THREADS} daemon threads is used. The executor is not shut down when the adapter is
+         * closed.
+         * @param dispatchExecutor dispatch executor.
+         * @return {@link Builder}.
+         */
+        public Builder withDispatchExecutor(final ExecutorService dispatchExecutor) {
+            this.dispatchExecutor = dispatchExecutor;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of CoalescingPersistenceAdapter.
+         * @return {@link CoalescingPersistenceAdapter}.
+         */
+        public CoalescingPersistenceAdapter build() {
+            return new CoalescingPersistenceAdapter(delegate, batchWindowMillis, maxBatchSize, readTimeoutMillis, dispatchExecutor);
+        }
+    }
+
+}
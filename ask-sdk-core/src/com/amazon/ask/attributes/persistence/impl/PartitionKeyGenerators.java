@@ -0,0 +1,163 @@
+/*
+    Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.Context;
+import com.amazon.ask.model.Device;
+import com.amazon.ask.model.Person;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.User;
+import com.amazon.ask.model.interfaces.system.SystemState;
+import com.amazon.ask.util.ValidationUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Helps to generate partition keys from the userId or deviceId or personId contained in an incoming request.
+ */
+public final class PartitionKeyGenerators {
+
+    /**
+     * Delimiter between a partition key and its shard number.
+     */
+    public static final String SHARD_DELIMITER = "#";
+
+    /** Prevent instantiation. */
+    private PartitionKeyGenerators() { }
+
+    /**
+     * Produces a partition key from the user ID contained in an incoming request.
+     * @return partition key derived from user ID
+     * @throws PersistenceException if user ID cannot be retrieved
+     */
+    public static Function<RequestEnvelope, String> userId() {
+        return r -> Optional.ofNullable(r).map(RequestEnvelope::getContext)
+                .map(Context::getSystem)
+                .map(SystemState::getUser)
+                .map(User::getUserId)
+                .orElseThrow(() -> new PersistenceException("Could not retrieve user ID from request envelope to generate persistence ID"));
+    }
+
+    /**
+     * Produces a partition key from the device ID contained in an incoming request.
+     * @return partition key derived from device ID
+     * @throws PersistenceException if device ID cannot be retrieved
+     */
+    public static Function<RequestEnvelope, String> deviceId() {
+        return r -> Optional.ofNullable(r).map(RequestEnvelope::getContext)
+                .map(Context::getSystem)
+                .map(SystemState::getDevice)
+                .map(Device::getDeviceId)
+                .orElseThrow(() -> new PersistenceException("Could not retrieve device ID from request envelope to generate persistence ID"));
+    }
+
+    /**
+     * Produces a partition key from the {@link Person} ID contained in an incoming request.
+     * If the person ID is not available, the user ID will be used as fallback.
+     *
+     * @return partition key derived from person ID, if available, or user ID if person in unavailable.
+     * @throws PersistenceException if person ID cannot be retrieved and fallback to user ID fails.
+     */
+    public static Function<RequestEnvelope, String> personId() {
+        return r -> Optional.ofNullable(r).map(RequestEnvelope::getContext)
+                .map(Context::getSystem)
+                .map(SystemState::getPerson)
+                .map(Person::getPersonId)
+                .orElseGet(() -> userId().apply(r));
+    }
+
+
+    /**
+     * Produces the same partition key for every request, for state shared by all users such as a leaderboard.
+     * @param key partition key
+     * @return partition key generator returning the given key
+     */
+    public static Function<RequestEnvelope, String> constant(final String key) {
+        ValidationUtils.assertStringNotEmpty(key, "key");
+        return r -> key;
+    }
+
+    /**
+     * Produces a partition key by joining the partition keys of several generators with the given delimiter, for
+     * example to scope attributes to a user on a specific device.
+     * @param delimiter delimiter placed between the joined partition keys
+     * @param generators partition key generators to join
+     * @return partition key generator joining the given generators
+     * @throws PersistenceException if one of the generators cannot produce a partition key
+     */
+    @SafeVarargs
+    public static Function<RequestEnvelope, String> composite(final String delimiter,
+                                                              final Function<RequestEnvelope, String>... generators) {
+        ValidationUtils.assertNotNull(delimiter, "delimiter");
+        List<Function<RequestEnvelope, String>> generatorList = new ArrayList<>(Arrays.asList(generators));
+        if (generatorList.isEmpty()) {
+            throw new IllegalArgumentException("At least one partition key generator is required");
+        }
+        return r -> generatorList.stream().map(generator -> generator.apply(r)).collect(Collectors.joining(delimiter));
+    }
+
+    /**
+     * Spreads a partition key over a number of shards, so that state written by many requests is spread over several
+     * items instead of a single hot item. The shard is derived from the partition key of the shard generator, so
+     * requests of the same user always use the same shard when sharding by user ID. Shard keys have the form
+     * {@code <key>#<shard>}, all shard keys of a partition key are listed by {@link #shardKeys(String, int)} to read
+     * the shards back.
+     * @param generator partition key generator producing the key to shard
+     * @param shardGenerator partition key generator whose key selects the shard, for example {@link #userId()}
+     * @param shardCount number of shards
+     * @return partition key generator producing shard keys
+     * @throws PersistenceException if one of the generators cannot produce a partition key
+     */
+    public static Function<RequestEnvelope, String> sharded(final Function<RequestEnvelope, String> generator,
+                                                            final Function<RequestEnvelope, String> shardGenerator,
+                                                            final int shardCount) {
+        ValidationUtils.assertNotNull(generator, "generator");
+        ValidationUtils.assertNotNull(shardGenerator, "shardGenerator");
+        ValidationUtils.assertIsPositive(shardCount, "shardCount");
+        return r -> shardKey(generator.apply(r), Math.floorMod(shardGenerator.apply(r).hashCode(), shardCount));
+    }
+
+    /**
+     * Lists the keys of all shards of a partition key produced by {@link #sharded(Function, Function, int)}, to read
+     * all shards with a single batch read.
+     * @param key partition key before sharding
+     * @param shardCount number of shards
+     * @return shard keys in shard order
+     */
+    public static List<String> shardKeys(final String key, final int shardCount) {
+        ValidationUtils.assertIsPositive(shardCount, "shardCount");
+        List<String> keys = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            keys.add(shardKey(key, shard));
+        }
+        return keys;
+    }
+
+    /**
+     * Builds the key of a single shard.
+     * @param key partition key before sharding
+     * @param shard shard number
+     * @return shard key
+     */
+    public static String shardKey(final String key, final int shard) {
+        return key + SHARD_DELIMITER + shard;
+    }
+
+}
@@ -13,7 +13,9 @@
 
 package com.amazon.ask.builder;
 
+import com.amazon.ask.attributes.PersistentAttributesPrefetcher;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.dispatcher.DeadlineEnforcer;
 import com.amazon.ask.dispatcher.request.handler.HandlerInput;
 import com.amazon.ask.model.Response;
 import com.amazon.ask.model.services.ApiClient;
@@ -56,4 +58,20 @@ public interface CustomSkillConfiguration extends GenericSkillConfiguration<Hand
      */
     TemplateFactory<HandlerInput, Response> getTemplateFactory();
 
+    /**
+     * Getter method for Persistent Attributes Prefetcher.
+     * @return {@link PersistentAttributesPrefetcher}, or null if persistent attributes are not prefetched.
+     */
+    default PersistentAttributesPrefetcher getPersistentAttributesPrefetcher() {
+        return null;
+    }
+
+    /**
+     * Getter method for Deadline Enforcer.
+     * @return {@link DeadlineEnforcer}, or null if request deadlines are not enforced on dispatch.
+     */
+    default DeadlineEnforcer getDeadlineEnforcer() {
+        return null;
+    }
+
 }
@@ -14,8 +14,10 @@
 package com.amazon.ask.builder;
 
 import com.amazon.ask.Skill;
+import com.amazon.ask.attributes.PersistentAttributesPrefetcher;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
 import com.amazon.ask.builder.impl.AbstractSkillBuilder;
+import com.amazon.ask.dispatcher.DeadlineEnforcer;
 import com.amazon.ask.dispatcher.request.handler.HandlerInput;
 import com.amazon.ask.dispatcher.request.handler.RequestHandler;
 import com.amazon.ask.model.Response;
@@ -61,6 +63,16 @@ public class SkillBuilder<T extends SkillBuilder<T>> extends AbstractSkillBuilde
      */
     protected TemplateFactory<HandlerInput, Response> templateFactory;
 
+    /**
+     * Prefetcher starting persistent attribute retrieval as soon as a request is unmarshalled.
+     */
+    protected PersistentAttributesPrefetcher persistentAttributesPrefetcher;
+
+    /**
+     * Enforcer of request deadlines on dispatch.
+     */
+    protected DeadlineEnforcer deadlineEnforcer;
+
     /**
      * Constructor for SkillBuilder.
      */
@@ -78,6 +90,29 @@ public class SkillBuilder<T extends SkillBuilder<T>> extends AbstractSkillBuilde
         return getThis();
     }
 
+    /**
+     * Enables prefetching of persistent attributes, which starts retrieving attributes from the persistence adapter
+     * as soon as a request is unmarshalled, overlapping request mapping and interceptors.
+     * @param persistentAttributesPrefetcher prefetcher of persistent attributes.
+     * @return {@link T}.
+     */
+    public T withPersistentAttributesPrefetcher(final PersistentAttributesPrefetcher persistentAttributesPrefetcher) {
+        this.persistentAttributesPrefetcher = persistentAttributesPrefetcher;
+        return getThis();
+    }
+
+    /**
+     * Enables enforcement of request deadlines, such as the end of the AWS Lambda invocation, on dispatch: requests
+     * not handled before their deadline are abandoned and passed to the exception handler of
+     * {@link com.amazon.ask.exception.DeadlineExceededException}.
+     * @param deadlineEnforcer enforcer of request deadlines on dispatch.
+     * @return {@link T}.
+     */
+    public T withDeadlineEnforcer(final DeadlineEnforcer deadlineEnforcer) {
+        this.deadlineEnforcer = deadlineEnforcer;
+        return getThis();
+    }
+
     /**
      * Adds ApiClient to a Skill.
      * @param apiClient Api client to make external API calls.
@@ -142,7 +177,9 @@ public class SkillBuilder<T extends SkillBuilder<T>> extends AbstractSkillBuilde
 
         skillConfigBuilder.withPersistenceAdapter(persistenceAdapter)
                 .withApiClient(apiClient)
-                .withSkillId(skillId);
+                .withSkillId(skillId)
+                .withPersistentAttributesPrefetcher(persistentAttributesPrefetcher)
+                .withDeadlineEnforcer(deadlineEnforcer);
 
         if (templateFactory != null) {
             skillConfigBuilder.withTemplateFactory(templateFactory);
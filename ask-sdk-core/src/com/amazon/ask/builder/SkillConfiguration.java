@@ -13,6 +13,8 @@
 
 package com.amazon.ask.builder;
 
+import com.amazon.ask.attributes.PersistentAttributesPrefetcher;
+import com.amazon.ask.dispatcher.DeadlineEnforcer;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
 import com.amazon.ask.builder.impl.AbstractSkillConfiguration;
 import com.amazon.ask.dispatcher.request.handler.HandlerInput;
@@ -60,6 +62,16 @@ public class SkillConfiguration extends AbstractSkillConfiguration<HandlerInput,
      */
     protected final TemplateFactory<HandlerInput, Response> templateFactory;
 
+    /**
+     * Prefetcher starting persistent attribute retrieval as soon as a request is unmarshalled.
+     */
+    protected final PersistentAttributesPrefetcher persistentAttributesPrefetcher;
+
+    /**
+     * Enforcer of request deadlines on dispatch.
+     */
+    protected final DeadlineEnforcer deadlineEnforcer;
+
     /**
      * Constructor for SkillConfiguration.
      * @param requestMappers list of request mappers.
@@ -106,12 +118,74 @@ public class SkillConfiguration extends AbstractSkillConfiguration<HandlerInput,
                                  final String customUserAgent,
                                  final String skillId,
                                  final TemplateFactory<HandlerInput, Response> templateFactory) {
+        this(requestMappers, handlerAdapters, requestInterceptors, responseInterceptors, exceptionMapper,
+                persistenceAdapter, apiClient, customUserAgent, skillId, templateFactory, null);
+    }
+
+    /**
+     * Constructor for SkillConfiguration.
+     * @param requestMappers list of request mappers.
+     * @param handlerAdapters list of handler adapters.
+     * @param requestInterceptors list of request interceptors.
+     * @param responseInterceptors list of response interceptors.
+     * @param exceptionMapper exception mapper.
+     * @param persistenceAdapter store skill attributes to a persistence layer.
+     * @param apiClient api client to make external API calls.
+     * @param customUserAgent custom user agent.
+     * @param skillId unique ID associated with a Skill.
+     * @param templateFactory interface to process template and data to generate skill response.
+     * @param persistentAttributesPrefetcher prefetcher of persistent attributes.
+     */
+    protected SkillConfiguration(final List<GenericRequestMapper<HandlerInput, Optional<Response>>> requestMappers,
+                                 final List<GenericHandlerAdapter<HandlerInput, Optional<Response>>> handlerAdapters,
+                                 final List<GenericRequestInterceptor<HandlerInput>> requestInterceptors,
+                                 final List<GenericResponseInterceptor<HandlerInput, Optional<Response>>> responseInterceptors,
+                                 final GenericExceptionMapper<HandlerInput, Optional<Response>> exceptionMapper,
+                                 final PersistenceAdapter persistenceAdapter,
+                                 final ApiClient apiClient,
+                                 final String customUserAgent,
+                                 final String skillId,
+                                 final TemplateFactory<HandlerInput, Response> templateFactory,
+                                 final PersistentAttributesPrefetcher persistentAttributesPrefetcher) {
+        this(requestMappers, handlerAdapters, requestInterceptors, responseInterceptors, exceptionMapper,
+                persistenceAdapter, apiClient, customUserAgent, skillId, templateFactory, persistentAttributesPrefetcher, null);
+    }
+
+    /**
+     * Constructor for SkillConfiguration.
+     * @param requestMappers list of request mappers.
+     * @param handlerAdapters list of handler adapters.
+     * @param requestInterceptors list of request interceptors.
+     * @param responseInterceptors list of response interceptors.
+     * @param exceptionMapper exception mapper.
+     * @param persistenceAdapter store skill attributes to a persistence layer.
+     * @param apiClient api client to make external API calls.
+     * @param customUserAgent custom user agent.
+     * @param skillId unique ID associated with a Skill.
+     * @param templateFactory interface to process template and data to generate skill response.
+     * @param persistentAttributesPrefetcher prefetcher of persistent attributes.
+     * @param deadlineEnforcer enforcer of request deadlines on dispatch.
+     */
+    protected SkillConfiguration(final List<GenericRequestMapper<HandlerInput, Optional<Response>>> requestMappers,
+                                 final List<GenericHandlerAdapter<HandlerInput, Optional<Response>>> handlerAdapters,
+                                 final List<GenericRequestInterceptor<HandlerInput>> requestInterceptors,
+                                 final List<GenericResponseInterceptor<HandlerInput, Optional<Response>>> responseInterceptors,
+                                 final GenericExceptionMapper<HandlerInput, Optional<Response>> exceptionMapper,
+                                 final PersistenceAdapter persistenceAdapter,
+                                 final ApiClient apiClient,
+                                 final String customUserAgent,
+                                 final String skillId,
+                                 final TemplateFactory<HandlerInput, Response> templateFactory,
+                                 final PersistentAttributesPrefetcher persistentAttributesPrefetcher,
+                                 final DeadlineEnforcer deadlineEnforcer) {
         super(requestMappers, handlerAdapters, requestInterceptors, responseInterceptors, exceptionMapper);
         this.customUserAgent = customUserAgent;
         this.skillId = skillId;
         this.persistenceAdapter = persistenceAdapter;
         this.apiClient = apiClient;
         this.templateFactory = templateFactory;
+        this.persistentAttributesPrefetcher = persistentAttributesPrefetcher;
+        this.deadlineEnforcer = deadlineEnforcer;
     }
 
     /**
@@ -157,6 +231,20 @@ public class SkillConfiguration extends AbstractSkillConfiguration<HandlerInput,
         return templateFactory;
     }
 
+    /**
+     * {@inheritDoc}.
+     */
+    public PersistentAttributesPrefetcher getPersistentAttributesPrefetcher() {
+        return persistentAttributesPrefetcher;
+    }
+
+    /**
+     * {@inheritDoc}.
+     */
+    public DeadlineEnforcer getDeadlineEnforcer() {
+        return deadlineEnforcer;
+    }
+
     /**
      * Skill configuration Builder.
      */
@@ -186,6 +274,16 @@ public class SkillConfiguration extends AbstractSkillConfiguration<HandlerInput,
          */
         private TemplateFactory<HandlerInput, Response> templateFactory;
 
+        /**
+         * Prefetcher starting persistent attribute retrieval as soon as a request is unmarshalled.
+         */
+        private PersistentAttributesPrefetcher persistentAttributesPrefetcher;
+
+        /**
+         * Enforcer of request deadlines on dispatch.
+         */
+        private DeadlineEnforcer deadlineEnforcer;
+
         /**
          * Prevent instantiation.
          */
@@ -292,13 +390,50 @@ public class SkillConfiguration extends AbstractSkillConfiguration<HandlerInput,
             return templateFactory;
         }
 
+        /**
+         * Adds Persistent Attributes Prefetcher to Skill configuration.
+         * @param persistentAttributesPrefetcher prefetcher of persistent attributes.
+         * @return {@link Builder}.
+         */
+        public Builder withPersistentAttributesPrefetcher(final PersistentAttributesPrefetcher persistentAttributesPrefetcher) {
+            this.persistentAttributesPrefetcher = persistentAttributesPrefetcher;
+            return this;
+        }
+
+        /**
+         * Getter for Persistent Attributes Prefetcher.
+         * @return {@link PersistentAttributesPrefetcher}.
+         */
+        public PersistentAttributesPrefetcher getPersistentAttributesPrefetcher() {
+            return persistentAttributesPrefetcher;
+        }
+
+        /**
+         * Adds Deadline Enforcer to Skill configuration.
+         * @param deadlineEnforcer enforcer of request deadlines on dispatch.
+         * @return {@link Builder}.
+         */
+        public Builder withDeadlineEnforcer(final DeadlineEnforcer deadlineEnforcer) {
+            this.deadlineEnforcer = deadlineEnforcer;
+            return this;
+        }
+
+        /**
+         * Getter for Deadline Enforcer.
+         * @return {@link DeadlineEnforcer}.
+         */
+        public DeadlineEnforcer getDeadlineEnforcer() {
+            return deadlineEnforcer;
+        }
+
         /**
          * Builder method to construct skill configuration with the provided data.
          * @return {@link SkillConfiguration}.
          */
         public SkillConfiguration build() {
             return new SkillConfiguration(requestMappers, handlerAdapters, requestInterceptors, responseInterceptors,
-                    exceptionMapper, persistenceAdapter, apiClient, customUserAgent, skillId, templateFactory);
+                    exceptionMapper, persistenceAdapter, apiClient, customUserAgent, skillId, templateFactory,
+                    persistentAttributesPrefetcher, deadlineEnforcer);
         }
     }
 
@@ -0,0 +1,221 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.dispatcher;
+
+import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.exception.DeadlineExceededException;
+import com.amazon.ask.request.Deadline;
+import com.amazon.ask.util.ValidationUtils;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Enforces the deadline of requests, such as the end of the AWS Lambda invocation handling them, on request dispatch.
+ *
+ * A safety margin is kept before the deadline of each request, leaving time to answer it. Request handlers, service
+ * calls and persistence operations see the deadline net of that margin. Dispatch runs on the configured executor,
+ * and if it doesn't complete in time it is abandoned: its thread is interrupted and a
+ * {@link DeadlineExceededException} is raised, which the skill passes to its exception handlers so that the user
+ * still gets an answer. An abandoned handler may keep running until it notices the interrupt, so handlers should not
+ * modify state shared with other requests after their deadline. Such a handler also holds on to its executor thread,
+ * so the executor should be bounded: a dispatch the executor rejects fails rather than starving the process of threads.
+ */
+public final class DeadlineEnforcer {
+
+    /**
+     * Default time in milliseconds kept before the deadline of a request to answer it.
+     */
+    public static final long DEFAULT_SAFETY_MARGIN_MILLIS = 500;
+
+    /**
+     * Default maximum number of threads of the default executor.
+     */
+    public static final int DEFAULT_MAX_DISPATCH_THREADS = 64;
+
+    /**
+     * Time in seconds an idle thread of the default executor is kept.
+     */
+    private static final long DISPATCH_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Default executor running dispatches, shared by all enforcers. Threads are created on demand, up to
+     * {@link #DEFAULT_MAX_DISPATCH_THREADS}, and are daemon threads, so they don't prevent the JVM from exiting.
+     * Dispatches are not queued: once all threads are busy, including with abandoned handlers, dispatches are rejected.
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = new ThreadPoolExecutor(0, DEFAULT_MAX_DISPATCH_THREADS,
+            DISPATCH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), new DispatchThreadFactory());
+
+    /**
+     * Time in milliseconds kept before the deadline of a request to answer it.
+     */
+    private final long safetyMarginMillis;
+
+    /**
+     * Executor running dispatches.
+     */
+    private final Executor executor;
+
+    /**
+     * Private constructor to build an instance of {@link DeadlineEnforcer}.
+     * @param builder instance of {@link Builder}.
+     */
+    private DeadlineEnforcer(final Builder builder) {
+        if (builder.safetyMarginMillis < 0) {
+            throw new IllegalArgumentException("safety margin must not be negative");
+        }
+        this.safetyMarginMillis = builder.safetyMarginMillis;
+        this.executor = ValidationUtils.assertNotNull(builder.executor, "executor");
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the deadline by which the handling of a request must complete, keeping the safety margin before the
+     * deadline of the request.
+     * @param requestDeadline deadline by which the request must be answered.
+     * @return deadline of request handling.
+     */
+    public Deadline getHandlingDeadline(final Deadline requestDeadline) {
+        return requestDeadline.minusMillis(safetyMarginMillis);
+    }
+
+    /**
+     * Runs a dispatch on the executor and waits for its result until the deadline.
+     * @param deadline deadline of request handling.
+     * @param dispatch dispatch to run.
+     * @param <T> result type.
+     * @return result of the dispatch.
+     * @throws DeadlineExceededException if the dispatch did not complete before the deadline.
+     */
+    public <T> T dispatchWithin(final Deadline deadline, final Supplier<T> dispatch) {
+        deadline.check("dispatch");
+        FutureTask<T> task = new FutureTask<>(dispatch::get);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new AskSdkException("Unable to dispatch request within its deadline", e);
+        }
+        try {
+            return task.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            throw new DeadlineExceededException("Deadline exceeded while dispatching request", e);
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AskSdkException("Interrupted while dispatching request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AskSdkException("Failed to dispatch request", cause);
+        }
+    }
+
+    /**
+     * Creates the daemon threads of the default executor.
+     */
+    private static final class DispatchThreadFactory implements ThreadFactory {
+        /**
+         * Number of threads created.
+         */
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "ask-sdk-deadline-dispatch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Static builder class to build an instance of {@link DeadlineEnforcer}.
+     */
+    public static final class Builder {
+
+        /**
+         * Time in milliseconds kept before the deadline of a request to answer it.
+         */
+        private long safetyMarginMillis = DEFAULT_SAFETY_MARGIN_MILLIS;
+
+        /**
+         * Executor running dispatches.
+         */
+        private Executor executor = DEFAULT_EXECUTOR;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Optional time kept before the deadline of a request to run exception handlers and return the response. By
+         * default {@value #DEFAULT_SAFETY_MARGIN_MILLIS} milliseconds are kept.
+         * @param safetyMarginMillis safety margin in milliseconds.
+         * @return {@link Builder}.
+         */
+        public Builder withSafetyMargin(final long safetyMarginMillis) {
+            this.safetyMarginMillis = safetyMarginMillis;
+            return this;
+        }
+
+        /**
+         * Optional executor running dispatches. By default a shared pool of up to
+         * {@value DeadlineEnforcer#DEFAULT_MAX_DISPATCH_THREADS} daemon threads is used. Abandoned dispatches keep their
+         * thread until the handler notices the interrupt, so the executor should be bounded; a dispatch it rejects fails
+         * with an {@link AskSdkException}.
+         * @param executor executor running dispatches.
+         * @return {@link Builder}.
+         */
+        public Builder withExecutor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of DeadlineEnforcer.
+         * @return {@link DeadlineEnforcer}.
+         */
+        public DeadlineEnforcer build() {
+            return new DeadlineEnforcer(this);
+        }
+
+    }
+
+}
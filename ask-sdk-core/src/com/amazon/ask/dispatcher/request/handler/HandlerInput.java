@@ -18,9 +18,11 @@ import com.amazon.ask.model.Response;
 import com.amazon.ask.request.exception.handler.impl.AbstractHandlerInput;
 import com.amazon.ask.attributes.AttributesManager;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
 import com.amazon.ask.model.Request;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.model.services.ServiceClientFactory;
+import com.amazon.ask.request.Deadline;
 import com.amazon.ask.response.ResponseBuilder;
 import com.amazon.ask.util.ValidationUtils;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -28,6 +30,7 @@ import com.amazon.ask.response.template.TemplateFactory;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 
 /**
@@ -71,6 +74,11 @@ public class HandlerInput extends AbstractHandlerInput<Request> {
      */
     protected final TemplateFactory<HandlerInput, Response> templateFactory;
 
+    /**
+     * Deadline by which the request must be handled, or null.
+     */
+    protected final Deadline deadline;
+
     /**
      * Constructor for HandlerInput.
      * @param requestEnvelope Request Envelope.
@@ -83,12 +91,52 @@ public class HandlerInput extends AbstractHandlerInput<Request> {
     protected HandlerInput(final RequestEnvelope requestEnvelope, final PersistenceAdapter persistenceAdapter,
                            final Object context, final ServiceClientFactory serviceClientFactory,
                            final JsonNode requestEnvelopeJson, final TemplateFactory<HandlerInput, Response> templateFactory) {
+        this(requestEnvelope, persistenceAdapter, context, serviceClientFactory, requestEnvelopeJson, templateFactory, null);
+    }
+
+    /**
+     * Constructor for HandlerInput.
+     * @param requestEnvelope Request Envelope.
+     * @param persistenceAdapter Store skill attributes to a persistence layer.
+     * @param context object passed in when using AWS Lambda to host Skill backend code.
+     * @param serviceClientFactory Factory class to vend out various service clients.
+     * @param requestEnvelopeJson Request envelope in JSON format.
+     * @param templateFactory Interface to process template and data to generate skill response.
+     * @param prefetchedPersistentAttributes In flight retrieval of the persistence attributes, or null.
+     */
+    protected HandlerInput(final RequestEnvelope requestEnvelope, final PersistenceAdapter persistenceAdapter,
+                           final Object context, final ServiceClientFactory serviceClientFactory,
+                           final JsonNode requestEnvelopeJson, final TemplateFactory<HandlerInput, Response> templateFactory,
+                           final CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes) {
+        this(requestEnvelope, persistenceAdapter, context, serviceClientFactory, requestEnvelopeJson, templateFactory,
+                prefetchedPersistentAttributes, null);
+    }
+
+    /**
+     * Constructor for HandlerInput.
+     * @param requestEnvelope Request Envelope.
+     * @param persistenceAdapter Store skill attributes to a persistence layer.
+     * @param context object passed in when using AWS Lambda to host Skill backend code.
+     * @param serviceClientFactory Factory class to vend out various service clients.
+     * @param requestEnvelopeJson Request envelope in JSON format.
+     * @param templateFactory Interface to process template and data to generate skill response.
+     * @param prefetchedPersistentAttributes In flight retrieval of the persistence attributes, or null.
+     * @param deadline Deadline by which the request must be handled, or null.
+     */
+    protected HandlerInput(final RequestEnvelope requestEnvelope, final PersistenceAdapter persistenceAdapter,
+                           final Object context, final ServiceClientFactory serviceClientFactory,
+                           final JsonNode requestEnvelopeJson, final TemplateFactory<HandlerInput, Response> templateFactory,
+                           final CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes,
+                           final Deadline deadline) {
         super(ValidationUtils.assertNotNull(requestEnvelope, "request envelope").getRequest(), context);
         this.requestEnvelope = requestEnvelope;
+        this.deadline = deadline;
         this.serviceClientFactory = serviceClientFactory;
         this.attributesManager = AttributesManager.builder()
                 .withRequestEnvelope(requestEnvelope)
                 .withPersistenceAdapter(persistenceAdapter)
+                .withPrefetchedPersistentAttributes(prefetchedPersistentAttributes)
+                .withDeadline(deadline)
                 .build();
         this.responseBuilder = new ResponseBuilder();
         this.requestEnvelopeJson = requestEnvelopeJson;
@@ -163,6 +211,18 @@ public class HandlerInput extends AbstractHandlerInput<Request> {
         return serviceClientFactory;
     }
 
+    /**
+     * Returns the deadline by which the request must be handled, such as the end of the AWS Lambda invocation less
+     * the safety margin of the {@link com.amazon.ask.dispatcher.DeadlineEnforcer}. Handlers can use it to bound calls
+     * to their own services, service calls made through the {@link ServiceClientFactory} and persistence operations
+     * of the {@link AttributesManager} are not started once it expired.
+     *
+     * @return deadline, or empty if the request has no deadline
+     */
+    public Optional<Deadline> getDeadline() {
+        return Optional.ofNullable(deadline);
+    }
+
     /**
      * Evaluates a {@link Predicate} against the current handler input state.
      *
@@ -213,6 +273,16 @@ public class HandlerInput extends AbstractHandlerInput<Request> {
          */
         private TemplateFactory templateFactory;
 
+        /**
+         * In flight retrieval of the persistence attributes.
+         */
+        private CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes;
+
+        /**
+         * Deadline by which the request must be handled.
+         */
+        private Deadline deadline;
+
         /**
          * Prevent instantiation.
          */
@@ -268,12 +338,34 @@ public class HandlerInput extends AbstractHandlerInput<Request> {
             return this;
         }
 
+        /**
+         * Adds an in flight retrieval of the persistence attributes to HandlerInput, joined by the
+         * {@link AttributesManager} on first access.
+         * @param prefetchedPersistentAttributes future completed with the stored persistence attributes.
+         * @return {@link Builder}.
+         */
+        public Builder withPrefetchedPersistentAttributes(final CompletableFuture<Optional<VersionedAttributes>> prefetchedPersistentAttributes) {
+            this.prefetchedPersistentAttributes = prefetchedPersistentAttributes;
+            return this;
+        }
+
+        /**
+         * Adds the deadline by which the request must be handled to HandlerInput.
+         * @param deadline deadline of the request.
+         * @return {@link Builder}.
+         */
+        public Builder withDeadline(final Deadline deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
         /**
          * Builder method to build an instance of HandlerInput with the provided data.
          * @return {@link HandlerInput}.
          */
         public HandlerInput build() {
-            return new HandlerInput(requestEnvelope, persistenceAdapter, context, serviceClientFactory, requestEnvelopeJson, templateFactory);
+            return new HandlerInput(requestEnvelope, persistenceAdapter, context, serviceClientFactory, requestEnvelopeJson,
+                    templateFactory, prefetchedPersistentAttributes, deadline);
         }
     }
 
@@ -0,0 +1,40 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.exception;
+
+/**
+ * Exception thrown by a {@link com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter} when attributes
+ * could not be saved because they were modified since they were retrieved.
+ */
+public class PersistenceConflictException extends PersistenceException {
+
+    /**
+     * Constructor to build an instance of {@link PersistenceConflictException} with a message.
+     * @param message description of the conflict.
+     */
+    public PersistenceConflictException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor to build an instance of {@link PersistenceConflictException} with a message and cause.
+     * @param message description of the conflict.
+     * @param cause instance of type {@link Throwable}.
+     */
+    public PersistenceConflictException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
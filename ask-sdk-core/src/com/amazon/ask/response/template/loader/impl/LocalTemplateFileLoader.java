@@ -40,6 +40,22 @@ public class LocalTemplateFileLoader extends AbstractLocalTemplateFileLoader<Han
         super(directoryPath, fileExtension, classLoader, templateCache, templateEnumeratorSupplier);
     }
 
+    /**
+     * Constructor for LocalTemplateFileLoader.
+     * @param directoryPath Templates' directory path.
+     * @param fileExtension Type of templates is determined by this file extension.
+     * @param classLoader Loads classes.
+     * @param templateCache Caches the template content.
+     * @param templateEnumeratorSupplier Template enumerator supplier.
+     * @param hotReloadEnabled Watch the template directory and refresh cached templates on change.
+     */
+    protected LocalTemplateFileLoader(final String directoryPath, final String fileExtension, final ClassLoader classLoader,
+                                      final TemplateCache templateCache,
+                                      final BiFunction<String, HandlerInput, TemplateEnumerator<HandlerInput>> templateEnumeratorSupplier,
+                                      final boolean hotReloadEnabled) {
+        super(directoryPath, fileExtension, classLoader, templateCache, templateEnumeratorSupplier, hotReloadEnabled);
+    }
+
     /**
      * Static method to return an instance of Builder.
      * @return {@link Builder}.
@@ -65,7 +81,8 @@ public class LocalTemplateFileLoader extends AbstractLocalTemplateFileLoader<Han
                             LocaleTemplateEnumerator.builder()
                             .withTemplateName(s)
                             .withHandlerInput(handlerInput)
-                            .build() : templateEnumeratorSupplier);
+                            .build() : templateEnumeratorSupplier,
+                    hotReloadEnabled);
         }
     }
 
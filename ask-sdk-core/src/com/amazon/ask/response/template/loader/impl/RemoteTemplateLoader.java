@@ -0,0 +1,83 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template.loader.impl;
+
+import com.amazon.ask.dispatcher.request.handler.HandlerInput;
+import com.amazon.ask.response.template.loader.TemplateCache;
+import com.amazon.ask.response.template.loader.TemplateEnumerator;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+
+/**
+ * {@inheritDoc}
+ *
+ * Use {@link LocaleTemplateEnumerator} as a default {@link TemplateEnumerator} in RemoteTemplateLoader if no TemplateEnumerator provided.
+ */
+public class RemoteTemplateLoader extends AbstractRemoteTemplateLoader<HandlerInput> {
+
+    /**
+     * Constructor for RemoteTemplateLoader.
+     * @param baseUrl Base URL of the remote template store.
+     * @param fileExtension Type of templates is determined by this file extension.
+     * @param templateCache Caches the template content in memory.
+     * @param cacheDirectory Directory caching template content on disk, or null to disable disk caching.
+     * @param refreshInterval Interval in milliseconds after which a template is revalidated.
+     * @param timeout Connect and read timeout in milliseconds for remote requests.
+     * @param requestHeaders Headers added to every remote request.
+     * @param templateEnumeratorSupplier Template enumerator supplier.
+     * @param refreshExecutor Executor running background refreshes, or null to use a single daemon thread.
+     */
+    protected RemoteTemplateLoader(final String baseUrl, final String fileExtension, final TemplateCache templateCache,
+                                   final Path cacheDirectory, final long refreshInterval, final int timeout,
+                                   final Map<String, String> requestHeaders,
+                                   final BiFunction<String, HandlerInput, TemplateEnumerator<HandlerInput>> templateEnumeratorSupplier,
+                                   final ExecutorService refreshExecutor) {
+        super(baseUrl, fileExtension, templateCache, cacheDirectory, refreshInterval, timeout, requestHeaders,
+                templateEnumeratorSupplier, refreshExecutor);
+    }
+
+    /**
+     * Static method to return an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * RemoteTemplateLoader Builder.
+     */
+    public static final class Builder extends AbstractRemoteTemplateLoader.Builder<HandlerInput, Builder> {
+
+        /**
+         * Builder method to build an instance of RemoteTemplateLoader.
+         * @return {@link RemoteTemplateLoader}.
+         */
+        public RemoteTemplateLoader build() {
+            return new RemoteTemplateLoader(baseUrl, fileExtension, templateCache, cacheDirectory, refreshInterval, timeout,
+                    requestHeaders,
+                    templateEnumeratorSupplier == null
+                            ? (BiFunction<String, HandlerInput, TemplateEnumerator<HandlerInput>>) (s, handlerInput) ->
+                            LocaleTemplateEnumerator.builder()
+                            .withTemplateName(s)
+                            .withHandlerInput(handlerInput)
+                            .build() : templateEnumeratorSupplier,
+                    refreshExecutor);
+        }
+    }
+
+}
@@ -13,7 +13,12 @@
 
 package com.amazon.ask;
 
+import com.amazon.ask.attributes.PersistentAttributesPrefetcher;
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
 import com.amazon.ask.builder.SkillConfiguration;
+import com.amazon.ask.dispatcher.DeadlineEnforcer;
+import com.amazon.ask.dispatcher.exception.ExceptionHandler;
+import com.amazon.ask.dispatcher.request.handler.HandlerInput;
 import com.amazon.ask.dispatcher.exception.ExceptionMapper;
 import com.amazon.ask.model.Application;
 import com.amazon.ask.model.Context;
@@ -26,20 +31,41 @@ import com.amazon.ask.model.Response;
 import com.amazon.ask.model.ResponseEnvelope;
 import com.amazon.ask.model.Session;
 import com.amazon.ask.model.interfaces.system.SystemState;
+import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.exception.DeadlineExceededException;
+import com.amazon.ask.exception.UnhandledSkillException;
+import com.amazon.ask.request.Deadline;
+import com.amazon.ask.request.SkillRequest;
+import com.amazon.ask.request.impl.BaseUnmarshalledRequest;
+import com.amazon.ask.request.impl.StreamingSkillRequest;
+import com.amazon.ask.response.SkillResponse;
+import com.amazon.ask.util.impl.ObjectMapperFactory;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SkillTest {
@@ -147,4 +173,198 @@ public class SkillTest {
         skill.invoke(requestEnvelope);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void persistent_attributes_prefetched_before_request_mapping() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        when(persistenceAdapter.getAttributes(any())).thenReturn(Optional.of(Collections.singletonMap("Foo", "Bar")));
+        RequestHandlerChain chain = mock(RequestHandlerChain.class);
+        when(mockRequestMapper.getRequestHandlerChain(any())).thenAnswer(invocation -> {
+            verify(persistenceAdapter).getAttributes(any());
+            return Optional.of(chain);
+        });
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            HandlerInput input = (HandlerInput) invocation.getArguments()[0];
+            assertEquals("Bar", input.getAttributesManager().getPersistentAttributes().get("Foo"));
+            return Optional.of(Response.builder().build());
+        });
+
+        SkillConfiguration skillConfiguration = SkillConfiguration.builder()
+                .withRequestMappers(Collections.singletonList(mockRequestMapper))
+                .withHandlerAdapters(Collections.singletonList(mockAdapter))
+                .withExceptionMapper(mockExceptionMapper)
+                .withPersistenceAdapter(persistenceAdapter)
+                .withPersistentAttributesPrefetcher(PersistentAttributesPrefetcher.builder().withExecutor(Runnable::run).build())
+                .build();
+        skill = new Skill(skillConfiguration);
+        skill.invoke(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build());
+        verify(persistenceAdapter, times(1)).getAttributes(any());
+    }
+
+    @Test
+    public void unmarshalled_request_executed_without_unmarshalling_again() throws IOException {
+        Response response = Response.builder().build();
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenReturn(Optional.of(response));
+        RequestEnvelope requestEnvelope = RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build();
+        StreamingSkillRequest request = new StreamingSkillRequest(
+                new ByteArrayInputStream(ObjectMapperFactory.getMapper().writeValueAsBytes(requestEnvelope)), null);
+        SkillRequest unmarshalled = skill.unmarshall(request);
+        verify(mockAdapter, never()).execute(any(), any());
+        SkillResponse<ResponseEnvelope> skillResponse = skill.execute(unmarshalled, null);
+        assertEquals(response, skillResponse.getResponse().getResponse());
+    }
+
+    @Test
+    public void streaming_request_unmarshalled_in_place() throws IOException {
+        Response response = Response.builder().build();
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenReturn(Optional.of(response));
+        RequestEnvelope requestEnvelope = RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build();
+        StreamingSkillRequest request = new StreamingSkillRequest(
+                new ByteArrayInputStream(ObjectMapperFactory.getMapper().writeValueAsBytes(requestEnvelope)), null);
+        SkillResponse<ResponseEnvelope> skillResponse = skill.execute(request, null);
+        assertEquals(response, skillResponse.getResponse().getResponse());
+        try {
+            request.getRawRequest();
+            fail("Expected the request stream to be consumed");
+        } catch (AskSdkException expected) {
+            // request read in place, never copied into memory
+        }
+    }
+
+    @Test
+    public void handler_abandoned_at_deadline_and_exception_handler_invoked() {
+        Response fallback = Response.builder().withShouldEndSession(true).build();
+        ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+        when(exceptionHandler.handle(any(), any())).thenReturn(Optional.of(fallback));
+        when(mockExceptionMapper.getHandler(any(), any(DeadlineExceededException.class)))
+                .thenReturn(Optional.of(exceptionHandler));
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            return Optional.of(Response.builder().build());
+        });
+        skill = new Skill(deadlineEnforcingConfiguration(0));
+
+        long start = System.nanoTime();
+        ResponseEnvelope responseEnvelope = skill.invoke(new BaseUnmarshalledRequest<>(
+                RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build(), null),
+                null, Deadline.afterMillis(100));
+        assertEquals(fallback, responseEnvelope.getResponse());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void exception_handler_at_deadline_given_own_handler_input() {
+        AtomicReference<HandlerInput> abandonedInput = new AtomicReference<>();
+        AtomicReference<HandlerInput> fallbackInput = new AtomicReference<>();
+        ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+        when(exceptionHandler.handle(any(), any())).thenAnswer(invocation -> {
+            fallbackInput.set((HandlerInput) invocation.getArguments()[0]);
+            return Optional.of(Response.builder().build());
+        });
+        when(mockExceptionMapper.getHandler(any(), any(DeadlineExceededException.class)))
+                .thenReturn(Optional.of(exceptionHandler));
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            abandonedInput.set((HandlerInput) invocation.getArguments()[0]);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            return Optional.of(Response.builder().build());
+        });
+        skill = new Skill(deadlineEnforcingConfiguration(0));
+
+        skill.invoke(new BaseUnmarshalledRequest<>(
+                RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build(), null),
+                null, Deadline.afterMillis(100));
+        assertNotSame(abandonedInput.get(), fallbackInput.get());
+        assertNotSame(abandonedInput.get().getResponseBuilder(), fallbackInput.get().getResponseBuilder());
+        assertNotSame(abandonedInput.get().getAttributesManager(), fallbackInput.get().getAttributesManager());
+    }
+
+    @Test
+    public void session_attributes_changed_by_abandoned_handler_not_in_response_envelope() {
+        ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+        when(exceptionHandler.handle(any(), any())).thenAnswer(invocation -> {
+            HandlerInput input = (HandlerInput) invocation.getArguments()[0];
+            input.getAttributesManager().getSessionAttributes().put("Fallback", "Set");
+            return Optional.of(Response.builder().build());
+        });
+        when(mockExceptionMapper.getHandler(any(), any(DeadlineExceededException.class)))
+                .thenReturn(Optional.of(exceptionHandler));
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            HandlerInput input = (HandlerInput) invocation.getArguments()[0];
+            input.getAttributesManager().getSessionAttributes().put("Foo", "Abandoned");
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            return Optional.of(Response.builder().build());
+        });
+        skill = new Skill(deadlineEnforcingConfiguration(0));
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Foo", "Bar");
+        Session session = Session.builder()
+                .withAttributes(attributes)
+                .build();
+
+        ResponseEnvelope responseEnvelope = skill.invoke(new BaseUnmarshalledRequest<>(
+                RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).withSession(session).build(), null),
+                null, Deadline.afterMillis(100));
+        assertEquals("Bar", responseEnvelope.getSessionAttributes().get("Foo"));
+        assertEquals("Set", responseEnvelope.getSessionAttributes().get("Fallback"));
+    }
+
+    @Test(expected = UnhandledSkillException.class)
+    public void deadline_exceeded_without_exception_handler_throws_exception() {
+        when(mockExceptionMapper.getHandler(any(), any())).thenReturn(Optional.empty());
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            return Optional.of(Response.builder().build());
+        });
+        skill = new Skill(deadlineEnforcingConfiguration(0));
+        skill.invoke(new BaseUnmarshalledRequest<>(
+                RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build(), null),
+                null, Deadline.afterMillis(100));
+    }
+
+    @Test
+    public void handler_input_deadline_keeps_safety_margin() {
+        AtomicLong remaining = new AtomicLong();
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            HandlerInput input = (HandlerInput) invocation.getArguments()[0];
+            remaining.set(input.getDeadline().get().getRemainingMillis());
+            return Optional.of(Response.builder().build());
+        });
+        skill = new Skill(deadlineEnforcingConfiguration(3000));
+        skill.invoke(new BaseUnmarshalledRequest<>(
+                RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build(), null),
+                null, Deadline.afterMillis(10000));
+        assertTrue(remaining.get() > 6000 && remaining.get() <= 7000);
+    }
+
+    @Test
+    public void request_without_deadline_dispatched_on_calling_thread() {
+        Thread caller = Thread.currentThread();
+        when(mockAdapter.supports(any())).thenReturn(true);
+        when(mockAdapter.execute(any(), any())).thenAnswer(invocation -> {
+            HandlerInput input = (HandlerInput) invocation.getArguments()[0];
+            assertEquals(caller, Thread.currentThread());
+            assertFalse(input.getDeadline().isPresent());
+            return Optional.of(Response.builder().build());
+        });
+        skill = new Skill(deadlineEnforcingConfiguration(0));
+        skill.invoke(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build());
+        verify(mockAdapter).execute(any(), any());
+    }
+
+    private SkillConfiguration deadlineEnforcingConfiguration(final long safetyMarginMillis) {
+        return SkillConfiguration.builder()
+                .withRequestMappers(Collections.singletonList(mockRequestMapper))
+                .withHandlerAdapters(Collections.singletonList(mockAdapter))
+                .withExceptionMapper(mockExceptionMapper)
+                .withDeadlineEnforcer(DeadlineEnforcer.builder().withSafetyMargin(safetyMarginMillis).build())
+                .build();
+    }
+
+}
@@ -17,19 +17,32 @@ import com.amazon.ask.model.IntentRequest;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.model.Session;
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.DeadlineExceededException;
+import com.amazon.ask.exception.PersistenceConflictException;
+import com.amazon.ask.exception.PersistenceException;
 import com.amazon.ask.dispatcher.request.handler.HandlerInput;
+import com.amazon.ask.request.Deadline;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -210,9 +223,8 @@ public class AttributesManagerTest {
     }
 
     @Test
-    public void save_calls_persistence_manager_if_attributes_retrieved() {
+    public void save_noop_if_retrieved_attributes_unchanged() {
         PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
-        ArgumentCaptor <Map<String, Object>> attributesCaptor = ArgumentCaptor.forClass((Class)Map.class);
         Map<String, Object> attributes = (Collections.singletonMap("Foo", "Bar"));
         when(persistenceAdapter.getAttributes(any())).thenReturn(Optional.of(attributes));
         HandlerInput input = HandlerInput.builder()
@@ -220,8 +232,45 @@ public class AttributesManagerTest {
                 .withPersistenceAdapter(persistenceAdapter).build();
         input.getAttributesManager().getPersistentAttributes();
         input.getAttributesManager().savePersistentAttributes();
-        verify(persistenceAdapter).saveAttributes(any(RequestEnvelope.class), attributesCaptor.capture());
-        assertEquals(attributes, attributesCaptor.getValue());
+        verify(persistenceAdapter, never()).saveAttributes(any(), any());
+        verify(persistenceAdapter, never()).updateAttributes(any(), any(), any());
+    }
+
+    @Test
+    public void save_calls_update_with_changed_keys_if_retrieved_attributes_modified() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Foo", "Bar");
+        attributes.put("Removed", "Value");
+        attributes.put("Nested", new HashMap<>(Collections.singletonMap("Count", 1)));
+        attributes.put("Unchanged", "Value");
+        when(persistenceAdapter.getAttributes(any())).thenReturn(Optional.of(attributes));
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        Map<String, Object> persistentAttributes = input.getAttributesManager().getPersistentAttributes();
+        persistentAttributes.put("Foo", "Baz");
+        persistentAttributes.put("Added", "Value");
+        persistentAttributes.remove("Removed");
+        ((Map<String, Object>) persistentAttributes.get("Nested")).put("Count", 2);
+        input.getAttributesManager().savePersistentAttributes();
+        verify(persistenceAdapter).updateAttributes(any(RequestEnvelope.class), eq(persistentAttributes),
+                eq(new HashSet<>(Arrays.asList("Foo", "Added", "Removed", "Nested"))));
+        verify(persistenceAdapter, never()).saveAttributes(any(), any());
+    }
+
+    @Test
+    public void save_calls_persistence_manager_if_no_existing_attributes_modified() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        when(persistenceAdapter.getAttributes(any())).thenReturn(Optional.empty());
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Bar");
+        input.getAttributesManager().savePersistentAttributes();
+        input.getAttributesManager().savePersistentAttributes();
+        verify(persistenceAdapter, times(1)).saveAttributes(any(RequestEnvelope.class), eq(Collections.singletonMap("Foo", "Bar")));
+        verify(persistenceAdapter, never()).updateAttributes(any(), any(), any());
     }
 
     @Test
@@ -238,6 +287,96 @@ public class AttributesManagerTest {
         assertEquals(attributes, attributesCaptor.getValue());
     }
 
+    @Test
+    public void save_passes_retrieved_version_to_versioned_adapter() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.isVersioned()).thenReturn(true);
+        when(persistenceAdapter.getVersionedAttributes(any())).thenReturn(Optional.of(new VersionedAttributes(new HashMap<>(), 4L)));
+        when(persistenceAdapter.saveVersionedAttributes(any(), any(), any())).thenReturn(5L);
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Bar");
+        input.getAttributesManager().savePersistentAttributes();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Baz");
+        input.getAttributesManager().savePersistentAttributes();
+        verify(persistenceAdapter).saveVersionedAttributes(any(RequestEnvelope.class), any(), eq(4L));
+        verify(persistenceAdapter).saveVersionedAttributes(any(RequestEnvelope.class), any(), eq(5L));
+        verify(persistenceAdapter, never()).getAttributes(any());
+        verify(persistenceAdapter, never()).saveAttributes(any(), any());
+    }
+
+    @Test
+    public void save_uses_unversioned_methods_if_versioning_disabled() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.getAttributes(any())).thenReturn(Optional.empty());
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Bar");
+        input.getAttributesManager().savePersistentAttributes();
+        verify(persistenceAdapter).saveAttributes(any(RequestEnvelope.class), eq(Collections.singletonMap("Foo", "Bar")));
+        verify(persistenceAdapter, never()).saveVersionedAttributes(any(), any(), any());
+    }
+
+    @Test(expected = PersistenceConflictException.class)
+    public void save_conflict_without_merge_function_throws_exception() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.isVersioned()).thenReturn(true);
+        when(persistenceAdapter.getVersionedAttributes(any())).thenReturn(Optional.empty());
+        when(persistenceAdapter.saveVersionedAttributes(any(), any(), any())).thenThrow(new PersistenceConflictException(""));
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Bar");
+        input.getAttributesManager().savePersistentAttributes();
+    }
+
+    @Test
+    public void save_conflict_merges_with_latest_attributes_and_retries() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.isVersioned()).thenReturn(true);
+        when(persistenceAdapter.getVersionedAttributes(any())).thenReturn(
+                Optional.of(new VersionedAttributes(new HashMap<>(Collections.singletonMap("Count", 1)), 1L)),
+                Optional.of(new VersionedAttributes(new HashMap<>(Collections.singletonMap("Count", 2)), 2L)));
+        when(persistenceAdapter.saveVersionedAttributes(any(), any(), eq(1L))).thenThrow(new PersistenceConflictException(""));
+        when(persistenceAdapter.saveVersionedAttributes(any(), any(), eq(2L))).thenReturn(3L);
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        AttributesManager attributesManager = input.getAttributesManager();
+        attributesManager.getPersistentAttributes().put("Visited", true);
+        attributesManager.savePersistentAttributes((current, latest) -> {
+            Map<String, Object> merged = new HashMap<>(latest);
+            merged.put("Visited", current.get("Visited"));
+            return merged;
+        });
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("Count", 2);
+        expected.put("Visited", true);
+        verify(persistenceAdapter).saveVersionedAttributes(any(RequestEnvelope.class), eq(expected), eq(2L));
+        assertEquals(expected, attributesManager.getPersistentAttributes());
+    }
+
+    @Test
+    public void save_conflict_gives_up_after_retries() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.isVersioned()).thenReturn(true);
+        when(persistenceAdapter.getVersionedAttributes(any())).thenReturn(Optional.empty());
+        when(persistenceAdapter.saveVersionedAttributes(any(), any(), any())).thenThrow(new PersistenceConflictException(""));
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter).build();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Bar");
+        try {
+            input.getAttributesManager().savePersistentAttributes((current, latest) -> current);
+            fail("Expected PersistenceConflictException");
+        } catch (PersistenceConflictException e) {
+            verify(persistenceAdapter, times(4)).saveVersionedAttributes(any(), any(), any());
+        }
+    }
+
     @Test(expected = IllegalStateException.class)
     public void delete_throws_exception_if_no_persistence_adapter() {
         HandlerInput input = HandlerInput.builder()
@@ -246,6 +385,99 @@ public class AttributesManagerTest {
         input.getAttributesManager().deletePersistentAttributes();
     }
 
+    @Test
+    public void persistence_operations_not_started_after_deadline() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter)
+                .withDeadline(Deadline.afterMillis(0))
+                .build();
+        try {
+            input.getAttributesManager().getPersistentAttributes();
+            fail("Expected DeadlineExceededException");
+        } catch (DeadlineExceededException expected) {
+            // deadline expired
+        }
+        input.getAttributesManager().setPersistentAttributes(Collections.singletonMap("Foo", "Bar"));
+        try {
+            input.getAttributesManager().savePersistentAttributes();
+            fail("Expected DeadlineExceededException");
+        } catch (DeadlineExceededException expected) {
+            // deadline expired
+        }
+        verify(persistenceAdapter, never()).getAttributes(any());
+        verify(persistenceAdapter, never()).saveAttributes(any(), any());
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void prefetched_attributes_awaited_until_deadline() {
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(mock(PersistenceAdapter.class))
+                .withPrefetchedPersistentAttributes(new CompletableFuture<>())
+                .withDeadline(Deadline.afterMillis(50))
+                .build();
+        input.getAttributesManager().getPersistentAttributes();
+    }
+
+    @Test
+    public void get_joins_prefetched_attributes() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        CompletableFuture<Optional<VersionedAttributes>> prefetched = CompletableFuture.completedFuture(
+                Optional.of(new VersionedAttributes(new HashMap<>(Collections.singletonMap("Foo", "Bar")), null)));
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter)
+                .withPrefetchedPersistentAttributes(prefetched).build();
+        assertEquals(Collections.singletonMap("Foo", "Bar"), input.getAttributesManager().getPersistentAttributes());
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Baz");
+        input.getAttributesManager().savePersistentAttributes();
+        verify(persistenceAdapter, never()).getAttributes(any());
+        verify(persistenceAdapter).updateAttributes(any(), eq(Collections.singletonMap("Foo", "Baz")),
+                eq(Collections.singleton("Foo")));
+    }
+
+    @Test
+    public void save_passes_prefetched_version_to_versioned_adapter() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.isVersioned()).thenReturn(true);
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter)
+                .withPrefetchedPersistentAttributes(CompletableFuture.completedFuture(
+                        Optional.of(new VersionedAttributes(new HashMap<>(), 7L)))).build();
+        input.getAttributesManager().getPersistentAttributes().put("Foo", "Bar");
+        input.getAttributesManager().savePersistentAttributes();
+        verify(persistenceAdapter, never()).getVersionedAttributes(any());
+        verify(persistenceAdapter).saveVersionedAttributes(any(RequestEnvelope.class), any(), eq(7L));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void get_rethrows_failed_prefetch() {
+        CompletableFuture<Optional<VersionedAttributes>> prefetched = new CompletableFuture<>();
+        prefetched.completeExceptionally(new PersistenceException("failed"));
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(mock(PersistenceAdapter.class))
+                .withPrefetchedPersistentAttributes(prefetched).build();
+        input.getAttributesManager().getPersistentAttributes();
+    }
+
+    @Test
+    public void get_after_delete_ignores_prefetched_attributes() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        when(persistenceAdapter.getAttributes(any())).thenReturn(Optional.empty());
+        HandlerInput input = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build())
+                .withPersistenceAdapter(persistenceAdapter)
+                .withPrefetchedPersistentAttributes(CompletableFuture.completedFuture(
+                        Optional.of(new VersionedAttributes(Collections.singletonMap("Foo", "Bar"), null)))).build();
+        input.getAttributesManager().deletePersistentAttributes();
+        assertEquals(Collections.emptyMap(), input.getAttributesManager().getPersistentAttributes());
+        verify(persistenceAdapter).getAttributes(any());
+    }
+
     @Test
     public void delete_calls_persistence_manager() {
         PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
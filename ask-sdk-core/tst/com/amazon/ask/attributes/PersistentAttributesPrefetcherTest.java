@@ -0,0 +1,114 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes;
+
+import com.amazon.ask.attributes.persistence.AsyncPersistenceAdapter;
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.model.IntentRequest;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.SessionEndedRequest;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PersistentAttributesPrefetcherTest {
+
+    private static final Map<String, Object> ATTRIBUTES = Collections.singletonMap("Foo", "Bar");
+
+    private final RequestEnvelope envelope = RequestEnvelope.builder().withRequest(IntentRequest.builder().build()).build();
+
+    @Test
+    public void prefetch_runs_blocking_read_on_executor() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        when(persistenceAdapter.getAttributes(envelope)).thenReturn(Optional.of(ATTRIBUTES));
+        PersistentAttributesPrefetcher prefetcher = PersistentAttributesPrefetcher.builder().withExecutor(Runnable::run).build();
+
+        Optional<VersionedAttributes> prefetched = prefetcher.prefetch(persistenceAdapter, envelope).join();
+
+        assertEquals(ATTRIBUTES, prefetched.get().getAttributes());
+        assertNull(prefetched.get().getVersion());
+    }
+
+    @Test
+    public void prefetch_uses_async_adapter() {
+        AsyncPersistenceAdapter persistenceAdapter = mock(AsyncPersistenceAdapter.class);
+        when(persistenceAdapter.getAttributesAsync(envelope)).thenReturn(CompletableFuture.completedFuture(Optional.of(ATTRIBUTES)));
+        PersistentAttributesPrefetcher prefetcher = PersistentAttributesPrefetcher.builder().build();
+
+        assertEquals(ATTRIBUTES, prefetcher.prefetch(persistenceAdapter, envelope).join().get().getAttributes());
+        verify(persistenceAdapter, never()).getAttributes(any());
+    }
+
+    @Test
+    public void prefetch_reads_version_from_versioned_adapter() {
+        VersionedPersistenceAdapter persistenceAdapter = mock(VersionedPersistenceAdapter.class);
+        when(persistenceAdapter.isVersioned()).thenReturn(true);
+        when(persistenceAdapter.getVersionedAttributes(envelope)).thenReturn(Optional.of(new VersionedAttributes(ATTRIBUTES, 3L)));
+        PersistentAttributesPrefetcher prefetcher = PersistentAttributesPrefetcher.builder().build();
+
+        assertEquals(Long.valueOf(3L), prefetcher.prefetch(persistenceAdapter, envelope).join().get().getVersion());
+        verify(persistenceAdapter, never()).getAttributes(any());
+    }
+
+    @Test
+    public void prefetch_skipped_for_requests_rejected_by_policy() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        PersistentAttributesPrefetcher prefetcher = PersistentAttributesPrefetcher.builder()
+                .withPrefetchPolicy(requestEnvelope -> !(requestEnvelope.getRequest() instanceof SessionEndedRequest))
+                .build();
+
+        assertNull(prefetcher.prefetch(persistenceAdapter,
+                RequestEnvelope.builder().withRequest(SessionEndedRequest.builder().build()).build()));
+        verify(persistenceAdapter, never()).getAttributes(any());
+    }
+
+    @Test
+    public void prefetch_skipped_when_executor_rejects_read() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        PersistentAttributesPrefetcher prefetcher = PersistentAttributesPrefetcher.builder()
+                .withExecutor(runnable -> {
+                    throw new RejectedExecutionException();
+                })
+                .build();
+
+        assertNull(prefetcher.prefetch(persistenceAdapter, envelope));
+        verify(persistenceAdapter, never()).getAttributes(any());
+    }
+
+    @Test
+    public void prefetch_skipped_without_persistence_adapter() {
+        assertNull(PersistentAttributesPrefetcher.builder().build().prefetch(null, envelope));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetch_policy_must_not_be_null() {
+        PersistentAttributesPrefetcher.builder().withPrefetchPolicy(null).build();
+    }
+
+}
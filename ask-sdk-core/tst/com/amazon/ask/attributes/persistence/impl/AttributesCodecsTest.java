@@ -0,0 +1,86 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AttributesCodecsTest {
+
+    @Test
+    public void cbor_round_trip_returns_map_format_types() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("Score", 2.5);
+        nested.put("Flags", Arrays.asList(true, false));
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Name", "Foo");
+        attributes.put("Count", 3);
+        attributes.put("Big", Long.MAX_VALUE);
+        attributes.put("Nested", nested);
+        attributes.put("Numbers", Arrays.asList(1, 2));
+
+        Map<String, Object> decoded = AttributesCodecs.cbor().decode(AttributesCodecs.cbor().encode(attributes));
+
+        assertEquals("Foo", decoded.get("Name"));
+        assertEquals(new BigDecimal(3), decoded.get("Count"));
+        assertEquals(new BigDecimal(Long.MAX_VALUE), decoded.get("Big"));
+        assertEquals(new BigDecimal("2.5"), ((Map<?, ?>) decoded.get("Nested")).get("Score"));
+        assertEquals(Arrays.asList(true, false), ((Map<?, ?>) decoded.get("Nested")).get("Flags"));
+        assertEquals(Arrays.asList(new BigDecimal(1), new BigDecimal(2)), decoded.get("Numbers"));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void cbor_decode_invalid_data_throws_persistence_exception() {
+        AttributesCodecs.cbor().decode(new byte[] {(byte) 0xff, 0x00});
+    }
+
+    @Test
+    public void compressed_codec_compresses_above_threshold() {
+        AttributesCodec codec = AttributesCodecs.compressed(AttributesCodecs.cbor(), 64);
+        Map<String, Object> attributes = Collections.singletonMap("Text", String.join("", Collections.nCopies(100, "repeated ")));
+
+        byte[] encoded = codec.encode(attributes);
+
+        assertEquals(0x1f, encoded[0] & 0xff);
+        assertEquals(0x8b, encoded[1] & 0xff);
+        assertTrue(encoded.length < AttributesCodecs.cbor().encode(attributes).length);
+        assertEquals(attributes, codec.decode(encoded));
+    }
+
+    @Test
+    public void compressed_codec_stores_small_attributes_uncompressed() {
+        AttributesCodec codec = AttributesCodecs.compressed(AttributesCodecs.cbor(), 64);
+        Map<String, Object> attributes = Collections.singletonMap("Foo", "Bar");
+
+        byte[] encoded = codec.encode(attributes);
+
+        assertEquals(Arrays.toString(AttributesCodecs.cbor().encode(attributes)), Arrays.toString(encoded));
+        assertEquals(attributes, codec.decode(encoded));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compressed_codec_requires_codec() {
+        AttributesCodecs.compressed(null);
+    }
+
+}
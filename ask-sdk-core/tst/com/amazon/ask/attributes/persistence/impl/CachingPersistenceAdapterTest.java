@@ -0,0 +1,276 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.Session;
+import com.amazon.ask.model.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingPersistenceAdapterTest {
+
+    private PersistenceAdapter delegate;
+
+    @Before
+    public void setup() {
+        delegate = mock(PersistenceAdapter.class);
+        when(delegate.getAttributes(any())).thenReturn(Optional.of(Collections.singletonMap("Foo", "Bar")));
+    }
+
+    @Test
+    public void get_attributes_served_from_cache_within_session() {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, true, 0);
+        assertEquals("Bar", adapter.getAttributes(envelope("user", "session", true)).get().get("Foo"));
+        assertEquals("Bar", adapter.getAttributes(envelope("user", "session", false)).get().get("Foo"));
+        verify(delegate, times(1)).getAttributes(any());
+    }
+
+    @Test
+    public void get_attributes_reloaded_for_new_or_different_session() {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, true, 0);
+        adapter.getAttributes(envelope("user", "session", false));
+        adapter.getAttributes(envelope("user", "other", false));
+        adapter.getAttributes(envelope("user", "other", true));
+        verify(delegate, times(3)).getAttributes(any());
+    }
+
+    @Test
+    public void get_attributes_reloaded_after_time_to_live() {
+        CachingPersistenceAdapter adapter = buildAdapter(-1, false, 0);
+        adapter.getAttributes(envelope("user", "session", false));
+        adapter.getAttributes(envelope("user", "session", false));
+        verify(delegate, times(2)).getAttributes(any());
+    }
+
+    @Test
+    public void cached_attributes_not_affected_by_modifications() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("List", Arrays.asList("a", "b"));
+        when(delegate.getAttributes(any())).thenReturn(Optional.of(attributes));
+        CachingPersistenceAdapter adapter = buildAdapter(60000, false, 0);
+        Map<String, Object> first = adapter.getAttributes(envelope("user", "session", false)).get();
+        first.put("Foo", "Bar");
+        ((List<Object>) first.get("List")).add("c");
+        Map<String, Object> second = adapter.getAttributes(envelope("user", "session", false)).get();
+        assertFalse(second.containsKey("Foo"));
+        assertEquals(Arrays.asList("a", "b"), second.get("List"));
+    }
+
+    @Test
+    public void save_attributes_written_through_and_cached() {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, true, 0);
+        RequestEnvelope envelope = envelope("user", "session", false);
+        adapter.saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+        verify(delegate).saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+        assertEquals("Baz", adapter.getAttributes(envelope).get().get("Foo"));
+        verify(delegate, never()).getAttributes(any());
+    }
+
+    @Test
+    public void write_behind_coalesces_saves_for_same_key() {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, true, 60000);
+        RequestEnvelope envelope = envelope("user", "session", false);
+        adapter.updateAttributes(envelope, Collections.singletonMap("Foo", "Baz"), Collections.singleton("Foo"));
+        adapter.updateAttributes(envelope, Collections.singletonMap("Bar", "Baz"), Collections.singleton("Bar"));
+        verify(delegate, never()).updateAttributes(any(), any(), any());
+        assertEquals("Baz", adapter.getAttributes(envelope("user", "other", true)).get().get("Bar"));
+        adapter.close();
+        verify(delegate, times(1)).updateAttributes(envelope, Collections.singletonMap("Bar", "Baz"),
+                new HashSet<>(Arrays.asList("Foo", "Bar")));
+        verify(delegate, never()).getAttributes(any());
+    }
+
+    @Test
+    public void delete_attributes_discards_cache_and_queued_saves() {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, false, 60000);
+        RequestEnvelope envelope = envelope("user", "session", false);
+        adapter.saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+        adapter.deleteAttributes(envelope);
+        adapter.close();
+        verify(delegate).deleteAttributes(envelope);
+        verify(delegate, never()).saveAttributes(any(), any());
+        assertEquals(0, adapter.size());
+    }
+
+    @Test
+    public void failed_queued_save_retried() {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, false, 60000);
+        RequestEnvelope envelope = envelope("user", "session", false);
+        doThrow(new PersistenceException("Unavailable")).doNothing().when(delegate).saveAttributes(any(), any());
+        adapter.saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+        adapter.close();
+        verify(delegate, times(2)).saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+    }
+
+    @Test
+    public void failed_queued_save_reported_on_next_operation_for_key() {
+        CachingPersistenceAdapter adapter = CachingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withKeyGenerator(envelope -> envelope.getSession().getUser().getUserId())
+                .withWriteBehindDelay(60000)
+                .withMaxFlushAttempts(2)
+                .build();
+        RequestEnvelope envelope = envelope("user", "session", false);
+        doThrow(new PersistenceException("Unavailable")).when(delegate).saveAttributes(any(), any());
+        adapter.saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+        try {
+            adapter.close();
+            fail("Expected queued save failure on close");
+        } catch (PersistenceException expected) {
+            verify(delegate, times(2)).saveAttributes(any(), any());
+        }
+        try {
+            adapter.getAttributes(envelope);
+            fail("Expected queued save failure on next read");
+        } catch (PersistenceException expected) {
+            verify(delegate, never()).getAttributes(any());
+        }
+        assertEquals("Bar", adapter.getAttributes(envelope).get().get("Foo"));
+    }
+
+    @Test
+    public void delete_attributes_ordered_after_in_flight_save() throws Exception {
+        CachingPersistenceAdapter adapter = buildAdapter(60000, false, 1);
+        RequestEnvelope envelope = envelope("user", "session", false);
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            saving.countDown();
+            release.await();
+            return null;
+        }).when(delegate).saveAttributes(any(), any());
+        adapter.saveAttributes(envelope, Collections.singletonMap("Foo", "Baz"));
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        Thread deleter = new Thread(() -> adapter.deleteAttributes(envelope));
+        deleter.start();
+        deleter.join(200);
+        verify(delegate, never()).deleteAttributes(any());
+        release.countDown();
+        deleter.join(5000);
+        verify(delegate, timeout(5000)).deleteAttributes(envelope);
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).saveAttributes(any(), any());
+        order.verify(delegate).deleteAttributes(envelope);
+        adapter.close();
+    }
+
+    @Test
+    public void cached_attributes_keep_collection_types() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("b", 1);
+        nested.put("a", 2);
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("Nested", nested);
+        attributes.put("Sorted", new TreeSet<>(Arrays.asList("b", "a")));
+        CachingPersistenceAdapter adapter = buildAdapter(60000, false, 0);
+        RequestEnvelope envelope = envelope("user", "session", false);
+        adapter.saveAttributes(envelope, attributes);
+        Map<String, Object> cached = adapter.getAttributes(envelope).get();
+        assertTrue(cached instanceof LinkedHashMap);
+        assertTrue(cached.get("Nested") instanceof LinkedHashMap);
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(((Map<?, ?>) cached.get("Nested")).keySet()));
+        assertTrue(cached.get("Sorted") instanceof TreeSet);
+        verify(delegate, never()).getAttributes(any());
+    }
+
+    @Test
+    public void batch_get_attributes_only_loads_misses() {
+        when(delegate.batchGetAttributes(anyCollection())).thenReturn(Collections.singletonList(Optional.empty()));
+        CachingPersistenceAdapter adapter = buildAdapter(60000, false, 0);
+        RequestEnvelope cached = envelope("cached", "session", false);
+        RequestEnvelope missing = envelope("missing", "session", false);
+        adapter.getAttributes(cached);
+        List<Optional<Map<String, Object>>> results = adapter.batchGetAttributes(Arrays.asList(cached, missing));
+        assertEquals("Bar", results.get(0).get().get("Foo"));
+        assertEquals(Optional.empty(), results.get(1));
+        verify(delegate).batchGetAttributes(eq(Collections.singletonList(missing)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void versioned_adapter_rejected() {
+        VersionedPersistenceAdapter versionedDelegate = mock(VersionedPersistenceAdapter.class);
+        when(versionedDelegate.isVersioned()).thenReturn(true);
+        CachingPersistenceAdapter.builder()
+                .withPersistenceAdapter(versionedDelegate)
+                .withKeyGenerator(envelope -> envelope.getSession().getUser().getUserId())
+                .build();
+    }
+
+    @Test
+    public void versioned_adapter_with_versioning_disabled_accepted() {
+        VersionedPersistenceAdapter versionedDelegate = mock(VersionedPersistenceAdapter.class);
+        when(versionedDelegate.isVersioned()).thenReturn(false);
+        CachingPersistenceAdapter.builder()
+                .withPersistenceAdapter(versionedDelegate)
+                .withKeyGenerator(envelope -> envelope.getSession().getUser().getUserId())
+                .build()
+                .close();
+    }
+
+    private CachingPersistenceAdapter buildAdapter(final long timeToLive, final boolean sessionAware, final long writeBehindDelay) {
+        return CachingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withKeyGenerator(envelope -> envelope.getSession().getUser().getUserId())
+                .withTimeToLive(timeToLive)
+                .withSessionAwareInvalidation(sessionAware)
+                .withWriteBehindDelay(writeBehindDelay)
+                .build();
+    }
+
+    private RequestEnvelope envelope(final String userId, final String sessionId, final boolean newSession) {
+        return RequestEnvelope.builder()
+                .withSession(Session.builder()
+                        .withSessionId(sessionId)
+                        .withNew(newSession)
+                        .withUser(User.builder().withUserId(userId).build())
+                        .build())
+                .build();
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CoalescingPersistenceAdapterTest {
+
+    private List<Integer> batchSizes;
+    private boolean failBatches;
+    private Error batchError;
+    private CountDownLatch slowBatchRelease;
+    private PersistenceAdapter delegate;
+    private ExecutorService callers;
+
+    @Before
+    public void setup() {
+        batchSizes = new CopyOnWriteArrayList<>();
+        failBatches = false;
+        batchError = null;
+        slowBatchRelease = null;
+        delegate = new PersistenceAdapter() {
+            @Override
+            public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) {
+                throw new AssertionError("Reads must be batched");
+            }
+
+            @Override
+            public List<Optional<Map<String, Object>>> batchGetAttributes(final Collection<RequestEnvelope> envelopes) {
+                batchSizes.add(envelopes.size());
+                if (batchError != null) {
+                    throw batchError;
+                }
+                if (slowBatchRelease != null && envelopes.iterator().next().getVersion() == null) {
+                    try {
+                        slowBatchRelease.await();
+                    } catch (InterruptedException e) {
+                        throw new PersistenceException("interrupted", e);
+                    }
+                }
+                if (failBatches) {
+                    throw new PersistenceException("failure");
+                }
+                List<Optional<Map<String, Object>>> results = new ArrayList<>();
+                for (RequestEnvelope envelope : envelopes) {
+                    results.add(envelope.getVersion() == null ? Optional.empty()
+                            : Optional.of(Collections.singletonMap("version", envelope.getVersion())));
+                }
+                return results;
+            }
+
+            @Override
+            public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) { }
+
+            @Override
+            public void deleteAttributes(final RequestEnvelope envelope) { }
+        };
+        callers = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void concurrent_reads_within_window_coalesce_into_single_batch() throws Exception {
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withBatchWindow(500)
+                .build();
+        List<Future<Optional<Map<String, Object>>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            RequestEnvelope envelope = RequestEnvelope.builder().withVersion(String.valueOf(i)).build();
+            results.add(callers.submit(() -> adapter.getAttributes(envelope)));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(String.valueOf(i), results.get(i).get().get().get("version"));
+        }
+        assertEquals(Collections.singletonList(4), batchSizes);
+        adapter.close();
+    }
+
+    @Test
+    public void batch_dispatched_when_max_batch_size_reached() throws Exception {
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withBatchWindow(Long.MAX_VALUE)
+                .withMaxBatchSize(2)
+                .build();
+        Future<Optional<Map<String, Object>>> first = callers.submit(() -> adapter.getAttributes(RequestEnvelope.builder().build()));
+        assertFalse(adapter.getAttributes(RequestEnvelope.builder().build()).isPresent());
+        assertFalse(first.get().isPresent());
+        assertEquals(Collections.singletonList(2), batchSizes);
+        adapter.close();
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void batch_failure_propagated_to_caller() {
+        failBatches = true;
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withBatchWindow(0)
+                .build();
+        adapter.getAttributes(RequestEnvelope.builder().build());
+    }
+
+    @Test
+    public void save_and_delete_passed_through() {
+        PersistenceAdapter mockDelegate = mock(PersistenceAdapter.class);
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(mockDelegate)
+                .build();
+        RequestEnvelope envelope = RequestEnvelope.builder().build();
+        adapter.saveAttributes(envelope, Collections.emptyMap());
+        adapter.deleteAttributes(envelope);
+        verify(mockDelegate).saveAttributes(envelope, Collections.emptyMap());
+        verify(mockDelegate).deleteAttributes(any());
+    }
+
+    @Test
+    public void batch_error_releases_waiting_callers() throws Exception {
+        batchError = new OutOfMemoryError("failure");
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withBatchWindow(0)
+                .build();
+        Future<Optional<Map<String, Object>>> result = callers.submit(() -> adapter.getAttributes(RequestEnvelope.builder().build()));
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected PersistenceException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PersistenceException);
+            assertSame(batchError, e.getCause().getCause());
+        }
+        adapter.close();
+    }
+
+    @Test
+    public void slow_batch_does_not_hold_up_later_batches() throws Exception {
+        slowBatchRelease = new CountDownLatch(1);
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withBatchWindow(0)
+                .build();
+        try {
+            Future<Optional<Map<String, Object>>> slow = callers.submit(() -> adapter.getAttributes(RequestEnvelope.builder().build()));
+            while (batchSizes.isEmpty()) {
+                Thread.sleep(10);
+            }
+            RequestEnvelope envelope = RequestEnvelope.builder().withVersion("1").build();
+            assertEquals("1", callers.submit(() -> adapter.getAttributes(envelope)).get(5, TimeUnit.SECONDS).get().get("version"));
+            assertFalse(slow.isDone());
+        } finally {
+            slowBatchRelease.countDown();
+            adapter.close();
+        }
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void read_times_out_when_batch_does_not_complete() {
+        slowBatchRelease = new CountDownLatch(1);
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .withBatchWindow(0)
+                .withReadTimeout(100)
+                .build();
+        try {
+            adapter.getAttributes(RequestEnvelope.builder().build());
+        } finally {
+            slowBatchRelease.countDown();
+            adapter.close();
+        }
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void read_after_close_rejected() {
+        CoalescingPersistenceAdapter adapter = CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(delegate)
+                .build();
+        adapter.close();
+        adapter.getAttributes(RequestEnvelope.builder().build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void versioned_adapter_rejected() {
+        VersionedPersistenceAdapter versionedDelegate = mock(VersionedPersistenceAdapter.class);
+        when(versionedDelegate.isVersioned()).thenReturn(true);
+        CoalescingPersistenceAdapter.builder()
+                .withPersistenceAdapter(versionedDelegate)
+                .build();
+    }
+
+}
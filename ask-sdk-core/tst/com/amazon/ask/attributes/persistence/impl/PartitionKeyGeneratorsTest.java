@@ -23,7 +23,13 @@ import com.amazon.ask.model.interfaces.system.SystemState;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class PartitionKeyGeneratorsTest {
 
@@ -197,4 +203,64 @@ public class PartitionKeyGeneratorsTest {
     }
 
 
+    @Test
+    public void constant_generator_returns_key_for_any_request() {
+        assertEquals("leaderboard", PartitionKeyGenerators.constant("leaderboard").apply(null));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constant_generator_rejects_empty_key() {
+        PartitionKeyGenerators.constant("");
+    }
+
+    @Test
+    public void composite_generator_joins_keys() {
+        Function<RequestEnvelope, String> generator = PartitionKeyGenerators.composite(":",
+                PartitionKeyGenerators.userId(), PartitionKeyGenerators.deviceId());
+        assertEquals("user1:device1", generator.apply(envelope("user1", "device1")));
+    }
+
+    @Test (expected = PersistenceException.class)
+    public void composite_generator_propagates_generator_failure() {
+        PartitionKeyGenerators.composite(":", PartitionKeyGenerators.userId(), PartitionKeyGenerators.deviceId())
+                .apply(envelope("user1", null));
+    }
+
+    @Test
+    public void sharded_generator_uses_same_shard_for_same_user() {
+        Function<RequestEnvelope, String> generator = PartitionKeyGenerators.sharded(
+                PartitionKeyGenerators.constant("leaderboard"), PartitionKeyGenerators.userId(), 4);
+        assertEquals(generator.apply(envelope("user1", null)), generator.apply(envelope("user1", null)));
+        assertTrue(PartitionKeyGenerators.shardKeys("leaderboard", 4).contains(generator.apply(envelope("user1", null))));
+    }
+
+    @Test
+    public void sharded_generator_spreads_users_over_shards() {
+        Function<RequestEnvelope, String> generator = PartitionKeyGenerators.sharded(
+                PartitionKeyGenerators.constant("leaderboard"), PartitionKeyGenerators.userId(), 4);
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(generator.apply(envelope("user" + i, null)));
+        }
+        assertEquals(new HashSet<>(PartitionKeyGenerators.shardKeys("leaderboard", 4)), keys);
+    }
+
+    @Test
+    public void shard_keys_lists_all_shards() {
+        assertEquals(Arrays.asList("counter#0", "counter#1", "counter#2"), PartitionKeyGenerators.shardKeys("counter", 3));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void sharded_generator_rejects_non_positive_shard_count() {
+        PartitionKeyGenerators.sharded(PartitionKeyGenerators.constant("leaderboard"), PartitionKeyGenerators.userId(), 0);
+    }
+
+    private RequestEnvelope envelope(final String userId, final String deviceId) {
+        SystemState system = SystemState.builder()
+                .withUser(User.builder().withUserId(userId).build())
+                .withDevice(deviceId != null ? Device.builder().withDeviceId(deviceId).build() : null)
+                .build();
+        return RequestEnvelope.builder().withContext(Context.builder().withSystem(system).build()).build();
+    }
+
 }
@@ -0,0 +1,89 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.dispatcher;
+
+import com.amazon.ask.exception.DeadlineExceededException;
+import com.amazon.ask.request.Deadline;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeadlineEnforcerTest {
+
+    private final DeadlineEnforcer enforcer = DeadlineEnforcer.builder().build();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void safety_margin_must_not_be_negative() {
+        DeadlineEnforcer.builder().withSafetyMargin(-1).build();
+    }
+
+    @Test
+    public void handling_deadline_keeps_safety_margin() {
+        Deadline deadline = DeadlineEnforcer.builder().withSafetyMargin(3000).build()
+                .getHandlingDeadline(Deadline.afterMillis(10000));
+        long remaining = deadline.getRemainingMillis();
+        assertTrue(remaining > 6000 && remaining <= 7000);
+    }
+
+    @Test
+    public void dispatch_result_returned() {
+        assertEquals("result", enforcer.dispatchWithin(Deadline.afterMillis(5000), () -> "result"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void dispatch_exception_rethrown() {
+        enforcer.dispatchWithin(Deadline.afterMillis(5000), () -> {
+            throw new IllegalStateException("failed");
+        });
+    }
+
+    @Test
+    public void dispatch_abandoned_and_interrupted_at_deadline() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        long start = System.nanoTime();
+        try {
+            enforcer.dispatchWithin(Deadline.afterMillis(100), () -> {
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "late";
+            });
+            fail("Expected DeadlineExceededException");
+        } catch (DeadlineExceededException expected) {
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void dispatch_not_started_after_deadline() {
+        AtomicBoolean started = new AtomicBoolean();
+        try {
+            enforcer.dispatchWithin(Deadline.afterMillis(0), () -> started.getAndSet(true));
+            fail("Expected DeadlineExceededException");
+        } catch (DeadlineExceededException expected) {
+            assertFalse(started.get());
+        }
+    }
+
+}
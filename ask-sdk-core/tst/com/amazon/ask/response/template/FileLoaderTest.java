@@ -19,13 +19,24 @@ import com.amazon.ask.model.Request;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.response.template.loader.TemplateCache;
 import com.amazon.ask.response.template.loader.impl.LocalTemplateFileLoader;
+import com.amazon.ask.response.template.loader.impl.ConcurrentLRUTemplateCache;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
-
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Optional;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -41,6 +52,9 @@ public class FileLoaderTest {
     private static final String BASE_PATH = "com/amazon/ask/response/template/";
     private static final String EXTENSION = "txt";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private TemplateCache mockCache;
     private LocalTemplateFileLoader fileLoader;
     private HandlerInput handlerInput;
@@ -128,4 +142,82 @@ public class FileLoaderTest {
         fileLoader.load(TEST_TEMPLATE, handlerInput);
     }
 
+    @Test
+    public void load_large_template_reads_complete_content() throws Exception {
+        byte[] content = new byte[1024 * 1024];
+        Arrays.fill(content, (byte) 'a');
+        File templateDir = temporaryFolder.newFolder("templates", "test_template", "en");
+        Files.write(new File(templateDir, "US.txt").toPath(), content);
+        fileLoader = LocalTemplateFileLoader.builder()
+                .withDirectoryPath("templates/")
+                .withFileExtension(EXTENSION)
+                .withClassLoader(new URLClassLoader(new URL[] {temporaryFolder.getRoot().toURI().toURL()}, null))
+                .build();
+        Optional<TemplateContentData> template = fileLoader.load(TEST_TEMPLATE, handlerInput);
+        assertTrue(template.isPresent());
+        assertArrayEquals(content, template.get().getTemplateContent());
+    }
+
+    @Test
+    public void load_with_hot_reload_refreshes_cache_on_change() throws Exception {
+        File templateDir = temporaryFolder.newFolder("templates", "test_template", "en");
+        File templateFile = new File(templateDir, "US.txt");
+        Files.write(templateFile.toPath(), "before".getBytes(StandardCharsets.UTF_8));
+        TemplateCache cache = ConcurrentLRUTemplateCache.builder().build();
+        fileLoader = LocalTemplateFileLoader.builder()
+                .withDirectoryPath("templates/")
+                .withFileExtension(EXTENSION)
+                .withClassLoader(new URLClassLoader(new URL[] {temporaryFolder.getRoot().toURI().toURL()}, null))
+                .withTemplateCache(cache)
+                .withHotReload(true)
+                .build();
+        try {
+            TemplateContentData before = fileLoader.load(TEST_TEMPLATE, handlerInput).get();
+            assertEquals("before", new String(before.getTemplateContent(), StandardCharsets.UTF_8));
+            Files.write(templateFile.toPath(), "after".getBytes(StandardCharsets.UTF_8));
+            String content = null;
+            for (int attempt = 0; attempt < 100 && !"after".equals(content); attempt++) {
+                Thread.sleep(100);
+                TemplateContentData cached = cache.get(before.getIdentifier());
+                content = cached == null ? null : new String(cached.getTemplateContent(), StandardCharsets.UTF_8);
+            }
+            assertEquals("after", content);
+            assertEquals("after", new String(fileLoader.load(TEST_TEMPLATE, handlerInput).get().getTemplateContent(),
+                    StandardCharsets.UTF_8));
+        } finally {
+            fileLoader.close();
+        }
+    }
+
+    @Test
+    public void load_with_hot_reload_leaves_templates_not_in_cache_uncached() throws Exception {
+        File templateDir = temporaryFolder.newFolder("templates", "test_template", "en");
+        File templateFile = new File(templateDir, "US.txt");
+        Files.write(templateFile.toPath(), "before".getBytes(StandardCharsets.UTF_8));
+        TemplateCache cache = ConcurrentLRUTemplateCache.builder().build();
+        fileLoader = LocalTemplateFileLoader.builder()
+                .withDirectoryPath("templates/")
+                .withFileExtension(EXTENSION)
+                .withClassLoader(new URLClassLoader(new URL[] {temporaryFolder.getRoot().toURI().toURL()}, null))
+                .withTemplateCache(cache)
+                .withHotReload(true)
+                .build();
+        try {
+            TemplateContentData before = fileLoader.load(TEST_TEMPLATE, handlerInput).get();
+            File unusedFile = new File(templateDir, "GB.txt");
+            Files.write(unusedFile.toPath(), "unused".getBytes(StandardCharsets.UTF_8));
+            Files.write(templateFile.toPath(), "after".getBytes(StandardCharsets.UTF_8));
+            String content = null;
+            for (int attempt = 0; attempt < 100 && !"after".equals(content); attempt++) {
+                Thread.sleep(100);
+                TemplateContentData cached = cache.get(before.getIdentifier());
+                content = cached == null ? null : new String(cached.getTemplateContent(), StandardCharsets.UTF_8);
+            }
+            assertEquals("after", content);
+            assertNull(cache.get(unusedFile.toPath().toAbsolutePath().normalize().toFile().toURI().toString()));
+        } finally {
+            fileLoader.close();
+        }
+    }
+
 }
@@ -0,0 +1,241 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template;
+
+import com.amazon.ask.dispatcher.request.handler.HandlerInput;
+import com.amazon.ask.model.LaunchRequest;
+import com.amazon.ask.model.Request;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.response.template.loader.TemplateCache;
+import com.amazon.ask.response.template.loader.impl.ConcurrentLRUTemplateCache;
+import com.amazon.ask.response.template.loader.impl.RemoteTemplateLoader;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RemoteTemplateLoaderTest {
+
+    private static final String TEMPLATE_NAME = "test_template";
+    private static final String TEMPLATE_PATH = "/templates/test_template/en/US.ftl";
+    private static final String EXTENSION = "ftl";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private Map<String, String> contents;
+    private List<String> requests;
+    private HandlerInput handlerInput;
+    private ExecutorService refreshExecutor;
+    private volatile int missingStatusCode;
+
+    @Before
+    public void setup() throws IOException {
+        contents = new ConcurrentHashMap<>();
+        missingStatusCode = 404;
+        requests = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(path + (ifNoneMatch == null ? "" : " " + ifNoneMatch));
+            String content = contents.get(path);
+            if (content == null) {
+                exchange.sendResponseHeaders(missingStatusCode, -1);
+            } else {
+                String etag = "\"" + content.hashCode() + "\"";
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(ifNoneMatch)) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream outputStream = exchange.getResponseBody()) {
+                        outputStream.write(body);
+                    }
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        Request request = LaunchRequest.builder().withLocale("en-US").build();
+        RequestEnvelope requestEnvelope = RequestEnvelope.builder().withRequest(request).build();
+        handlerInput = HandlerInput.builder().withRequestEnvelope(requestEnvelope).build();
+        refreshExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        refreshExecutor.shutdownNow();
+    }
+
+    @Test
+    public void load_fetches_once_and_serves_from_memory() {
+        contents.put(TEMPLATE_PATH, "content");
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, null);
+        assertEquals("content", load(loader));
+        assertEquals("content", load(loader));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void load_remembers_missing_locale_variants() {
+        contents.put("/templates/test_template.ftl", "fallback");
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, null);
+        assertEquals("fallback", load(loader));
+        int requestCount = requests.size();
+        assertEquals(6, requestCount);
+        assertEquals("fallback", load(loader));
+        assertEquals(requestCount, requests.size());
+    }
+
+    @Test
+    public void load_falls_back_to_next_locale_variant_on_forbidden() {
+        // private S3 buckets answer requests for missing keys with 403
+        missingStatusCode = 403;
+        contents.put("/templates/test_template.ftl", "fallback");
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, null);
+        assertEquals("fallback", load(loader));
+        int requestCount = requests.size();
+        assertEquals("fallback", load(loader));
+        assertEquals(requestCount, requests.size());
+    }
+
+    @Test
+    public void load_revalidates_stale_template_with_etag() throws InterruptedException {
+        contents.put(TEMPLATE_PATH, "content");
+        RemoteTemplateLoader loader = buildLoader(0, null);
+        assertEquals("content", load(loader));
+        assertEquals("content", load(loader));
+        awaitRefresh();
+        assertEquals(2, requests.size());
+        assertEquals(TEMPLATE_PATH + " \"" + "content".hashCode() + "\"", requests.get(1));
+        assertEquals("content", load(loader));
+    }
+
+    @Test
+    public void load_serves_cached_template_until_background_refresh_completes() throws InterruptedException {
+        contents.put(TEMPLATE_PATH, "before");
+        RemoteTemplateLoader loader = buildLoader(0, null);
+        assertEquals("before", load(loader));
+        contents.put(TEMPLATE_PATH, "after");
+        assertEquals("before", load(loader));
+        awaitRefresh();
+        assertEquals("after", load(loader));
+    }
+
+    @Test
+    public void load_serves_from_disk_when_remote_is_unavailable() throws IOException {
+        contents.put(TEMPLATE_PATH, "content");
+        Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+        assertEquals("content", load(buildLoader(Long.MAX_VALUE, cacheDirectory)));
+        server.stop(0);
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, cacheDirectory);
+        assertEquals("content", load(loader));
+    }
+
+    @Test
+    public void load_missing_template_returns_empty() {
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, null);
+        assertFalse(loader.load(TEMPLATE_NAME, handlerInput).isPresent());
+    }
+
+    @Test
+    public void load_serves_template_evicted_from_memory_from_disk_without_remote_request() throws IOException {
+        contents.put(TEMPLATE_PATH, "content");
+        // templates larger than the capacity are never held by the memory tier
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, temporaryFolder.newFolder("cache").toPath(),
+                ConcurrentLRUTemplateCache.builder().withCapacity(1).build());
+        assertEquals("content", load(loader));
+        server.stop(0);
+        assertEquals("content", load(loader));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void load_fetches_template_evicted_from_memory_without_disk_cache() {
+        contents.put(TEMPLATE_PATH, "content");
+        RemoteTemplateLoader loader = buildLoader(Long.MAX_VALUE, null, ConcurrentLRUTemplateCache.builder().withCapacity(1).build());
+        assertEquals("content", load(loader));
+        assertEquals("content", load(loader));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void load_serves_evicted_template_until_background_refresh_completes() throws InterruptedException, IOException {
+        contents.put(TEMPLATE_PATH, "before");
+        RemoteTemplateLoader loader = buildLoader(0, temporaryFolder.newFolder("cache").toPath(),
+                ConcurrentLRUTemplateCache.builder().withCapacity(1).build());
+        assertEquals("before", load(loader));
+        contents.put(TEMPLATE_PATH, "after");
+        assertEquals("before", load(loader));
+        awaitRefresh();
+        assertEquals("after", load(loader));
+    }
+
+    @Test
+    public void close_leaves_supplied_executor_running() {
+        buildLoader(Long.MAX_VALUE, null).close();
+        assertFalse(refreshExecutor.isShutdown());
+    }
+
+    private RemoteTemplateLoader buildLoader(final long refreshInterval, final Path cacheDirectory) {
+        return buildLoader(refreshInterval, cacheDirectory, null);
+    }
+
+    private RemoteTemplateLoader buildLoader(final long refreshInterval, final Path cacheDirectory, final TemplateCache templateCache) {
+        return RemoteTemplateLoader.builder()
+                .withTemplateCache(templateCache)
+                .withBaseUrl("http://localhost:" + server.getAddress().getPort() + "/templates")
+                .withFileExtension(EXTENSION)
+                .withRefreshInterval(refreshInterval)
+                .withCacheDirectory(cacheDirectory)
+                .withRefreshExecutor(refreshExecutor)
+                .build();
+    }
+
+    private String load(final RemoteTemplateLoader loader) {
+        Optional<TemplateContentData> template = loader.load(TEMPLATE_NAME, handlerInput);
+        assertTrue(template.isPresent());
+        return new String(template.get().getTemplateContent(), StandardCharsets.UTF_8);
+    }
+
+    private void awaitRefresh() throws InterruptedException {
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+}
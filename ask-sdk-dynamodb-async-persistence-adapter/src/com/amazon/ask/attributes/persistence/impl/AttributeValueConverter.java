@@ -0,0 +1,147 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Converts between attribute maps and DynamoDB attribute values, producing the same simple Java types as the
+ * {@code DynamoDbPersistenceAdapter} so attributes can be shared between both adapters.
+ */
+final class AttributeValueConverter {
+
+    /** Prevent instantiation. */
+    private AttributeValueConverter() { }
+
+    /**
+     * Converts an attribute map to a DynamoDB map of attribute values.
+     * @param attributes attributes to convert.
+     * @return map of attribute values.
+     * @throws PersistenceException if an attribute has an unsupported type.
+     */
+    static Map<String, AttributeValue> fromSimpleMap(final Map<String, Object> attributes) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        attributes.forEach((key, value) -> values.put(key, toAttributeValue(value)));
+        return values;
+    }
+
+    /**
+     * Converts a DynamoDB map of attribute values to an attribute map.
+     * @param values attribute values to convert.
+     * @return attribute map.
+     */
+    static Map<String, Object> toSimpleMap(final Map<String, AttributeValue> values) {
+        Map<String, Object> attributes = new HashMap<>();
+        values.forEach((key, value) -> attributes.put(key, toSimpleValue(value)));
+        return attributes;
+    }
+
+    /**
+     * Converts a single value to a DynamoDB attribute value.
+     * @param value value to convert.
+     * @return attribute value.
+     * @throws PersistenceException if the value has an unsupported type.
+     */
+    static AttributeValue toAttributeValue(final Object value) {
+        if (value == null) {
+            return AttributeValue.builder().nul(true).build();
+        } else if (value instanceof String) {
+            return AttributeValue.builder().s((String) value).build();
+        } else if (value instanceof Number) {
+            return AttributeValue.builder().n(value.toString()).build();
+        } else if (value instanceof Boolean) {
+            return AttributeValue.builder().bool((Boolean) value).build();
+        } else if (value instanceof byte[]) {
+            return AttributeValue.builder().b(SdkBytes.fromByteArray((byte[]) value)).build();
+        } else if (value instanceof ByteBuffer) {
+            return AttributeValue.builder().b(SdkBytes.fromByteBuffer((ByteBuffer) value)).build();
+        } else if (value instanceof Map) {
+            Map<String, AttributeValue> values = new HashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> values.put(String.valueOf(k), toAttributeValue(v)));
+            return AttributeValue.builder().m(values).build();
+        } else if (value instanceof Set && !((Set<?>) value).isEmpty()) {
+            return toSetAttributeValue((Set<?>) value);
+        } else if (value instanceof Collection) {
+            List<AttributeValue> values = ((Collection<?>) value).stream()
+                    .map(AttributeValueConverter::toAttributeValue)
+                    .collect(Collectors.toList());
+            return AttributeValue.builder().l(values).build();
+        }
+        throw new PersistenceException(String.format("Unsupported attribute type: %s", value.getClass().getName()));
+    }
+
+    /**
+     * Converts a DynamoDB attribute value to a simple Java value.
+     * @param value attribute value to convert.
+     * @return String, BigDecimal, Boolean, byte[], Set, List, Map or null.
+     */
+    static Object toSimpleValue(final AttributeValue value) {
+        switch (value.type()) {
+            case S:
+                return value.s();
+            case N:
+                return new BigDecimal(value.n());
+            case BOOL:
+                return value.bool();
+            case B:
+                return value.b().asByteArray();
+            case SS:
+                return new LinkedHashSet<>(value.ss());
+            case NS:
+                return value.ns().stream().map(BigDecimal::new).collect(Collectors.toCollection(LinkedHashSet::new));
+            case BS:
+                return value.bs().stream().map(SdkBytes::asByteArray).collect(Collectors.toCollection(LinkedHashSet::new));
+            case L:
+                List<Object> list = new ArrayList<>();
+                value.l().forEach(v -> list.add(toSimpleValue(v)));
+                return list;
+            case M:
+                return toSimpleMap(value.m());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Converts a non empty set to a DynamoDB set attribute value, or a list if the set is not homogeneous.
+     * @param set set to convert.
+     * @return attribute value.
+     */
+    private static AttributeValue toSetAttributeValue(final Set<?> set) {
+        if (set.stream().allMatch(String.class::isInstance)) {
+            return AttributeValue.builder().ss(set.stream().map(String.class::cast).collect(Collectors.toList())).build();
+        } else if (set.stream().allMatch(Number.class::isInstance)) {
+            return AttributeValue.builder().ns(set.stream().map(Object::toString).collect(Collectors.toList())).build();
+        } else if (set.stream().allMatch(byte[].class::isInstance)) {
+            return AttributeValue.builder().bs(set.stream().map(b -> SdkBytes.fromByteArray((byte[]) b))
+                    .collect(Collectors.toList())).build();
+        }
+        return AttributeValue.builder().l(set.stream().map(AttributeValueConverter::toAttributeValue)
+                .collect(Collectors.toList())).build();
+    }
+
+}
@@ -0,0 +1,554 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.attributes.persistence.AsyncPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.util.ValidationUtils;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Persistence adapter for storing skill persistence attributes in Amazon DynamoDB using the non-blocking
+ * AWS SDK for Java 2.x {@link DynamoDbAsyncClient}. Attributes are stored in the same format as
+ * {@code DynamoDbPersistenceAdapter}, so both adapters can be used with the same table when they are configured with
+ * the same attributes codec and version attribute. Saves only replace the attributes, other attributes of the item such
+ * as the version attribute are kept.
+ */
+public final class DynamoDbAsyncPersistenceAdapter implements AsyncPersistenceAdapter {
+
+    /**
+     * Amazon DynamoDb asynchronous client.
+     */
+    private final DynamoDbAsyncClient dynamoDb;
+
+    /**
+     * Table name to be used/created.
+     */
+    private final String tableName;
+
+    /**
+     * Name of the partition key attribute.
+     */
+    private final String partitionKeyName;
+
+    /**
+     * Name of the attribute the skill attributes are stored in.
+     */
+    private final String attributesKeyName;
+
+    /**
+     * Partition key generator.
+     */
+    private final Function<RequestEnvelope, String> partitionKeyGenerator;
+
+    /**
+     * Codec storing attributes in a single binary attribute, or null to store them as a map.
+     */
+    private final AttributesCodec attributesCodec;
+
+    /**
+     * Name of the attribute holding the attributes version, or null if attributes are not versioned.
+     */
+    private final String versionAttributeName;
+
+    /**
+     * Expression attribute name placeholder for the attributes attribute.
+     */
+    private static final String ATTRIBUTES_NAME_PLACEHOLDER = "#attributes";
+
+    /**
+     * Expression attribute value placeholder for the attributes value.
+     */
+    private static final String ATTRIBUTES_VALUE_PLACEHOLDER = ":attributes";
+
+    /**
+     * Expression attribute name placeholder for the version attribute.
+     */
+    private static final String VERSION_NAME_PLACEHOLDER = "#version";
+
+    /**
+     * Expression attribute value placeholder for the version increment.
+     */
+    private static final String VERSION_INCREMENT_PLACEHOLDER = ":increment";
+
+    /**
+     * Default partition key name.
+     */
+    private static final String DEFAULT_PARTITION_KEY_NAME = "id";
+
+    /**
+     * Default attributes key name.
+     */
+    private static final String DEFAULT_ATTRIBUTES_KEY_NAME = "attributes";
+
+    /**
+     * Default value for auto create table.
+     */
+    private static final boolean DEFAULT_AUTO_CREATE_TABLE = false;
+
+    /**
+     * Default partition key generator.
+     */
+    private static final Function<RequestEnvelope, String> DEFAULT_PARTITION_KEY_GENERATOR = PartitionKeyGenerators.userId();
+
+    /**
+     * Default read and write capacity units of an automatically created table.
+     */
+    private static final Long DEFAULT_CAPACITY_UNITS = 5L;
+
+    /**
+     * Private constructor to build an instance of {@link DynamoDbAsyncPersistenceAdapter}.
+     * @param builder instance of {@link Builder}.
+     */
+    private DynamoDbAsyncPersistenceAdapter(final Builder builder) {
+        this.tableName = ValidationUtils.assertStringNotEmpty(builder.tableName, "table name");
+        this.dynamoDb = builder.dynamoDb != null ? builder.dynamoDb
+                : DynamoDbAsyncClient.builder().httpClientBuilder(NettyNioAsyncHttpClient.builder()).build();
+        this.partitionKeyName = builder.partitionKeyName;
+        this.attributesKeyName = builder.attributesKeyName;
+        this.partitionKeyGenerator = builder.partitionKeyGenerator;
+        this.attributesCodec = builder.attributesCodec;
+        this.versionAttributeName = builder.versionAttributeName;
+        if (builder.autoCreateTable) {
+            join(createTableIfNotExists());
+        }
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets attributes from DynamoDB table without blocking.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @return future completed with attributes if they exist, or an empty {@link Optional} if not.
+     */
+    @Override
+    public CompletableFuture<Optional<Map<String, Object>>> getAttributesAsync(final RequestEnvelope envelope) {
+        GetItemRequest request;
+        try {
+            request = GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(getKey(partitionKeyGenerator.apply(envelope)))
+                    .consistentRead(true)
+                    .build();
+        } catch (RuntimeException e) {
+            return failed(e, "Failed to retrieve attributes from DynamoDB");
+        }
+        return dynamoDb.getItem(request).handle((response, throwable) -> {
+            if (throwable != null) {
+                throw wrap(throwable, "Failed to retrieve attributes from DynamoDB");
+            }
+            if (response.hasItem() && response.item().containsKey(attributesKeyName)) {
+                return Optional.of(toAttributes(response.item().get(attributesKeyName)));
+            }
+            return Optional.empty();
+        });
+    }
+
+    /**
+     * Saves attributes to a DynamoDB table without blocking. Only the attributes are replaced using UpdateItem, so
+     * other attributes of the item are kept. When a version attribute is configured the version is incremented.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @param attributes to be stored in the table.
+     * @return future completed once the attributes are saved.
+     */
+    @Override
+    public CompletableFuture<Void> saveAttributesAsync(final RequestEnvelope envelope, final Map<String, Object> attributes) {
+        UpdateItemRequest request;
+        try {
+            Map<String, String> names = new HashMap<>();
+            names.put(ATTRIBUTES_NAME_PLACEHOLDER, attributesKeyName);
+            Map<String, AttributeValue> values = new HashMap<>();
+            values.put(ATTRIBUTES_VALUE_PLACEHOLDER, toAttributeValue(attributes));
+            String updateExpression = String.format("SET %s = %s", ATTRIBUTES_NAME_PLACEHOLDER, ATTRIBUTES_VALUE_PLACEHOLDER);
+            if (versionAttributeName != null) {
+                names.put(VERSION_NAME_PLACEHOLDER, versionAttributeName);
+                values.put(VERSION_INCREMENT_PLACEHOLDER, AttributeValue.builder().n("1").build());
+                updateExpression += String.format(" ADD %s %s", VERSION_NAME_PLACEHOLDER, VERSION_INCREMENT_PLACEHOLDER);
+            }
+            request = UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(getKey(partitionKeyGenerator.apply(envelope)))
+                    .updateExpression(updateExpression)
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build();
+        } catch (RuntimeException e) {
+            return failed(e, "Failed to save attributes to DynamoDB");
+        }
+        return dynamoDb.updateItem(request).handle((response, throwable) -> {
+            if (throwable != null) {
+                throw wrap(throwable, "Failed to save attributes to DynamoDB");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deletes attributes from DynamoDB table without blocking. Only the key is sent, deleting attributes which do
+     * not exist succeeds.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @return future completed once the attributes are deleted.
+     */
+    @Override
+    public CompletableFuture<Void> deleteAttributesAsync(final RequestEnvelope envelope) {
+        DeleteItemRequest request;
+        try {
+            request = DeleteItemRequest.builder().tableName(tableName).key(getKey(partitionKeyGenerator.apply(envelope))).build();
+        } catch (RuntimeException e) {
+            return failed(e, "Failed to delete attributes from DynamoDB");
+        }
+        return dynamoDb.deleteItem(request).handle((response, throwable) -> {
+            if (throwable != null) {
+                throw wrap(throwable, "Failed to delete attributes from DynamoDB");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Gets attributes from DynamoDB table, blocking until they are retrieved.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if table doesn't exist or attributes retrieval fails.
+     * @return {@link Map} of String, Object if attributes exist, or an empty {@link Optional} if not.
+     */
+    @Override
+    public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        return join(getAttributesAsync(envelope));
+    }
+
+    /**
+     * Saves attributes to a DynamoDB table, blocking until they are saved.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @param attributes to be stored in the table.
+     * @throws PersistenceException if table doesn't exist or save attributes operation fails.
+     */
+    @Override
+    public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) throws PersistenceException {
+        join(saveAttributesAsync(envelope, attributes));
+    }
+
+    /**
+     * Deletes attributes from DynamoDB table, blocking until they are deleted.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if table doesn't exist or delete attributes operation fails.
+     */
+    @Override
+    public void deleteAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        join(deleteAttributesAsync(envelope));
+    }
+
+    /**
+     * Builds the key of the item holding the attributes.
+     * @param partitionKey partition key value.
+     * @return item key.
+     */
+    private Map<String, AttributeValue> getKey(final String partitionKey) {
+        return Collections.singletonMap(partitionKeyName, AttributeValue.builder().s(partitionKey).build());
+    }
+
+    /**
+     * Converts attributes to the stored attributes value, encoded with the configured codec or as a map.
+     * @param attributes attributes to convert.
+     * @return stored attributes value.
+     */
+    private AttributeValue toAttributeValue(final Map<String, Object> attributes) {
+        if (attributesCodec != null) {
+            return AttributeValue.builder().b(SdkBytes.fromByteArray(attributesCodec.encode(attributes))).build();
+        }
+        return AttributeValue.builder().m(AttributeValueConverter.fromSimpleMap(attributes)).build();
+    }
+
+    /**
+     * Converts a stored attributes value to attributes. Values stored as a map are read regardless of the configured
+     * codec, so existing items remain readable after a codec is configured.
+     * @param value stored attributes value.
+     * @return {@link Map} of attributes.
+     * @throws PersistenceException if the value is binary and no codec is configured, or it cannot be decoded.
+     */
+    private Map<String, Object> toAttributes(final AttributeValue value) {
+        if (value.b() == null) {
+            return AttributeValueConverter.toSimpleMap(value.m());
+        }
+        if (attributesCodec == null) {
+            throw new PersistenceException(String.format("Attributes in table %s are stored in binary format but no attributes codec is configured",
+                    tableName));
+        }
+        return attributesCodec.decode(value.b().asByteArray());
+    }
+
+    /**
+     * Creates the table, succeeding if it already exists.
+     * @return future completed once the create table request is accepted.
+     */
+    private CompletableFuture<Void> createTableIfNotExists() {
+        CreateTableRequest request = CreateTableRequest.builder()
+                .tableName(tableName)
+                .attributeDefinitions(AttributeDefinition.builder()
+                        .attributeName(partitionKeyName)
+                        .attributeType(ScalarAttributeType.S)
+                        .build())
+                .keySchema(KeySchemaElement.builder()
+                        .attributeName(partitionKeyName)
+                        .keyType(KeyType.HASH)
+                        .build())
+                .provisionedThroughput(ProvisionedThroughput.builder()
+                        .readCapacityUnits(DEFAULT_CAPACITY_UNITS)
+                        .writeCapacityUnits(DEFAULT_CAPACITY_UNITS)
+                        .build())
+                .build();
+        return dynamoDb.createTable(request).handle((response, throwable) -> {
+            if (throwable != null && !(unwrap(throwable) instanceof ResourceInUseException)) {
+                throw new PersistenceException("Create table request failed", unwrap(throwable));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Builds a future failed with a request building failure.
+     * @param throwable request building failure.
+     * @param message message used for failures other than a {@link PersistenceException}.
+     * @param <T> result type.
+     * @return failed future.
+     */
+    private <T> CompletableFuture<T> failed(final Throwable throwable, final String message) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(wrap(throwable, message));
+        return future;
+    }
+
+    /**
+     * Wraps a client failure in a {@link PersistenceException}.
+     * @param throwable failure reported by the client.
+     * @param message message used for failures other than a missing table.
+     * @return persistence exception.
+     */
+    private PersistenceException wrap(final Throwable throwable, final String message) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof ResourceNotFoundException) {
+            return new PersistenceException(String.format("Table %s does not exist or is in the process of being created", tableName), cause);
+        }
+        if (cause instanceof PersistenceException) {
+            return (PersistenceException) cause;
+        }
+        return new PersistenceException(message, cause);
+    }
+
+    /**
+     * Unwraps the {@link CompletionException} added by chained futures.
+     * @param throwable failure.
+     * @return underlying failure.
+     */
+    private static Throwable unwrap(final Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    /**
+     * Blocks until the future completes.
+     * @param future future to wait for.
+     * @param <T> result type.
+     * @return result of the future.
+     * @throws PersistenceException if the future completed exceptionally.
+     */
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof PersistenceException) {
+                throw (PersistenceException) cause;
+            }
+            throw new PersistenceException("DynamoDB request failed", cause);
+        }
+    }
+
+    /**
+     * Static builder class to build an instance of {@link DynamoDbAsyncPersistenceAdapter}.
+     */
+    public static final class Builder {
+
+        /**
+         * Amazon DynamoDb asynchronous client.
+         */
+        private DynamoDbAsyncClient dynamoDb;
+
+        /**
+         * Table name to be used/created.
+         */
+        private String tableName;
+
+        /**
+         * Name of the partition key attribute.
+         */
+        private String partitionKeyName = DEFAULT_PARTITION_KEY_NAME;
+
+        /**
+         * Name of the attribute the skill attributes are stored in.
+         */
+        private String attributesKeyName = DEFAULT_ATTRIBUTES_KEY_NAME;
+
+        /**
+         * Partition key generator.
+         */
+        private Function<RequestEnvelope, String> partitionKeyGenerator = DEFAULT_PARTITION_KEY_GENERATOR;
+
+        /**
+         * When set to true, creates table if table doesn't exist.
+         */
+        private boolean autoCreateTable = DEFAULT_AUTO_CREATE_TABLE;
+
+        /**
+         * Codec storing attributes in a single binary attribute, or null to store them as a map.
+         */
+        private AttributesCodec attributesCodec;
+
+        /**
+         * Name of the attribute holding the attributes version, or null if attributes are not versioned.
+         */
+        private String versionAttributeName;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Optional DynamoDB asynchronous client instance to use, for example one with an endpoint override pointing
+         * to DynamoDB Local. If not provided, a default client using the Netty non-blocking HTTP client will be
+         * constructed and used.
+         * @param dynamoDb client instance
+         * @return builder
+         */
+        public Builder withDynamoDbClient(final DynamoDbAsyncClient dynamoDb) {
+            this.dynamoDb = dynamoDb;
+            return this;
+        }
+
+        /**
+         * Name of the DynamoDB table to use for storing Skill persistence attributes.
+         * @param tableName name of the DynamoDB table to use
+         * @return builder
+         */
+        public Builder withTableName(final String tableName) {
+            this.tableName = tableName;
+            return this;
+        }
+
+        /**
+         * Optional name of the partition key used to key attributes. By default {@value #DEFAULT_PARTITION_KEY_NAME}
+         * is used.
+         * @param partitionKeyName name of the partition key
+         * @return builder
+         */
+        public Builder withPartitionKeyName(final String partitionKeyName) {
+            this.partitionKeyName = partitionKeyName;
+            return this;
+        }
+
+        /**
+         * Optional name of the attributes key. By default {@value #DEFAULT_ATTRIBUTES_KEY_NAME} is used.
+         * @param attributesKeyName name of the attribute key
+         * @return builder
+         */
+        public Builder withAttributesKeyName(final String attributesKeyName) {
+            this.attributesKeyName = attributesKeyName;
+            return this;
+        }
+
+        /**
+         * Optional partition key generator function used to derive partition key value from one or more
+         * attributes of a {@link RequestEnvelope}. By default, {@link PartitionKeyGenerators#userId()} is used.
+         * @param partitionKeyGenerator partition key generator function
+         * @return builder
+         */
+        public Builder withPartitionKeyGenerator(final Function<RequestEnvelope, String> partitionKeyGenerator) {
+            this.partitionKeyGenerator = partitionKeyGenerator;
+            return this;
+        }
+
+        /**
+         * Optional flag specifying whether the adapter should automatically create a table with the configured name
+         * if it does not already exist. If not specified, this behavior defaults to false.
+         * @param autoCreateTable true if the table should be automatically created if it does not already exist
+         * @return builder
+         */
+        public Builder withAutoCreateTable(final boolean autoCreateTable) {
+            this.autoCreateTable = autoCreateTable;
+            return this;
+        }
+
+        /**
+         * Optional codec used to store attributes in a single binary attribute instead of a nested map. Must match the
+         * codec of any {@code DynamoDbPersistenceAdapter} sharing the table. Items stored as a map are still read, and
+         * are converted to the binary format when next saved. If not specified, attributes are stored as a map and
+         * reading attributes stored in binary format fails.
+         * @param attributesCodec attributes codec
+         * @return builder
+         */
+        public Builder withAttributesCodec(final AttributesCodec attributesCodec) {
+            this.attributesCodec = attributesCodec;
+            return this;
+        }
+
+        /**
+         * Optional name of a numeric attribute holding the version of the stored attributes, incremented on every
+         * save so versioned saves of a {@code DynamoDbPersistenceAdapter} sharing the table detect the change. If not
+         * specified, the version attribute of an item is kept but not incremented.
+         * @param versionAttributeName name of the version attribute
+         * @return builder
+         */
+        public Builder withVersionAttributeName(final String versionAttributeName) {
+            this.versionAttributeName = versionAttributeName;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of DynamoDbAsyncPersistenceAdapter.
+         * @return {@link DynamoDbAsyncPersistenceAdapter}.
+         */
+        public DynamoDbAsyncPersistenceAdapter build() {
+            return new DynamoDbAsyncPersistenceAdapter(this);
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.attributes.persistence.AsyncPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DynamoDbAsyncPersistenceAdapterTest {
+
+    private DynamoDbAsyncClient mockDdb;
+    private RequestEnvelope requestEnvelope;
+    private Function<RequestEnvelope, String> keyGenerator;
+
+    @Before
+    public void setUp() {
+        mockDdb = mock(DynamoDbAsyncClient.class);
+        requestEnvelope = RequestEnvelope.builder().build();
+        keyGenerator = envelope -> "bar";
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void table_name_must_be_set() {
+        DynamoDbAsyncPersistenceAdapter.builder().withDynamoDbClient(mockDdb).build();
+    }
+
+    @Test
+    public void get_attributes_async_returns_expected_results() {
+        Map<String, AttributeValue> attributes = new HashMap<>();
+        attributes.put("FooKey", AttributeValue.builder().s("FooValue").build());
+        attributes.put("Count", AttributeValue.builder().n("3").build());
+        attributes.put("List", AttributeValue.builder().l(AttributeValue.builder().bool(true).build()).build());
+        Map<String, AttributeValue> item = Collections.singletonMap("attributes", AttributeValue.builder().m(attributes).build());
+        when(mockDdb.getItem(any(GetItemRequest.class))).thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().item(item).build()));
+
+        CompletableFuture<Optional<Map<String, Object>>> future = buildAdapter().getAttributesAsync(requestEnvelope);
+
+        Map<String, Object> result = future.join().get();
+        assertEquals("FooValue", result.get("FooKey"));
+        assertEquals(new BigDecimal(3), result.get("Count"));
+        assertEquals(Collections.singletonList(true), result.get("List"));
+        ArgumentCaptor<GetItemRequest> requestCaptor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(mockDdb).getItem(requestCaptor.capture());
+        assertEquals("foo", requestCaptor.getValue().tableName());
+        assertEquals(Collections.singletonMap("id", AttributeValue.builder().s("bar").build()), requestCaptor.getValue().key());
+        assertTrue(requestCaptor.getValue().consistentRead());
+    }
+
+    @Test
+    public void get_attributes_returns_empty_if_no_results_found() {
+        when(mockDdb.getItem(any(GetItemRequest.class))).thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().build()));
+        assertFalse(buildAdapter().getAttributes(requestEnvelope).isPresent());
+    }
+
+    @Test
+    public void get_attributes_async_does_not_block_on_pending_request() {
+        CompletableFuture<GetItemResponse> response = new CompletableFuture<>();
+        when(mockDdb.getItem(any(GetItemRequest.class))).thenReturn(response);
+        CompletableFuture<Optional<Map<String, Object>>> future = buildAdapter().getAttributesAsync(requestEnvelope);
+        assertFalse(future.isDone());
+        response.complete(GetItemResponse.builder().build());
+        assertEquals(Optional.empty(), future.join());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void get_attributes_missing_table_wrapped_in_persistence_exception() {
+        CompletableFuture<GetItemResponse> response = new CompletableFuture<>();
+        response.completeExceptionally(new CompletionException(ResourceNotFoundException.builder().message("").build()));
+        when(mockDdb.getItem(any(GetItemRequest.class))).thenReturn(response);
+        buildAdapter().getAttributes(requestEnvelope);
+    }
+
+    @Test
+    public void get_attributes_decodes_binary_attributes_with_codec() {
+        AttributesCodec codec = AttributesCodecs.cbor();
+        Map<String, AttributeValue> item = Collections.singletonMap("attributes",
+                AttributeValue.builder().b(SdkBytes.fromByteArray(codec.encode(Collections.singletonMap("Foo", "Bar")))).build());
+        when(mockDdb.getItem(any(GetItemRequest.class))).thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().item(item).build()));
+        AsyncPersistenceAdapter adapter = DynamoDbAsyncPersistenceAdapter.builder()
+                .withTableName("foo")
+                .withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(keyGenerator)
+                .withAttributesCodec(codec)
+                .build();
+        assertEquals("Bar", adapter.getAttributes(requestEnvelope).get().get("Foo"));
+    }
+
+    @Test
+    public void get_attributes_async_rejects_binary_attributes_without_codec() {
+        Map<String, AttributeValue> item = Collections.singletonMap("attributes",
+                AttributeValue.builder().b(SdkBytes.fromByteArray(new byte[] {1, 2})).build());
+        when(mockDdb.getItem(any(GetItemRequest.class))).thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().item(item).build()));
+        CompletableFuture<Optional<Map<String, Object>>> future = buildAdapter().getAttributesAsync(requestEnvelope);
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            buildAdapter().getAttributes(requestEnvelope);
+            fail("Expected binary attributes to be rejected");
+        } catch (PersistenceException expected) {
+            assertTrue(expected.getMessage().contains("binary"));
+        }
+    }
+
+    @Test
+    public void save_attributes_async_calls_ddb() {
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenReturn(CompletableFuture.completedFuture(UpdateItemResponse.builder().build()));
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Foo", "Bar");
+        attributes.put("Numbers", Arrays.asList(1, 2));
+        buildAdapter().saveAttributesAsync(requestEnvelope, attributes).join();
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb).updateItem(requestCaptor.capture());
+        UpdateItemRequest request = requestCaptor.getValue();
+        assertEquals("foo", request.tableName());
+        assertEquals(Collections.singletonMap("id", AttributeValue.builder().s("bar").build()), request.key());
+        assertEquals("SET #attributes = :attributes", request.updateExpression());
+        assertEquals("attributes", request.expressionAttributeNames().get("#attributes"));
+        Map<String, AttributeValue> saved = request.expressionAttributeValues().get(":attributes").m();
+        assertEquals(AttributeValue.builder().s("Bar").build(), saved.get("Foo"));
+        assertEquals(AttributeValue.builder().l(AttributeValue.builder().n("1").build(), AttributeValue.builder().n("2").build()).build(),
+                saved.get("Numbers"));
+    }
+
+    @Test
+    public void save_attributes_encodes_with_codec_and_increments_version() {
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenReturn(CompletableFuture.completedFuture(UpdateItemResponse.builder().build()));
+        AttributesCodec codec = AttributesCodecs.cbor();
+        DynamoDbAsyncPersistenceAdapter.builder()
+                .withTableName("foo")
+                .withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(keyGenerator)
+                .withAttributesCodec(codec)
+                .withVersionAttributeName("version")
+                .build()
+                .saveAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"));
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb).updateItem(requestCaptor.capture());
+        UpdateItemRequest request = requestCaptor.getValue();
+        assertEquals("SET #attributes = :attributes ADD #version :increment", request.updateExpression());
+        assertEquals("version", request.expressionAttributeNames().get("#version"));
+        assertEquals(AttributeValue.builder().n("1").build(), request.expressionAttributeValues().get(":increment"));
+        assertEquals(Collections.singletonMap("Foo", "Bar"),
+                codec.decode(request.expressionAttributeValues().get(":attributes").b().asByteArray()));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void save_attributes_exception_wrapped_in_persistence_exception() {
+        CompletableFuture<UpdateItemResponse> response = new CompletableFuture<>();
+        response.completeExceptionally(new IllegalStateException("failure"));
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenReturn(response);
+        buildAdapter().saveAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"));
+    }
+
+    @Test
+    public void delete_attributes_sends_key_only() {
+        when(mockDdb.deleteItem(any(DeleteItemRequest.class))).thenReturn(CompletableFuture.completedFuture(DeleteItemResponse.builder().build()));
+        buildAdapter().deleteAttributes(requestEnvelope);
+        ArgumentCaptor<DeleteItemRequest> requestCaptor = ArgumentCaptor.forClass(DeleteItemRequest.class);
+        verify(mockDdb).deleteItem(requestCaptor.capture());
+        assertEquals(Collections.singletonMap("id", AttributeValue.builder().s("bar").build()), requestCaptor.getValue().key());
+    }
+
+    @Test
+    public void key_generator_failure_completes_future_exceptionally() {
+        AsyncPersistenceAdapter adapter = DynamoDbAsyncPersistenceAdapter.builder()
+                .withTableName("foo").withDynamoDbClient(mockDdb).build();
+        CompletableFuture<Optional<Map<String, Object>>> future = adapter.getAttributesAsync(requestEnvelope);
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void create_table_succeeds_when_table_exists() {
+        CompletableFuture<CreateTableResponse> response = new CompletableFuture<>();
+        response.completeExceptionally(ResourceInUseException.builder().message("").build());
+        when(mockDdb.createTable(any(CreateTableRequest.class))).thenReturn(response);
+        DynamoDbAsyncPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withAutoCreateTable(true).build();
+        verify(mockDdb).createTable(any(CreateTableRequest.class));
+    }
+
+    private AsyncPersistenceAdapter buildAdapter() {
+        return DynamoDbAsyncPersistenceAdapter.builder()
+                .withTableName("foo")
+                .withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(keyGenerator)
+                .build();
+    }
+
+}
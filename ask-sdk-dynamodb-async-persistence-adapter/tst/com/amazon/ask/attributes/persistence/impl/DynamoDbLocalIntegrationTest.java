@@ -0,0 +1,77 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.attributes.persistence.AsyncPersistenceAdapter;
+import com.amazon.ask.model.RequestEnvelope;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs against DynamoDB Local when started with -Ddynamodb.local.endpoint=http://localhost:8000, skipped otherwise.
+ */
+public class DynamoDbLocalIntegrationTest {
+
+    private static final String ENDPOINT_PROPERTY = "dynamodb.local.endpoint";
+
+    private AsyncPersistenceAdapter adapter;
+
+    @Before
+    public void setUp() {
+        String endpoint = System.getProperty(ENDPOINT_PROPERTY);
+        assumeTrue(endpoint != null);
+        DynamoDbAsyncClient client = DynamoDbAsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("local", "local")))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder())
+                .build();
+        String userId = UUID.randomUUID().toString();
+        adapter = DynamoDbAsyncPersistenceAdapter.builder()
+                .withTableName("ask-sdk-integration-test")
+                .withDynamoDbClient(client)
+                .withAutoCreateTable(true)
+                .withPartitionKeyGenerator(envelope -> userId)
+                .build();
+    }
+
+    @Test
+    public void save_get_and_delete_attributes() {
+        RequestEnvelope envelope = RequestEnvelope.builder().build();
+        assertFalse(adapter.getAttributesAsync(envelope).join().isPresent());
+
+        adapter.saveAttributesAsync(envelope, Collections.singletonMap("Count", 1)).join();
+        Map<String, Object> attributes = adapter.getAttributesAsync(envelope).join().get();
+        assertEquals(new BigDecimal(1), attributes.get("Count"));
+
+        adapter.deleteAttributesAsync(envelope).join();
+        assertFalse(adapter.getAttributesAsync(envelope).join().isPresent());
+    }
+
+}
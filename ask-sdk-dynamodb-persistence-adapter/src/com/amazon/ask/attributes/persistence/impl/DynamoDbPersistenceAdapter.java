@@ -13,7 +13,9 @@
 
 package com.amazon.ask.attributes.persistence.impl;
 
-import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceConflictException;
 import com.amazon.ask.exception.PersistenceException;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.util.ValidationUtils;
@@ -23,27 +25,46 @@ import com.amazonaws.services.dynamodbv2.document.ItemUtils;
 import com.amazonaws.services.dynamodbv2.model.AmazonDynamoDBException;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.amazonaws.services.dynamodbv2.util.TableUtils;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Persistence adapter for storing skill persistence attributes in Amazon DynamoDB.
+ * Persistence adapter for storing skill persistence attributes in Amazon DynamoDB. When a version attribute is
+ * configured attributes are stored with a version and versioned saves use conditional writes.
  */
-public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
+public final class DynamoDbPersistenceAdapter implements VersionedPersistenceAdapter {
 
     /**
      * Amazon DynamoDb client.
@@ -78,6 +99,26 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
      */
     private boolean autoCreateTable;
 
+    /**
+     * Maximum number of times unprocessed keys of a batch read or write are retried.
+     */
+    private final int maxBatchRetries;
+
+    /**
+     * When set to true, changed attributes are written with UpdateItem instead of replacing the whole item.
+     */
+    private final boolean partialUpdates;
+
+    /**
+     * Codec storing attributes in a single binary attribute, or null to store them as a map.
+     */
+    private final AttributesCodec attributesCodec;
+
+    /**
+     * Name of the attribute holding the attributes version, or null if attributes are not versioned.
+     */
+    private final String versionAttributeName;
+
     /**
      * Default partition key name.
      */
@@ -93,6 +134,11 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
      */
     private static final boolean DEFAULT_AUTO_CREATE_TABLE = false;
 
+    /**
+     * Default value for partial updates.
+     */
+    private static final boolean DEFAULT_PARTIAL_UPDATES = false;
+
     /**
      * Default partition key generator.
      */
@@ -105,6 +151,51 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
      */
     private static final Long DEFAULT_READ_CAPACITY_UNITS = 5L;
 
+    /**
+     * Maximum number of keys DynamoDB accepts in a single BatchGetItem call.
+     */
+    private static final int MAX_BATCH_GET_KEYS = 100;
+
+    /**
+     * Maximum number of requests DynamoDB accepts in a single BatchWriteItem call.
+     */
+    private static final int MAX_BATCH_WRITE_REQUESTS = 25;
+
+    /**
+     * Default maximum number of times unprocessed keys of a batch read or write are retried.
+     */
+    private static final int DEFAULT_MAX_BATCH_RETRIES = 5;
+
+    /**
+     * Base delay in milliseconds before retrying unprocessed keys, doubled on every retry.
+     */
+    private static final long BATCH_RETRY_BASE_DELAY_MILLIS = 25L;
+
+    /**
+     * Expression attribute name placeholder for the attributes key.
+     */
+    private static final String ATTRIBUTES_NAME_PLACEHOLDER = "#attributes";
+
+    /**
+     * Expression attribute name placeholder for the version attribute.
+     */
+    private static final String VERSION_NAME_PLACEHOLDER = "#version";
+
+    /**
+     * Expression attribute value placeholder for the attributes.
+     */
+    private static final String ATTRIBUTES_VALUE_PLACEHOLDER = ":attributes";
+
+    /**
+     * Expression attribute value placeholder for the version increment.
+     */
+    private static final String VERSION_INCREMENT_PLACEHOLDER = ":one";
+
+    /**
+     * Expression attribute value placeholder for the expected version.
+     */
+    private static final String EXPECTED_VERSION_PLACEHOLDER = ":expected";
+
     /**
      * Private constructor to build an instance of {@link DynamoDbPersistenceAdapter}.
      * @param builder instance of {@link Builder}.
@@ -116,6 +207,10 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
         this.attributesKeyName = builder.attributesKeyName;
         this.partitionKeyGenerator = builder.partitionKeyGenerator;
         this.autoCreateTable = builder.autoCreateTable;
+        this.maxBatchRetries = builder.maxBatchRetries;
+        this.partialUpdates = builder.partialUpdates;
+        this.attributesCodec = builder.attributesCodec;
+        this.versionAttributeName = builder.versionAttributeName;
         autoCreateTableIfNotExists();
     }
 
@@ -135,10 +230,43 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
      */
     @Override
     public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        return getStoredItem(envelope).map(item -> toAttributes(item.get(attributesKeyName)));
+    }
+
+    /**
+     * Checks whether a version attribute is configured.
+     * @return true if attributes are versioned.
+     */
+    @Override
+    public boolean isVersioned() {
+        return versionAttributeName != null;
+    }
+
+    /**
+     * Gets attributes and their version from DynamoDB table. The version is null if no version attribute is
+     * configured or the item was stored without a version.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if table doesn't exist or attributes retrieval fails.
+     * @return {@link VersionedAttributes} if attributes exist, or an empty {@link Optional} if not.
+     */
+    @Override
+    public Optional<VersionedAttributes> getVersionedAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        return getStoredItem(envelope).map(item -> new VersionedAttributes(toAttributes(item.get(attributesKeyName)),
+                versionAttributeName != null && item.containsKey(versionAttributeName)
+                        ? Long.valueOf(item.get(versionAttributeName).getN()) : null));
+    }
+
+    /**
+     * Reads the item holding the attributes with a consistent read.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if table doesn't exist or the read fails.
+     * @return item if it exists and holds attributes, or an empty {@link Optional} if not.
+     */
+    private Optional<Map<String, AttributeValue>> getStoredItem(final RequestEnvelope envelope) {
         String partitionKey = partitionKeyGenerator.apply(envelope);
         GetItemRequest request = new GetItemRequest()
                 .withTableName(tableName)
-                .withKey(Collections.singletonMap(partitionKeyName, new AttributeValue().withS(partitionKey)))
+                .withKey(getKey(partitionKey))
                 .withConsistentRead(true);
         Map<String, AttributeValue> result = null;
         try {
@@ -149,14 +277,111 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
             throw new PersistenceException("Failed to retrieve attributes from DynamoDB", e);
         }
         if (result != null && result.containsKey(attributesKeyName)) {
-            Map<String, Object> attributes = ItemUtils.toSimpleMapValue(result.get(attributesKeyName).getM());
-            return Optional.of(attributes);
+            return Optional.of(result);
         }
         return Optional.empty();
     }
 
     /**
-     * Saves attributes to a DynamoDB table.
+     * Gets attributes for several requests from DynamoDB table using BatchGetItem. Requests sharing a partition key
+     * are read once, keys are read in chunks of {@value #MAX_BATCH_GET_KEYS} and keys left unprocessed by DynamoDB
+     * are retried with exponential backoff.
+     * @param envelopes request envelopes to retrieve attributes for.
+     * @throws PersistenceException if table doesn't exist, attributes retrieval fails or keys remain unprocessed
+     * after all retries.
+     * @return {@link List} containing an {@link Optional} with attributes if they exist, or empty if not, for each
+     * request envelope in iteration order.
+     */
+    @Override
+    public List<Optional<Map<String, Object>>> batchGetAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        List<String> partitionKeys = envelopes.stream().map(partitionKeyGenerator).collect(Collectors.toList());
+        Map<String, Map<String, Object>> attributesByPartitionKey = getAttributesByPartitionKeys(partitionKeys);
+        return partitionKeys.stream()
+                .map(partitionKey -> Optional.ofNullable(attributesByPartitionKey.get(partitionKey)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets attributes stored under the given partition keys using BatchGetItem, for example to gather the shards of
+     * state spread over several items with {@link PartitionKeyGenerators#sharded(Function, Function, int)}, listed by
+     * {@link PartitionKeyGenerators#shardKeys(String, int)}. Keys are read in chunks of {@value #MAX_BATCH_GET_KEYS}
+     * and keys left unprocessed by DynamoDB are retried with exponential backoff.
+     * @param partitionKeys partition keys, as produced by the configured partition key generator.
+     * @throws PersistenceException if table doesn't exist, attributes retrieval fails or keys remain unprocessed
+     * after all retries.
+     * @return {@link Map} of partition key to attributes, containing only the partition keys attributes exist for.
+     */
+    public Map<String, Map<String, Object>> getAttributesByPartitionKeys(final Collection<String> partitionKeys) throws PersistenceException {
+        List<String> distinctPartitionKeys = new ArrayList<>(new LinkedHashSet<>(partitionKeys));
+        Map<String, Map<String, Object>> attributesByPartitionKey = new HashMap<>();
+        for (int i = 0; i < distinctPartitionKeys.size(); i += MAX_BATCH_GET_KEYS) {
+            List<String> chunk = distinctPartitionKeys.subList(i, Math.min(i + MAX_BATCH_GET_KEYS, distinctPartitionKeys.size()));
+            batchGetItems(chunk, attributesByPartitionKey);
+        }
+        return attributesByPartitionKey;
+    }
+
+    /**
+     * Reads a single chunk of partition keys, retrying unprocessed keys until all keys are processed.
+     * @param partitionKeys partition keys to read, at most {@value #MAX_BATCH_GET_KEYS}.
+     * @param attributesByPartitionKey map the retrieved attributes are added to.
+     * @throws PersistenceException if table doesn't exist, the read fails or keys remain unprocessed after all retries.
+     */
+    private void batchGetItems(final List<String> partitionKeys, final Map<String, Map<String, Object>> attributesByPartitionKey) {
+        List<Map<String, AttributeValue>> keys = partitionKeys.stream()
+                .map(this::getKey)
+                .collect(Collectors.toList());
+        KeysAndAttributes keysAndAttributes = new KeysAndAttributes().withKeys(keys).withConsistentRead(true);
+        int retries = 0;
+        while (true) {
+            BatchGetItemRequest request = new BatchGetItemRequest()
+                    .withRequestItems(Collections.singletonMap(tableName, keysAndAttributes));
+            BatchGetItemResult result;
+            try {
+                result = dynamoDb.batchGetItem(request);
+            } catch (ResourceNotFoundException e) {
+                throw new PersistenceException(String.format("Table %s does not exist or is in the process of being created", tableName), e);
+            } catch (AmazonDynamoDBException e) {
+                throw new PersistenceException("Failed to retrieve attributes from DynamoDB", e);
+            }
+            List<Map<String, AttributeValue>> items = result.getResponses() != null ? result.getResponses().get(tableName) : null;
+            if (items != null) {
+                for (Map<String, AttributeValue> item : items) {
+                    if (item.containsKey(partitionKeyName) && item.containsKey(attributesKeyName)) {
+                        attributesByPartitionKey.put(item.get(partitionKeyName).getS(), toAttributes(item.get(attributesKeyName)));
+                    }
+                }
+            }
+            keysAndAttributes = result.getUnprocessedKeys() != null ? result.getUnprocessedKeys().get(tableName) : null;
+            if (keysAndAttributes == null || keysAndAttributes.getKeys() == null || keysAndAttributes.getKeys().isEmpty()) {
+                return;
+            }
+            awaitBatchRetry(retries++, keysAndAttributes.getKeys().size(), "retrieve");
+        }
+    }
+
+    /**
+     * Waits before retrying unprocessed keys of a batch call, the delay doubles on every retry.
+     * @param retries number of retries made so far.
+     * @param unprocessed number of unprocessed keys.
+     * @param operation operation name used in error messages.
+     * @throws PersistenceException if all retries are used up or the thread is interrupted.
+     */
+    private void awaitBatchRetry(final int retries, final int unprocessed, final String operation) {
+        if (retries >= maxBatchRetries) {
+            throw new PersistenceException(String.format("Failed to %s attributes in DynamoDB, %d keys remain unprocessed after %d retries",
+                    operation, unprocessed, retries));
+        }
+        try {
+            Thread.sleep(BATCH_RETRY_BASE_DELAY_MILLIS << retries);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while retrying unprocessed keys", e);
+        }
+    }
+
+    /**
+     * Saves attributes to a DynamoDB table. When a version attribute is configured the version is incremented.
      * @param envelope instance of {@link RequestEnvelope}.
      * @param attributes to be stored in the table.
      * @throws PersistenceException if table doesn't exist or save attributes operation fails.
@@ -164,6 +389,10 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
     @Override
     public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) throws PersistenceException {
         String partitionKey = partitionKeyGenerator.apply(envelope);
+        if (versionAttributeName != null) {
+            writeVersionedItem(partitionKey, attributes, null, false);
+            return;
+        }
         PutItemRequest request = new PutItemRequest()
                 .withTableName(tableName)
                 .withItem(getItem(partitionKey, attributes));
@@ -177,16 +406,153 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
     }
 
     /**
-     * Deletes attributes from DynamoDB table.
+     * Saves attributes to a DynamoDB table if the stored version matches the expected version, using UpdateItem with
+     * a condition on the version attribute. Without a configured version attribute attributes are saved
+     * unconditionally.
      * @param envelope instance of {@link RequestEnvelope}.
+     * @param attributes to be stored in the table.
+     * @param expectedVersion version the attributes were retrieved with, null if they did not exist or were stored
+     *                        without a version.
+     * @return new version, or null if no version attribute is configured.
+     * @throws PersistenceConflictException if the stored version does not match the expected version.
      * @throws PersistenceException if table doesn't exist or save attributes operation fails.
      */
     @Override
+    public Long saveVersionedAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes,
+                                        final Long expectedVersion) throws PersistenceException {
+        if (versionAttributeName == null) {
+            saveAttributes(envelope, attributes);
+            return null;
+        }
+        return writeVersionedItem(partitionKeyGenerator.apply(envelope), attributes, expectedVersion, true);
+    }
+
+    /**
+     * Replaces the attributes and increments the version with a single UpdateItem call.
+     * @param partitionKey partition key of the item.
+     * @param attributes to be stored in the table.
+     * @param expectedVersion version the stored item must have, null if it must not have a version.
+     * @param conditional true if the write is conditional on the expected version.
+     * @return new version.
+     * @throws PersistenceConflictException if the write is conditional and the stored version does not match.
+     * @throws PersistenceException if table doesn't exist or save attributes operation fails.
+     */
+    private Long writeVersionedItem(final String partitionKey, final Map<String, Object> attributes,
+                                    final Long expectedVersion, final boolean conditional) {
+        Map<String, String> names = new HashMap<>();
+        names.put(ATTRIBUTES_NAME_PLACEHOLDER, attributesKeyName);
+        names.put(VERSION_NAME_PLACEHOLDER, versionAttributeName);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(ATTRIBUTES_VALUE_PLACEHOLDER, toAttributeValue(attributes));
+        values.put(VERSION_INCREMENT_PLACEHOLDER, new AttributeValue().withN("1"));
+        UpdateItemRequest request = new UpdateItemRequest()
+                .withTableName(tableName)
+                .withKey(getKey(partitionKey))
+                .withUpdateExpression(String.format("SET %s = %s ADD %s %s", ATTRIBUTES_NAME_PLACEHOLDER,
+                        ATTRIBUTES_VALUE_PLACEHOLDER, VERSION_NAME_PLACEHOLDER, VERSION_INCREMENT_PLACEHOLDER))
+                .withReturnValues(ReturnValue.UPDATED_NEW);
+        if (conditional && expectedVersion != null) {
+            values.put(EXPECTED_VERSION_PLACEHOLDER, new AttributeValue().withN(expectedVersion.toString()));
+            request.setConditionExpression(String.format("%s = %s", VERSION_NAME_PLACEHOLDER, EXPECTED_VERSION_PLACEHOLDER));
+        } else if (conditional) {
+            request.setConditionExpression(String.format("attribute_not_exists(%s)", VERSION_NAME_PLACEHOLDER));
+        }
+        request.withExpressionAttributeNames(names).withExpressionAttributeValues(values);
+        UpdateItemResult result;
+        try {
+            result = dynamoDb.updateItem(request);
+        } catch (ConditionalCheckFailedException e) {
+            throw new PersistenceConflictException(String.format("Attributes for version %s were modified concurrently", expectedVersion), e);
+        } catch (ResourceNotFoundException e) {
+            throw new PersistenceException(String.format("Table %s does not exist or is in the process of being created", tableName), e);
+        } catch (AmazonDynamoDBException e) {
+            throw new PersistenceException("Failed to save attributes to DynamoDB", e);
+        }
+        Map<String, AttributeValue> updated = result != null ? result.getAttributes() : null;
+        if (updated == null || !updated.containsKey(versionAttributeName)) {
+            return expectedVersion != null ? expectedVersion + 1 : null;
+        }
+        return Long.valueOf(updated.get(versionAttributeName).getN());
+    }
+
+    /**
+     * Saves changed attributes to a DynamoDB table. When partial updates are enabled only the changed top level
+     * attributes are written using UpdateItem, otherwise, if an attributes codec is configured or if the stored item
+     * no longer holds attributes the whole item is replaced. When a version attribute is configured the version is
+     * incremented.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @param attributes to be stored in the table.
+     * @param changedKeys top level attribute keys which were added, modified or removed.
+     * @throws PersistenceException if table doesn't exist or save attributes operation fails.
+     */
+    @Override
+    public void updateAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes,
+                                 final Set<String> changedKeys) throws PersistenceException {
+        if (!partialUpdates || attributesCodec != null || changedKeys.isEmpty()) {
+            saveAttributes(envelope, attributes);
+            return;
+        }
+        String partitionKey = partitionKeyGenerator.apply(envelope);
+        Map<String, String> names = new HashMap<>();
+        names.put(ATTRIBUTES_NAME_PLACEHOLDER, attributesKeyName);
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> setActions = new ArrayList<>();
+        List<String> removeActions = new ArrayList<>();
+        int index = 0;
+        for (String key : changedKeys) {
+            String name = "#k" + index;
+            names.put(name, key);
+            if (attributes.containsKey(key)) {
+                String value = ":v" + index;
+                values.put(value, ItemUtils.toAttributeValue(attributes.get(key)));
+                setActions.add(String.format("%s.%s = %s", ATTRIBUTES_NAME_PLACEHOLDER, name, value));
+            } else {
+                removeActions.add(String.format("%s.%s", ATTRIBUTES_NAME_PLACEHOLDER, name));
+            }
+            index++;
+        }
+        StringBuilder updateExpression = new StringBuilder();
+        if (!setActions.isEmpty()) {
+            updateExpression.append("SET ").append(String.join(", ", setActions));
+        }
+        if (!removeActions.isEmpty()) {
+            updateExpression.append(updateExpression.length() > 0 ? " " : "").append("REMOVE ").append(String.join(", ", removeActions));
+        }
+        if (versionAttributeName != null) {
+            names.put(VERSION_NAME_PLACEHOLDER, versionAttributeName);
+            values.put(VERSION_INCREMENT_PLACEHOLDER, new AttributeValue().withN("1"));
+            updateExpression.append(String.format(" ADD %s %s", VERSION_NAME_PLACEHOLDER, VERSION_INCREMENT_PLACEHOLDER));
+        }
+        UpdateItemRequest request = new UpdateItemRequest()
+                .withTableName(tableName)
+                .withKey(getKey(partitionKey))
+                .withUpdateExpression(updateExpression.toString())
+                .withConditionExpression(String.format("attribute_exists(%s)", ATTRIBUTES_NAME_PLACEHOLDER))
+                .withExpressionAttributeNames(names)
+                .withExpressionAttributeValues(values.isEmpty() ? null : values);
+        try {
+            dynamoDb.updateItem(request);
+        } catch (ConditionalCheckFailedException e) {
+            saveAttributes(envelope, attributes);
+        } catch (ResourceNotFoundException e) {
+            throw new PersistenceException(String.format("Table %s does not exist or is in the process of being created", tableName), e);
+        } catch (AmazonDynamoDBException e) {
+            throw new PersistenceException("Failed to save attributes to DynamoDB", e);
+        }
+    }
+
+    /**
+     * Deletes attributes from DynamoDB table with a single key only DeleteItem call. Deleting attributes which do not
+     * exist succeeds.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if table doesn't exist or delete attributes operation fails.
+     */
+    @Override
     public void deleteAttributes(final RequestEnvelope envelope) throws PersistenceException {
         String partitionKey = partitionKeyGenerator.apply(envelope);
         DeleteItemRequest deleteItemRequest = new DeleteItemRequest()
                 .withTableName(tableName)
-                .withKey(getItem(partitionKey, getAttributes(envelope).get()));
+                .withKey(getKey(partitionKey));
         try {
             dynamoDb.deleteItem(deleteItemRequest);
         } catch (ResourceNotFoundException e) {
@@ -196,6 +562,71 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
         }
     }
 
+    /**
+     * Deletes attributes for several requests from DynamoDB table using BatchWriteItem.
+     * @param envelopes request envelopes to delete attributes for.
+     * @throws PersistenceException if table doesn't exist, delete fails or keys remain unprocessed after all retries.
+     */
+    @Override
+    public void batchDeleteAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        deleteAttributesByPartitionKeys(envelopes.stream().map(partitionKeyGenerator).collect(Collectors.toList()));
+    }
+
+    /**
+     * Deletes attributes stored under the given partition keys using BatchWriteItem, for example to purge the
+     * attributes of many users from a data retention or account unlinking job without building request envelopes.
+     * Keys are deleted in chunks of {@value #MAX_BATCH_WRITE_REQUESTS} and keys left unprocessed by DynamoDB are
+     * retried with exponential backoff. Deleting attributes which do not exist succeeds.
+     * @param partitionKeys partition keys, as produced by the configured partition key generator.
+     * @throws PersistenceException if table doesn't exist, delete fails or keys remain unprocessed after all retries.
+     */
+    public void deleteAttributesByPartitionKeys(final Collection<String> partitionKeys) throws PersistenceException {
+        List<String> distinctPartitionKeys = new ArrayList<>(new LinkedHashSet<>(partitionKeys));
+        for (int i = 0; i < distinctPartitionKeys.size(); i += MAX_BATCH_WRITE_REQUESTS) {
+            List<WriteRequest> writeRequests = distinctPartitionKeys
+                    .subList(i, Math.min(i + MAX_BATCH_WRITE_REQUESTS, distinctPartitionKeys.size())).stream()
+                    .map(partitionKey -> new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(getKey(partitionKey))))
+                    .collect(Collectors.toList());
+            batchWriteItems(writeRequests);
+        }
+    }
+
+    /**
+     * Writes a single chunk of write requests, retrying unprocessed requests until all requests are processed.
+     * @param writeRequests write requests, at most {@value #MAX_BATCH_WRITE_REQUESTS}.
+     * @throws PersistenceException if table doesn't exist, the write fails or requests remain unprocessed after all
+     * retries.
+     */
+    private void batchWriteItems(final List<WriteRequest> writeRequests) {
+        List<WriteRequest> pending = writeRequests;
+        int retries = 0;
+        while (true) {
+            BatchWriteItemResult result;
+            try {
+                result = dynamoDb.batchWriteItem(new BatchWriteItemRequest()
+                        .withRequestItems(Collections.singletonMap(tableName, pending)));
+            } catch (ResourceNotFoundException e) {
+                throw new PersistenceException(String.format("Table %s does not exist", tableName), e);
+            } catch (AmazonDynamoDBException e) {
+                throw new PersistenceException("Failed to delete attributes from DynamoDB", e);
+            }
+            pending = result.getUnprocessedItems() != null ? result.getUnprocessedItems().get(tableName) : null;
+            if (pending == null || pending.isEmpty()) {
+                return;
+            }
+            awaitBatchRetry(retries++, pending.size(), "delete");
+        }
+    }
+
+    /**
+     * Get the key of the item with a given id.
+     * @param id of the item.
+     * @return {@link Map} of partition key name as key with corresponding attributeValue as value.
+     */
+    private Map<String, AttributeValue> getKey(final String id) {
+        return Collections.singletonMap(partitionKeyName, new AttributeValue().withS(id));
+    }
+
     /**
      * Get a single item with a given id.
      * @param id of the item.
@@ -205,10 +636,43 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
     private Map<String, AttributeValue> getItem(final String id, final Map<String, Object> attributes) {
         Map<String, AttributeValue> item = new HashMap<>();
         item.put(partitionKeyName, new AttributeValue().withS(id));
-        item.put(attributesKeyName, new AttributeValue().withM(ItemUtils.fromSimpleMap(attributes)));
+        item.put(attributesKeyName, toAttributeValue(attributes));
         return item;
     }
 
+    /**
+     * Converts attributes to the stored attributes value, encoded with the configured codec or as a map.
+     * @param attributes attributes to convert.
+     * @return stored attributes value.
+     */
+    private AttributeValue toAttributeValue(final Map<String, Object> attributes) {
+        if (attributesCodec != null) {
+            return new AttributeValue().withB(ByteBuffer.wrap(attributesCodec.encode(attributes)));
+        }
+        return new AttributeValue().withM(ItemUtils.fromSimpleMap(attributes));
+    }
+
+    /**
+     * Converts a stored attributes value to attributes. Values stored as a map are read regardless of the configured
+     * codec, so existing items remain readable after a codec is configured.
+     * @param value stored attributes value.
+     * @return {@link Map} of attributes.
+     * @throws PersistenceException if the value is binary and no codec is configured, or it cannot be decoded.
+     */
+    private Map<String, Object> toAttributes(final AttributeValue value) {
+        if (value.getB() == null) {
+            return ItemUtils.toSimpleMapValue(value.getM());
+        }
+        if (attributesCodec == null) {
+            throw new PersistenceException(String.format("Attributes in table %s are stored in binary format but no attributes codec is configured",
+                    tableName));
+        }
+        ByteBuffer buffer = value.getB().duplicate();
+        byte[] encoded = new byte[buffer.remaining()];
+        buffer.get(encoded);
+        return attributesCodec.decode(encoded);
+    }
+
     /**
      * Auto creates table if the table doesn't exist.
      */
@@ -273,6 +737,26 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
          */
         private boolean autoCreateTable = DEFAULT_AUTO_CREATE_TABLE;
 
+        /**
+         * Maximum number of times unprocessed keys of a batch read or write are retried.
+         */
+        private int maxBatchRetries = DEFAULT_MAX_BATCH_RETRIES;
+
+        /**
+         * When set to true, changed attributes are written with UpdateItem instead of replacing the whole item.
+         */
+        private boolean partialUpdates = DEFAULT_PARTIAL_UPDATES;
+
+        /**
+         * Codec storing attributes in a single binary attribute, or null to store them as a map.
+         */
+        private AttributesCodec attributesCodec;
+
+        /**
+         * Name of the attribute holding the attributes version, or null if attributes are not versioned.
+         */
+        private String versionAttributeName;
+
         /**
          * Prevent instantiation.
          */
@@ -342,6 +826,61 @@ public final class DynamoDbPersistenceAdapter implements PersistenceAdapter {
             return this;
         }
 
+        /**
+         * Optional maximum number of times keys left unprocessed by a BatchGetItem or BatchWriteItem call are retried
+         * before a batch read or delete fails. By default {@value #DEFAULT_MAX_BATCH_RETRIES} is used.
+         * @param maxBatchRetries maximum number of retries
+         * @return builder
+         */
+        public Builder withMaxBatchRetries(final int maxBatchRetries) {
+            this.maxBatchRetries = maxBatchRetries;
+            return this;
+        }
+
+        /**
+         * Optional flag specifying whether only the changed top level attributes should be written using UpdateItem
+         * when saving attributes which were retrieved earlier in the same request. This reduces request payload size
+         * for large attribute maps, write capacity is still consumed for the full item size. If not specified, this
+         * behavior defaults to false and the whole item is replaced on every save. Partial updates are not used when an
+         * attributes codec is configured.
+         * @param partialUpdates true if changed attributes should be written with UpdateItem
+         * @return builder
+         */
+        public Builder withPartialUpdates(final boolean partialUpdates) {
+            this.partialUpdates = partialUpdates;
+            return this;
+        }
+
+        /**
+         * Optional codec used to store attributes in a single binary attribute instead of a nested map, for example
+         * {@link AttributesCodecs#compressed(AttributesCodec)} of {@link AttributesCodecs#cbor()}. Smaller items
+         * consume fewer read and write capacity units and stay further below the item size limit. Items stored as a
+         * map are still read, and are converted to the binary format when next saved. If not specified, attributes
+         * are stored as a map.
+         * @param attributesCodec attributes codec
+         * @return builder
+         */
+        public Builder withAttributesCodec(final AttributesCodec attributesCodec) {
+            this.attributesCodec = attributesCodec;
+            return this;
+        }
+
+        /**
+         * Optional name of a numeric attribute holding the version of the stored attributes. When set, every save
+         * increments the version and saves made through
+         * {@link com.amazon.ask.attributes.AttributesManager#savePersistentAttributes()} fail with a
+         * {@link PersistenceConflictException} if the attributes were modified by a concurrent request since they were
+         * retrieved, instead of overwriting that request's changes. If not specified, attributes are not versioned.
+         * A versioned adapter can't be wrapped by a {@link CachingPersistenceAdapter} or a
+         * {@link CoalescingPersistenceAdapter}, which reject it when built.
+         * @param versionAttributeName name of the version attribute
+         * @return builder
+         */
+        public Builder withVersionAttributeName(final String versionAttributeName) {
+            this.versionAttributeName = versionAttributeName;
+            return this;
+        }
+
         /**
          * Builder method to build an instance of DynamoDbPersistenceAdapter.
          * @return {@link DynamoDbPersistenceAdapter}.
@@ -0,0 +1,341 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.util.ValidationUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.model.AmazonDynamoDBException;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Counter shared by all users of a skill, for example total plays or votes, spread over several DynamoDB items to
+ * avoid throttling on a single hot item. Increments are atomic ADD updates of a randomly chosen shard, reads gather
+ * all shards with a single BatchGetItem call and sum them. Counter shards are stored under
+ * {@link PartitionKeyGenerators#shardKeys(String, int)} of the counter name and can share a table with
+ * {@link DynamoDbPersistenceAdapter} as long as counter names do not collide with attribute partition keys.
+ */
+public final class DynamoDbShardedCounter {
+
+    /**
+     * Amazon DynamoDb client.
+     */
+    private final AmazonDynamoDB dynamoDb;
+
+    /**
+     * Table name the counter shards are stored in.
+     */
+    private final String tableName;
+
+    /**
+     * Name of the partition key of the table.
+     */
+    private final String partitionKeyName;
+
+    /**
+     * Name of the numeric attribute holding the count of a shard.
+     */
+    private final String countAttributeName;
+
+    /**
+     * Number of shards each counter is spread over.
+     */
+    private final int shardCount;
+
+    /**
+     * Maximum number of times unprocessed keys of a batch read are retried.
+     */
+    private final int maxBatchRetries;
+
+    /**
+     * Default partition key name.
+     */
+    private static final String DEFAULT_PARTITION_KEY_NAME = "id";
+
+    /**
+     * Default count attribute name.
+     */
+    private static final String DEFAULT_COUNT_ATTRIBUTE_NAME = "count";
+
+    /**
+     * Default number of shards.
+     */
+    private static final int DEFAULT_SHARD_COUNT = 10;
+
+    /**
+     * Maximum number of shards, all shards are read with a single BatchGetItem call.
+     */
+    private static final int MAX_SHARD_COUNT = 100;
+
+    /**
+     * Default maximum number of times unprocessed keys of a batch read are retried.
+     */
+    private static final int DEFAULT_MAX_BATCH_RETRIES = 5;
+
+    /**
+     * Base delay in milliseconds before retrying unprocessed keys, doubled on every retry.
+     */
+    private static final long BATCH_RETRY_BASE_DELAY_MILLIS = 25L;
+
+    /**
+     * Expression attribute name placeholder for the count attribute.
+     */
+    private static final String COUNT_NAME_PLACEHOLDER = "#count";
+
+    /**
+     * Expression attribute value placeholder for the increment.
+     */
+    private static final String DELTA_VALUE_PLACEHOLDER = ":delta";
+
+    /**
+     * Private constructor to build an instance of {@link DynamoDbShardedCounter}.
+     * @param builder instance of {@link Builder}.
+     */
+    private DynamoDbShardedCounter(final Builder builder) {
+        this.tableName = ValidationUtils.assertStringNotEmpty(builder.tableName, "table name");
+        this.dynamoDb = builder.dynamoDb != null ? builder.dynamoDb : AmazonDynamoDBClientBuilder.standard().build();
+        this.partitionKeyName = builder.partitionKeyName;
+        this.countAttributeName = builder.countAttributeName;
+        this.shardCount = ValidationUtils.assertIsPositive(builder.shardCount, "shard count");
+        if (shardCount > MAX_SHARD_COUNT) {
+            throw new IllegalArgumentException(String.format("shard count cannot exceed %d", MAX_SHARD_COUNT));
+        }
+        this.maxBatchRetries = builder.maxBatchRetries;
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Atomically adds to a counter by updating a single randomly chosen shard.
+     * @param counterName name of the counter.
+     * @param delta amount to add, negative to subtract.
+     * @throws PersistenceException if table doesn't exist or the update fails.
+     */
+    public void increment(final String counterName, final long delta) throws PersistenceException {
+        ValidationUtils.assertStringNotEmpty(counterName, "counter name");
+        String shardKey = PartitionKeyGenerators.shardKey(counterName, ThreadLocalRandom.current().nextInt(shardCount));
+        UpdateItemRequest request = new UpdateItemRequest()
+                .withTableName(tableName)
+                .withKey(Collections.singletonMap(partitionKeyName, new AttributeValue().withS(shardKey)))
+                .withUpdateExpression(String.format("ADD %s %s", COUNT_NAME_PLACEHOLDER, DELTA_VALUE_PLACEHOLDER))
+                .withExpressionAttributeNames(Collections.singletonMap(COUNT_NAME_PLACEHOLDER, countAttributeName))
+                .withExpressionAttributeValues(Collections.singletonMap(DELTA_VALUE_PLACEHOLDER,
+                        new AttributeValue().withN(Long.toString(delta))));
+        try {
+            dynamoDb.updateItem(request);
+        } catch (ResourceNotFoundException e) {
+            throw new PersistenceException(String.format("Table %s does not exist or is in the process of being created", tableName), e);
+        } catch (AmazonDynamoDBException e) {
+            throw new PersistenceException("Failed to update counter in DynamoDB", e);
+        }
+    }
+
+    /**
+     * Reads the value of a counter by summing all of its shards. Shards are read eventually consistent, so recent
+     * increments may not be included yet.
+     * @param counterName name of the counter.
+     * @return value of the counter, 0 if it was never incremented.
+     * @throws PersistenceException if table doesn't exist, the read fails or keys remain unprocessed after all retries.
+     */
+    public long getCount(final String counterName) throws PersistenceException {
+        ValidationUtils.assertStringNotEmpty(counterName, "counter name");
+        List<Map<String, AttributeValue>> keys = PartitionKeyGenerators.shardKeys(counterName, shardCount).stream()
+                .map(shardKey -> Collections.singletonMap(partitionKeyName, new AttributeValue().withS(shardKey)))
+                .collect(Collectors.toList());
+        KeysAndAttributes keysAndAttributes = new KeysAndAttributes()
+                .withKeys(keys)
+                .withProjectionExpression(COUNT_NAME_PLACEHOLDER)
+                .withExpressionAttributeNames(Collections.singletonMap(COUNT_NAME_PLACEHOLDER, countAttributeName));
+        BigDecimal count = BigDecimal.ZERO;
+        int retries = 0;
+        while (true) {
+            BatchGetItemResult result;
+            try {
+                result = dynamoDb.batchGetItem(new BatchGetItemRequest()
+                        .withRequestItems(Collections.singletonMap(tableName, keysAndAttributes)));
+            } catch (ResourceNotFoundException e) {
+                throw new PersistenceException(String.format("Table %s does not exist or is in the process of being created", tableName), e);
+            } catch (AmazonDynamoDBException e) {
+                throw new PersistenceException("Failed to read counter from DynamoDB", e);
+            }
+            List<Map<String, AttributeValue>> items = result.getResponses() != null ? result.getResponses().get(tableName) : null;
+            if (items != null) {
+                for (Map<String, AttributeValue> item : items) {
+                    if (item.containsKey(countAttributeName)) {
+                        count = count.add(new BigDecimal(item.get(countAttributeName).getN()));
+                    }
+                }
+            }
+            keysAndAttributes = result.getUnprocessedKeys() != null ? result.getUnprocessedKeys().get(tableName) : null;
+            if (keysAndAttributes == null || keysAndAttributes.getKeys() == null || keysAndAttributes.getKeys().isEmpty()) {
+                return count.longValueExact();
+            }
+            awaitBatchRetry(retries++, keysAndAttributes.getKeys().size());
+        }
+    }
+
+    /**
+     * Waits before retrying unprocessed keys of a batch read, the delay doubles on every retry.
+     * @param retries number of retries made so far.
+     * @param unprocessed number of unprocessed keys.
+     * @throws PersistenceException if all retries are used up or the thread is interrupted.
+     */
+    private void awaitBatchRetry(final int retries, final int unprocessed) {
+        if (retries >= maxBatchRetries) {
+            throw new PersistenceException(String.format("Failed to read counter from DynamoDB, %d shards remain unprocessed after %d retries",
+                    unprocessed, retries));
+        }
+        try {
+            Thread.sleep(BATCH_RETRY_BASE_DELAY_MILLIS << retries);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while retrying unprocessed keys", e);
+        }
+    }
+
+    /**
+     * Static builder class to build an instance of {@link DynamoDbShardedCounter}.
+     */
+    public static final class Builder {
+
+        /**
+         * Amazon DynamoDb client.
+         */
+        private AmazonDynamoDB dynamoDb;
+
+        /**
+         * Table name the counter shards are stored in.
+         */
+        private String tableName;
+
+        /**
+         * Name of the partition key of the table.
+         */
+        private String partitionKeyName = DEFAULT_PARTITION_KEY_NAME;
+
+        /**
+         * Name of the numeric attribute holding the count of a shard.
+         */
+        private String countAttributeName = DEFAULT_COUNT_ATTRIBUTE_NAME;
+
+        /**
+         * Number of shards each counter is spread over.
+         */
+        private int shardCount = DEFAULT_SHARD_COUNT;
+
+        /**
+         * Maximum number of times unprocessed keys of a batch read are retried.
+         */
+        private int maxBatchRetries = DEFAULT_MAX_BATCH_RETRIES;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Optional DynamoDB client instance to use. If not provided, a default DynamoDB client instance
+         * will be constructed and used.
+         * @param dynamoDb client instance
+         * @return builder
+         */
+        public Builder withDynamoDbClient(final AmazonDynamoDB dynamoDb) {
+            this.dynamoDb = dynamoDb;
+            return this;
+        }
+
+        /**
+         * Name of the DynamoDB table to store counter shards in.
+         * @param tableName name of the DynamoDB table to use
+         * @return builder
+         */
+        public Builder withTableName(final String tableName) {
+            this.tableName = tableName;
+            return this;
+        }
+
+        /**
+         * Optional name of the partition key of the table. By default {@value #DEFAULT_PARTITION_KEY_NAME} is used.
+         * @param partitionKeyName name of the partition key
+         * @return builder
+         */
+        public Builder withPartitionKeyName(final String partitionKeyName) {
+            this.partitionKeyName = partitionKeyName;
+            return this;
+        }
+
+        /**
+         * Optional name of the numeric attribute holding the count of a shard. By default
+         * {@value #DEFAULT_COUNT_ATTRIBUTE_NAME} is used.
+         * @param countAttributeName name of the count attribute
+         * @return builder
+         */
+        public Builder withCountAttributeName(final String countAttributeName) {
+            this.countAttributeName = countAttributeName;
+            return this;
+        }
+
+        /**
+         * Optional number of shards each counter is spread over, at most {@value #MAX_SHARD_COUNT}. More shards allow
+         * more increments per second, reads consume capacity for every shard. By default
+         * {@value #DEFAULT_SHARD_COUNT} is used. Changing the number of shards of an existing counter ignores
+         * shards beyond the new number when reading.
+         * @param shardCount number of shards
+         * @return builder
+         */
+        public Builder withShardCount(final int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        /**
+         * Optional maximum number of times shards left unprocessed by a BatchGetItem call are retried before a read
+         * fails. By default {@value #DEFAULT_MAX_BATCH_RETRIES} is used.
+         * @param maxBatchRetries maximum number of retries
+         * @return builder
+         */
+        public Builder withMaxBatchRetries(final int maxBatchRetries) {
+            this.maxBatchRetries = maxBatchRetries;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of DynamoDbShardedCounter.
+         * @return {@link DynamoDbShardedCounter}.
+         */
+        public DynamoDbShardedCounter build() {
+            return new DynamoDbShardedCounter(this);
+        }
+    }
+
+}
@@ -14,28 +14,45 @@
 package com.amazon.ask.attributes.persistence.impl;
 
 import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.VersionedAttributes;
+import com.amazon.ask.attributes.persistence.VersionedPersistenceAdapter;
+import com.amazon.ask.exception.PersistenceConflictException;
 import com.amazon.ask.exception.PersistenceException;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AmazonDynamoDBException;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -124,6 +141,106 @@ public class DynamoDbPersistenceAdapterTest {
         adapter.getAttributes(requestEnvelope);
     }
 
+    @Test
+    public void batch_get_attributes_returns_results_in_request_order() {
+        RequestEnvelope first = RequestEnvelope.builder().withVersion("1").build();
+        RequestEnvelope second = RequestEnvelope.builder().withVersion("2").build();
+        RequestEnvelope third = RequestEnvelope.builder().withVersion("3").build();
+        when(mockKeyGenerator.apply(any())).thenAnswer(invocation -> ((RequestEnvelope) invocation.getArguments()[0]).getVersion());
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(new BatchGetItemResult()
+                .withResponses(Collections.singletonMap("foo", Arrays.asList(item("3", "Baz"), item("1", "Bar")))));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
+        List<Optional<Map<String, Object>>> attributes = adapter.batchGetAttributes(Arrays.asList(first, second, third, first));
+
+        assertEquals(4, attributes.size());
+        assertEquals("Bar", attributes.get(0).get().get("FooKey"));
+        assertEquals(Optional.empty(), attributes.get(1));
+        assertEquals("Baz", attributes.get(2).get().get("FooKey"));
+        assertEquals("Bar", attributes.get(3).get().get("FooKey"));
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(mockDdb, times(1)).batchGetItem(requestCaptor.capture());
+        KeysAndAttributes keys = requestCaptor.getValue().getRequestItems().get("foo");
+        assertEquals(3, keys.getKeys().size());
+        assertEquals(true, keys.getConsistentRead());
+    }
+
+    @Test
+    public void batch_get_attributes_retries_unprocessed_keys() {
+        RequestEnvelope first = RequestEnvelope.builder().withVersion("1").build();
+        RequestEnvelope second = RequestEnvelope.builder().withVersion("2").build();
+        when(mockKeyGenerator.apply(any())).thenAnswer(invocation -> ((RequestEnvelope) invocation.getArguments()[0]).getVersion());
+        KeysAndAttributes unprocessed = new KeysAndAttributes()
+                .withKeys(Collections.singletonMap("id", new AttributeValue().withS("2")))
+                .withConsistentRead(true);
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(new BatchGetItemResult()
+                        .withResponses(Collections.singletonMap("foo", Collections.singletonList(item("1", "Bar"))))
+                        .withUnprocessedKeys(Collections.singletonMap("foo", unprocessed)))
+                .thenReturn(new BatchGetItemResult()
+                        .withResponses(Collections.singletonMap("foo", Collections.singletonList(item("2", "Baz")))));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
+        List<Optional<Map<String, Object>>> attributes = adapter.batchGetAttributes(Arrays.asList(first, second));
+
+        assertEquals("Bar", attributes.get(0).get().get("FooKey"));
+        assertEquals("Baz", attributes.get(1).get().get("FooKey"));
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(mockDdb, times(2)).batchGetItem(requestCaptor.capture());
+        assertEquals(unprocessed, requestCaptor.getAllValues().get(1).getRequestItems().get("foo"));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void batch_get_attributes_throws_exception_when_keys_remain_unprocessed() {
+        when(mockKeyGenerator.apply(any())).thenReturn("bar");
+        KeysAndAttributes unprocessed = new KeysAndAttributes()
+                .withKeys(Collections.singletonMap("id", new AttributeValue().withS("bar")));
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(new BatchGetItemResult().withUnprocessedKeys(Collections.singletonMap("foo", unprocessed)));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withMaxBatchRetries(1).build();
+        adapter.batchGetAttributes(Collections.singletonList(requestEnvelope));
+    }
+
+    @Test
+    public void batch_get_attributes_splits_keys_into_chunks() {
+        List<RequestEnvelope> envelopes = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            envelopes.add(RequestEnvelope.builder().withVersion(String.valueOf(i)).build());
+        }
+        when(mockKeyGenerator.apply(any())).thenAnswer(invocation -> ((RequestEnvelope) invocation.getArguments()[0]).getVersion());
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(new BatchGetItemResult());
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
+        assertEquals(150, adapter.batchGetAttributes(envelopes).size());
+
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(mockDdb, times(2)).batchGetItem(requestCaptor.capture());
+        assertEquals(100, requestCaptor.getAllValues().get(0).getRequestItems().get("foo").getKeys().size());
+        assertEquals(50, requestCaptor.getAllValues().get(1).getRequestItems().get("foo").getKeys().size());
+    }
+
+    @Test
+    public void get_attributes_by_partition_keys_gathers_shards() {
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(new BatchGetItemResult()
+                .withResponses(Collections.singletonMap("foo", Arrays.asList(item("board#0", "A"), item("board#2", "C")))));
+        DynamoDbPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).build();
+
+        Map<String, Map<String, Object>> shards = adapter.getAttributesByPartitionKeys(PartitionKeyGenerators.shardKeys("board", 3));
+
+        assertEquals(2, shards.size());
+        assertEquals("A", shards.get("board#0").get("FooKey"));
+        assertEquals("C", shards.get("board#2").get("FooKey"));
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(mockDdb).batchGetItem(requestCaptor.capture());
+        assertEquals(3, requestCaptor.getValue().getRequestItems().get("foo").getKeys().size());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void batch_get_attributes_exception_wrapped_in_persistence_exception() {
+        when(mockKeyGenerator.apply(any())).thenReturn("bar");
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenThrow(new AmazonDynamoDBException(""));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
+        adapter.batchGetAttributes(Collections.singletonList(requestEnvelope));
+    }
+
     @Test
     public void save_attributes_calls_ddb() {
         Map<String, Object> attr = Collections.singletonMap("Foo", "Bar");
@@ -150,10 +267,190 @@ public class DynamoDbPersistenceAdapterTest {
     }
 
     @Test
-    public void delete_attributes_calls_ddb() {
-        Map<String, AttributeValue> item = new HashMap<>();
-        item.put("attributes", new AttributeValue().withM(Collections.singletonMap("FooKey", new AttributeValue().withS("FooValue"))));
-        when(mockDdb.getItem(any())).thenReturn(new GetItemResult().withItem(item));
+    public void update_attributes_saves_whole_item_when_partial_updates_disabled() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
+        adapter.updateAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), Collections.singleton("Foo"));
+        verify(mockDdb, times(1)).putItem(any(PutItemRequest.class));
+        verify(mockDdb, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void update_attributes_writes_changed_keys_only() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Foo", "Baz");
+        attributes.put("Unchanged", "Value");
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withPartialUpdates(true).build();
+        adapter.updateAttributes(requestEnvelope, attributes, new HashSet<>(Arrays.asList("Foo", "Removed")));
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb, times(1)).updateItem(requestCaptor.capture());
+        verify(mockDdb, never()).putItem(any(PutItemRequest.class));
+        UpdateItemRequest request = requestCaptor.getValue();
+        assertEquals("foo", request.getTableName());
+        assertEquals(Collections.singletonMap("id", new AttributeValue().withS("bar")), request.getKey());
+        assertEquals("attributes", request.getExpressionAttributeNames().get("#attributes"));
+        assertEquals(1, request.getExpressionAttributeValues().size());
+        assertEquals(new AttributeValue().withS("Baz"), request.getExpressionAttributeValues().values().iterator().next());
+        assertEquals(3, request.getExpressionAttributeNames().size());
+        assertEquals(true, request.getUpdateExpression().startsWith("SET #attributes.#k"));
+        assertEquals(true, request.getUpdateExpression().contains(" REMOVE #attributes.#k"));
+        assertEquals("attribute_exists(#attributes)", request.getConditionExpression());
+    }
+
+    @Test
+    public void update_attributes_falls_back_to_put_when_attributes_missing() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenThrow(new ConditionalCheckFailedException(""));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withPartialUpdates(true).build();
+        adapter.updateAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), Collections.singleton("Foo"));
+        verify(mockDdb, times(1)).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    public void save_attributes_with_codec_stores_binary_attribute() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        AttributesCodec codec = AttributesCodecs.cbor();
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withAttributesCodec(codec).build();
+        adapter.saveAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"));
+        ArgumentCaptor<PutItemRequest> requestCaptor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(mockDdb, times(1)).putItem(requestCaptor.capture());
+        AttributeValue stored = requestCaptor.getValue().getItem().get("attributes");
+        assertEquals(null, stored.getM());
+        assertEquals(ByteBuffer.wrap(codec.encode(Collections.singletonMap("Foo", "Bar"))), stored.getB());
+    }
+
+    @Test
+    public void get_attributes_with_codec_reads_binary_and_map_items() {
+        AttributesCodec codec = AttributesCodecs.cbor();
+        Map<String, AttributeValue> binaryItem = Collections.singletonMap("attributes",
+                new AttributeValue().withB(ByteBuffer.wrap(codec.encode(Collections.singletonMap("FooKey", "Binary")))));
+        when(mockDdb.getItem(any())).thenReturn(new GetItemResult().withItem(binaryItem), new GetItemResult().withItem(item("bar", "Map")));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withAttributesCodec(codec).build();
+        assertEquals(Collections.singletonMap("FooKey", "Binary"), adapter.getAttributes(requestEnvelope).get());
+        assertEquals(Collections.singletonMap("FooKey", "Map"), adapter.getAttributes(requestEnvelope).get());
+    }
+
+    @Test
+    public void batch_get_attributes_with_codec_decodes_binary_items() {
+        AttributesCodec codec = AttributesCodecs.cbor();
+        Map<String, AttributeValue> binaryItem = new HashMap<>();
+        binaryItem.put("id", new AttributeValue().withS("bar"));
+        binaryItem.put("attributes", new AttributeValue().withB(ByteBuffer.wrap(codec.encode(Collections.singletonMap("FooKey", "Binary")))));
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(new BatchGetItemResult()
+                .withResponses(Collections.singletonMap("foo", Collections.singletonList(binaryItem))));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withAttributesCodec(codec).build();
+        List<Optional<Map<String, Object>>> results = adapter.batchGetAttributes(Collections.singletonList(requestEnvelope));
+        assertEquals(Collections.singletonMap("FooKey", "Binary"), results.get(0).get());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void get_attributes_throws_exception_for_binary_item_without_codec() {
+        Map<String, AttributeValue> binaryItem = Collections.singletonMap("attributes", new AttributeValue().withB(ByteBuffer.wrap(new byte[] {1})));
+        when(mockDdb.getItem(any())).thenReturn(new GetItemResult().withItem(binaryItem));
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).build();
+        adapter.getAttributes(requestEnvelope);
+    }
+
+    @Test
+    public void update_attributes_with_codec_saves_whole_item() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withPartialUpdates(true).withAttributesCodec(AttributesCodecs.cbor()).build();
+        adapter.updateAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), Collections.singleton("Foo"));
+        verify(mockDdb, times(1)).putItem(any(PutItemRequest.class));
+        verify(mockDdb, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void get_versioned_attributes_returns_stored_version() {
+        Map<String, AttributeValue> stored = item("bar", "FooValue");
+        stored.put("version", new AttributeValue().withN("7"));
+        when(mockDdb.getItem(any())).thenReturn(new GetItemResult().withItem(stored));
+        VersionedPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withVersionAttributeName("version").build();
+        VersionedAttributes attributes = adapter.getVersionedAttributes(requestEnvelope).get();
+        assertEquals(Long.valueOf(7), attributes.getVersion());
+        assertEquals(Collections.singletonMap("FooKey", "FooValue"), attributes.getAttributes());
+    }
+
+    @Test
+    public void save_versioned_attributes_conditions_on_expected_version() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenReturn(new UpdateItemResult()
+                .withAttributes(Collections.singletonMap("version", new AttributeValue().withN("8"))));
+        VersionedPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withVersionAttributeName("version").build();
+
+        Long version = adapter.saveVersionedAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), 7L);
+
+        assertEquals(Long.valueOf(8), version);
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb).updateItem(requestCaptor.capture());
+        verify(mockDdb, never()).putItem(any(PutItemRequest.class));
+        UpdateItemRequest request = requestCaptor.getValue();
+        assertEquals("SET #attributes = :attributes ADD #version :one", request.getUpdateExpression());
+        assertEquals("#version = :expected", request.getConditionExpression());
+        assertEquals("version", request.getExpressionAttributeNames().get("#version"));
+        assertEquals(new AttributeValue().withN("7"), request.getExpressionAttributeValues().get(":expected"));
+        assertEquals(new AttributeValue().withM(Collections.singletonMap("Foo", new AttributeValue().withS("Bar"))),
+                request.getExpressionAttributeValues().get(":attributes"));
+    }
+
+    @Test
+    public void save_versioned_attributes_without_version_requires_missing_version() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        VersionedPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withVersionAttributeName("version").build();
+        adapter.saveVersionedAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), null);
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb).updateItem(requestCaptor.capture());
+        assertEquals("attribute_not_exists(#version)", requestCaptor.getValue().getConditionExpression());
+    }
+
+    @Test(expected = PersistenceConflictException.class)
+    public void save_versioned_attributes_conflict_throws_conflict_exception() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenThrow(new ConditionalCheckFailedException(""));
+        VersionedPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withVersionAttributeName("version").build();
+        adapter.saveVersionedAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), 3L);
+    }
+
+    @Test
+    public void save_attributes_increments_version_unconditionally() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).withVersionAttributeName("version").build();
+        adapter.saveAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"));
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb).updateItem(requestCaptor.capture());
+        assertEquals(null, requestCaptor.getValue().getConditionExpression());
+        assertEquals(true, requestCaptor.getValue().getUpdateExpression().endsWith("ADD #version :one"));
+    }
+
+    @Test
+    public void save_versioned_attributes_saves_unconditionally_without_version_attribute() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
+        VersionedPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb)
+                .withPartitionKeyGenerator(mockKeyGenerator).build();
+        assertEquals(false, adapter.isVersioned());
+        assertEquals(null, adapter.saveVersionedAttributes(requestEnvelope, Collections.singletonMap("Foo", "Bar"), 3L));
+        verify(mockDdb).putItem(any(PutItemRequest.class));
+        verify(mockDdb, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void delete_attributes_calls_ddb_with_key_only() {
+        when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
         PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder()
                 .withTableName("foo")
                 .withDynamoDbClient(mockDdb)
@@ -162,22 +459,65 @@ public class DynamoDbPersistenceAdapterTest {
         adapter.deleteAttributes(requestEnvelope);
         ArgumentCaptor<DeleteItemRequest> deleteItemRequestCaptor = ArgumentCaptor.forClass(DeleteItemRequest.class);
         verify(mockDdb, times(1)).deleteItem(deleteItemRequestCaptor.capture());
+        verify(mockDdb, never()).getItem(any(GetItemRequest.class));
         DeleteItemRequest request = deleteItemRequestCaptor.getValue();
         assertEquals(request.getTableName(), "foo");
-        assertEquals(request.getKey().get("attributes"), new AttributeValue().withM(Collections.singletonMap("FooKey", new AttributeValue().withS("FooValue"))));
+        assertEquals(request.getKey(), Collections.singletonMap("id", new AttributeValue().withS("bar")));
     }
 
     @Test(expected = PersistenceException.class)
     public void delete_attributes_exception_wrapped_in_persistence_exception() {
-        Map<String, AttributeValue> item = new HashMap<>();
-        item.put("attributes", new AttributeValue().withM(Collections.singletonMap("FooKey", new AttributeValue().withS("FooValue"))));
-        when(mockDdb.getItem(any())).thenReturn(new GetItemResult().withItem(item));
         when(mockKeyGenerator.apply(requestEnvelope)).thenReturn("bar");
         when(mockDdb.deleteItem(any())).thenThrow(new AmazonDynamoDBException(""));
         PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
         adapter.deleteAttributes(requestEnvelope);
     }
 
+    @Test
+    public void batch_delete_attributes_splits_keys_into_chunks() {
+        List<RequestEnvelope> envelopes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            envelopes.add(RequestEnvelope.builder().withVersion(String.valueOf(i)).build());
+        }
+        when(mockKeyGenerator.apply(any())).thenAnswer(invocation -> ((RequestEnvelope) invocation.getArguments()[0]).getVersion());
+        when(mockDdb.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(new BatchWriteItemResult());
+        PersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withPartitionKeyGenerator(mockKeyGenerator).build();
+        adapter.batchDeleteAttributes(envelopes);
+
+        ArgumentCaptor<BatchWriteItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(mockDdb, times(2)).batchWriteItem(requestCaptor.capture());
+        List<WriteRequest> first = requestCaptor.getAllValues().get(0).getRequestItems().get("foo");
+        assertEquals(25, first.size());
+        assertEquals(Collections.singletonMap("id", new AttributeValue().withS("0")), first.get(0).getDeleteRequest().getKey());
+        assertEquals(5, requestCaptor.getAllValues().get(1).getRequestItems().get("foo").size());
+    }
+
+    @Test
+    public void delete_attributes_by_partition_keys_retries_unprocessed_items() {
+        WriteRequest unprocessed = new WriteRequest().withDeleteRequest(
+                new DeleteRequest().withKey(Collections.singletonMap("id", new AttributeValue().withS("user2"))));
+        when(mockDdb.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(new BatchWriteItemResult().withUnprocessedItems(Collections.singletonMap("foo", Collections.singletonList(unprocessed))))
+                .thenReturn(new BatchWriteItemResult());
+        DynamoDbPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).build();
+        adapter.deleteAttributesByPartitionKeys(Arrays.asList("user1", "user2", "user1"));
+
+        ArgumentCaptor<BatchWriteItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(mockDdb, times(2)).batchWriteItem(requestCaptor.capture());
+        assertEquals(2, requestCaptor.getAllValues().get(0).getRequestItems().get("foo").size());
+        assertEquals(Collections.singletonList(unprocessed), requestCaptor.getAllValues().get(1).getRequestItems().get("foo"));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void delete_attributes_by_partition_keys_throws_exception_when_items_remain_unprocessed() {
+        WriteRequest unprocessed = new WriteRequest().withDeleteRequest(
+                new DeleteRequest().withKey(Collections.singletonMap("id", new AttributeValue().withS("user"))));
+        when(mockDdb.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(new BatchWriteItemResult().withUnprocessedItems(Collections.singletonMap("foo", Collections.singletonList(unprocessed))));
+        DynamoDbPersistenceAdapter adapter = DynamoDbPersistenceAdapter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withMaxBatchRetries(0).build();
+        adapter.deleteAttributesByPartitionKeys(Collections.singletonList("user"));
+    }
+
     @Test
     public void create_table_called_on_instantiation_when_enabled() {
         when(mockDdb.createTable(any())).thenReturn(new CreateTableResult());
@@ -250,4 +590,11 @@ public class DynamoDbPersistenceAdapterTest {
         adapter.getAttributes(requestEnvelope);
     }
 
-}
\ No newline at end of file
+    private Map<String, AttributeValue> item(final String id, final String value) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("id", new AttributeValue().withS(id));
+        item.put("attributes", new AttributeValue().withM(Collections.singletonMap("FooKey", new AttributeValue().withS(value))));
+        return item;
+    }
+
+}
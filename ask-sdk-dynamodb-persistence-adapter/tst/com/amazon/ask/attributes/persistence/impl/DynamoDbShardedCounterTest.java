@@ -0,0 +1,137 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AmazonDynamoDBException;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DynamoDbShardedCounterTest {
+
+    private AmazonDynamoDB mockDdb;
+    private DynamoDbShardedCounter counter;
+
+    @Before
+    public void setUp() {
+        mockDdb = mock(AmazonDynamoDB.class);
+        counter = DynamoDbShardedCounter.builder()
+                .withTableName("foo")
+                .withDynamoDbClient(mockDdb)
+                .withShardCount(4)
+                .withMaxBatchRetries(1)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void table_name_must_be_set() {
+        DynamoDbShardedCounter.builder().withDynamoDbClient(mockDdb).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shard_count_limited_to_single_batch_read() {
+        DynamoDbShardedCounter.builder().withTableName("foo").withDynamoDbClient(mockDdb).withShardCount(101).build();
+    }
+
+    @Test
+    public void increment_adds_to_single_shard() {
+        counter.increment("plays", 3);
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDdb).updateItem(requestCaptor.capture());
+        UpdateItemRequest request = requestCaptor.getValue();
+        assertEquals("foo", request.getTableName());
+        assertTrue(PartitionKeyGenerators.shardKeys("plays", 4).contains(request.getKey().get("id").getS()));
+        assertEquals("ADD #count :delta", request.getUpdateExpression());
+        assertEquals("count", request.getExpressionAttributeNames().get("#count"));
+        assertEquals(new AttributeValue().withN("3"), request.getExpressionAttributeValues().get(":delta"));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void increment_exception_wrapped_in_persistence_exception() {
+        when(mockDdb.updateItem(any(UpdateItemRequest.class))).thenThrow(new AmazonDynamoDBException(""));
+        counter.increment("plays", 1);
+    }
+
+    @Test
+    public void get_count_sums_all_shards() {
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(new BatchGetItemResult()
+                .withResponses(Collections.singletonMap("foo", Arrays.asList(shard("plays#0", "5"), shard("plays#3", "-2")))));
+
+        assertEquals(3L, counter.getCount("plays"));
+
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(mockDdb).batchGetItem(requestCaptor.capture());
+        KeysAndAttributes keys = requestCaptor.getValue().getRequestItems().get("foo");
+        assertEquals(4, keys.getKeys().size());
+        assertEquals("#count", keys.getProjectionExpression());
+    }
+
+    @Test
+    public void get_count_returns_zero_for_unknown_counter() {
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(new BatchGetItemResult());
+        assertEquals(0L, counter.getCount("plays"));
+    }
+
+    @Test
+    public void get_count_retries_unprocessed_shards() {
+        KeysAndAttributes unprocessed = new KeysAndAttributes()
+                .withKeys(Collections.singletonMap("id", new AttributeValue().withS("plays#1")));
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(
+                new BatchGetItemResult()
+                        .withResponses(Collections.singletonMap("foo", Collections.singletonList(shard("plays#0", "1"))))
+                        .withUnprocessedKeys(Collections.singletonMap("foo", unprocessed)),
+                new BatchGetItemResult()
+                        .withResponses(Collections.singletonMap("foo", Collections.singletonList(shard("plays#1", "2")))));
+
+        assertEquals(3L, counter.getCount("plays"));
+        verify(mockDdb, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void get_count_throws_exception_when_shards_remain_unprocessed() {
+        KeysAndAttributes unprocessed = new KeysAndAttributes()
+                .withKeys(Collections.singletonMap("id", new AttributeValue().withS("plays#1")));
+        when(mockDdb.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(new BatchGetItemResult().withUnprocessedKeys(Collections.singletonMap("foo", unprocessed)));
+        counter.getCount("plays");
+    }
+
+    private Map<String, AttributeValue> shard(final String id, final String count) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("id", new AttributeValue().withS(id));
+        item.put("count", new AttributeValue().withN(count));
+        return item;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl.benchmark;
+
+import com.amazon.ask.attributes.persistence.impl.AttributesCodec;
+import com.amazon.ask.attributes.persistence.impl.AttributesCodecs;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the nested map attribute format of the DynamoDB persistence adapter against the binary
+ * formats produced by {@link AttributesCodecs}.
+ *
+ * {@code write} measures converting attributes into the stored attribute value, {@code read} converting the stored
+ * value back into attributes. The stored item size, computed with the DynamoDB item size rules which determine
+ * consumed capacity units, is printed once per trial. Request marshalling by the AWS SDK is not included. Run with
+ * {@code mvn -pl ask-sdk-dynamodb-persistence-adapter -am -P benchmark verify -DskipTests}, passing JMH options
+ * through {@code -Djmh.args}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributesCodecBenchmark {
+
+    /**
+     * Stored attribute format.
+     */
+    public enum Format {
+        MAP,
+        CBOR,
+        CBOR_GZIP
+    }
+
+    /**
+     * Attribute shape, from a few counters up to a game state with a long history.
+     */
+    public enum AttributesSize {
+        SMALL,
+        MEDIUM,
+        LARGE
+    }
+
+    @Param({"MAP", "CBOR", "CBOR_GZIP"})
+    public Format format;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public AttributesSize attributesSize;
+
+    private AttributesCodec codec;
+    private Map<String, Object> attributes;
+    private AttributeValue stored;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        codec = format == Format.CBOR ? AttributesCodecs.cbor()
+                : format == Format.CBOR_GZIP ? AttributesCodecs.compressed(AttributesCodecs.cbor()) : null;
+        attributes = buildAttributes(attributesSize);
+        stored = write();
+        if (!read().equals(ItemUtils.toSimpleMapValue(ItemUtils.fromSimpleMap(attributes)))) {
+            throw new IllegalStateException("Benchmark attributes do not survive a round trip");
+        }
+        System.out.printf("%n%s %s item size: %d bytes%n", format, attributesSize, itemSize("attributes", stored));
+    }
+
+    @Benchmark
+    public AttributeValue write() {
+        if (codec == null) {
+            return new AttributeValue().withM(ItemUtils.fromSimpleMap(attributes));
+        }
+        return new AttributeValue().withB(ByteBuffer.wrap(codec.encode(attributes)));
+    }
+
+    @Benchmark
+    public Map<String, Object> read() {
+        if (codec == null) {
+            return ItemUtils.toSimpleMapValue(stored.getM());
+        }
+        ByteBuffer buffer = stored.getB().duplicate();
+        byte[] encoded = new byte[buffer.remaining()];
+        buffer.get(encoded);
+        return codec.decode(encoded);
+    }
+
+    private static Map<String, Object> buildAttributes(final AttributesSize attributesSize) {
+        int historySize = attributesSize == AttributesSize.SMALL ? 0 : attributesSize == AttributesSize.MEDIUM ? 20 : 400;
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("sessionCount", new BigDecimal(42));
+        attributes.put("lastVisit", "2019-06-01T12:00:00Z");
+        attributes.put("favoriteColor", "blue");
+        List<Object> history = new ArrayList<>();
+        for (int i = 0; i < historySize; i++) {
+            Map<String, Object> turn = new HashMap<>();
+            turn.put("question", "What is the capital of country number " + i + "?");
+            turn.put("answer", "Capital " + i);
+            turn.put("correct", i % 3 != 0);
+            turn.put("score", new BigDecimal(i * 10));
+            history.add(turn);
+        }
+        attributes.put("history", history);
+        return attributes;
+    }
+
+    /**
+     * Computes the size of an attribute the way DynamoDB does for capacity unit consumption.
+     */
+    private static int itemSize(final String name, final AttributeValue value) {
+        return name.getBytes(StandardCharsets.UTF_8).length + valueSize(value);
+    }
+
+    private static int valueSize(final AttributeValue value) {
+        if (value.getS() != null) {
+            return value.getS().getBytes(StandardCharsets.UTF_8).length;
+        } else if (value.getN() != null) {
+            return (value.getN().replaceAll("[^0-9]", "").length() + 1) / 2 + 1;
+        } else if (value.getB() != null) {
+            return value.getB().remaining();
+        } else if (value.getBOOL() != null || value.getNULL() != null) {
+            return 1;
+        } else if (value.getL() != null) {
+            return value.getL().stream().mapToInt(element -> valueSize(element) + 1).sum() + 3;
+        } else if (value.getM() != null) {
+            return value.getM().entrySet().stream().mapToInt(entry -> itemSize(entry.getKey(), entry.getValue()) + 1).sum() + 3;
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,275 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template.benchmark;
+
+import com.amazon.ask.dispatcher.request.handler.HandlerInput;
+import com.amazon.ask.model.LaunchRequest;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.Response;
+import com.amazon.ask.request.UnmarshalledRequest;
+import com.amazon.ask.response.template.TemplateContentData;
+import com.amazon.ask.response.template.TemplateFactory;
+import com.amazon.ask.response.template.impl.BaseTemplateFactory;
+import com.amazon.ask.response.template.loader.impl.ConcurrentLRUTemplateCache;
+import com.amazon.ask.response.template.loader.impl.LocalTemplateFileLoader;
+import com.amazon.ask.response.template.loader.impl.LocaleTemplateEnumerator;
+import com.amazon.ask.response.template.renderer.impl.FreeMarkerTemplateRenderer;
+import com.amazon.ask.util.impl.JacksonJsonUnmarshaller;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateExceptionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmark of template based response generation with {@link BaseTemplateFactory}, {@link LocalTemplateFileLoader},
+ * {@link ConcurrentLRUTemplateCache} and {@link FreeMarkerTemplateRenderer}.
+ *
+ * {@code processTemplate} measures the complete pipeline, the remaining benchmarks measure the individual stages
+ * (enumerate, load, parse, render and unmarshal) in isolation. Run with
+ * {@code mvn -pl ask-sdk-freemarker -am -P benchmark verify -DskipTests}, passing JMH options through
+ * {@code -Djmh.args}, for example {@code -Djmh.args="TemplateRenderingBenchmark -t 8"} to measure with 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    private static final String TEMPLATE_DIRECTORY = "templates";
+    private static final String TEMPLATE_NAME = "response";
+    private static final String EXTENSION = "ftl";
+    private static final int LIST_SIZE = 200;
+
+    /**
+     * Template shape, from a plain speech response up to a large APL document.
+     */
+    public enum TemplateSize {
+        SIMPLE_SPEECH,
+        CARD,
+        LARGE_APL
+    }
+
+    @Param({"SIMPLE_SPEECH", "CARD", "LARGE_APL"})
+    public TemplateSize templateSize;
+
+    /**
+     * en-US resolves to the locale specific template, fr-CA falls back to the default template.
+     */
+    @Param({"en-US", "fr-CA"})
+    public String locale;
+
+    /**
+     * Fraction of loads that miss the template cache.
+     */
+    @Param({"0.0", "0.5", "1.0"})
+    public double cacheMissRatio;
+
+    private Path templateRoot;
+    private ConcurrentLRUTemplateCache templateCache;
+    private LocalTemplateFileLoader loader;
+    private TemplateFactory<HandlerInput, Response> templateFactory;
+    private HandlerInput handlerInput;
+    private Map<String, Object> dataMap;
+    private JacksonJsonUnmarshaller<Response> unmarshaller;
+    private Configuration configuration;
+    private TemplateContentData templateContentData;
+    private Template parsedTemplate;
+    private byte[] renderedBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        templateRoot = Files.createTempDirectory("ask-sdk-template-benchmark");
+        String content = buildTemplate(templateSize);
+        writeTemplate(templateRoot.resolve(TEMPLATE_DIRECTORY).resolve(TEMPLATE_NAME).resolve("en").resolve("US." + EXTENSION), content);
+        writeTemplate(templateRoot.resolve(TEMPLATE_DIRECTORY).resolve(TEMPLATE_NAME + "." + EXTENSION), content);
+
+        templateCache = ConcurrentLRUTemplateCache.builder().build();
+        loader = LocalTemplateFileLoader.builder()
+                .withDirectoryPath(TEMPLATE_DIRECTORY + File.separator)
+                .withFileExtension(EXTENSION)
+                .withClassLoader(new URLClassLoader(new URL[] {templateRoot.toUri().toURL()}, null))
+                .withTemplateCache(templateCache)
+                .build();
+        unmarshaller = JacksonJsonUnmarshaller.withTypeBinding(Response.class);
+        templateFactory = BaseTemplateFactory.<HandlerInput, Response>builder()
+                .addTemplateLoader(loader)
+                .withTemplateRenderer(FreeMarkerTemplateRenderer.builder().withUnmarshaller(unmarshaller).build())
+                .build();
+        handlerInput = HandlerInput.builder()
+                .withRequestEnvelope(RequestEnvelope.builder()
+                        .withRequest(LaunchRequest.builder().withLocale(locale).build())
+                        .build())
+                .build();
+        dataMap = buildDataMap();
+
+        configuration = new Configuration(Configuration.VERSION_2_3_24);
+        configuration.setDefaultEncoding(StandardCharsets.UTF_8.toString());
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        templateContentData = loader.load(TEMPLATE_NAME, handlerInput).get();
+        parsedTemplate = parse();
+        renderedBytes = render();
+        Optional<UnmarshalledRequest<Response>> response = unmarshaller.unmarshall(renderedBytes);
+        if (!response.isPresent()) {
+            throw new IllegalStateException("Benchmark template does not produce a valid response");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(templateRoot)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Response processTemplate() {
+        simulateCacheMiss();
+        return templateFactory.processTemplate(TEMPLATE_NAME, dataMap, handlerInput);
+    }
+
+    @Benchmark
+    public void enumerate(final Blackhole blackhole) {
+        LocaleTemplateEnumerator enumerator = LocaleTemplateEnumerator.builder()
+                .withTemplateName(TEMPLATE_NAME)
+                .withHandlerInput(handlerInput)
+                .build();
+        while (enumerator.hasNext()) {
+            blackhole.consume(enumerator.next());
+        }
+    }
+
+    @Benchmark
+    public Optional<TemplateContentData> load() {
+        simulateCacheMiss();
+        return loader.load(TEMPLATE_NAME, handlerInput);
+    }
+
+    @Benchmark
+    public Template parse() throws IOException {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(templateContentData.getTemplateContent()),
+                StandardCharsets.UTF_8)) {
+            return new Template(templateContentData.getIdentifier(), reader, configuration);
+        }
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+            parsedTemplate.process(dataMap, writer);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Optional<UnmarshalledRequest<Response>> unmarshal() {
+        return unmarshaller.unmarshall(renderedBytes);
+    }
+
+    private void simulateCacheMiss() {
+        if (cacheMissRatio > 0 && ThreadLocalRandom.current().nextDouble() < cacheMissRatio) {
+            templateCache.remove(templateContentData.getIdentifier());
+        }
+    }
+
+    private Map<String, Object> buildDataMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("speech", "Welcome to the benchmark skill, what would you like to do?");
+        data.put("title", "Benchmark");
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < LIST_SIZE; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("title", "Item title " + i);
+            item.put("subtitle", "Item subtitle " + i);
+            item.put("imageUrl", "https://example.com/images/" + i + ".png");
+            items.add(item);
+        }
+        data.put("items", items);
+        return data;
+    }
+
+    private static String buildTemplate(final TemplateSize templateSize) {
+        switch (templateSize) {
+            case SIMPLE_SPEECH:
+                return "{\"outputSpeech\":{\"type\":\"PlainText\",\"text\":\"${speech}\"},\"shouldEndSession\":false}";
+            case CARD:
+                return "{\"outputSpeech\":{\"type\":\"SSML\",\"ssml\":\"<speak>${speech}</speak>\"},"
+                        + "\"card\":{\"type\":\"Simple\",\"title\":\"${title}\",\"content\":\"${speech}\"},"
+                        + "\"reprompt\":{\"outputSpeech\":{\"type\":\"PlainText\",\"text\":\"${speech}\"}},"
+                        + "\"shouldEndSession\":false}";
+            default:
+                StringBuilder components = new StringBuilder();
+                for (int i = 0; i < LIST_SIZE; i++) {
+                    components.append("{\"type\":\"Frame\",\"backgroundColor\":\"#22222").append(i % 10)
+                            .append("\",\"item\":{\"type\":\"Text\",\"text\":\"Static component ").append(i)
+                            .append("\",\"fontSize\":\"20dp\",\"paddingLeft\":\"").append(i).append("dp\"}},");
+                }
+                return "{\"outputSpeech\":{\"type\":\"SSML\",\"ssml\":\"<speak>${speech}</speak>\"},"
+                        + "\"directives\":[{\"type\":\"Alexa.Presentation.APL.RenderDocument\",\"token\":\"benchmark\","
+                        + "\"document\":{\"type\":\"APL\",\"version\":\"1.8\",\"mainTemplate\":{\"parameters\":[\"payload\"],"
+                        + "\"items\":[{\"type\":\"Container\",\"items\":[" + components
+                        + "<#list items as item>{\"type\":\"TouchWrapper\",\"item\":{\"type\":\"Container\",\"items\":["
+                        + "{\"type\":\"Image\",\"source\":\"${item.imageUrl}\",\"width\":\"64dp\",\"height\":\"64dp\"},"
+                        + "{\"type\":\"Text\",\"text\":\"${item.title}\"},{\"type\":\"Text\",\"text\":\"${item.subtitle}\"}]}}"
+                        + "<#sep>,</#list>]}]}},"
+                        + "\"datasources\":{\"payload\":{\"title\":\"${title}\",\"items\":["
+                        + "<#list items as item>{\"title\":\"${item.title}\",\"subtitle\":\"${item.subtitle}\"}<#sep>,</#list>"
+                        + "]}}}],\"shouldEndSession\":false}";
+        }
+    }
+
+    private static void writeTemplate(final Path path, final String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
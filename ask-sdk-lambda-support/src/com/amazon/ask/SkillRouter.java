@@ -0,0 +1,158 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes requests to the skills that may handle them, indexed by skill ID.
+ *
+ * The application ID of a request is read from its raw bytes with a streaming parser that stops as soon as it was
+ * found, so that only the skills registered for that application ID, and skills without ID, unmarshal the request.
+ * Skills keep their registration order. Requests whose application ID cannot be read are offered to all skills.
+ */
+final class SkillRouter {
+
+    /**
+     * Logger instance to log information for debugging purposes.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkillRouter.class);
+
+    /**
+     * Factory of the parsers reading the application ID.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Path of the application ID in the request envelope.
+     */
+    private static final String[] APPLICATION_ID_PATH = {"context", "System", "application", "applicationId"};
+
+    /**
+     * All skills, in registration order.
+     */
+    private final List<AlexaSkill> skills;
+
+    /**
+     * Skills that may handle requests of each skill ID, in registration order.
+     */
+    private final Map<String, List<AlexaSkill>> skillsById;
+
+    /**
+     * Skills without ID, in registration order, which may handle requests of any other application ID.
+     */
+    private final List<AlexaSkill> skillsWithoutId;
+
+    /**
+     * Constructs a router indexing the given skills by skill ID.
+     *
+     * @param skills skills in registration order
+     */
+    SkillRouter(final List<AlexaSkill> skills) {
+        this.skills = skills;
+        List<AlexaSkill> withoutId = new ArrayList<>();
+        Map<String, List<AlexaSkill>> byId = new HashMap<>();
+        for (AlexaSkill skill : skills) {
+            String skillId = skill.getSkillId();
+            if (skillId == null) {
+                withoutId.add(skill);
+                byId.values().forEach(candidates -> candidates.add(skill));
+            } else {
+                byId.computeIfAbsent(skillId, id -> new ArrayList<>(withoutId)).add(skill);
+            }
+        }
+        this.skillsById = byId;
+        this.skillsWithoutId = Collections.unmodifiableList(withoutId);
+    }
+
+    /**
+     * Returns the only registered skill, to which requests are offered without routing them.
+     *
+     * @return the only registered skill, or null if several skills are registered
+     */
+    AlexaSkill getSingleSkill() {
+        return skills.size() == 1 ? skills.get(0) : null;
+    }
+
+    /**
+     * Returns the skills that may handle a request.
+     *
+     * @param rawRequest request envelope, in serialized form
+     * @return skills to offer the request to, in registration order
+     */
+    List<AlexaSkill> route(final byte[] rawRequest) {
+        if (skillsById.isEmpty()) {
+            return skills;
+        }
+        String applicationId = peekApplicationId(rawRequest);
+        if (applicationId == null) {
+            return skills;
+        }
+        return skillsById.getOrDefault(applicationId, skillsWithoutId);
+    }
+
+    /**
+     * Reads the application ID of a request without parsing it entirely.
+     *
+     * @param rawRequest request envelope, in serialized form
+     * @return application ID, or null if the request carries none or isn't valid JSON
+     */
+    static String peekApplicationId(final byte[] rawRequest) {
+        try (JsonParser parser = JSON_FACTORY.createParser(rawRequest)) {
+            JsonToken token = parser.nextToken();
+            for (String field : APPLICATION_ID_PATH) {
+                if (token != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                token = findField(parser, field);
+            }
+            return token == JsonToken.VALUE_STRING ? parser.getText() : null;
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to read the application ID of the request", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Advances the parser, positioned at the start of an object, to the value of the given field of that object.
+     *
+     * @param parser parser positioned at the start of an object
+     * @param name name of the field to find
+     * @return token of the value of the field, or null if the object has no such field
+     * @throws IOException if the request isn't valid JSON
+     */
+    private static JsonToken findField(final JsonParser parser, final String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean found = name.equals(parser.getCurrentName());
+            JsonToken value = parser.nextToken();
+            if (found) {
+                return value;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+}
@@ -14,7 +14,9 @@
 package com.amazon.ask;
 
 import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.request.Deadline;
 import com.amazon.ask.request.impl.BaseSkillRequest;
+import com.amazon.ask.request.impl.StreamingSkillRequest;
 import com.amazon.ask.response.SkillResponse;
 import com.amazon.ask.util.ValidationUtils;
 import com.amazonaws.services.lambda.runtime.Context;
@@ -26,7 +28,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 /**
  * This class provides the handler required when hosting the service as an AWS Lambda function.
@@ -46,24 +47,26 @@ import java.util.List;
 public abstract class SkillStreamHandler implements RequestStreamHandler {
 
     /**
-     * List of skills of type {@link AlexaSkill}.
+     * Router selecting the skills of type {@link AlexaSkill} that may handle a request.
      */
-    private final List<AlexaSkill> skills;
+    private final SkillRouter router;
 
     /**
      * Constructor to build an instance of {@link SkillStreamHandler} with a single Alexa skill.
      * @param skill instance of type {@link AlexaSkill}.
      */
     public SkillStreamHandler(final AlexaSkill skill) {
-        this.skills = Collections.singletonList(ValidationUtils.assertNotNull(skill, "skill"));
+        this.router = new SkillRouter(Collections.singletonList(ValidationUtils.assertNotNull(skill, "skill")));
     }
 
     /**
-     * Constructor to build an instance of {@link SkillStreamHandler} with multiple Alexa skills.
+     * Constructor to build an instance of {@link SkillStreamHandler} with multiple Alexa skills. Requests are
+     * routed by their application ID to the skills with a matching skill ID, so that they are unmarshalled once,
+     * and skills without skill ID are offered requests of any application ID.
      * @param skills instances of type {@link AlexaSkill}.
      */
     public SkillStreamHandler(final AlexaSkill... skills) {
-        this.skills = Arrays.asList(ValidationUtils.assertNotEmpty(skills, "skills"));
+        this.router = new SkillRouter(Arrays.asList(ValidationUtils.assertNotEmpty(skills, "skills")));
     }
 
     /**
@@ -72,6 +75,10 @@ public abstract class SkillStreamHandler implements RequestStreamHandler {
      * the configured {@code Skill}.
      *
      * <p>
+     * When a single skill is registered, the request is passed to it as a stream which the skill unmarshalls in
+     * place. Otherwise the request is read into memory once, to be routed and offered to several skills.
+     *
+     * <p>
      * Any errors that occur in either the {@code Skill} or the {@code SkillStreamHandler}
      * are converted into a {@code RuntimeException}, causing the Lambda call to fail. Details on
      * the failure are then available in the Lambda console logs within CloudWatch. {@inheritDoc}
@@ -79,16 +86,50 @@ public abstract class SkillStreamHandler implements RequestStreamHandler {
     @Override
     public final void handleRequest(final InputStream input, final OutputStream output, final Context context)
             throws IOException {
-        byte[] inputBytes = IOUtils.toByteArray(input);
-        for (AlexaSkill skill : skills) {
-            SkillResponse response = skill.execute(new BaseSkillRequest(inputBytes), context);
-            if (response != null) {
-                if (response.isPresent()) {
-                    response.writeTo(output);
-                }
+        Deadline deadline = getDeadline(context);
+        AlexaSkill singleSkill = router.getSingleSkill();
+        if (singleSkill != null) {
+            if (writeResponse(singleSkill.execute(new StreamingSkillRequest(input, deadline), context), output)) {
                 return;
             }
+        } else {
+            byte[] inputBytes = IOUtils.toByteArray(input);
+            BaseSkillRequest skillRequest = new BaseSkillRequest(inputBytes, deadline);
+            for (AlexaSkill skill : router.route(inputBytes)) {
+                if (writeResponse(skill.execute(skillRequest, context), output)) {
+                    return;
+                }
+            }
         }
         throw new AskSdkException("Could not find a skill to handle the incoming request");
     }
+
+    /**
+     * Writes the response of a skill to the request, if it handled it.
+     * @param response response of the skill, or null if the skill did not handle the request.
+     * @param output stream to write the response to.
+     * @return true if the skill handled the request.
+     */
+    private static boolean writeResponse(final SkillResponse response, final OutputStream output) {
+        if (response == null) {
+            return false;
+        }
+        if (response.isPresent()) {
+            response.writeTo(output);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the deadline of a request, the end of the Lambda invocation handling it.
+     * @param context Lambda context of the invocation.
+     * @return deadline, or null if the remaining time of the invocation is unknown.
+     */
+    private static Deadline getDeadline(final Context context) {
+        if (context == null) {
+            return null;
+        }
+        int remainingTimeInMillis = context.getRemainingTimeInMillis();
+        return remainingTimeInMillis > 0 ? Deadline.afterMillis(remainingTimeInMillis) : null;
+    }
 }
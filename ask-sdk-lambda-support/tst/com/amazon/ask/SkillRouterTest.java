@@ -0,0 +1,99 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SkillRouterTest {
+
+    @Test
+    public void application_id_read_from_context() {
+        assertEquals("skill-2", SkillRouter.peekApplicationId(request("skill-2")));
+    }
+
+    @Test
+    public void application_id_read_after_skipping_nested_values() {
+        String json = "{\"version\":\"1.0\",\"session\":{\"application\":{\"applicationId\":\"session-id\"},"
+                + "\"attributes\":{\"list\":[{\"applicationId\":\"nested\"}]}},"
+                + "\"context\":{\"AudioPlayer\":{},\"System\":{\"user\":{\"userId\":\"u\"},"
+                + "\"application\":{\"applicationId\":\"skill-3\"}}},\"request\":{\"type\":\"LaunchRequest\"}}";
+        assertEquals("skill-3", SkillRouter.peekApplicationId(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void missing_or_malformed_application_id_not_read() {
+        assertNull(SkillRouter.peekApplicationId("{\"request\":{}}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(SkillRouter.peekApplicationId("{\"context\":{\"System\":{\"application\":{\"applicationId\":1}}}}"
+                .getBytes(StandardCharsets.UTF_8)));
+        assertNull(SkillRouter.peekApplicationId("{\"context\":[]}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(SkillRouter.peekApplicationId("{\"context\":{\"Sys".getBytes(StandardCharsets.UTF_8)));
+        assertNull(SkillRouter.peekApplicationId(new byte[0]));
+    }
+
+    @Test
+    public void request_routed_to_matching_skill_and_skills_without_id() {
+        AlexaSkill first = skill("skill-1");
+        AlexaSkill fallback = skill(null);
+        AlexaSkill second = skill("skill-2");
+        SkillRouter router = new SkillRouter(Arrays.asList(first, fallback, second));
+
+        assertEquals(Arrays.asList(fallback, second), router.route(request("skill-2")));
+        assertEquals(Arrays.asList(first, fallback), router.route(request("skill-1")));
+        assertEquals(Collections.singletonList(fallback), router.route(request("skill-3")));
+    }
+
+    @Test
+    public void request_without_application_id_routed_to_all_skills() {
+        AlexaSkill first = skill("skill-1");
+        AlexaSkill second = skill("skill-2");
+        SkillRouter router = new SkillRouter(Arrays.asList(first, second));
+
+        assertEquals(Arrays.asList(first, second), router.route("{}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void unknown_application_id_routed_to_no_skill_when_all_have_ids() {
+        SkillRouter router = new SkillRouter(Arrays.asList(skill("skill-1"), skill("skill-2")));
+        assertEquals(Collections.emptyList(), router.route(request("skill-3")));
+    }
+
+    @Test
+    public void single_skill_offered_requests_without_routing() {
+        AlexaSkill skill = skill("skill-1");
+        assertSame(skill, new SkillRouter(Collections.singletonList(skill)).getSingleSkill());
+        assertNull(new SkillRouter(Arrays.asList(skill, skill("skill-2"))).getSingleSkill());
+    }
+
+    private static AlexaSkill skill(final String skillId) {
+        AlexaSkill skill = mock(AlexaSkill.class);
+        when(skill.getSkillId()).thenReturn(skillId);
+        return skill;
+    }
+
+    private static byte[] request(final String applicationId) {
+        return ("{\"version\":\"1.0\",\"context\":{\"System\":{\"application\":{\"applicationId\":\""
+                + applicationId + "\"}}},\"request\":{\"type\":\"LaunchRequest\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+}
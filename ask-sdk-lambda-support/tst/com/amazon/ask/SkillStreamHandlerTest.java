@@ -21,9 +21,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import com.amazon.ask.exception.AskSdkException;
 import com.amazon.ask.request.SkillRequest;
+import com.amazon.ask.request.impl.BaseSkillRequest;
+import com.amazon.ask.request.impl.StreamingSkillRequest;
 import com.amazon.ask.response.SkillResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.amazonaws.services.lambda.runtime.Context;
@@ -35,6 +38,8 @@ import org.mockito.ArgumentCaptor;
 import static org.mockito.Matchers.any;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
@@ -110,6 +115,64 @@ public class SkillStreamHandlerTest {
         verify(skillResponse, never()).writeTo(any());
     }
 
+    @Test
+    public void request_routed_to_skill_with_matching_id_only() throws IOException {
+        AlexaSkill<TestRequest, TestResponse> otherSkill = mock(AlexaSkill.class);
+        when(otherSkill.getSkillId()).thenReturn("skill-1");
+        when(skill.getSkillId()).thenReturn("skill-2");
+        when(skillResponse.isPresent()).thenReturn(true);
+        when(skill.execute(any(), any())).thenReturn(skillResponse);
+
+        byte[] json = ("{\"context\":{\"System\":{\"application\":{\"applicationId\":\"skill-2\"}}}}")
+                .getBytes(StandardCharsets.UTF_8);
+        new TestSkillStreamHandler(otherSkill, skill)
+                .handleRequest(new ByteArrayInputStream(json), new ByteArrayOutputStream(), testContext);
+
+        verify(otherSkill, never()).execute(any(), any());
+        verify(skillResponse).writeTo(any());
+    }
+
+    @Test
+    public void lambda_remaining_time_passed_as_deadline() throws IOException {
+        when(testContext.getRemainingTimeInMillis()).thenReturn(5000);
+        when(skillResponse.isPresent()).thenReturn(true);
+        ArgumentCaptor<SkillRequest> captor = ArgumentCaptor.forClass(SkillRequest.class);
+        when(skill.execute(captor.capture(), any())).thenReturn(skillResponse);
+        getHandlerOutput(testRequest);
+        long remaining = captor.getValue().getDeadline().getRemainingMillis();
+        assertTrue(remaining > 4000 && remaining <= 5000);
+    }
+
+    @Test
+    public void unknown_remaining_time_passes_no_deadline() throws IOException {
+        when(skillResponse.isPresent()).thenReturn(true);
+        ArgumentCaptor<SkillRequest> captor = ArgumentCaptor.forClass(SkillRequest.class);
+        when(skill.execute(captor.capture(), any())).thenReturn(skillResponse);
+        getHandlerOutput(testRequest);
+        assertNull(captor.getValue().getDeadline());
+    }
+
+    @Test
+    public void single_skill_reads_request_stream_in_place() throws IOException {
+        when(skillResponse.isPresent()).thenReturn(true);
+        ArgumentCaptor<SkillRequest> captor = ArgumentCaptor.forClass(SkillRequest.class);
+        when(skill.execute(captor.capture(), any())).thenReturn(skillResponse);
+        getHandlerOutput(testRequest);
+        assertTrue(captor.getValue() instanceof StreamingSkillRequest);
+    }
+
+    @Test
+    public void multiple_skills_share_request_read_into_memory() throws IOException {
+        AlexaSkill<TestRequest, TestResponse> otherSkill = mock(AlexaSkill.class);
+        when(skillResponse.isPresent()).thenReturn(true);
+        ArgumentCaptor<SkillRequest> captor = ArgumentCaptor.forClass(SkillRequest.class);
+        when(skill.execute(captor.capture(), any())).thenReturn(skillResponse);
+        new TestSkillStreamHandler(otherSkill, skill).handleRequest(
+                new ByteArrayInputStream(OBJECT_MAPPER.writeValueAsBytes(testRequest)), new ByteArrayOutputStream(), testContext);
+        assertTrue(captor.getValue() instanceof BaseSkillRequest);
+        assertArrayEquals(OBJECT_MAPPER.writeValueAsBytes(testRequest), captor.getValue().getRawRequest());
+    }
+
     private final class TestSkillStreamHandler extends SkillStreamHandler {
         public TestSkillStreamHandler(AlexaSkill skill) {
             super(skill);
@@ -0,0 +1,849 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.util.ValidationUtils;
+import com.amazon.ask.util.impl.ObjectMapperFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Persistence adapter storing skill persistence attributes in a local memory-mapped file, for skills served from
+ * dedicated hosts with sticky routing which should not pay a network round trip per request.
+ *
+ * Attributes are appended to the file as records, an in-memory index maps each partition key to its latest record.
+ * Reads copy directly from the mapped file without a system call. Saves and deletes append a new record, the space of
+ * replaced records is reclaimed by compaction, which rewrites the live records to a new file. Every record carries a
+ * checksum, records torn by a crash are discarded when the file is opened. Durability of writes is configured with
+ * {@link SyncPolicy}.
+ *
+ * The file is locked while open and can only be used by a single adapter instance. Attributes are stored as JSON, so
+ * they must be serializable by Jackson. The file size is limited to 2 GB.
+ */
+public final class MappedFilePersistenceAdapter implements PersistenceAdapter, Closeable {
+
+    /**
+     * Logger instance to log information for debugging purposes.
+     */
+    private static final Logger LOGGER = getLogger(MappedFilePersistenceAdapter.class);
+
+    /**
+     * Magic number identifying the file format.
+     */
+    private static final int FILE_MAGIC = 0x41534b46;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int FILE_FORMAT_VERSION = 1;
+
+    /**
+     * Size of the file header holding the magic number and format version.
+     */
+    private static final int FILE_HEADER_SIZE = 8;
+
+    /**
+     * Size of a record header holding the key length, value length and checksum.
+     */
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    /**
+     * Value length of a record marking a deleted key.
+     */
+    private static final int TOMBSTONE = -1;
+
+    /**
+     * Default initial size of the file in bytes.
+     */
+    private static final int DEFAULT_INITIAL_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Default interval in milliseconds between flushes with {@link SyncPolicy#PERIODIC}.
+     */
+    private static final long DEFAULT_SYNC_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * Default sync policy.
+     */
+    private static final SyncPolicy DEFAULT_SYNC_POLICY = SyncPolicy.PERIODIC;
+
+    /**
+     * Default value for automatic compaction.
+     */
+    private static final boolean DEFAULT_AUTO_COMPACTION = true;
+
+    /**
+     * Minimum number of bytes of replaced records before automatic compaction is considered.
+     */
+    private static final int MIN_COMPACTION_GARBAGE = 1024 * 1024;
+
+    /**
+     * Default partition key generator.
+     */
+    private static final Function<RequestEnvelope, String> DEFAULT_PARTITION_KEY_GENERATOR = PartitionKeyGenerators.userId();
+
+    /**
+     * Type of decoded attributes.
+     */
+    private static final TypeReference<LinkedHashMap<String, Object>> ATTRIBUTES_TYPE =
+            new TypeReference<LinkedHashMap<String, Object>>() { };
+
+    /**
+     * Path of the file attributes are stored in.
+     */
+    private final Path path;
+
+    /**
+     * Partition key generator.
+     */
+    private final Function<RequestEnvelope, String> partitionKeyGenerator;
+
+    /**
+     * Policy defining when writes are flushed to disk.
+     */
+    private final SyncPolicy syncPolicy;
+
+    /**
+     * Initial size of the file in bytes.
+     */
+    private final int initialSize;
+
+    /**
+     * When set to true, the file is compacted once replaced records take up more space than live records.
+     */
+    private final boolean autoCompaction;
+
+    /**
+     * Guards the mapping and index, reads share the lock, writes, compaction and growth hold it exclusively.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Index of the latest record of every live partition key.
+     */
+    private final Map<String, RecordLocation> index = new HashMap<>();
+
+    /**
+     * Scheduler flushing writes with {@link SyncPolicy#PERIODIC}, null otherwise.
+     */
+    private final ScheduledExecutorService syncScheduler;
+
+    /**
+     * Channel of the open file.
+     */
+    private FileChannel channel;
+
+    /**
+     * Lock preventing other processes from opening the file.
+     */
+    private FileLock fileLock;
+
+    /**
+     * Mapping of the open file.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * Position the next record is written at.
+     */
+    private int writePosition;
+
+    /**
+     * Total size of the live records.
+     */
+    private long liveBytes;
+
+    /**
+     * True once the adapter is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Private constructor to build an instance of {@link MappedFilePersistenceAdapter}.
+     * @param builder instance of {@link Builder}.
+     * @throws PersistenceException if the file cannot be opened or is not a valid attributes file.
+     */
+    private MappedFilePersistenceAdapter(final Builder builder) {
+        this.path = ValidationUtils.assertNotNull(builder.path, "path");
+        this.partitionKeyGenerator = builder.partitionKeyGenerator;
+        this.syncPolicy = ValidationUtils.assertNotNull(builder.syncPolicy, "sync policy");
+        this.initialSize = ValidationUtils.assertIsPositive(builder.initialSize, "initial size");
+        this.autoCompaction = builder.autoCompaction;
+        if (syncPolicy == SyncPolicy.PERIODIC && builder.syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("sync interval must be positive");
+        }
+        open(path);
+        if (syncPolicy == SyncPolicy.PERIODIC) {
+            syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ask-sdk-mapped-file-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncScheduler.scheduleWithFixedDelay(this::sync, builder.syncIntervalMillis, builder.syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            syncScheduler = null;
+        }
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets attributes from the mapped file.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if the adapter is closed or attributes cannot be decoded.
+     * @return {@link Map} of String, Object if attributes exist, or an empty {@link Optional} if not.
+     */
+    @Override
+    public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        String partitionKey = partitionKeyGenerator.apply(envelope);
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            assertOpen();
+            RecordLocation location = index.get(partitionKey);
+            if (location == null) {
+                return Optional.empty();
+            }
+            value = new byte[location.valueLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(location.valueOffset);
+            view.get(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            return Optional.of(ObjectMapperFactory.getMapper().readValue(value, ATTRIBUTES_TYPE));
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("Failed to decode attributes stored in %s", path), e);
+        }
+    }
+
+    /**
+     * Saves attributes to the mapped file.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @param attributes to be stored.
+     * @throws PersistenceException if the adapter is closed, attributes cannot be encoded or the write fails.
+     */
+    @Override
+    public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) throws PersistenceException {
+        String partitionKey = partitionKeyGenerator.apply(envelope);
+        byte[] value;
+        try {
+            value = ObjectMapperFactory.getMapper().writeValueAsBytes(attributes);
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to encode attributes", e);
+        }
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            append(partitionKey, value);
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes attributes from the mapped file. Deleting attributes which do not exist succeeds.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if the adapter is closed or the write fails.
+     */
+    @Override
+    public void deleteAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        String partitionKey = partitionKeyGenerator.apply(envelope);
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            if (index.containsKey(partitionKey)) {
+                append(partitionKey, null);
+                afterWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes attributes for several requests with a single flush.
+     * @param envelopes request envelopes to delete attributes for.
+     * @throws PersistenceException if the adapter is closed or the write fails.
+     */
+    @Override
+    public void batchDeleteAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            boolean deleted = false;
+            for (RequestEnvelope envelope : envelopes) {
+                String partitionKey = partitionKeyGenerator.apply(envelope);
+                if (index.containsKey(partitionKey)) {
+                    append(partitionKey, null);
+                    deleted = true;
+                }
+            }
+            if (deleted) {
+                afterWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records to a new file, reclaiming the space of replaced and deleted records.
+     * @throws PersistenceException if the adapter is closed or the new file cannot be written.
+     */
+    public void compact() throws PersistenceException {
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            compactLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a consistent copy of the live records to the given file, for example for backups. The copy is compacted
+     * and can be opened by another adapter. Writes are blocked while the snapshot is taken.
+     * @param target file to write the snapshot to, replaced if it exists.
+     * @throws PersistenceException if the adapter is closed or the snapshot cannot be written.
+     */
+    public void snapshot(final Path target) throws PersistenceException {
+        ValidationUtils.assertNotNull(target, "target");
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try {
+            assertOpen();
+            try (FileChannel snapshotChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeLiveRecords(snapshotChannel, new HashMap<>());
+                snapshotChannel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("Failed to write snapshot to %s", target), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes all writes to disk, does nothing once the adapter is closed.
+     */
+    public void sync() throws PersistenceException {
+        lock.readLock().lock();
+        try {
+            if (!closed) {
+                buffer.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of stored partition keys.
+     * @return number of stored partition keys.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes all writes to disk and releases the file. The mapping is released once it is garbage collected.
+     */
+    @Override
+    public void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdown();
+        }
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            closeChannel(channel, fileLock);
+            buffer = null;
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens and maps the file, creating it if it doesn't exist, and rebuilds the index from its records.
+     * @param file file to open.
+     * @throws PersistenceException if the file cannot be opened or is not a valid attributes file.
+     */
+    private void open(final Path file) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                fileLock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                fileLock = null;
+            }
+            if (fileLock == null) {
+                channel.close();
+                throw new PersistenceException(String.format("File %s is in use by another adapter", file));
+            }
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new PersistenceException(String.format("File %s exceeds the maximum size", file));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, initialSize));
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("Failed to open %s", file), e);
+        }
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, FILE_MAGIC);
+            buffer.putInt(4, FILE_FORMAT_VERSION);
+        } else if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FILE_FORMAT_VERSION) {
+            closeChannel(channel, fileLock);
+            throw new PersistenceException(String.format("File %s is not a supported attributes file", file));
+        }
+        recover();
+    }
+
+    /**
+     * Rebuilds the index by scanning the records of the mapped file, discarding a torn record at the end.
+     */
+    private void recover() {
+        int position = FILE_HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int keyLength = buffer.getInt(position);
+            int valueLength = buffer.getInt(position + 4);
+            if (keyLength == 0) {
+                break;
+            }
+            int recordSize = RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+            if (keyLength < 0 || valueLength < TOMBSTONE || recordSize < 0 || position + recordSize > buffer.capacity()
+                    || buffer.getInt(position + 8) != checksum(position, keyLength, Math.max(valueLength, 0))) {
+                LOGGER.warn(String.format("Discarding torn record at position %d of %s", position, path));
+                for (int i = position; i < buffer.capacity() && i < position + RECORD_HEADER_SIZE; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + RECORD_HEADER_SIZE);
+            view.get(key);
+            index(new String(key, StandardCharsets.UTF_8), position, keyLength, valueLength);
+            position += recordSize;
+        }
+        writePosition = position;
+        LOGGER.debug(String.format("Opened %s with %d partition keys", path, index.size()));
+    }
+
+    /**
+     * Appends a record and updates the index.
+     * @param partitionKey partition key of the record.
+     * @param value encoded attributes, or null to mark the partition key deleted.
+     * @throws PersistenceException if the file cannot grow to fit the record.
+     */
+    private void append(final String partitionKey, final byte[] value) {
+        byte[] key = partitionKey.getBytes(StandardCharsets.UTF_8);
+        if (key.length == 0) {
+            throw new PersistenceException("Partition key cannot be empty");
+        }
+        int valueLength = value != null ? value.length : TOMBSTONE;
+        int recordSize = RECORD_HEADER_SIZE + key.length + (value != null ? value.length : 0);
+        ensureCapacity(recordSize);
+        int position = writePosition;
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.put(key);
+        if (value != null) {
+            view.put(value);
+        }
+        buffer.putInt(position + 4, valueLength);
+        buffer.putInt(position + 8, checksum(position, key.length, Math.max(valueLength, 0)));
+        buffer.putInt(position, key.length);
+        writePosition += recordSize;
+        index(partitionKey, position, key.length, valueLength);
+    }
+
+    /**
+     * Points the index at a record and updates the live size.
+     * @param partitionKey partition key of the record.
+     * @param position position of the record.
+     * @param keyLength length of the encoded key.
+     * @param valueLength length of the encoded attributes, or {@value #TOMBSTONE} for deleted keys.
+     */
+    private void index(final String partitionKey, final int position, final int keyLength, final int valueLength) {
+        RecordLocation previous = valueLength == TOMBSTONE ? index.remove(partitionKey)
+                : index.put(partitionKey, new RecordLocation(position, keyLength, valueLength));
+        if (previous != null) {
+            liveBytes -= previous.recordSize();
+        }
+        if (valueLength != TOMBSTONE) {
+            liveBytes += RECORD_HEADER_SIZE + keyLength + valueLength;
+        }
+    }
+
+    /**
+     * Flushes according to the sync policy and compacts if replaced records take up more space than live records.
+     */
+    private void afterWrite() {
+        long garbage = writePosition - FILE_HEADER_SIZE - liveBytes;
+        if (autoCompaction && garbage > MIN_COMPACTION_GARBAGE && garbage > liveBytes) {
+            compactLocked();
+        } else if (syncPolicy == SyncPolicy.ALWAYS) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Grows the mapping to fit a record of the given size, at least doubling it.
+     * @param recordSize size of the record to fit.
+     * @throws PersistenceException if the file would exceed the maximum size or cannot be mapped.
+     */
+    private void ensureCapacity(final int recordSize) {
+        long required = (long) writePosition + recordSize;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long capacity = Math.min(Math.max(required, (long) buffer.capacity() * 2), Integer.MAX_VALUE);
+        if (required > capacity) {
+            throw new PersistenceException(String.format("File %s cannot grow beyond the maximum size", path));
+        }
+        buffer.force();
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("Failed to grow %s", path), e);
+        }
+        LOGGER.debug(String.format("Grew %s to %d bytes", path, capacity));
+    }
+
+    /**
+     * Rewrites the live records to a new file which then replaces the current file, the write lock must be held.
+     * @throws PersistenceException if the new file cannot be written.
+     */
+    private void compactLocked() {
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        FileChannel compactedChannel = null;
+        FileLock compactedLock = null;
+        try {
+            Files.deleteIfExists(temporary);
+            compactedChannel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            compactedLock = compactedChannel.lock();
+            Map<String, RecordLocation> compactedIndex = new HashMap<>();
+            int size = writeLiveRecords(compactedChannel, compactedIndex);
+            MappedByteBuffer compactedBuffer = compactedChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max((long) size * 2, initialSize));
+            compactedBuffer.force();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            closeChannel(channel, fileLock);
+            LOGGER.debug(String.format("Compacted %s from %d to %d bytes", path, writePosition, size));
+            channel = compactedChannel;
+            fileLock = compactedLock;
+            buffer = compactedBuffer;
+            writePosition = size;
+            index.clear();
+            index.putAll(compactedIndex);
+        } catch (IOException e) {
+            closeChannel(compactedChannel, compactedLock);
+            throw new PersistenceException(String.format("Failed to compact %s", path), e);
+        }
+    }
+
+    /**
+     * Writes the file header and all live records to the given channel.
+     * @param target channel to write to, positioned at the start.
+     * @param targetIndex index the positions of the written records are added to.
+     * @return number of bytes written.
+     * @throws IOException if the write fails.
+     */
+    private int writeLiveRecords(final FileChannel target, final Map<String, RecordLocation> targetIndex) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(FILE_MAGIC).putInt(FILE_FORMAT_VERSION).flip();
+        writeFully(target, header);
+        int position = FILE_HEADER_SIZE;
+        for (Map.Entry<String, RecordLocation> entry : index.entrySet()) {
+            RecordLocation location = entry.getValue();
+            ByteBuffer record = buffer.duplicate();
+            record.position(location.position);
+            record.limit(location.position + location.recordSize());
+            writeFully(target, record);
+            targetIndex.put(entry.getKey(), new RecordLocation(position, location.keyLength, location.valueLength));
+            position += location.recordSize();
+        }
+        return position;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel.
+     * @param target channel to write to.
+     * @param source buffer to write.
+     * @throws IOException if the write fails.
+     */
+    private static void writeFully(final FileChannel target, final ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+    }
+
+    /**
+     * Computes the checksum of the key and value of a record in the mapped file.
+     * @param position position of the record.
+     * @param keyLength length of the encoded key.
+     * @param valueLength length of the encoded attributes.
+     * @return checksum.
+     */
+    private int checksum(final int position, final int keyLength, final int valueLength) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.limit(position + RECORD_HEADER_SIZE + keyLength + valueLength);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Throws if the adapter is closed.
+     * @throws PersistenceException if the adapter is closed.
+     */
+    private void assertOpen() {
+        if (closed) {
+            throw new PersistenceException(String.format("Persistence adapter for %s is closed", path));
+        }
+    }
+
+    /**
+     * Releases a file lock and closes its channel, ignoring failures.
+     * @param fileChannel channel to close, may be null.
+     * @param channelLock lock to release, may be null.
+     */
+    private void closeChannel(final FileChannel fileChannel, final FileLock channelLock) {
+        try {
+            if (channelLock != null && channelLock.isValid()) {
+                channelLock.release();
+            }
+            if (fileChannel != null) {
+                fileChannel.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Failed to close %s: %s", path, e.getMessage()));
+        }
+    }
+
+    /**
+     * Location of a live record in the mapped file.
+     */
+    private static final class RecordLocation {
+        /**
+         * Position of the record.
+         */
+        private final int position;
+
+        /**
+         * Length of the encoded key.
+         */
+        private final int keyLength;
+
+        /**
+         * Length of the encoded attributes.
+         */
+        private final int valueLength;
+
+        /**
+         * Position of the encoded attributes.
+         */
+        private final int valueOffset;
+
+        /**
+         * Constructor for RecordLocation.
+         * @param position position of the record.
+         * @param keyLength length of the encoded key.
+         * @param valueLength length of the encoded attributes.
+         */
+        private RecordLocation(final int position, final int keyLength, final int valueLength) {
+            this.position = position;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+            this.valueOffset = position + RECORD_HEADER_SIZE + keyLength;
+        }
+
+        /**
+         * Returns the size of the record.
+         * @return size of the record in bytes.
+         */
+        private int recordSize() {
+            return RECORD_HEADER_SIZE + keyLength + valueLength;
+        }
+    }
+
+    /**
+     * Static builder class to build an instance of {@link MappedFilePersistenceAdapter}.
+     */
+    public static final class Builder {
+
+        /**
+         * Path of the file attributes are stored in.
+         */
+        private Path path;
+
+        /**
+         * Partition key generator.
+         */
+        private Function<RequestEnvelope, String> partitionKeyGenerator = DEFAULT_PARTITION_KEY_GENERATOR;
+
+        /**
+         * Policy defining when writes are flushed to disk.
+         */
+        private SyncPolicy syncPolicy = DEFAULT_SYNC_POLICY;
+
+        /**
+         * Interval in milliseconds between flushes with {@link SyncPolicy#PERIODIC}.
+         */
+        private long syncIntervalMillis = DEFAULT_SYNC_INTERVAL_MILLIS;
+
+        /**
+         * Initial size of the file in bytes.
+         */
+        private int initialSize = DEFAULT_INITIAL_SIZE;
+
+        /**
+         * When set to true, the file is compacted once replaced records take up more space than live records.
+         */
+        private boolean autoCompaction = DEFAULT_AUTO_COMPACTION;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Path of the file to store attributes in, created if it doesn't exist.
+         * @param path path of the file
+         * @return builder
+         */
+        public Builder withPath(final Path path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Optional partition key generator function used to derive partition key value from one or more
+         * attributes of a {@link RequestEnvelope}. By default, {@link PartitionKeyGenerators#userId()} is used.
+         * @param partitionKeyGenerator partition key generator function
+         * @return builder
+         */
+        public Builder withPartitionKeyGenerator(final Function<RequestEnvelope, String> partitionKeyGenerator) {
+            this.partitionKeyGenerator = partitionKeyGenerator;
+            return this;
+        }
+
+        /**
+         * Optional policy defining when writes are flushed to disk. By default {@link SyncPolicy#PERIODIC} is used.
+         * @param syncPolicy sync policy
+         * @return builder
+         */
+        public Builder withSyncPolicy(final SyncPolicy syncPolicy) {
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+
+        /**
+         * Optional interval in milliseconds between flushes with {@link SyncPolicy#PERIODIC}. By default 1000
+         * milliseconds are used.
+         * @param syncIntervalMillis sync interval in milliseconds
+         * @return builder
+         */
+        public Builder withSyncInterval(final long syncIntervalMillis) {
+            this.syncIntervalMillis = syncIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Optional initial size of the file in bytes, the file doubles in size when full. By default 16 MB is used.
+         * @param initialSize initial size in bytes
+         * @return builder
+         */
+        public Builder withInitialSize(final int initialSize) {
+            this.initialSize = initialSize;
+            return this;
+        }
+
+        /**
+         * Optional flag specifying whether the file should be compacted automatically once replaced records take up
+         * more space than live records. Compaction blocks reads and writes while it runs, disable it to compact
+         * at a convenient time with {@link MappedFilePersistenceAdapter#compact()} instead. If not specified, this
+         * behavior defaults to true.
+         * @param autoCompaction true if the file should be compacted automatically
+         * @return builder
+         */
+        public Builder withAutoCompaction(final boolean autoCompaction) {
+            this.autoCompaction = autoCompaction;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of MappedFilePersistenceAdapter.
+         * @return {@link MappedFilePersistenceAdapter}.
+         */
+        public MappedFilePersistenceAdapter build() {
+            return new MappedFilePersistenceAdapter(this);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence.impl;
+
+/**
+ * Defines when writes of a {@link MappedFilePersistenceAdapter} are flushed from the page cache to disk.
+ */
+public enum SyncPolicy {
+
+    /**
+     * Flushes after every save or delete. Writes survive an operating system crash or power loss, at the cost of a
+     * disk flush per write.
+     */
+    ALWAYS,
+
+    /**
+     * Flushes at a fixed interval. Writes survive a crash of the process, writes made since the last flush may be
+     * lost on an operating system crash or power loss.
+     */
+    PERIODIC,
+
+    /**
+     * Leaves flushing to the operating system, and flushes when the adapter is closed. Writes survive a crash of
+     * the process.
+     */
+    NEVER
+
+}
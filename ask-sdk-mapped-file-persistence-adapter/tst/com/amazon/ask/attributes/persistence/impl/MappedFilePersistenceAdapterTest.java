@@ -0,0 +1,226 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedFilePersistenceAdapterTest {
+
+    private static final int INITIAL_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+    private MappedFilePersistenceAdapter adapter;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.getRoot().toPath().resolve("attributes.db");
+        adapter = open(file);
+    }
+
+    @After
+    public void tearDown() {
+        adapter.close();
+    }
+
+    @Test
+    public void save_and_get_attributes() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Foo", "Bar");
+        attributes.put("Count", 3);
+        attributes.put("List", Arrays.asList("a", "b"));
+
+        adapter.saveAttributes(envelope("1"), attributes);
+
+        assertEquals(Optional.of(attributes), adapter.getAttributes(envelope("1")));
+        assertFalse(adapter.getAttributes(envelope("2")).isPresent());
+    }
+
+    @Test
+    public void save_replaces_attributes() {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Baz"));
+
+        assertEquals(Collections.singletonMap("Foo", "Baz"), adapter.getAttributes(envelope("1")).get());
+        assertEquals(1, adapter.size());
+    }
+
+    @Test
+    public void delete_attributes() {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.deleteAttributes(envelope("1"));
+        adapter.deleteAttributes(envelope("2"));
+
+        assertFalse(adapter.getAttributes(envelope("1")).isPresent());
+        assertEquals(0, adapter.size());
+    }
+
+    @Test
+    public void batch_delete_attributes() {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.saveAttributes(envelope("2"), Collections.singletonMap("Foo", "Bar"));
+        adapter.saveAttributes(envelope("3"), Collections.singletonMap("Foo", "Bar"));
+
+        adapter.batchDeleteAttributes(Arrays.asList(envelope("1"), envelope("3"), envelope("4")));
+
+        assertEquals(1, adapter.size());
+        assertTrue(adapter.getAttributes(envelope("2")).isPresent());
+    }
+
+    @Test
+    public void attributes_survive_reopen() {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.saveAttributes(envelope("2"), Collections.singletonMap("Foo", "Baz"));
+        adapter.deleteAttributes(envelope("2"));
+        adapter.close();
+
+        adapter = open(file);
+
+        assertEquals(Collections.singletonMap("Foo", "Bar"), adapter.getAttributes(envelope("1")).get());
+        assertFalse(adapter.getAttributes(envelope("2")).isPresent());
+    }
+
+    @Test
+    public void file_grows_when_full() throws Exception {
+        String value = String.join("", Collections.nCopies(1000, "x"));
+        for (int i = 0; i < 20; i++) {
+            adapter.saveAttributes(envelope(String.valueOf(i)), Collections.singletonMap("Value", value));
+        }
+
+        assertTrue(Files.size(file) > INITIAL_SIZE);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(value, adapter.getAttributes(envelope(String.valueOf(i))).get().get("Value"));
+        }
+    }
+
+    @Test
+    public void compaction_reclaims_replaced_records() throws Exception {
+        String value = String.join("", Collections.nCopies(1000, "x"));
+        for (int i = 0; i < 50; i++) {
+            adapter.saveAttributes(envelope("1"), Collections.singletonMap("Value", value + i));
+        }
+        adapter.saveAttributes(envelope("2"), Collections.singletonMap("Foo", "Bar"));
+        long sizeBefore = Files.size(file);
+
+        adapter.compact();
+
+        assertTrue(Files.size(file) < sizeBefore);
+        assertEquals(value + 49, adapter.getAttributes(envelope("1")).get().get("Value"));
+        adapter.saveAttributes(envelope("3"), Collections.singletonMap("Foo", "Baz"));
+        adapter.close();
+
+        adapter = open(file);
+        assertEquals(3, adapter.size());
+        assertEquals(Collections.singletonMap("Foo", "Baz"), adapter.getAttributes(envelope("3")).get());
+    }
+
+    @Test
+    public void snapshot_can_be_opened() {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Baz"));
+        Path snapshot = folder.getRoot().toPath().resolve("snapshot.db");
+
+        adapter.snapshot(snapshot);
+
+        MappedFilePersistenceAdapter snapshotAdapter = open(snapshot);
+        try {
+            assertEquals(Collections.singletonMap("Foo", "Baz"), snapshotAdapter.getAttributes(envelope("1")).get());
+        } finally {
+            snapshotAdapter.close();
+        }
+    }
+
+    @Test
+    public void torn_record_discarded_on_open() throws Exception {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.saveAttributes(envelope("2"), Collections.singletonMap("Foo", "Baz"));
+        adapter.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // corrupt the last byte of the second record's value
+            int firstRecord = 12 + 1 + "{\"Foo\":\"Bar\"}".length();
+            raf.seek(8 + firstRecord + 12 + 1 + "{\"Foo\":\"Baz\"}".length() - 1);
+            raf.write('x');
+        }
+
+        adapter = open(file);
+
+        assertEquals(1, adapter.size());
+        assertTrue(adapter.getAttributes(envelope("1")).isPresent());
+        adapter.saveAttributes(envelope("3"), Collections.singletonMap("Foo", "Qux"));
+        adapter.close();
+        adapter = open(file);
+        assertEquals(2, adapter.size());
+        assertTrue(adapter.getAttributes(envelope("3")).isPresent());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void unknown_file_format_throws_persistence_exception() throws Exception {
+        Path other = folder.newFile("other.db").toPath();
+        Files.write(other, "not an attributes file".getBytes("UTF-8"));
+        open(other);
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void file_in_use_throws_persistence_exception() {
+        open(file);
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void closed_adapter_throws_persistence_exception() {
+        adapter.close();
+        adapter.getAttributes(envelope("1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void path_must_be_set() {
+        MappedFilePersistenceAdapter.builder().build();
+    }
+
+    private MappedFilePersistenceAdapter open(final Path path) {
+        return MappedFilePersistenceAdapter.builder()
+                .withPath(path)
+                .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                .withSyncPolicy(SyncPolicy.NEVER)
+                .withInitialSize(INITIAL_SIZE)
+                .withAutoCompaction(false)
+                .build();
+    }
+
+    private RequestEnvelope envelope(final String key) {
+        return RequestEnvelope.builder().withVersion(key).build();
+    }
+
+}
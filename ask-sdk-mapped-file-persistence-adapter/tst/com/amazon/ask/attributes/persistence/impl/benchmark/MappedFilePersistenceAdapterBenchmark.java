@@ -0,0 +1,145 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence.impl.benchmark;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.attributes.persistence.impl.DynamoDbPersistenceAdapter;
+import com.amazon.ask.attributes.persistence.impl.MappedFilePersistenceAdapter;
+import com.amazon.ask.attributes.persistence.impl.SyncPolicy;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark measuring read and write latency of the memory-mapped file persistence adapter under each
+ * {@link SyncPolicy}, optionally compared against the DynamoDB persistence adapter.
+ *
+ * The DynamoDB comparison needs a running DynamoDB Local and is only run when requested, for example with
+ * {@code -Djmh.args="MappedFilePersistenceAdapterBenchmark -p adapter=MAPPED_FILE_PERIODIC,DYNAMODB_LOCAL
+ * -jvmArgsAppend -Ddynamodb.local.endpoint=http://localhost:8000"}. Run with
+ * {@code mvn -pl ask-sdk-mapped-file-persistence-adapter -am -P benchmark verify -DskipTests}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedFilePersistenceAdapterBenchmark {
+
+    /**
+     * Persistence adapter under test.
+     */
+    public enum Adapter {
+        MAPPED_FILE_NEVER,
+        MAPPED_FILE_PERIODIC,
+        MAPPED_FILE_ALWAYS,
+        DYNAMODB_LOCAL
+    }
+
+    private static final int USER_COUNT = 1000;
+
+    @Param({"MAPPED_FILE_NEVER", "MAPPED_FILE_PERIODIC", "MAPPED_FILE_ALWAYS"})
+    public Adapter adapter;
+
+    private PersistenceAdapter persistenceAdapter;
+    private Path directory;
+    private RequestEnvelope[] envelopes;
+    private Map<String, Object> attributes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (adapter == Adapter.DYNAMODB_LOCAL) {
+            String endpoint = System.getProperty("dynamodb.local.endpoint", "http://localhost:8000");
+            persistenceAdapter = DynamoDbPersistenceAdapter.builder()
+                    .withTableName("ask-sdk-benchmark")
+                    .withAutoCreateTable(true)
+                    .withDynamoDbClient(AmazonDynamoDBClientBuilder.standard()
+                            .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, "us-east-1"))
+                            .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("local", "local")))
+                            .build())
+                    .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                    .build();
+        } else {
+            directory = Files.createTempDirectory("ask-sdk-benchmark");
+            persistenceAdapter = MappedFilePersistenceAdapter.builder()
+                    .withPath(directory.resolve("attributes.db"))
+                    .withSyncPolicy(SyncPolicy.valueOf(adapter.name().substring("MAPPED_FILE_".length())))
+                    .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                    .build();
+        }
+        attributes = new HashMap<>();
+        attributes.put("sessionCount", new BigDecimal(42));
+        attributes.put("lastVisit", "2019-06-01T12:00:00Z");
+        attributes.put("favoriteColor", "blue");
+        envelopes = new RequestEnvelope[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++) {
+            envelopes[i] = RequestEnvelope.builder().withVersion("user-" + i).build();
+            persistenceAdapter.saveAttributes(envelopes[i], attributes);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (persistenceAdapter instanceof Closeable) {
+            ((Closeable) persistenceAdapter).close();
+        }
+        if (directory != null) {
+            Files.deleteIfExists(directory.resolve("attributes.db"));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public Optional<Map<String, Object>> get() {
+        return persistenceAdapter.getAttributes(randomEnvelope());
+    }
+
+    @Benchmark
+    public void save() {
+        persistenceAdapter.saveAttributes(randomEnvelope(), attributes);
+    }
+
+    private RequestEnvelope randomEnvelope() {
+        return envelopes[ThreadLocalRandom.current().nextInt(USER_COUNT)];
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.netty;
+
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.servlet.verifiers.AlexaHttpRequest;
+
+/**
+ * {@link AlexaHttpRequest} read from a Netty HTTP request.
+ */
+final class NettyRequest implements AlexaHttpRequest {
+
+    /**
+     * Base64 encoded signature.
+     */
+    private final String baseEncoded64Signature;
+
+    /**
+     * Signing certificate chain URL.
+     */
+    private final String signingCertificateChainUrl;
+
+    /**
+     * Request envelope, in serialized form.
+     */
+    private final byte[] serializedRequestEnvelope;
+
+    /**
+     * Request envelope, in deserialized form.
+     */
+    private final RequestEnvelope deserializedRequestEnvelope;
+
+    /**
+     * Constructs a request from the signature headers and body of an HTTP request.
+     *
+     * @param baseEncoded64Signature Base64 encoded signature
+     * @param signingCertificateChainUrl signing certificate chain URL
+     * @param serializedRequestEnvelope request envelope, in serialized form
+     * @param deserializedRequestEnvelope request envelope, in deserialized form
+     */
+    NettyRequest(final String baseEncoded64Signature, final String signingCertificateChainUrl,
+                 final byte[] serializedRequestEnvelope, final RequestEnvelope deserializedRequestEnvelope) {
+        this.baseEncoded64Signature = baseEncoded64Signature;
+        this.signingCertificateChainUrl = signingCertificateChainUrl;
+        this.serializedRequestEnvelope = serializedRequestEnvelope;
+        this.deserializedRequestEnvelope = deserializedRequestEnvelope;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getBaseEncoded64Signature() {
+        return baseEncoded64Signature;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSigningCertificateChainUrl() {
+        return signingCertificateChainUrl;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getSerializedRequestEnvelope() {
+        return serializedRequestEnvelope;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestEnvelope getDeserializedRequestEnvelope() {
+        return deserializedRequestEnvelope;
+    }
+
+}
@@ -0,0 +1,383 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.netty;
+
+import com.amazon.ask.Skill;
+import com.amazon.ask.servlet.util.ServletUtils;
+import com.amazon.ask.servlet.verifiers.SkillRequestSignatureVerifier;
+import com.amazon.ask.servlet.verifiers.SkillRequestTimestampVerifier;
+import com.amazon.ask.servlet.verifiers.SkillServletVerifier;
+import com.amazon.ask.util.ValidationUtils;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.amazon.ask.servlet.ServletConstants.DEFAULT_TOLERANCE_MILLIS;
+
+/**
+ * Non-blocking HTTP endpoint for a skill, built on Netty, verifying and dispatching requests with the same semantics
+ * as the {@link com.amazon.ask.servlet.SkillServlet}.
+ *
+ * A few event loop threads handle all connections and HTTP parsing on pooled buffers, so the number of concurrent
+ * requests isn't bounded by a thread per request. Verification and skill execution, which may block on certificate
+ * retrieval or service calls, run on a separate bounded executor; requests arriving while it is saturated are
+ * rejected with a 503 status code.
+ */
+public final class SkillHttpServer implements Closeable {
+
+    /**
+     * Default port the server listens on.
+     */
+    private static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Default maximum size of a request body in bytes.
+     */
+    private static final int DEFAULT_MAX_CONTENT_LENGTH = 1024 * 1024;
+
+    /**
+     * Default number of threads verifying and dispatching requests.
+     */
+    private static final int DEFAULT_WORKER_THREADS = 64;
+
+    /**
+     * Default number of requests waiting for a worker thread.
+     */
+    private static final int DEFAULT_MAX_QUEUED_REQUESTS = 1024;
+
+    /**
+     * Event loops accepting connections.
+     */
+    private final EventLoopGroup bossGroup;
+
+    /**
+     * Event loops handling connections.
+     */
+    private final EventLoopGroup workerGroup;
+
+    /**
+     * Executor verifying and dispatching requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * True if the executor was created by this server and is shut down with it.
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * Channel the server listens on.
+     */
+    private final Channel channel;
+
+    /**
+     * Constructs and starts a server from the given builder.
+     *
+     * @param builder builder
+     */
+    private SkillHttpServer(final Builder builder) {
+        Skill skill = ValidationUtils.assertNotNull(builder.skill, "skill");
+        List<SkillServletVerifier> verifiers = new ArrayList<>(builder.verifiers != null
+                ? builder.verifiers : defaultVerifiers());
+        verifiers.sort(Comparator.comparingInt(SkillServletVerifier::getCost));
+        int maxContentLength = ValidationUtils.assertIsPositive(builder.maxContentLength, "max content length");
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+            this.ownsExecutor = false;
+        } else {
+            this.executor = new ThreadPoolExecutor(
+                    ValidationUtils.assertIsPositive(builder.workerThreads, "worker threads"), builder.workerThreads,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(ValidationUtils.assertIsPositive(builder.maxQueuedRequests, "max queued requests")),
+                    new DefaultThreadFactory("ask-sdk-skill-worker", true));
+            this.ownsExecutor = true;
+        }
+
+        SkillRequestHandler handler = new SkillRequestHandler(skill, verifiers, executor);
+        this.bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("ask-sdk-http-boss", true));
+        this.workerGroup = new NioEventLoopGroup(builder.eventLoopThreads,
+                new DefaultThreadFactory("ask-sdk-http-event-loop", true));
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline()
+                                .addLast(new HttpServerCodec())
+                                .addLast(new HttpServerExpectContinueHandler())
+                                .addLast(new HttpObjectAggregator(maxContentLength))
+                                .addLast(handler);
+                    }
+                });
+        InetSocketAddress address = builder.host != null
+                ? new InetSocketAddress(builder.host, builder.port) : new InetSocketAddress(builder.port);
+        try {
+            this.channel = bootstrap.bind(address).syncUninterruptibly().channel();
+        } catch (RuntimeException ex) {
+            shutdown();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns a new builder instance used to construct and start a {@link SkillHttpServer}.
+     *
+     * @return builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the port the server listens on, for example when started on an ephemeral port.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    /**
+     * Stops listening, waits for the event loops to terminate and shuts down the executor if it was created by this
+     * server.
+     */
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        shutdown();
+    }
+
+    /**
+     * Shuts down the event loops and the executor if it was created by this server.
+     */
+    private void shutdown() {
+        bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Builds the verifiers the {@link com.amazon.ask.servlet.SkillServlet} uses by default, honoring the same
+     * system properties.
+     *
+     * @return default verifiers
+     */
+    private static List<SkillServletVerifier> defaultVerifiers() {
+        List<SkillServletVerifier> defaultVerifiers = new ArrayList<>();
+        if (!ServletUtils.isRequestSignatureCheckSystemPropertyDisabled()) {
+            defaultVerifiers.add(new SkillRequestSignatureVerifier());
+        }
+        Long timestampToleranceProperty = ServletUtils.getTimeStampToleranceSystemProperty();
+        defaultVerifiers.add(new SkillRequestTimestampVerifier(timestampToleranceProperty != null
+                ? timestampToleranceProperty : DEFAULT_TOLERANCE_MILLIS));
+        return defaultVerifiers;
+    }
+
+    /**
+     * Builder used to construct and start a {@link SkillHttpServer}.
+     */
+    public static final class Builder {
+
+        /**
+         * Skill requests are dispatched to.
+         */
+        private Skill skill;
+
+        /**
+         * Host name or address to listen on, or null to listen on all interfaces.
+         */
+        private String host;
+
+        /**
+         * Port to listen on.
+         */
+        private int port = DEFAULT_PORT;
+
+        /**
+         * Verifiers, or null to use the default verifiers.
+         */
+        private List<SkillServletVerifier> verifiers;
+
+        /**
+         * Maximum size of a request body in bytes.
+         */
+        private int maxContentLength = DEFAULT_MAX_CONTENT_LENGTH;
+
+        /**
+         * Number of event loop threads, or 0 for Netty's default of twice the number of processors.
+         */
+        private int eventLoopThreads;
+
+        /**
+         * Executor verifying and dispatching requests.
+         */
+        private ExecutorService executor;
+
+        /**
+         * Number of threads verifying and dispatching requests.
+         */
+        private int workerThreads = DEFAULT_WORKER_THREADS;
+
+        /**
+         * Number of requests waiting for a worker thread.
+         */
+        private int maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Skill requests are dispatched to.
+         *
+         * @param skill skill
+         * @return builder
+         */
+        public Builder withSkill(final Skill skill) {
+            this.skill = skill;
+            return this;
+        }
+
+        /**
+         * Optional host name or address to listen on. If not provided, the server listens on all interfaces.
+         *
+         * @param host host name or address
+         * @return builder
+         */
+        public Builder withHost(final String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Optional port to listen on, 0 for an ephemeral port. Defaults to 8080.
+         *
+         * @param port port
+         * @return builder
+         */
+        public Builder withPort(final int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Optional verifiers run against incoming requests, ordered by ascending cost. If not provided, the
+         * request signature and timestamp are verified like the {@link com.amazon.ask.servlet.SkillServlet} does.
+         *
+         * @param verifiers verifiers
+         * @return builder
+         */
+        public Builder withVerifiers(final List<SkillServletVerifier> verifiers) {
+            this.verifiers = verifiers;
+            return this;
+        }
+
+        /**
+         * Optional maximum size of a request body in bytes. Larger requests are rejected with a 413 status code.
+         * Defaults to 1 MB.
+         *
+         * @param maxContentLength maximum size of a request body
+         * @return builder
+         */
+        public Builder withMaxContentLength(final int maxContentLength) {
+            this.maxContentLength = maxContentLength;
+            return this;
+        }
+
+        /**
+         * Optional number of event loop threads handling connections. Defaults to twice the number of processors.
+         *
+         * @param eventLoopThreads number of event loop threads
+         * @return builder
+         */
+        public Builder withEventLoopThreads(final int eventLoopThreads) {
+            this.eventLoopThreads = eventLoopThreads;
+            return this;
+        }
+
+        /**
+         * Optional executor verifying and dispatching requests, left running when the server is closed. If not
+         * provided, a bounded pool of worker threads is created.
+         *
+         * @param executor executor
+         * @return builder
+         */
+        public Builder withExecutor(final ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Optional number of worker threads verifying and dispatching requests, if no executor is provided.
+         * Defaults to 64.
+         *
+         * @param workerThreads number of worker threads
+         * @return builder
+         */
+        public Builder withWorkerThreads(final int workerThreads) {
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        /**
+         * Optional number of requests waiting for a worker thread, if no executor is provided. Further requests are
+         * rejected with a 503 status code. Defaults to 1024.
+         *
+         * @param maxQueuedRequests number of queued requests
+         * @return builder
+         */
+        public Builder withMaxQueuedRequests(final int maxQueuedRequests) {
+            this.maxQueuedRequests = maxQueuedRequests;
+            return this;
+        }
+
+        /**
+         * Builds and starts the server.
+         *
+         * @return started server
+         */
+        public SkillHttpServer build() {
+            return new SkillHttpServer(this);
+        }
+    }
+
+}
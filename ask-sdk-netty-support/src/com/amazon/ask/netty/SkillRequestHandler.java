@@ -0,0 +1,232 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.netty;
+
+import com.amazon.ask.Skill;
+import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.services.Serializer;
+import com.amazon.ask.request.impl.BaseSkillRequest;
+import com.amazon.ask.response.SkillResponse;
+import com.amazon.ask.servlet.ServletConstants;
+import com.amazon.ask.servlet.verifiers.AlexaHttpRequest;
+import com.amazon.ask.servlet.verifiers.SkillServletVerifier;
+import com.amazon.ask.util.JacksonSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Netty handler verifying skill requests and dispatching them to a skill, with the same semantics as the
+ * {@link com.amazon.ask.servlet.SkillServlet}.
+ *
+ * The request body, aggregated from pooled buffers, is read once into the byte array the SDK works on. Verification
+ * and skill execution, which may block, run on the given executor instead of the event loop. The response is
+ * serialized straight into a pooled direct buffer handed to the channel without further copies.
+ */
+@ChannelHandler.Sharable
+final class SkillRequestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    /**
+     * Logger mechanism to log data for debugging purposes.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkillRequestHandler.class);
+
+    /**
+     * Content type of skill responses.
+     */
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    /**
+     * Skill requests are dispatched to.
+     */
+    private final Skill skill;
+
+    /**
+     * Verifiers, ordered by ascending cost.
+     */
+    private final List<SkillServletVerifier> verifiers;
+
+    /**
+     * Executor verifying and dispatching requests.
+     */
+    private final Executor executor;
+
+    /**
+     * Instance of type {@link Serializer} initialized with reference to {@link JacksonSerializer}.
+     */
+    private final Serializer serializer = new JacksonSerializer();
+
+    /**
+     * Constructs a handler dispatching requests to the given skill.
+     *
+     * @param skill skill requests are dispatched to
+     * @param verifiers verifiers, ordered by ascending cost
+     * @param executor executor verifying and dispatching requests
+     */
+    SkillRequestHandler(final Skill skill, final List<SkillServletVerifier> verifiers,
+                        final Executor executor) {
+        this.skill = skill;
+        this.verifiers = verifiers;
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void channelRead0(final ChannelHandlerContext ctx, final FullHttpRequest request) {
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        if (!HttpMethod.POST.equals(request.method())) {
+            sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED, "Only POST requests are supported", keepAlive);
+            return;
+        }
+        HttpHeaders headers = request.headers();
+        String signature = headers.get(ServletConstants.SIGNATURE_REQUEST_HEADER);
+        String signingCertificateChainUrl = headers.get(ServletConstants.SIGNATURE_CERTIFICATE_CHAIN_URL_REQUEST_HEADER);
+        // the only copy of the body: the SDK deserializes, verifies and dispatches byte arrays
+        byte[] serializedRequestEnvelope = ByteBufUtil.getBytes(request.content());
+        try {
+            executor.execute(() -> handle(ctx, signature, signingCertificateChainUrl, serializedRequestEnvelope, keepAlive));
+        } catch (RejectedExecutionException ex) {
+            LOGGER.warn("Rejected skill request, executor is saturated", ex);
+            sendError(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE, "Skill request rejected", keepAlive);
+        }
+    }
+
+    /**
+     * Verifies a request, dispatches it to the skill and writes the response.
+     *
+     * @param ctx channel handler context
+     * @param signature Base64 encoded signature
+     * @param signingCertificateChainUrl signing certificate chain URL
+     * @param serializedRequestEnvelope request envelope, in serialized form
+     * @param keepAlive true if the connection is kept alive after the response
+     */
+    private void handle(final ChannelHandlerContext ctx, final String signature, final String signingCertificateChainUrl,
+                        final byte[] serializedRequestEnvelope, final boolean keepAlive) {
+        ByteBuf content = null;
+        try {
+            RequestEnvelope deserializedRequestEnvelope = serializer.deserialize(
+                    new String(serializedRequestEnvelope, StandardCharsets.UTF_8), RequestEnvelope.class);
+            AlexaHttpRequest alexaHttpRequest = new NettyRequest(signature, signingCertificateChainUrl,
+                    serializedRequestEnvelope, deserializedRequestEnvelope);
+
+            // Verify the authenticity of the request by executing configured verifiers, cheapest first.
+            for (SkillServletVerifier verifier : verifiers) {
+                verifier.verify(alexaHttpRequest);
+            }
+
+            SkillResponse<?> skillResponse = skill.execute(new BaseSkillRequest(serializedRequestEnvelope));
+            if (skillResponse == null) {
+                throw new AskSdkException("Unable to find a suitable request handler");
+            }
+            content = ctx.alloc().directBuffer();
+            if (skillResponse.isPresent()) {
+                try (OutputStream out = new ByteBufOutputStream(content)) {
+                    skillResponse.writeTo(out);
+                }
+            }
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content);
+            content = null;
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, JSON_CONTENT_TYPE);
+            send(ctx, response, keepAlive);
+        } catch (SecurityException ex) {
+            int statusCode = HttpResponseStatus.BAD_REQUEST.code();
+            LOGGER.error("Incoming request failed verification {}", statusCode, ex);
+            sendError(ctx, HttpResponseStatus.BAD_REQUEST, ex.getMessage(), keepAlive);
+        } catch (AskSdkException | IOException ex) {
+            int statusCode = HttpResponseStatus.INTERNAL_SERVER_ERROR.code();
+            LOGGER.error("Exception occurred handling skill request, returning status code {}", statusCode, ex);
+            sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, ex.getMessage(), keepAlive);
+        } catch (RuntimeException ex) {
+            int statusCode = HttpResponseStatus.INTERNAL_SERVER_ERROR.code();
+            LOGGER.error("Unexpected exception handling skill request, returning status code {}", statusCode, ex);
+            sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, "Unable to handle skill request", keepAlive);
+        } finally {
+            if (content != null) {
+                content.release();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+        LOGGER.error("Closing channel after exception", cause);
+        ctx.close();
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param ctx channel handler context
+     * @param status response status
+     * @param message error message
+     * @param keepAlive true if the connection is kept alive after the response
+     */
+    private static void sendError(final ChannelHandlerContext ctx, final HttpResponseStatus status,
+                                  final String message, final boolean keepAlive) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                Unpooled.copiedBuffer(message != null ? message : status.reasonPhrase(), CharsetUtil.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+        send(ctx, response, keepAlive);
+    }
+
+    /**
+     * Sends a response, closing the connection afterwards unless it is kept alive.
+     *
+     * @param ctx channel handler context
+     * @param response response to send
+     * @param keepAlive true if the connection is kept alive after the response
+     */
+    private static void send(final ChannelHandlerContext ctx, final FullHttpResponse response, final boolean keepAlive) {
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        if (keepAlive) {
+            HttpUtil.setKeepAlive(response, true);
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.netty;
+
+import com.amazon.ask.Skill;
+import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.model.Application;
+import com.amazon.ask.model.LaunchRequest;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.model.Response;
+import com.amazon.ask.model.ResponseEnvelope;
+import com.amazon.ask.model.Session;
+import com.amazon.ask.model.User;
+import com.amazon.ask.response.impl.BaseSkillResponse;
+import com.amazon.ask.servlet.ServletConstants;
+import com.amazon.ask.servlet.verifiers.AlexaHttpRequest;
+import com.amazon.ask.servlet.verifiers.SkillServletVerifier;
+import com.amazon.ask.util.JacksonSerializer;
+import com.amazon.ask.util.impl.JacksonJsonMarshaller;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SkillHttpServerTest {
+
+    private Skill skill;
+    private SkillHttpServer server;
+
+    @Before
+    public void setUp() {
+        skill = mock(Skill.class);
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void skill_must_be_set() {
+        SkillHttpServer.builder().withPort(0).build();
+    }
+
+    @Test
+    public void verified_request_dispatched_to_skill() throws Exception {
+        when(skill.execute(any())).thenReturn(new BaseSkillResponse<>(new JacksonJsonMarshaller<>(),
+                ResponseEnvelope.builder().withVersion("1.0").withResponse(Response.builder().build()).build()));
+        List<AlexaHttpRequest> verified = Collections.synchronizedList(new ArrayList<>());
+        start(Collections.singletonList(verified::add));
+
+        HttpURLConnection connection = post(buildEnvelope(), "signature", "https://s3.amazonaws.com/echo.api/cert");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("application/json", connection.getContentType());
+        assertTrue(read(connection.getInputStream()).contains("\"version\":\"1.0\""));
+        assertEquals(1, verified.size());
+        AlexaHttpRequest request = verified.get(0);
+        assertEquals("signature", request.getBaseEncoded64Signature());
+        assertEquals("https://s3.amazonaws.com/echo.api/cert", request.getSigningCertificateChainUrl());
+        assertEquals("rId", request.getDeserializedRequestEnvelope().getRequest().getRequestId());
+        assertEquals(buildEnvelope(), new String(request.getSerializedRequestEnvelope(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void failed_verification_returns_bad_request() throws Exception {
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        SkillServletVerifier expensive = new SkillServletVerifier() {
+            @Override
+            public void verify(final AlexaHttpRequest request) {
+                calls.add("expensive");
+            }
+
+            @Override
+            public int getCost() {
+                return ServletConstants.EXPENSIVE_VERIFIER_COST;
+            }
+        };
+        SkillServletVerifier failing = request -> {
+            calls.add("cheap");
+            throw new SecurityException("Request timestamp is out of range");
+        };
+        start(Arrays.asList(expensive, failing));
+
+        HttpURLConnection connection = post(buildEnvelope(), null, null);
+
+        assertEquals(400, connection.getResponseCode());
+        assertEquals(Collections.singletonList("cheap"), calls);
+        verify(skill, never()).execute(any());
+    }
+
+    @Test
+    public void missing_skill_response_returns_internal_server_error() throws Exception {
+        when(skill.execute(any())).thenReturn(null);
+        start(Collections.emptyList());
+
+        assertEquals(500, post(buildEnvelope(), null, null).getResponseCode());
+    }
+
+    @Test
+    public void skill_exception_returns_internal_server_error() throws Exception {
+        when(skill.execute(any())).thenThrow(new AskSdkException("foo"));
+        start(Collections.emptyList());
+
+        assertEquals(500, post(buildEnvelope(), null, null).getResponseCode());
+    }
+
+    @Test
+    public void non_post_request_rejected() throws Exception {
+        start(Collections.emptyList());
+
+        HttpURLConnection connection = (HttpURLConnection) url().openConnection();
+        assertEquals(405, connection.getResponseCode());
+    }
+
+    @Test
+    public void oversized_request_rejected() throws Exception {
+        server = SkillHttpServer.builder()
+                .withSkill(skill)
+                .withPort(0)
+                .withHost("127.0.0.1")
+                .withVerifiers(Collections.emptyList())
+                .withMaxContentLength(16)
+                .build();
+
+        assertEquals(413, post(buildEnvelope(), null, null).getResponseCode());
+        verify(skill, never()).execute(any());
+    }
+
+    @Test
+    public void saturated_executor_returns_service_unavailable() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        server = SkillHttpServer.builder()
+                .withSkill(skill)
+                .withPort(0)
+                .withHost("127.0.0.1")
+                .withVerifiers(Collections.emptyList())
+                .withExecutor(executor)
+                .build();
+
+        assertEquals(503, post(buildEnvelope(), null, null).getResponseCode());
+    }
+
+    private void start(final List<SkillServletVerifier> verifiers) {
+        server = SkillHttpServer.builder()
+                .withSkill(skill)
+                .withPort(0)
+                .withHost("127.0.0.1")
+                .withVerifiers(verifiers)
+                .build();
+    }
+
+    private URL url() throws IOException {
+        return new URL("http://127.0.0.1:" + server.getPort() + "/");
+    }
+
+    private HttpURLConnection post(final String body, final String signature, final String certificateChainUrl)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url().openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        if (signature != null) {
+            connection.setRequestProperty(ServletConstants.SIGNATURE_REQUEST_HEADER, signature);
+        }
+        if (certificateChainUrl != null) {
+            connection.setRequestProperty(ServletConstants.SIGNATURE_CERTIFICATE_CHAIN_URL_REQUEST_HEADER, certificateChainUrl);
+        }
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String buildEnvelope() {
+        return new JacksonSerializer().serialize(RequestEnvelope.builder()
+                .withVersion("1.0")
+                .withSession(Session.builder()
+                        .withSessionId("sId")
+                        .withApplication(Application.builder().withApplicationId("applicationId").build())
+                        .withUser(User.builder().withUserId("UserId").build())
+                        .build())
+                .withRequest(LaunchRequest.builder()
+                        .withRequestId("rId")
+                        .withLocale("en-US")
+                        .withTimestamp(OffsetDateTime.parse("2019-01-01T00:00:00Z"))
+                        .build())
+                .build());
+    }
+
+}
@@ -0,0 +1,411 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.attributes.persistence.PersistenceAdapter;
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.util.ValidationUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.Pool;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Persistence adapter for storing skill persistence attributes in Redis, or any server speaking the Redis protocol.
+ *
+ * Attributes of each partition key are stored as a single binary string value encoded with an {@link AttributesCodec},
+ * under the partition key prefixed with a configurable key prefix. Connections are borrowed from a pool, and batch
+ * operations are pipelined over a single connection. An optional time to live makes saved attributes expire, which
+ * suits attributes scoped to a session or a short conversation.
+ *
+ * The adapter can be registered with {@link com.amazon.ask.builder.SkillBuilder#withPersistenceAdapter}, or by an
+ * {@link com.amazon.ask.module.SdkModule} through {@link com.amazon.ask.module.SdkModuleContext#setPersistenceAdapter}.
+ */
+public final class RedisPersistenceAdapter implements PersistenceAdapter, Closeable {
+
+    /**
+     * Default URI of the Redis server.
+     */
+    private static final URI DEFAULT_REDIS_URI = URI.create("redis://localhost:6379");
+
+    /**
+     * Default maximum number of pooled connections.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 32;
+
+    /**
+     * Default prefix of stored keys.
+     */
+    private static final String DEFAULT_KEY_PREFIX = "ask:attributes:";
+
+    /**
+     * Default partition key generator.
+     */
+    private static final Function<RequestEnvelope, String> DEFAULT_PARTITION_KEY_GENERATOR = PartitionKeyGenerators.userId();
+
+    /**
+     * Pool of connections to the Redis server.
+     */
+    private final Pool<Jedis> jedisPool;
+
+    /**
+     * True if the pool was created by this adapter and is closed with it.
+     */
+    private final boolean ownsPool;
+
+    /**
+     * Prefix of stored keys.
+     */
+    private final String keyPrefix;
+
+    /**
+     * Partition key generator.
+     */
+    private final Function<RequestEnvelope, String> partitionKeyGenerator;
+
+    /**
+     * Codec encoding attributes into stored values.
+     */
+    private final AttributesCodec attributesCodec;
+
+    /**
+     * Time in milliseconds after which saved attributes expire, or 0 if they don't expire.
+     */
+    private final long timeToLiveMillis;
+
+    /**
+     * Private constructor to build an instance of {@link RedisPersistenceAdapter}.
+     * @param builder instance of {@link Builder}.
+     */
+    private RedisPersistenceAdapter(final Builder builder) {
+        if (builder.jedisPool != null) {
+            this.jedisPool = builder.jedisPool;
+            this.ownsPool = false;
+        } else {
+            JedisPoolConfig poolConfig = new JedisPoolConfig();
+            poolConfig.setMaxTotal(ValidationUtils.assertIsPositive(builder.maxConnections, "max connections"));
+            poolConfig.setMaxIdle(builder.maxConnections);
+            this.jedisPool = new JedisPool(poolConfig, ValidationUtils.assertNotNull(builder.redisUri, "redis uri"));
+            this.ownsPool = true;
+        }
+        this.keyPrefix = ValidationUtils.assertNotNull(builder.keyPrefix, "key prefix");
+        this.partitionKeyGenerator = builder.partitionKeyGenerator;
+        this.attributesCodec = ValidationUtils.assertNotNull(builder.attributesCodec, "attributes codec");
+        if (builder.timeToLiveMillis < 0) {
+            throw new IllegalArgumentException("time to live cannot be negative");
+        }
+        this.timeToLiveMillis = builder.timeToLiveMillis;
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get attributes from Redis.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if the Redis request fails or attributes cannot be decoded.
+     * @return {@link Map} of String, Object if attributes exist, or an empty {@link Optional} if not.
+     */
+    @Override
+    public Optional<Map<String, Object>> getAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        byte[] key = key(envelope);
+        byte[] value;
+        try (Jedis jedis = jedisPool.getResource()) {
+            value = jedis.get(key);
+        } catch (JedisException e) {
+            throw new PersistenceException("Failed to retrieve attributes from Redis", e);
+        }
+        return value != null ? Optional.of(attributesCodec.decode(value)) : Optional.empty();
+    }
+
+    /**
+     * Get attributes for several requests from Redis, pipelining all reads over a single connection.
+     * @param envelopes request envelopes to retrieve attributes for.
+     * @throws PersistenceException if the Redis requests fail or attributes cannot be decoded.
+     * @return list containing an {@link Optional} with existing attributes, or empty if none exist, for each request
+     *         envelope in the iteration order of the given collection.
+     */
+    @Override
+    public List<Optional<Map<String, Object>>> batchGetAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        List<Response<byte[]>> responses = new ArrayList<>(envelopes.size());
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (RequestEnvelope envelope : envelopes) {
+                responses.add(pipeline.get(key(envelope)));
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            throw new PersistenceException("Failed to retrieve attributes from Redis", e);
+        }
+        List<Optional<Map<String, Object>>> attributes = new ArrayList<>(responses.size());
+        for (Response<byte[]> response : responses) {
+            byte[] value = response.get();
+            attributes.add(value != null ? Optional.of(attributesCodec.decode(value)) : Optional.empty());
+        }
+        return attributes;
+    }
+
+    /**
+     * Save attributes to Redis, resetting their time to live if one is configured.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @param attributes to be stored in Redis.
+     * @throws PersistenceException if attributes cannot be encoded or the Redis request fails.
+     */
+    @Override
+    public void saveAttributes(final RequestEnvelope envelope, final Map<String, Object> attributes) throws PersistenceException {
+        byte[] key = key(envelope);
+        byte[] value = attributesCodec.encode(attributes);
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (timeToLiveMillis > 0) {
+                jedis.set(key, value, SetParams.setParams().px(timeToLiveMillis));
+            } else {
+                jedis.set(key, value);
+            }
+        } catch (JedisException e) {
+            throw new PersistenceException("Failed to save attributes to Redis", e);
+        }
+    }
+
+    /**
+     * Save attributes for several requests to Redis, pipelining all writes over a single connection.
+     * @param attributesByEnvelope attributes to be stored in Redis, by request envelope.
+     * @throws PersistenceException if attributes cannot be encoded or the Redis requests fail.
+     */
+    public void batchSaveAttributes(final Map<RequestEnvelope, Map<String, Object>> attributesByEnvelope) throws PersistenceException {
+        List<byte[][]> entries = new ArrayList<>(attributesByEnvelope.size());
+        for (Map.Entry<RequestEnvelope, Map<String, Object>> entry : attributesByEnvelope.entrySet()) {
+            entries.add(new byte[][] {key(entry.getKey()), attributesCodec.encode(entry.getValue())});
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (byte[][] entry : entries) {
+                if (timeToLiveMillis > 0) {
+                    pipeline.set(entry[0], entry[1], SetParams.setParams().px(timeToLiveMillis));
+                } else {
+                    pipeline.set(entry[0], entry[1]);
+                }
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            throw new PersistenceException("Failed to save attributes to Redis", e);
+        }
+    }
+
+    /**
+     * Delete attributes from Redis.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @throws PersistenceException if the Redis request fails.
+     */
+    @Override
+    public void deleteAttributes(final RequestEnvelope envelope) throws PersistenceException {
+        byte[] key = key(envelope);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(key);
+        } catch (JedisException e) {
+            throw new PersistenceException("Failed to delete attributes from Redis", e);
+        }
+    }
+
+    /**
+     * Delete attributes for several requests from Redis, pipelining all deletes over a single connection. Each key
+     * is deleted with its own command so keys may live on different Redis Cluster slots.
+     * @param envelopes request envelopes to delete attributes for.
+     * @throws PersistenceException if the Redis requests fail.
+     */
+    @Override
+    public void batchDeleteAttributes(final Collection<RequestEnvelope> envelopes) throws PersistenceException {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (RequestEnvelope envelope : envelopes) {
+                pipeline.del(key(envelope));
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            throw new PersistenceException("Failed to delete attributes from Redis", e);
+        }
+    }
+
+    /**
+     * Closes the connection pool if it was created by this adapter. A pool passed to the builder is left open.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Derives the stored key of a request.
+     * @param envelope instance of {@link RequestEnvelope}.
+     * @return stored key.
+     */
+    private byte[] key(final RequestEnvelope envelope) {
+        return (keyPrefix + partitionKeyGenerator.apply(envelope)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Static builder class to build an instance of {@link RedisPersistenceAdapter}.
+     */
+    public static final class Builder {
+
+        /**
+         * Pool of connections to the Redis server.
+         */
+        private Pool<Jedis> jedisPool;
+
+        /**
+         * URI of the Redis server.
+         */
+        private URI redisUri = DEFAULT_REDIS_URI;
+
+        /**
+         * Maximum number of pooled connections.
+         */
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+        /**
+         * Prefix of stored keys.
+         */
+        private String keyPrefix = DEFAULT_KEY_PREFIX;
+
+        /**
+         * Partition key generator.
+         */
+        private Function<RequestEnvelope, String> partitionKeyGenerator = DEFAULT_PARTITION_KEY_GENERATOR;
+
+        /**
+         * Codec encoding attributes into stored values.
+         */
+        private AttributesCodec attributesCodec = AttributesCodecs.compressed(AttributesCodecs.cbor());
+
+        /**
+         * Time in milliseconds after which saved attributes expire, or 0 if they don't expire.
+         */
+        private long timeToLiveMillis;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Optional pool of connections to the Redis server, for example a {@link JedisPool} with custom
+         * configuration or a {@link redis.clients.jedis.JedisSentinelPool}. If not provided, a pool of connections
+         * to the server at the configured URI is created.
+         * @param jedisPool pool of connections
+         * @return builder
+         */
+        public Builder withJedisPool(final Pool<Jedis> jedisPool) {
+            this.jedisPool = jedisPool;
+            return this;
+        }
+
+        /**
+         * Optional URI of the Redis server, such as {@code redis://:password@host:6379/0}, or {@code rediss://}
+         * for TLS. Ignored when a pool is provided. If not provided, redis://localhost:6379 is used.
+         * @param redisUri URI of the Redis server
+         * @return builder
+         */
+        public Builder withRedisUri(final URI redisUri) {
+            this.redisUri = redisUri;
+            return this;
+        }
+
+        /**
+         * Optional maximum number of pooled connections. Ignored when a pool is provided. If not provided, 32
+         * connections are used.
+         * @param maxConnections maximum number of pooled connections
+         * @return builder
+         */
+        public Builder withMaxConnections(final int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Optional prefix of stored keys, separating attributes from other data on the same server. If not
+         * provided, ask:attributes: is used.
+         * @param keyPrefix prefix of stored keys
+         * @return builder
+         */
+        public Builder withKeyPrefix(final String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+            return this;
+        }
+
+        /**
+         * Optional partition key generator function used to derive partition key value from one or more
+         * attributes of a {@link RequestEnvelope}. By default, {@link PartitionKeyGenerators#userId()} is used.
+         * @param partitionKeyGenerator partition key generator function
+         * @return builder
+         */
+        public Builder withPartitionKeyGenerator(final Function<RequestEnvelope, String> partitionKeyGenerator) {
+            this.partitionKeyGenerator = partitionKeyGenerator;
+            return this;
+        }
+
+        /**
+         * Optional codec encoding attributes into stored values. By default attributes are encoded as CBOR,
+         * compressed once large, see {@link AttributesCodecs}.
+         * @param attributesCodec attributes codec
+         * @return builder
+         */
+        public Builder withAttributesCodec(final AttributesCodec attributesCodec) {
+            this.attributesCodec = attributesCodec;
+            return this;
+        }
+
+        /**
+         * Optional time in milliseconds after which saved attributes expire. Every save resets the expiry. If not
+         * provided, attributes don't expire.
+         * @param timeToLiveMillis time to live in milliseconds, 0 for no expiry
+         * @return builder
+         */
+        public Builder withTimeToLive(final long timeToLiveMillis) {
+            this.timeToLiveMillis = timeToLiveMillis;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of RedisPersistenceAdapter.
+         * @return {@link RedisPersistenceAdapter}.
+         */
+        public RedisPersistenceAdapter build() {
+            return new RedisPersistenceAdapter(this);
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process stand-in for a Redis server, speaking the subset of the protocol used by the adapter.
+ * It also records how many commands arrived in a single read, to observe pipelining.
+ */
+class EmbeddedRedisServer implements Closeable {
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final List<Socket> clients = new ArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger maxCommandsPerRead = new AtomicInteger();
+
+    EmbeddedRedisServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "embedded-redis");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    URI uri() {
+        return URI.create("redis://localhost:" + serverSocket.getLocalPort());
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    int maxCommandsPerRead() {
+        return maxCommandsPerRead.get();
+    }
+
+    byte[] get(final String key) {
+        Entry entry = live(key);
+        return entry != null ? entry.value : null;
+    }
+
+    long pttl(final String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return -2;
+        }
+        return entry.expiresAt == NO_EXPIRY ? -1 : entry.expiresAt - System.currentTimeMillis();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                synchronized (clients) {
+                    clients.add(client);
+                }
+                connections.incrementAndGet();
+                Thread handler = new Thread(() -> serve(client), "embedded-redis-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(final Socket client) {
+        try (Socket socket = client) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                int commands = 1;
+                execute(command, out);
+                while (in.available() > 0) {
+                    execute(readCommand(in), out);
+                    commands++;
+                }
+                maxCommandsPerRead.accumulateAndGet(commands, Math::max);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client disconnected
+        }
+    }
+
+    private void execute(final List<byte[]> command, final OutputStream out) throws IOException {
+        String name = string(command.get(0)).toUpperCase();
+        switch (name) {
+            case "PING":
+                simple(out, "PONG");
+                break;
+            case "GET":
+                bulk(out, get(string(command.get(1))));
+                break;
+            case "SET":
+                long expiresAt = NO_EXPIRY;
+                for (int i = 3; i < command.size(); i += 2) {
+                    String option = string(command.get(i)).toUpperCase();
+                    long amount = Long.parseLong(string(command.get(i + 1)));
+                    expiresAt = System.currentTimeMillis() + (option.equals("EX") ? amount * 1000 : amount);
+                }
+                data.put(string(command.get(1)), new Entry(command.get(2), expiresAt));
+                simple(out, "OK");
+                break;
+            case "DEL":
+                int deleted = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (live(string(command.get(i))) != null) {
+                        deleted++;
+                    }
+                    data.remove(string(command.get(i)));
+                }
+                integer(out, deleted);
+                break;
+            default:
+                out.write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Entry live(final String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private static List<byte[]> readCommand(final InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header.charAt(0) != '*') {
+            throw new IOException("Unsupported request " + header);
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] argument = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = in.read(argument, read, length - read);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            readLine(in);
+            arguments.add(argument);
+        }
+        return arguments;
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            line.write(b);
+        }
+        in.read();
+        return string(line.toByteArray());
+    }
+
+    private static void simple(final OutputStream out, final String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void integer(final OutputStream out, final long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bulk(final OutputStream out, final byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(final byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Entry(final byte[] value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.attributes.persistence.impl;
+
+import com.amazon.ask.exception.PersistenceException;
+import com.amazon.ask.model.RequestEnvelope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RedisPersistenceAdapterTest {
+
+    private EmbeddedRedisServer server;
+    private RedisPersistenceAdapter adapter;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        adapter = RedisPersistenceAdapter.builder()
+                .withRedisUri(server.uri())
+                .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        adapter.close();
+        server.close();
+    }
+
+    @Test
+    public void save_and_get_attributes() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("Foo", "Bar");
+        attributes.put("Count", new BigDecimal(3));
+        attributes.put("List", Arrays.asList("a", "b"));
+
+        adapter.saveAttributes(envelope("1"), attributes);
+
+        assertEquals(Optional.of(attributes), adapter.getAttributes(envelope("1")));
+        assertFalse(adapter.getAttributes(envelope("2")).isPresent());
+    }
+
+    @Test
+    public void attributes_stored_under_prefixed_key_with_codec() {
+        adapter.close();
+        adapter = RedisPersistenceAdapter.builder()
+                .withRedisUri(server.uri())
+                .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                .withKeyPrefix("skill:")
+                .withAttributesCodec(AttributesCodecs.cbor())
+                .build();
+
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+
+        assertArrayEquals(AttributesCodecs.cbor().encode(Collections.singletonMap("Foo", "Bar")), server.get("skill:1"));
+        assertEquals(-1, server.pttl("skill:1"));
+    }
+
+    @Test
+    public void saved_attributes_expire_after_time_to_live() throws Exception {
+        adapter.close();
+        adapter = RedisPersistenceAdapter.builder()
+                .withRedisUri(server.uri())
+                .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                .withTimeToLive(100)
+                .build();
+
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+
+        long ttl = server.pttl("ask:attributes:1");
+        assertTrue(ttl > 0 && ttl <= 100);
+        Thread.sleep(150);
+        assertFalse(adapter.getAttributes(envelope("1")).isPresent());
+    }
+
+    @Test
+    public void delete_attributes() {
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+
+        adapter.deleteAttributes(envelope("1"));
+        adapter.deleteAttributes(envelope("2"));
+
+        assertNull(server.get("ask:attributes:1"));
+    }
+
+    @Test
+    public void batch_operations_pipelined_over_single_connection() {
+        Map<RequestEnvelope, Map<String, Object>> attributesByEnvelope = new LinkedHashMap<>();
+        List<RequestEnvelope> envelopes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            envelopes.add(envelope(String.valueOf(i)));
+            if (i % 2 == 0) {
+                attributesByEnvelope.put(envelopes.get(i), Collections.singletonMap("Index", new BigDecimal(i)));
+            }
+        }
+
+        adapter.batchSaveAttributes(attributesByEnvelope);
+        List<Optional<Map<String, Object>>> attributes = adapter.batchGetAttributes(envelopes);
+
+        assertEquals(10, attributes.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 0, attributes.get(i).isPresent());
+        }
+        assertEquals(Collections.singletonMap("Index", new BigDecimal(4)), attributes.get(4).get());
+        assertEquals(1, server.connections());
+        assertTrue(server.maxCommandsPerRead() > 1);
+
+        adapter.batchDeleteAttributes(envelopes);
+
+        assertTrue(adapter.batchGetAttributes(envelopes).stream().noneMatch(Optional::isPresent));
+    }
+
+    @Test
+    public void provided_pool_not_closed_with_adapter() {
+        JedisPool pool = new JedisPool(server.uri());
+        try {
+            RedisPersistenceAdapter sharedPoolAdapter = RedisPersistenceAdapter.builder()
+                    .withJedisPool(pool)
+                    .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                    .build();
+            sharedPoolAdapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+            sharedPoolAdapter.close();
+
+            assertFalse(pool.isClosed());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void connection_failure_wrapped_in_persistence_exception() throws Exception {
+        URI uri = server.uri();
+        server.close();
+        adapter.close();
+        adapter = RedisPersistenceAdapter.builder().withRedisUri(uri).build();
+        adapter.deleteAttributes(envelope("1"));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void undecodable_value_throws_persistence_exception() {
+        adapter.close();
+        adapter = RedisPersistenceAdapter.builder()
+                .withRedisUri(server.uri())
+                .withPartitionKeyGenerator(RequestEnvelope::getVersion)
+                .withAttributesCodec(new AttributesCodec() {
+                    @Override
+                    public byte[] encode(final Map<String, Object> attributes) {
+                        return new byte[] {(byte) 0xff, 0x00};
+                    }
+
+                    @Override
+                    public Map<String, Object> decode(final byte[] encoded) {
+                        return AttributesCodecs.cbor().decode(encoded);
+                    }
+                })
+                .build();
+        adapter.saveAttributes(envelope("1"), Collections.singletonMap("Foo", "Bar"));
+        adapter.getAttributes(envelope("1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negative_time_to_live_rejected() {
+        RedisPersistenceAdapter.builder().withRedisUri(server.uri()).withTimeToLive(-1).build();
+    }
+
+    private RequestEnvelope envelope(final String key) {
+        return RequestEnvelope.builder().withVersion(key).build();
+    }
+
+}
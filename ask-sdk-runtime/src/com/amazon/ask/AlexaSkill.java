@@ -40,4 +40,13 @@ public interface AlexaSkill<Request, Response> {
      */
     SkillResponse<Response> execute(SkillRequest request, Object context);
 
+    /**
+     * Returns the ID of the skill, used to route requests to the skill by the application ID they carry without
+     * unmarshalling them first. Skills without ID may receive requests for any application ID.
+     * @return skill ID, or null if the skill handles requests regardless of their application ID.
+     */
+    default String getSkillId() {
+        return null;
+    }
+
 }
@@ -0,0 +1,39 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.exception;
+
+/**
+ * Exception thrown when a request cannot be answered before its {@link com.amazon.ask.request.Deadline}. Register an
+ * exception handler for it to answer such requests gracefully.
+ */
+public class DeadlineExceededException extends AskSdkException {
+
+    /**
+     * Constructs an instance of DeadlineExceededException with the given message.
+     * @param message exception message.
+     */
+    public DeadlineExceededException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs an instance of DeadlineExceededException with the given message and cause.
+     * @param message exception message.
+     * @param cause instance of {@link Throwable}.
+     */
+    public DeadlineExceededException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -14,8 +14,11 @@
 package com.amazon.ask.impl;
 
 import com.amazon.ask.AlexaSkill;
+import com.amazon.ask.request.Deadline;
 import com.amazon.ask.request.SkillRequest;
 import com.amazon.ask.request.UnmarshalledRequest;
+import com.amazon.ask.request.impl.StreamingSkillRequest;
+import com.amazon.ask.request.impl.UnmarshalledSkillRequest;
 import com.amazon.ask.response.SkillResponse;
 import com.amazon.ask.response.impl.BaseSkillResponse;
 import com.amazon.ask.util.JsonMarshaller;
@@ -68,20 +71,19 @@ public abstract class AbstractSkill<Request, Response> implements AlexaSkill<Req
      * {@inheritDoc}.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public SkillResponse<Response> execute(final SkillRequest request, final Object context) {
-        Optional<UnmarshalledRequest<Request>> deserializedRequest = Optional.empty();
-
-        for (JsonUnmarshaller<Request> unmarshaller : unmarshallerChain) {
-            deserializedRequest = unmarshaller.unmarshall(request.getRawRequest());
-            if (deserializedRequest.isPresent()) {
-                break;
-            }
+        Optional<UnmarshalledRequest<Request>> deserializedRequest;
+        if (request instanceof UnmarshalledSkillRequest && ((UnmarshalledSkillRequest<?>) request).isUnmarshalledBy(this)) {
+            deserializedRequest = ((UnmarshalledSkillRequest<Request>) request).getUnmarshalledRequest();
+        } else {
+            deserializedRequest = unmarshallRequest(request);
         }
         if (!deserializedRequest.isPresent()) {
             return null;
         }
 
-        Response response = invoke(deserializedRequest.get(), context);
+        Response response = invoke(deserializedRequest.get(), context, request.getDeadline());
         if (response == null) {
             return null;
         }
@@ -89,6 +91,35 @@ public abstract class AbstractSkill<Request, Response> implements AlexaSkill<Req
         return new BaseSkillResponse<>(marshaller, response);
     }
 
+    /**
+     * Unmarshalls a request without handling it. No handler runs, so a request can be unmarshalled before it is
+     * verified. Executing the returned request with this skill skips unmarshalling.
+     * @param request instance of type {@link SkillRequest}.
+     * @return request carrying the unmarshalled request.
+     */
+    public SkillRequest unmarshall(final SkillRequest request) {
+        return new UnmarshalledSkillRequest<>(request, this, unmarshallRequest(request).orElse(null));
+    }
+
+    /**
+     * Unmarshalls a request with the first unmarshaller of the chain accepting it.
+     * @param request instance of type {@link SkillRequest}.
+     * @return unmarshalled request, or empty if no unmarshaller accepts the request.
+     */
+    private Optional<UnmarshalledRequest<Request>> unmarshallRequest(final SkillRequest request) {
+        if (request instanceof StreamingSkillRequest && unmarshallerChain.size() == 1) {
+            // a single unmarshaller reads the stream in place, the raw request is only needed to retry unmarshallers
+            return unmarshallerChain.get(0).unmarshall(((StreamingSkillRequest) request).getRequestStream());
+        }
+        for (JsonUnmarshaller<Request> unmarshaller : unmarshallerChain) {
+            Optional<UnmarshalledRequest<Request>> deserializedRequest = unmarshaller.unmarshall(request.getRawRequest());
+            if (deserializedRequest.isPresent()) {
+                return deserializedRequest;
+            }
+        }
+        return Optional.empty();
+    }
+
     /**
      * Abstract method to kick off the request handling process.
      * @param unmarshalledRequest unmarshalled request.
@@ -97,4 +128,17 @@ public abstract class AbstractSkill<Request, Response> implements AlexaSkill<Req
      */
     protected abstract Response invoke(UnmarshalledRequest<Request> unmarshalledRequest, Object context);
 
+    /**
+     * Kicks off the request handling process for a request which must be answered by a deadline. Skills honoring
+     * deadlines override this method, by default the deadline is ignored.
+     * @param unmarshalledRequest unmarshalled request.
+     * @param context object passed to handler by AWS Lambda running your function.
+     * @param deadline deadline by which the request must be answered, or null.
+     * @return {@link Response}.
+     */
+    protected Response invoke(final UnmarshalledRequest<Request> unmarshalledRequest, final Object context,
+                              final Deadline deadline) {
+        return invoke(unmarshalledRequest, context);
+    }
+
 }
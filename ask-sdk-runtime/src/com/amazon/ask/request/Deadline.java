@@ -0,0 +1,84 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.request;
+
+import com.amazon.ask.exception.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a request must be answered, such as the end of the AWS Lambda invocation handling it.
+ * Measured with {@link System#nanoTime()}, so it is not affected by changes of the wall clock.
+ */
+public final class Deadline {
+
+    /**
+     * Value of {@link System#nanoTime()} at which the deadline expires.
+     */
+    private final long expiresAtNanos;
+
+    /**
+     * Constructor for Deadline.
+     * @param expiresAtNanos value of {@link System#nanoTime()} at which the deadline expires.
+     */
+    private Deadline(final long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Returns a deadline expiring after the given time from now.
+     * @param millis time in milliseconds until the deadline expires.
+     * @return deadline.
+     */
+    public static Deadline afterMillis(final long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Returns a deadline expiring the given time before this one, to keep time to answer the request.
+     * @param millis time in milliseconds to keep before this deadline.
+     * @return earlier deadline.
+     */
+    public Deadline minusMillis(final long millis) {
+        return new Deadline(expiresAtNanos - TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Returns the time left until the deadline expires.
+     * @return remaining time in milliseconds, 0 if the deadline expired.
+     */
+    public long getRemainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * Checks whether the deadline expired.
+     * @return true if no time is left.
+     */
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Throws if the deadline expired, to avoid starting an operation whose result would come too late.
+     * @param operation description of the operation about to start.
+     * @throws DeadlineExceededException if the deadline expired.
+     */
+    public void check(final String operation) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded before " + operation);
+        }
+    }
+
+}
@@ -24,4 +24,12 @@ public interface SkillRequest {
      */
     byte[] getRawRequest();
 
+    /**
+     * Retrieves the deadline by which the request must be answered.
+     * @return deadline, or null if the request has no deadline.
+     */
+    default Deadline getDeadline() {
+        return null;
+    }
+
 }
@@ -13,6 +13,7 @@
 
 package com.amazon.ask.request.impl;
 
+import com.amazon.ask.request.Deadline;
 import com.amazon.ask.request.SkillRequest;
 import com.amazon.ask.util.ValidationUtils;
 
@@ -26,12 +27,27 @@ public class BaseSkillRequest implements SkillRequest {
      */
     private final byte[] payload;
 
+    /**
+     * Deadline by which the request must be answered, or null.
+     */
+    private final Deadline deadline;
+
     /**
      * Construct instance of BaseSkillRequest with the given payload.
      * @param payload request in raw format.
      */
     public BaseSkillRequest(final byte[] payload) {
+        this(payload, null);
+    }
+
+    /**
+     * Construct instance of BaseSkillRequest with the given payload and deadline.
+     * @param payload request in raw format.
+     * @param deadline deadline by which the request must be answered, or null.
+     */
+    public BaseSkillRequest(final byte[] payload, final Deadline deadline) {
         this.payload = ValidationUtils.assertNotNull(payload, "payload");
+        this.deadline = deadline;
     }
 
     /**
@@ -42,4 +58,12 @@ public class BaseSkillRequest implements SkillRequest {
         return payload;
     }
 
+    /**
+     * {@inheritDoc}.
+     */
+    @Override
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
 }
@@ -0,0 +1,129 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.request.impl;
+
+import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.request.Deadline;
+import com.amazon.ask.request.SkillRequest;
+import com.amazon.ask.util.ValidationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Skill request read from a stream. Skills able to unmarshall the request in place read it from
+ * {@link #getRequestStream()}, so that it is never copied into a byte array. The request is only read into a byte
+ * array when its raw form is retrieved, which must then happen before the stream is handed out.
+ */
+public class StreamingSkillRequest implements SkillRequest {
+
+    /**
+     * Size of the chunks the stream is read in when retrieving the raw request.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Incoming request stream.
+     */
+    private final InputStream input;
+
+    /**
+     * Deadline by which the request must be answered, or null.
+     */
+    private final Deadline deadline;
+
+    /**
+     * Incoming request in raw format, once read from the stream.
+     */
+    private byte[] payload;
+
+    /**
+     * Whether the stream was handed out to be read in place.
+     */
+    private boolean streamConsumed;
+
+    /**
+     * Construct instance of StreamingSkillRequest reading the given stream.
+     * @param input request stream.
+     * @param deadline deadline by which the request must be answered, or null.
+     */
+    public StreamingSkillRequest(final InputStream input, final Deadline deadline) {
+        this.input = ValidationUtils.assertNotNull(input, "input");
+        this.deadline = deadline;
+    }
+
+    /**
+     * Retrieves the request stream, to be read once, in place. If the raw request was already retrieved, the stream
+     * reads it from memory instead.
+     * @return request stream.
+     * @throws AskSdkException if the stream was already retrieved.
+     */
+    public InputStream getRequestStream() {
+        if (payload != null) {
+            return new ByteArrayInputStream(payload);
+        }
+        if (streamConsumed) {
+            throw new AskSdkException("Request stream was already consumed");
+        }
+        streamConsumed = true;
+        return input;
+    }
+
+    /**
+     * Reads the request stream into a byte array on first retrieval.
+     *
+     * {@inheritDoc}.
+     * @throws AskSdkException if the stream was already retrieved, or cannot be read.
+     */
+    @Override
+    public byte[] getRawRequest() {
+        if (payload == null) {
+            if (streamConsumed) {
+                throw new AskSdkException("Request stream was already consumed");
+            }
+            payload = readFully(input);
+        }
+        return payload;
+    }
+
+    /**
+     * {@inheritDoc}.
+     */
+    @Override
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Reads a stream until its end.
+     * @param input stream to read.
+     * @return bytes read.
+     */
+    private static byte[] readFully(final InputStream input) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new AskSdkException("Unable to read request stream", e);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.request.impl;
+
+import com.amazon.ask.request.Deadline;
+import com.amazon.ask.request.SkillRequest;
+import com.amazon.ask.request.UnmarshalledRequest;
+import com.amazon.ask.util.ValidationUtils;
+
+import java.util.Optional;
+
+/**
+ * Skill request unmarshalled ahead of its execution, so that unmarshalling can overlap with other work such as
+ * verifying the request. Executing it with the skill that unmarshalled it skips unmarshalling, other skills
+ * unmarshall its raw request.
+ * @param <Type> unmarshalled request type.
+ */
+public final class UnmarshalledSkillRequest<Type> implements SkillRequest {
+
+    /**
+     * Request which was unmarshalled.
+     */
+    private final SkillRequest request;
+
+    /**
+     * Skill which unmarshalled the request.
+     */
+    private final Object skill;
+
+    /**
+     * Unmarshalled request, or null if no unmarshaller of the skill accepted the request.
+     */
+    private final UnmarshalledRequest<Type> unmarshalledRequest;
+
+    /**
+     * Construct instance of UnmarshalledSkillRequest.
+     * @param request request which was unmarshalled.
+     * @param skill skill which unmarshalled the request.
+     * @param unmarshalledRequest unmarshalled request, or null if no unmarshaller of the skill accepted the request.
+     */
+    public UnmarshalledSkillRequest(final SkillRequest request, final Object skill, final UnmarshalledRequest<Type> unmarshalledRequest) {
+        this.request = ValidationUtils.assertNotNull(request, "request");
+        this.skill = ValidationUtils.assertNotNull(skill, "skill");
+        this.unmarshalledRequest = unmarshalledRequest;
+    }
+
+    /**
+     * Checks whether the request was unmarshalled by the given skill.
+     * @param candidate skill.
+     * @return true if the given skill unmarshalled the request.
+     */
+    public boolean isUnmarshalledBy(final Object candidate) {
+        return skill == candidate;
+    }
+
+    /**
+     * Retrieves the unmarshalled request.
+     * @return unmarshalled request, or empty if no unmarshaller of the skill accepted the request.
+     */
+    public Optional<UnmarshalledRequest<Type>> getUnmarshalledRequest() {
+        return Optional.ofNullable(unmarshalledRequest);
+    }
+
+    /**
+     * {@inheritDoc}.
+     */
+    @Override
+    public byte[] getRawRequest() {
+        return request.getRawRequest();
+    }
+
+    /**
+     * {@inheritDoc}.
+     */
+    @Override
+    public Deadline getDeadline() {
+        return request.getDeadline();
+    }
+
+}
@@ -23,13 +23,21 @@ import com.amazon.ask.response.template.renderer.TemplateRenderer;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * {@link TemplateFactory} implementation to chain {@link TemplateLoader} and {@link TemplateRenderer}.
  * It is responsible to pass in template name, data map and Input to get response output for skill request.
+ *
+ * If a {@link RenderedOutputCache} is provided, output of templates marked as cacheable is reused for identical data,
+ * skipping the {@link TemplateRenderer}. Cache entries are keyed by the loaded template identifier, which reflects the
+ * template variant resolved for the input (such as locale), and by a stable hash of the data map.
  * @param <Input> Skill input type.
  * @param <Output> Skill output type.
  */
@@ -50,14 +58,38 @@ public class BaseTemplateFactory<Input, Output> implements TemplateFactory<Input
      */
     protected final TemplateRenderer<Output> templateRenderer;
 
+    /**
+     * Cache of rendered output, null if output caching is disabled.
+     */
+    protected final RenderedOutputCache<Output> renderedOutputCache;
+
+    /**
+     * Names of templates whose rendered output may be cached.
+     */
+    protected final Set<String> cacheableTemplateNames;
+
     /**
      * Constructor to build an instance of BaseTemplateFactory.
      * @param templateLoaders template loaders.
      * @param templateRenderer template renderer.
      */
     protected BaseTemplateFactory(final List<TemplateLoader<Input>> templateLoaders, final TemplateRenderer<Output> templateRenderer) {
+        this(templateLoaders, templateRenderer, null, Collections.emptySet());
+    }
+
+    /**
+     * Constructor to build an instance of BaseTemplateFactory.
+     * @param templateLoaders template loaders.
+     * @param templateRenderer template renderer.
+     * @param renderedOutputCache cache of rendered output, or null to disable output caching.
+     * @param cacheableTemplateNames names of templates whose rendered output may be cached.
+     */
+    protected BaseTemplateFactory(final List<TemplateLoader<Input>> templateLoaders, final TemplateRenderer<Output> templateRenderer,
+                                  final RenderedOutputCache<Output> renderedOutputCache, final Set<String> cacheableTemplateNames) {
         this.templateLoaders = templateLoaders;
         this.templateRenderer = templateRenderer;
+        this.renderedOutputCache = renderedOutputCache;
+        this.cacheableTemplateNames = cacheableTemplateNames == null ? Collections.emptySet() : cacheableTemplateNames;
     }
 
     /**
@@ -96,7 +128,19 @@ public class BaseTemplateFactory<Input, Output> implements TemplateFactory<Input
             throw new TemplateFactoryException(message);
         }
         TemplateContentData templateContentData = loadTemplate(responseTemplateName, input);
+        if (renderedOutputCache == null || !cacheableTemplateNames.contains(responseTemplateName)) {
+            return renderResponse(templateContentData, dataMap);
+        }
+        Optional<String> cacheKey = renderedOutputCache.buildKey(templateContentData, dataMap);
+        if (!cacheKey.isPresent()) {
+            return renderResponse(templateContentData, dataMap);
+        }
+        Optional<Output> cachedResponse = renderedOutputCache.get(cacheKey.get(), templateContentData);
+        if (cachedResponse.isPresent()) {
+            return cachedResponse.get();
+        }
         Output response = renderResponse(templateContentData, dataMap);
+        renderedOutputCache.put(cacheKey.get(), templateContentData, response);
         return response;
     }
 
@@ -161,11 +205,22 @@ public class BaseTemplateFactory<Input, Output> implements TemplateFactory<Input
          */
         protected TemplateRenderer<Output> templateRenderer;
 
+        /**
+         * Cache of rendered output.
+         */
+        protected RenderedOutputCache<Output> renderedOutputCache;
+
+        /**
+         * Names of templates whose rendered output may be cached.
+         */
+        protected Set<String> cacheableTemplateNames;
+
         /**
          * Constructor for Builder class.
          */
         protected Builder() {
             this.templateLoaders = new ArrayList<>();
+            this.cacheableTemplateNames = new HashSet<>();
         }
 
         /**
@@ -198,12 +253,42 @@ public class BaseTemplateFactory<Input, Output> implements TemplateFactory<Input
             return (Self) this;
         }
 
+        /**
+         * Add Rendered Output Cache to BaseTemplateFactory instance. Only output of cacheable templates is cached.
+         * @param renderedOutputCache cache of rendered output.
+         * @return {@link Builder}.
+         */
+        public Self withRenderedOutputCache(final RenderedOutputCache<Output> renderedOutputCache) {
+            this.renderedOutputCache = renderedOutputCache;
+            return (Self) this;
+        }
+
+        /**
+         * Mark a template as cacheable. Output of a cacheable template must only depend on the template and data map.
+         * @param responseTemplateName template name.
+         * @return {@link Builder}.
+         */
+        public Self addCacheableTemplate(final String responseTemplateName) {
+            this.cacheableTemplateNames.add(responseTemplateName);
+            return (Self) this;
+        }
+
+        /**
+         * Mark multiple templates as cacheable. Output of a cacheable template must only depend on the template and data map.
+         * @param responseTemplateNames template names.
+         * @return {@link Builder}.
+         */
+        public Self addCacheableTemplates(final Collection<String> responseTemplateNames) {
+            this.cacheableTemplateNames.addAll(responseTemplateNames);
+            return (Self) this;
+        }
+
         /**
          * Builder method to build an instance of BaseTemplateFactory.
          * @return {@link BaseTemplateFactory}.
          */
         public BaseTemplateFactory<Input, Output> build() {
-            return new BaseTemplateFactory<>(templateLoaders, templateRenderer);
+            return new BaseTemplateFactory<>(templateLoaders, templateRenderer, renderedOutputCache, new HashSet<>(cacheableTemplateNames));
         }
     }
 
@@ -0,0 +1,237 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template.impl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.amazon.ask.response.template.TemplateContentData;
+import com.amazon.ask.util.ValidationUtils;
+import com.amazon.ask.util.impl.ObjectMapperFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size bounded LRU cache of rendered template output, used by {@link BaseTemplateFactory} to skip rendering of
+ * templates that are processed with identical data.
+ *
+ * Entries are keyed by template identifier and a stable hash of the data map. An entry is only served for the exact
+ * {@link TemplateContentData} instance it was rendered from, so reloaded or expired templates are rendered again.
+ * Output is stored as a JSON tree and a new copy is returned on every hit, callers are free to modify it.
+ * If no maximum number of entries specified, use default value of 100.
+ * @param <Output> Skill output type.
+ */
+public class RenderedOutputCache<Output> {
+
+    /**
+     * Default maximum number of cached outputs.
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 100;
+
+    /**
+     * Hash algorithm used to fingerprint data maps.
+     */
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * Separator between template identifier and data hash in cache keys.
+     */
+    private static final String KEY_SEPARATOR = "#";
+
+    /**
+     * Logger instance to log information for debugging purposes.
+     */
+    private static final Logger LOGGER = getLogger(RenderedOutputCache.class);
+
+    /**
+     * Mapper used to copy output.
+     */
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getMapper();
+
+    /**
+     * Mapper producing a stable serialization of data maps, independent of map and property ordering.
+     */
+    private static final ObjectMapper HASHING_MAPPER = ObjectMapperFactory.getMapper().copy()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
+    /**
+     * Maximum number of cached outputs.
+     */
+    protected final int maxEntries;
+
+    /**
+     * Cached outputs in access order.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Constructor for RenderedOutputCache.
+     * @param maxEntries maximum number of cached outputs.
+     */
+    protected RenderedOutputCache(final int maxEntries) {
+        this.maxEntries = ValidationUtils.assertIsPositive(maxEntries, "maxEntries");
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > RenderedOutputCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Static method which builds an instance of Builder.
+     * @param <Output> Skill output type.
+     * @return {@link Builder}.
+     */
+    public static <Output> Builder<Output> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Get cache size.
+     * @return number of cached outputs.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Builds the cache key for a template and data map.
+     * @param templateContentData template the output is rendered from.
+     * @param dataMap data injected into the template.
+     * @return cache key, or empty if the data map cannot be serialized to a stable form.
+     */
+    Optional<String> buildKey(final TemplateContentData templateContentData, final Map<String, Object> dataMap) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            byte[] hash = digest.digest(HASHING_MAPPER.writeValueAsBytes(dataMap));
+            return Optional.of(templateContentData.getIdentifier() + KEY_SEPARATOR + Base64.getEncoder().encodeToString(hash));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            LOGGER.debug(String.format("Unable to hash data map for template: %s with error: %s, skipping output cache.",
+                    templateContentData.getIdentifier(), e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns a copy of the cached output rendered from the given template.
+     * @param key cache key.
+     * @param templateContentData template the output must have been rendered from.
+     * @return copy of the cached output, or empty on cache miss.
+     */
+    Optional<Output> get(final String key, final TemplateContentData templateContentData) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null || entry.source != templateContentData) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(MAPPER.treeToValue(entry.output, entry.outputType));
+        } catch (JsonProcessingException e) {
+            LOGGER.warn(String.format("Unable to copy cached output: %s with error: %s, rendering again.", key, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Caches output rendered from the given template.
+     * @param key cache key.
+     * @param templateContentData template the output was rendered from.
+     * @param output rendered output.
+     */
+    void put(final String key, final TemplateContentData templateContentData, final Output output) {
+        if (output == null) {
+            return;
+        }
+        Entry entry = new Entry(templateContentData, MAPPER.valueToTree(output), (Class<? extends Output>) output.getClass());
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Cached output along with the template it was rendered from.
+     */
+    private final class Entry {
+        /**
+         * Template the output was rendered from.
+         */
+        private final TemplateContentData source;
+
+        /**
+         * Rendered output as JSON tree.
+         */
+        private final JsonNode output;
+
+        /**
+         * Type of the rendered output.
+         */
+        private final Class<? extends Output> outputType;
+
+        /**
+         * Constructor for Entry.
+         * @param source template the output was rendered from.
+         * @param output rendered output as JSON tree.
+         * @param outputType type of the rendered output.
+         */
+        private Entry(final TemplateContentData source, final JsonNode output, final Class<? extends Output> outputType) {
+            this.source = source;
+            this.output = output;
+            this.outputType = outputType;
+        }
+    }
+
+    /**
+     * Rendered Output Cache Builder.
+     * @param <Output> Skill output type.
+     */
+    public static class Builder<Output> {
+        /**
+         * Maximum number of cached outputs.
+         */
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        /**
+         * Add maximum number of cached outputs to RenderedOutputCache.
+         * @param maxEntries maximum number of cached outputs.
+         * @return {@link Builder}.
+         */
+        public Builder<Output> withMaxEntries(final int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of RenderedOutputCache.
+         * @return {@link RenderedOutputCache}.
+         */
+        public RenderedOutputCache<Output> build() {
+            return new RenderedOutputCache<>(maxEntries);
+        }
+    }
+
+}
@@ -36,4 +36,11 @@ public interface TemplateCache {
      */
     void put(String identifier, TemplateContentData templateContentData);
 
+    /**
+     * Remove {@link TemplateContentData} with the given identifier from cache, if present.
+     *
+     * @param identifier template identifier
+     */
+    default void remove(String identifier) { }
+
 }
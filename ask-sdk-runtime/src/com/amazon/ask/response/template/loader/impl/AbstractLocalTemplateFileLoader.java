@@ -23,20 +23,26 @@ import com.amazon.ask.response.template.loader.TemplateLoader;
 import com.amazon.ask.util.ValidationUtils;
 import org.slf4j.Logger;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.function.BiFunction;
 
 /**
  * {@link TemplateLoader} abstract implementation to load template file from local file system, build and return {@link TemplateContentData}.
+ *
+ * If hot reload is enabled and the template directory resolves to a file system directory, template changes are
+ * applied to the {@link TemplateCache} as they happen through a {@link TemplateDirectoryWatcher}.
  * @param <Input> Skill input type.
  */
-public abstract class AbstractLocalTemplateFileLoader<Input> implements TemplateLoader<Input> {
+public abstract class AbstractLocalTemplateFileLoader<Input> implements TemplateLoader<Input>, Closeable {
     /**
      * Logger for logging information for debugging purposes.
      */
@@ -47,6 +53,11 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
      */
     private static final String FILE_EXTENSION_DELIMITER = ".";
 
+    /**
+     * URI scheme of resources located on the local file system.
+     */
+    private static final String FILE_URI_SCHEME = "file";
+
     /**
      * Templates' directory path.
      */
@@ -72,6 +83,11 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
      */
     protected final BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier;
 
+    /**
+     * Watches the template directory when hot reload is enabled, null otherwise.
+     */
+    private final TemplateDirectoryWatcher templateDirectoryWatcher;
+
     /**
      * Constructor for AbstractLocalTemplateFileLoader.
      * @param directoryPath Templates' directory path.
@@ -83,11 +99,28 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
     protected AbstractLocalTemplateFileLoader(final String directoryPath, final String fileExtension,
                                               final ClassLoader classLoader, final TemplateCache templateCache,
                                               final BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier) {
+        this(directoryPath, fileExtension, classLoader, templateCache, templateEnumeratorSupplier, false);
+    }
+
+    /**
+     * Constructor for AbstractLocalTemplateFileLoader.
+     * @param directoryPath Templates' directory path.
+     * @param fileExtension Type of templates is determined by this file extension.
+     * @param classLoader Loads classes.
+     * @param templateCache Caches the template content.
+     * @param templateEnumeratorSupplier Template enumerator supplier.
+     * @param hotReloadEnabled Watch the template directory and refresh cached templates on change.
+     */
+    protected AbstractLocalTemplateFileLoader(final String directoryPath, final String fileExtension,
+                                              final ClassLoader classLoader, final TemplateCache templateCache,
+                                              final BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier,
+                                              final boolean hotReloadEnabled) {
         this.directoryPath = ValidationUtils.assertNotNull(directoryPath, "directoryPath");
         this.fileExtension = ValidationUtils.assertNotNull(fileExtension, "fileExtension");
         this.classLoader = ValidationUtils.assertNotNull(classLoader, "classLoader");
         this.templateCache = templateCache == null ? ConcurrentLRUTemplateCache.builder().build() : templateCache;
         this.templateEnumeratorSupplier = ValidationUtils.assertNotNull(templateEnumeratorSupplier, "templateEnumeratorSupplier");
+        this.templateDirectoryWatcher = hotReloadEnabled ? startWatcher() : null;
     }
 
     /**
@@ -104,15 +137,14 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
             try {
                 URI templateUri = getResourceURI(templatePath);
                 if (templateUri != null) {
-                    String templateIdentifier = templateUri.toString();
+                    Path templateFile = toLocalPath(templateUri);
+                    String templateIdentifier = templateFile != null ? TemplateFileReader.toIdentifier(templateFile) : templateUri.toString();
                     TemplateContentData templateContentData = templateCache.get(templateIdentifier);
                     if (templateContentData == null) {
-                        try (InputStream inputStream = getTemplateAsStream(templatePath)) {
-                            byte[] templateByteArray = new byte[inputStream.available()];
-                            inputStream.read(templateByteArray);
+                        try {
                             templateContentData = TemplateContentData.builder()
                                     .withIdentifier(templateIdentifier)
-                                    .withTemplateContent(templateByteArray)
+                                    .withTemplateContent(readTemplate(templatePath, templateFile))
                                     .withTemplateBaseDir(directoryPath)
                                     .build();
                         } catch (IOException e) {
@@ -136,6 +168,69 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
         return Optional.empty();
     }
 
+    /**
+     * Stops watching the template directory if hot reload is enabled.
+     * @throws IOException if unable to stop the watcher.
+     */
+    @Override
+    public void close() throws IOException {
+        if (templateDirectoryWatcher != null) {
+            templateDirectoryWatcher.close();
+        }
+    }
+
+    /**
+     * Starts watching the template directory for changes. Hot reload is only possible for templates on the
+     * local file system, templates packaged in a jar are loaded through the cache as usual.
+     * @return started watcher, or null if the directory is not on the local file system.
+     */
+    private TemplateDirectoryWatcher startWatcher() {
+        try {
+            URI directoryUri = getResourceURI(directoryPath);
+            Path directory = directoryUri == null ? null : toLocalPath(directoryUri);
+            if (directory == null) {
+                LOGGER.warn(String.format("Template directory: %s is not on the local file system, hot reload disabled.", directoryPath));
+                return null;
+            }
+            TemplateDirectoryWatcher watcher = new TemplateDirectoryWatcher(directory, fileExtension, directoryPath, templateCache);
+            watcher.start();
+            return watcher;
+        } catch (URISyntaxException | IOException e) {
+            String message = String.format("Fail to watch template directory: %s with error: %s", directoryPath, e.getMessage());
+            LOGGER.error(message);
+            throw new TemplateLoaderException(message, e);
+        }
+    }
+
+    /**
+     * Reads complete template content. Templates on the local file system are read directly from the file,
+     * others are read from the class loader stream until end of stream.
+     * @param templatePath full template path.
+     * @param templateFile template file on the local file system, or null.
+     * @return template content.
+     * @throws IOException if unable to read the template.
+     */
+    private byte[] readTemplate(final String templatePath, final Path templateFile) throws IOException {
+        if (templateFile != null) {
+            return TemplateFileReader.readFile(templateFile);
+        }
+        try (InputStream inputStream = getTemplateAsStream(templatePath)) {
+            if (inputStream == null) {
+                throw new IOException("resource stream is not available");
+            }
+            return TemplateFileReader.readFully(inputStream);
+        }
+    }
+
+    /**
+     * Converts a resource URI to a local file system path.
+     * @param uri resource URI.
+     * @return local path, or null if the resource is not on the local file system.
+     */
+    private static Path toLocalPath(final URI uri) {
+        return FILE_URI_SCHEME.equalsIgnoreCase(uri.getScheme()) ? Paths.get(uri) : null;
+    }
+
     /**
      * Builds complete directory path.
      * @param candidate template file name.
@@ -200,6 +295,11 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
          */
         protected BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier;
 
+        /**
+         * Watch the template directory and refresh cached templates on change.
+         */
+        protected boolean hotReloadEnabled;
+
         /**
          * Constructor for Builder class.
          */
@@ -257,6 +357,16 @@ public abstract class AbstractLocalTemplateFileLoader<Input> implements Template
             return (Self) this;
         }
 
+        /**
+         * Enables hot reload of templates. Only applies when the template directory is on the local file system.
+         * @param hotReloadEnabled Watch the template directory and refresh cached templates on change.
+         * @return {@link Builder}.
+         */
+        public Self withHotReload(final boolean hotReloadEnabled) {
+            this.hotReloadEnabled = hotReloadEnabled;
+            return (Self) this;
+        }
+
         /**
          * Builder method to build AbstractLocalTemplateFileLoader with the provided config.
          * @return {@link AbstractLocalTemplateFileLoader}.
@@ -0,0 +1,666 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template.loader.impl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.amazon.ask.exception.template.TemplateLoaderException;
+import com.amazon.ask.response.template.TemplateContentData;
+import com.amazon.ask.response.template.loader.TemplateCache;
+import com.amazon.ask.response.template.loader.TemplateEnumerator;
+import com.amazon.ask.response.template.loader.TemplateLoader;
+import com.amazon.ask.util.ValidationUtils;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * {@link TemplateLoader} abstract implementation to load templates from a remote HTTP store such as an S3 compatible
+ * object store, build and return {@link TemplateContentData}.
+ *
+ * Templates are looked up in three tiers: the in-memory {@link TemplateCache}, an optional on-disk cache directory and
+ * the remote store. Only the first load of a template blocks on the remote store. Afterwards templates are served from
+ * the cache tiers and revalidated in the background with conditional requests (ETag / If-None-Match) once they are
+ * older than the refresh interval. Configure a cache directory to serve templates evicted from the in-memory cache
+ * without waiting for the remote store, only the ETag of each template is kept in memory beyond the in-memory cache.
+ * Templates the store does not have, reported with a 404 or, as private S3 buckets do, a 403 status, are remembered
+ * so locale fallback does not query the store on every request.
+ *
+ * Combine with {@link AbstractLocalTemplateFileLoader} in {@link com.amazon.ask.response.template.impl.BaseTemplateFactory}
+ * to fall back to packaged templates.
+ * @param <Input> Skill input type.
+ */
+public abstract class AbstractRemoteTemplateLoader<Input> implements TemplateLoader<Input>, Closeable {
+    /**
+     * Logger for logging information for debugging purposes.
+     */
+    private static final Logger LOGGER = getLogger(AbstractRemoteTemplateLoader.class);
+
+    /**
+     * File extension delimiter.
+     */
+    private static final String FILE_EXTENSION_DELIMITER = ".";
+
+    /**
+     * URL path delimiter.
+     */
+    private static final String PATH_DELIMITER = "/";
+
+    /**
+     * Default interval after which a template is revalidated against the remote store.
+     */
+    private static final long DEFAULT_REFRESH_INTERVAL = 1000 * 60 * 5;
+
+    /**
+     * Default connect and read timeout for remote requests.
+     */
+    private static final int DEFAULT_TIMEOUT = 1000 * 5;
+
+    /**
+     * File suffix of cached template content on disk.
+     */
+    private static final String CONTENT_SUFFIX = ".template";
+
+    /**
+     * File suffix of cached template ETag on disk.
+     */
+    private static final String ETAG_SUFFIX = ".etag";
+
+    /**
+     * Base URL of the remote template store.
+     */
+    protected final String baseUrl;
+
+    /**
+     * Type of templates is determined by this file extension.
+     */
+    protected final String fileExtension;
+
+    /**
+     * Caches the template content in memory.
+     */
+    protected final TemplateCache templateCache;
+
+    /**
+     * Directory caching template content on disk, null if disk caching is disabled.
+     */
+    protected final Path cacheDirectory;
+
+    /**
+     * Interval in milliseconds after which a template is revalidated against the remote store.
+     */
+    protected final long refreshInterval;
+
+    /**
+     * Connect and read timeout in milliseconds for remote requests.
+     */
+    protected final int timeout;
+
+    /**
+     * Headers added to every remote request, such as authorization headers.
+     */
+    protected final Map<String, String> requestHeaders;
+
+    /**
+     * Template enumerator supplier.
+     */
+    protected final BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier;
+
+    /**
+     * Executor running background refreshes.
+     */
+    protected final ExecutorService refreshExecutor;
+
+    /**
+     * True if the refresh executor was created by this loader, and is shut down when it is closed.
+     */
+    private final boolean ownsRefreshExecutor;
+
+    /**
+     * Validation state of every template seen, keyed by template identifier. States don't hold template content, which
+     * is bounded by the cache tiers.
+     */
+    private final Map<String, RemoteTemplateState> templateStates;
+
+    /**
+     * Identifiers of templates with a background refresh in flight.
+     */
+    private final Set<String> refreshesInFlight;
+
+    /**
+     * Constructor for AbstractRemoteTemplateLoader.
+     * @param baseUrl Base URL of the remote template store.
+     * @param fileExtension Type of templates is determined by this file extension.
+     * @param templateCache Caches the template content in memory.
+     * @param cacheDirectory Directory caching template content on disk, or null to disable disk caching.
+     * @param refreshInterval Interval in milliseconds after which a template is revalidated.
+     * @param timeout Connect and read timeout in milliseconds for remote requests.
+     * @param requestHeaders Headers added to every remote request.
+     * @param templateEnumeratorSupplier Template enumerator supplier.
+     * @param refreshExecutor Executor running background refreshes, or null to use a single daemon thread.
+     */
+    protected AbstractRemoteTemplateLoader(final String baseUrl, final String fileExtension, final TemplateCache templateCache,
+                                           final Path cacheDirectory, final long refreshInterval, final int timeout,
+                                           final Map<String, String> requestHeaders,
+                                           final BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier,
+                                           final ExecutorService refreshExecutor) {
+        String url = ValidationUtils.assertNotNull(baseUrl, "baseUrl");
+        this.baseUrl = url.endsWith(PATH_DELIMITER) ? url : url + PATH_DELIMITER;
+        this.fileExtension = ValidationUtils.assertNotNull(fileExtension, "fileExtension");
+        this.templateCache = templateCache == null ? ConcurrentLRUTemplateCache.builder().build() : templateCache;
+        this.cacheDirectory = cacheDirectory;
+        this.refreshInterval = refreshInterval;
+        this.timeout = timeout;
+        this.requestHeaders = requestHeaders == null ? Collections.emptyMap() : requestHeaders;
+        this.templateEnumeratorSupplier = ValidationUtils.assertNotNull(templateEnumeratorSupplier, "templateEnumeratorSupplier");
+        this.ownsRefreshExecutor = refreshExecutor == null;
+        this.refreshExecutor = ownsRefreshExecutor ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ask-sdk-template-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }) : refreshExecutor;
+        this.templateStates = new ConcurrentHashMap<>();
+        this.refreshesInFlight = ConcurrentHashMap.newKeySet();
+        if (cacheDirectory != null) {
+            try {
+                Files.createDirectories(cacheDirectory);
+            } catch (IOException e) {
+                String message = String.format("Fail to create template cache directory: %s with error: %s", cacheDirectory, e.getMessage());
+                LOGGER.error(message);
+                throw new TemplateLoaderException(message, e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Load template content from the cache tiers, falling back to the remote store for templates never seen before.
+     */
+    @Override
+    public Optional<TemplateContentData> load(final String responseTemplateName, final Input input) throws TemplateLoaderException {
+        TemplateEnumerator templateEnumerator = templateEnumeratorSupplier.apply(responseTemplateName, input);
+        while (templateEnumerator.hasNext()) {
+            String identifier = buildUrl((String) templateEnumerator.next());
+            TemplateContentData templateContentData = templateCache.get(identifier);
+            if (templateContentData == null) {
+                templateContentData = loadFromDisk(identifier);
+            }
+            if (templateContentData != null) {
+                refreshIfStale(identifier);
+                return Optional.of(templateContentData);
+            }
+            RemoteTemplateState state = templateStates.get(identifier);
+            if (state != null && state.missing) {
+                refreshIfStale(identifier);
+                continue;
+            }
+            try {
+                Optional<TemplateContentData> fetched = fetch(identifier, false);
+                if (fetched.isPresent()) {
+                    return fetched;
+                }
+            } catch (IOException e) {
+                String message = String.format("Fail to fetch template: %s with error: %s", identifier, e.getMessage());
+                LOGGER.error(message);
+                throw new TemplateLoaderException(message, e);
+            }
+        }
+        String message = String.format("Cannot find template: %s given base url: %s and file extension: %s, returning empty.",
+                responseTemplateName, baseUrl, fileExtension);
+        LOGGER.warn(message);
+        return Optional.empty();
+    }
+
+    /**
+     * Stops background refreshes. A refresh executor supplied to the builder is left running, it is owned by the caller.
+     */
+    @Override
+    public void close() {
+        if (ownsRefreshExecutor) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules a background revalidation of the template if it is older than the refresh interval.
+     * At most one refresh per template is in flight at any time.
+     * @param identifier template identifier.
+     */
+    private void refreshIfStale(final String identifier) {
+        RemoteTemplateState state = templateStates.get(identifier);
+        if (state != null && System.currentTimeMillis() - state.lastValidated < refreshInterval) {
+            return;
+        }
+        if (!refreshesInFlight.add(identifier)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    fetch(identifier, true);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn(String.format("Fail to refresh template: %s with error: %s, serving cached content.",
+                            identifier, e.getMessage()));
+                    RemoteTemplateState current = templateStates.get(identifier);
+                    if (current != null) {
+                        templateStates.put(identifier, new RemoteTemplateState(current.etag, current.missing));
+                    }
+                } finally {
+                    refreshesInFlight.remove(identifier);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshesInFlight.remove(identifier);
+        }
+    }
+
+    /**
+     * Fetches the template from the remote store and updates all cache tiers with the result. A 403 status is treated
+     * like a 404 status, since private S3 buckets answer requests for missing keys with it.
+     * @param identifier template identifier.
+     * @param conditional send the known ETag as a conditional request, only valid while the content is cached.
+     * @return fetched or revalidated template content, or empty if the store does not have the template.
+     * @throws IOException if the remote request fails.
+     */
+    private Optional<TemplateContentData> fetch(final String identifier, final boolean conditional) throws IOException {
+        RemoteTemplateState state = templateStates.get(identifier);
+        String knownEtag = !conditional || state == null || state.missing ? null : state.etag;
+        HttpURLConnection connection = (HttpURLConnection) new URL(identifier).openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        requestHeaders.forEach(connection::setRequestProperty);
+        if (knownEtag != null) {
+            connection.setRequestProperty("If-None-Match", knownEtag);
+        }
+        int statusCode = connection.getResponseCode();
+        if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            drain(connection.getErrorStream());
+            TemplateContentData cached = templateCache.get(identifier);
+            if (cached == null) {
+                cached = loadFromDisk(identifier);
+            }
+            templateStates.put(identifier, new RemoteTemplateState(knownEtag, false));
+            return Optional.ofNullable(cached);
+        }
+        if (statusCode == HttpURLConnection.HTTP_NOT_FOUND || statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+            drain(connection.getErrorStream());
+            templateStates.put(identifier, new RemoteTemplateState(null, true));
+            templateCache.remove(identifier);
+            deleteFromDisk(identifier);
+            return Optional.empty();
+        }
+        if (statusCode != HttpURLConnection.HTTP_OK) {
+            drain(connection.getErrorStream());
+            throw new IOException(String.format("unexpected status code: %s", statusCode));
+        }
+        byte[] content;
+        try (InputStream inputStream = connection.getInputStream()) {
+            content = TemplateFileReader.readFully(inputStream);
+        }
+        String etag = connection.getHeaderField("ETag");
+        TemplateContentData templateContentData = buildTemplateContentData(identifier, content);
+        templateCache.put(identifier, templateContentData);
+        storeOnDisk(identifier, content, etag);
+        templateStates.put(identifier, new RemoteTemplateState(etag, false));
+        return Optional.of(templateContentData);
+    }
+
+    /**
+     * Loads template content from the disk cache tier and promotes it to the in-memory tier.
+     * @param identifier template identifier.
+     * @return template content, or null if not cached on disk.
+     */
+    private TemplateContentData loadFromDisk(final String identifier) {
+        if (cacheDirectory == null) {
+            return null;
+        }
+        Path contentFile = cacheFile(identifier, CONTENT_SUFFIX);
+        if (!Files.isRegularFile(contentFile)) {
+            return null;
+        }
+        try {
+            TemplateContentData templateContentData = buildTemplateContentData(identifier, TemplateFileReader.readFile(contentFile));
+            templateCache.put(identifier, templateContentData);
+            if (!templateStates.containsKey(identifier)) {
+                Path etagFile = cacheFile(identifier, ETAG_SUFFIX);
+                String etag = Files.isRegularFile(etagFile) ? new String(Files.readAllBytes(etagFile), StandardCharsets.UTF_8) : null;
+                templateStates.putIfAbsent(identifier, new RemoteTemplateState(etag, false, 0));
+            }
+            return templateContentData;
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Fail to read cached template: %s with error: %s, ignoring disk cache.", identifier, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Stores template content and ETag in the disk cache tier. Files are replaced atomically.
+     * @param identifier template identifier.
+     * @param content template content.
+     * @param etag template ETag, may be null.
+     */
+    private void storeOnDisk(final String identifier, final byte[] content, final String etag) {
+        if (cacheDirectory == null) {
+            return;
+        }
+        try {
+            writeAtomically(cacheFile(identifier, CONTENT_SUFFIX), content);
+            if (etag != null) {
+                writeAtomically(cacheFile(identifier, ETAG_SUFFIX), etag.getBytes(StandardCharsets.UTF_8));
+            } else {
+                Files.deleteIfExists(cacheFile(identifier, ETAG_SUFFIX));
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Fail to cache template: %s on disk with error: %s", identifier, e.getMessage()));
+        }
+    }
+
+    /**
+     * Removes a template from the disk cache tier.
+     * @param identifier template identifier.
+     */
+    private void deleteFromDisk(final String identifier) {
+        if (cacheDirectory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(cacheFile(identifier, CONTENT_SUFFIX));
+            Files.deleteIfExists(cacheFile(identifier, ETAG_SUFFIX));
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Fail to remove cached template: %s from disk with error: %s", identifier, e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file and an atomic move, so readers never observe partial content.
+     * @param target target file.
+     * @param content file content.
+     * @throws IOException if unable to write the file.
+     */
+    private void writeAtomically(final Path target, final byte[] content) throws IOException {
+        Path temporary = Files.createTempFile(cacheDirectory, null, null);
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Builds the disk cache file of a template.
+     * @param identifier template identifier.
+     * @param suffix file suffix.
+     * @return disk cache file.
+     */
+    private Path cacheFile(final String identifier, final String suffix) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(identifier.getBytes(StandardCharsets.UTF_8));
+            return cacheDirectory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + suffix);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Builds template content data.
+     * @param identifier template identifier.
+     * @param content template content.
+     * @return {@link TemplateContentData}.
+     */
+    private TemplateContentData buildTemplateContentData(final String identifier, final byte[] content) {
+        return TemplateContentData.builder()
+                .withIdentifier(identifier)
+                .withTemplateContent(content)
+                .withTemplateBaseDir(baseUrl)
+                .build();
+    }
+
+    /**
+     * Builds the template URL.
+     * @param candidate template name.
+     * @return template URL.
+     */
+    private String buildUrl(final String candidate) {
+        return baseUrl + candidate + FILE_EXTENSION_DELIMITER + fileExtension;
+    }
+
+    /**
+     * Reads and closes a response stream so the connection can be reused.
+     * @param inputStream response stream, may be null.
+     * @throws IOException if unable to read the stream.
+     */
+    private static void drain(final InputStream inputStream) throws IOException {
+        if (inputStream != null) {
+            try (InputStream stream = inputStream) {
+                TemplateFileReader.readFully(stream);
+            }
+        }
+    }
+
+    /**
+     * Validation state of a remote template.
+     */
+    private static final class RemoteTemplateState {
+        /**
+         * ETag of the cached content, may be null.
+         */
+        private final String etag;
+
+        /**
+         * True if the remote store does not have the template.
+         */
+        private final boolean missing;
+
+        /**
+         * Time the state was last confirmed against the remote store.
+         */
+        private final long lastValidated;
+
+        /**
+         * Constructor for a state validated now.
+         * @param etag ETag of the cached content.
+         * @param missing true if the remote store does not have the template.
+         */
+        private RemoteTemplateState(final String etag, final boolean missing) {
+            this(etag, missing, System.currentTimeMillis());
+        }
+
+        /**
+         * Constructor for RemoteTemplateState.
+         * @param etag ETag of the cached content.
+         * @param missing true if the remote store does not have the template.
+         * @param lastValidated time the state was last confirmed against the remote store.
+         */
+        private RemoteTemplateState(final String etag, final boolean missing, final long lastValidated) {
+            this.etag = etag;
+            this.missing = missing;
+            this.lastValidated = lastValidated;
+        }
+    }
+
+    /**
+     * Abstract Remote Template Loader Builder.
+     * @param <Input> Skill input type.
+     * @param <Self> of type Builder.
+     */
+    public abstract static class Builder<Input, Self extends Builder<Input, Self>> {
+        /**
+         * Base URL of the remote template store.
+         */
+        protected String baseUrl;
+
+        /**
+         * Type of templates is determined by this file extension.
+         */
+        protected String fileExtension;
+
+        /**
+         * Caches the template content in memory.
+         */
+        protected TemplateCache templateCache;
+
+        /**
+         * Directory caching template content on disk.
+         */
+        protected Path cacheDirectory;
+
+        /**
+         * Interval in milliseconds after which a template is revalidated.
+         */
+        protected long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+        /**
+         * Connect and read timeout in milliseconds for remote requests.
+         */
+        protected int timeout = DEFAULT_TIMEOUT;
+
+        /**
+         * Headers added to every remote request.
+         */
+        protected Map<String, String> requestHeaders = new HashMap<>();
+
+        /**
+         * Template enumerator supplier.
+         */
+        protected BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier;
+
+        /**
+         * Executor running background refreshes.
+         */
+        protected ExecutorService refreshExecutor;
+
+        /**
+         * Adds base URL of the remote template store to RemoteTemplateLoader.
+         * @param baseUrl base URL, for example an S3 bucket endpoint.
+         * @return {@link Builder}.
+         */
+        public Self withBaseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+            return (Self) this;
+        }
+
+        /**
+         * Adds fileExtension to RemoteTemplateLoader.
+         * @param fileExtension template file extension.
+         * @return {@link Builder}.
+         */
+        public Self withFileExtension(final String fileExtension) {
+            this.fileExtension = fileExtension;
+            return (Self) this;
+        }
+
+        /**
+         * Adds in-memory template cache to RemoteTemplateLoader.
+         * @param templateCache template cache.
+         * @return {@link Builder}.
+         */
+        public Self withTemplateCache(final TemplateCache templateCache) {
+            this.templateCache = templateCache;
+            return (Self) this;
+        }
+
+        /**
+         * Adds disk cache directory to RemoteTemplateLoader. Cached templates survive restarts and are served
+         * without waiting for the remote store.
+         * @param cacheDirectory cache directory.
+         * @return {@link Builder}.
+         */
+        public Self withCacheDirectory(final Path cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return (Self) this;
+        }
+
+        /**
+         * Adds refresh interval to RemoteTemplateLoader.
+         * @param refreshInterval interval in milliseconds after which a template is revalidated in the background.
+         * @return {@link Builder}.
+         */
+        public Self withRefreshInterval(final long refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return (Self) this;
+        }
+
+        /**
+         * Adds remote request timeout to RemoteTemplateLoader.
+         * @param timeout connect and read timeout in milliseconds.
+         * @return {@link Builder}.
+         */
+        public Self withTimeout(final int timeout) {
+            this.timeout = timeout;
+            return (Self) this;
+        }
+
+        /**
+         * Adds a header sent with every remote request to RemoteTemplateLoader.
+         * @param name header name.
+         * @param value header value.
+         * @return {@link Builder}.
+         */
+        public Self addRequestHeader(final String name, final String value) {
+            this.requestHeaders.put(name, value);
+            return (Self) this;
+        }
+
+        /**
+         * Adds template enumerator supplier to RemoteTemplateLoader.
+         * @param templateEnumeratorSupplier template enumerator supplier.
+         * @return {@link Builder}.
+         */
+        public Self withTemplateEnumeratorSupplier(final BiFunction<String, Input, TemplateEnumerator<Input>> templateEnumeratorSupplier) {
+            this.templateEnumeratorSupplier = templateEnumeratorSupplier;
+            return (Self) this;
+        }
+
+        /**
+         * Adds executor running background refreshes to RemoteTemplateLoader. The executor is not shut down when the
+         * loader is closed.
+         * @param refreshExecutor refresh executor.
+         * @return {@link Builder}.
+         */
+        public Self withRefreshExecutor(final ExecutorService refreshExecutor) {
+            this.refreshExecutor = refreshExecutor;
+            return (Self) this;
+        }
+
+        /**
+         * Builder method to build AbstractRemoteTemplateLoader with the provided config.
+         * @return {@link AbstractRemoteTemplateLoader}.
+         */
+        public abstract AbstractRemoteTemplateLoader<Input> build();
+    }
+
+}
@@ -153,13 +153,18 @@ public class ConcurrentLRUTemplateCache implements TemplateCache {
                 LOGGER.warn(String.format("No caching for template with size: %s larger than total capacity: %s.", size, capacity));
                 return;
             }
-            if (templateDataMap.containsKey(identifier)) {
+            AccessOrderedTemplateContentData replaced = templateDataMap.remove(identifier);
+            if (replaced != null) {
                 LOGGER.info(String.format("Try to put the same template with identifier: %s into cache, removing duplicate entry in queue.",
                         identifier));
-                templateOrderQueue.remove(templateDataMap.get(identifier));
+                templateOrderQueue.remove(replaced);
+                deductAndGet(replaced.getTemplateContentData().getTemplateContent().length);
             }
             while (size + capacityCounter.get() > capacity) {
                 AccessOrderedTemplateContentData eldest = templateOrderQueue.poll();
+                if (eldest == null) {
+                    break;
+                }
                 TemplateContentData eldestTemplate = eldest.getTemplateContentData();
                 templateDataMap.remove(eldestTemplate.getIdentifier());
                 deductAndGet(eldestTemplate.getTemplateContent().length);
@@ -200,6 +205,23 @@ public class ConcurrentLRUTemplateCache implements TemplateCache {
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    synchronized public void remove(final String identifier) {
+        Object lock = locksMap.get(identifier);
+        if (lock != null) {
+            synchronized (lock) {
+                AccessOrderedTemplateContentData data = templateDataMap.remove(identifier);
+                if (data != null) {
+                    templateOrderQueue.remove(data);
+                    deductAndGet(data.getTemplateContentData().getTemplateContent().length);
+                }
+            }
+        }
+    }
+
     /**
      * Validates a cache entry.
      * @param data Template content data.
@@ -0,0 +1,221 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template.loader.impl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.amazon.ask.response.template.TemplateContentData;
+import com.amazon.ask.response.template.loader.TemplateCache;
+import com.amazon.ask.util.ValidationUtils;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Watches a template directory on the local file system and keeps the matching {@link TemplateCache} entries
+ * up to date, so template changes are picked up without waiting for cache entries to expire.
+ * Created and modified templates already in the cache are reloaded, deleted templates are removed from the cache.
+ * Templates not in the cache are left to be loaded on first use, so bulk changes such as a checkout don't fill the cache
+ * with templates that are never rendered and evict the ones that are.
+ */
+public class TemplateDirectoryWatcher implements Closeable {
+
+    /**
+     * Logger for logging information for debugging purposes.
+     */
+    private static final Logger LOGGER = getLogger(TemplateDirectoryWatcher.class);
+
+    /**
+     * File extension delimiter.
+     */
+    private static final String FILE_EXTENSION_DELIMITER = ".";
+
+    /**
+     * Root template directory being watched.
+     */
+    protected final Path rootDirectory;
+
+    /**
+     * Only files with this extension are treated as templates.
+     */
+    protected final String fileExtension;
+
+    /**
+     * Template base directory set on reloaded {@link TemplateContentData}.
+     */
+    protected final String templateBaseDir;
+
+    /**
+     * Cache refreshed on template changes.
+     */
+    protected final TemplateCache templateCache;
+
+    /**
+     * Underlying watch service.
+     */
+    private final WatchService watchService;
+
+    /**
+     * Registered watch keys mapped to the directory they watch.
+     */
+    private final Map<WatchKey, Path> watchedDirectories;
+
+    /**
+     * Thread polling the watch service.
+     */
+    private final Thread watcherThread;
+
+    /**
+     * Constructor for TemplateDirectoryWatcher. Registers the root directory and all its sub directories.
+     * @param rootDirectory root template directory on the local file system.
+     * @param fileExtension template file extension.
+     * @param templateBaseDir template base directory set on reloaded templates.
+     * @param templateCache cache to refresh.
+     * @throws IOException if unable to register the directories.
+     */
+    public TemplateDirectoryWatcher(final Path rootDirectory, final String fileExtension, final String templateBaseDir,
+                                    final TemplateCache templateCache) throws IOException {
+        this.rootDirectory = ValidationUtils.assertNotNull(rootDirectory, "rootDirectory");
+        this.fileExtension = ValidationUtils.assertNotNull(fileExtension, "fileExtension");
+        this.templateBaseDir = ValidationUtils.assertNotNull(templateBaseDir, "templateBaseDir");
+        this.templateCache = ValidationUtils.assertNotNull(templateCache, "templateCache");
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchedDirectories = new ConcurrentHashMap<>();
+        registerAll(rootDirectory);
+        this.watcherThread = new Thread(this::processEvents, "ask-sdk-template-watcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching for template changes on a background daemon thread.
+     */
+    public void start() {
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching for template changes.
+     * @throws IOException if unable to close the watch service.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Polls the watch service until it is closed.
+     */
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Path directory = watchedDirectories.get(key);
+            if (directory != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    try {
+                        handleEvent(directory, event);
+                    } catch (RuntimeException e) {
+                        // keep watching, the affected template is picked up on cache expiry
+                        LOGGER.error(String.format("Fail to apply template change event: %s for directory: %s with error: %s",
+                                event.kind(), directory, e.getMessage()));
+                    }
+                }
+            }
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Applies a single file system event to the template cache.
+     * @param directory directory the event was raised for.
+     * @param event file system event.
+     */
+    private void handleEvent(final Path directory, final WatchEvent<?> event) {
+        WatchEvent.Kind<?> kind = event.kind();
+        if (kind == StandardWatchEventKinds.OVERFLOW) {
+            LOGGER.warn(String.format("Template change events lost for directory: %s, changes are picked up on cache expiry.", directory));
+            return;
+        }
+        Path path = directory.resolve((Path) event.context());
+        if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+            try {
+                registerAll(path);
+            } catch (IOException e) {
+                LOGGER.error(String.format("Fail to watch template directory: %s with error: %s", path, e.getMessage()));
+            }
+            return;
+        }
+        if (!path.getFileName().toString().endsWith(FILE_EXTENSION_DELIMITER + fileExtension)) {
+            return;
+        }
+        String identifier = TemplateFileReader.toIdentifier(path);
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            templateCache.remove(identifier);
+            LOGGER.debug(String.format("Template: %s deleted, removed from cache.", identifier));
+            return;
+        }
+        if (templateCache.get(identifier) == null) {
+            return;
+        }
+        try {
+            TemplateContentData templateContentData = TemplateContentData.builder()
+                    .withIdentifier(identifier)
+                    .withTemplateContent(TemplateFileReader.readFile(path))
+                    .withTemplateBaseDir(templateBaseDir)
+                    .build();
+            templateCache.put(identifier, templateContentData);
+            LOGGER.debug(String.format("Template: %s changed, refreshed cache entry.", identifier));
+        } catch (IOException e) {
+            templateCache.remove(identifier);
+            LOGGER.warn(String.format("Fail to reload template: %s with error: %s, removed from cache.", identifier, e.getMessage()));
+        }
+    }
+
+    /**
+     * Registers the given directory and all its sub directories with the watch service.
+     * @param directory directory to register.
+     * @throws IOException if unable to walk or register the directory.
+     */
+    private void registerAll(final Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, path);
+            }
+        }
+    }
+
+}
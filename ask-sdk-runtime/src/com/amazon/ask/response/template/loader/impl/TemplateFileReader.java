@@ -0,0 +1,80 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.response.template.loader.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Utilities to read complete template content from a stream or a file on the local file system.
+ */
+final class TemplateFileReader {
+
+    /**
+     * Initial buffer size used when the stream cannot report its size.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 8;
+
+    /** Prevent instantiation. */
+    private TemplateFileReader() { }
+
+    /**
+     * Reads the stream until end of stream is reached and returns an array sized exactly to the content.
+     * {@link InputStream#available()} is only used as a sizing hint, since it may under report for jar entries.
+     *
+     * @param inputStream input stream.
+     * @return complete content of the stream.
+     * @throws IOException if unable to read the stream.
+     */
+    static byte[] readFully(final InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[Math.max(inputStream.available() + 1, DEFAULT_BUFFER_SIZE)];
+        int length = 0;
+        int read;
+        while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.multiplyExact(buffer.length, 2));
+            }
+        }
+        return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Reads a file into an array sized exactly to the file. The file is read once through a single channel, so a file
+     * truncated or rewritten while being read, such as by an editor saving it, fails with an {@link IOException}
+     * or yields its content at some point in time.
+     *
+     * @param path file path.
+     * @return complete content of the file.
+     * @throws IOException if unable to read the file.
+     */
+    static byte[] readFile(final Path path) throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    /**
+     * Builds the template identifier of a file on the local file system. Matches the identifier derived from
+     * a class loader resource URL pointing to the same file.
+     *
+     * @param path file path.
+     * @return template identifier.
+     */
+    static String toIdentifier(final Path path) {
+        return path.toAbsolutePath().normalize().toFile().toURI().toString();
+    }
+
+}
@@ -13,8 +13,12 @@
 
 package com.amazon.ask.util;
 
+import com.amazon.ask.exception.AskSdkException;
 import com.amazon.ask.request.UnmarshalledRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 /**
@@ -31,4 +35,24 @@ public interface JsonUnmarshaller<Type> {
      */
     Optional<UnmarshalledRequest<Type>> unmarshall(byte[] in);
 
+    /**
+     * Unmarshalls a given input stream, reading it until its end. Unmarshallers able to parse the stream in place
+     * override this method, by default the stream is read into a byte array first.
+     * @param in input stream.
+     * @return {@link Optional} of {@link UnmarshalledRequest}.
+     */
+    default Optional<UnmarshalledRequest<Type>> unmarshall(final InputStream in) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new AskSdkException("Deserialization error", e);
+        }
+        return unmarshall(out.toByteArray());
+    }
+
 }
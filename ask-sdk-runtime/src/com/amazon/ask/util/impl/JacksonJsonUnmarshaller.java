@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -109,30 +110,53 @@ public class JacksonJsonUnmarshaller<Type> implements JsonUnmarshaller<Type> {
     @Override
     public Optional<UnmarshalledRequest<Type>> unmarshall(final byte[] in) {
         try {
-            JsonNode json = MAPPER.readTree(in);
-            if (discriminatorPath != null) {
-                JsonNode discriminatorNode = json;
-                for (String path : discriminatorPath) {
-                    discriminatorNode = discriminatorNode.path(path);
-                    if (discriminatorNode.isMissingNode()) {
-                        return Optional.empty();
-                    }
-                }
+            return unmarshallTree(MAPPER.readTree(in));
+        } catch (IOException e) {
+            throw new AskSdkException("Deserialization error", e);
+        }
+    }
 
-                if (!discriminatorNode.isTextual()) {
-                    throw new AskSdkException("Discriminator property is not text type");
-                }
+    /**
+     * Parses the stream in place, without copying it into a byte array first.
+     *
+     * {@inheritDoc}.
+     */
+    @Override
+    public Optional<UnmarshalledRequest<Type>> unmarshall(final InputStream in) {
+        try {
+            return unmarshallTree(MAPPER.readTree(in));
+        } catch (IOException e) {
+            throw new AskSdkException("Deserialization error", e);
+        }
+    }
 
-                String discriminatorValue = discriminatorNode.asText();
-                if (validTypes != null && !validTypes.containsKey(discriminatorValue)) {
+    /**
+     * Unmarshalls a parsed JSON tree, if its discriminator designates a valid type.
+     * @param json parsed JSON tree.
+     * @return {@link Optional} of {@link UnmarshalledRequest}.
+     * @throws IOException if the tree cannot be bound to the output type.
+     */
+    private Optional<UnmarshalledRequest<Type>> unmarshallTree(final JsonNode json) throws IOException {
+        if (discriminatorPath != null) {
+            JsonNode discriminatorNode = json;
+            for (String path : discriminatorPath) {
+                discriminatorNode = discriminatorNode.path(path);
+                if (discriminatorNode.isMissingNode()) {
                     return Optional.empty();
                 }
             }
-            UnmarshalledRequest<Type> unmarshalledRequest = new BaseUnmarshalledRequest<>(MAPPER.treeToValue(json, outputType), json);
-            return Optional.of(unmarshalledRequest);
-        } catch (IOException e) {
-            throw new AskSdkException("Deserialization error", e);
+
+            if (!discriminatorNode.isTextual()) {
+                throw new AskSdkException("Discriminator property is not text type");
+            }
+
+            String discriminatorValue = discriminatorNode.asText();
+            if (validTypes != null && !validTypes.containsKey(discriminatorValue)) {
+                return Optional.empty();
+            }
         }
+        UnmarshalledRequest<Type> unmarshalledRequest = new BaseUnmarshalledRequest<>(MAPPER.treeToValue(json, outputType), json);
+        return Optional.of(unmarshalledRequest);
     }
 
 }
@@ -0,0 +1,57 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.request;
+
+import com.amazon.ask.exception.DeadlineExceededException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineTest {
+
+    @Test
+    public void remaining_time_counts_down() {
+        Deadline deadline = Deadline.afterMillis(10000);
+        long remaining = deadline.getRemainingMillis();
+        assertTrue(remaining > 9000 && remaining <= 10000);
+        assertFalse(deadline.isExpired());
+    }
+
+    @Test
+    public void margin_moves_deadline_earlier() {
+        Deadline deadline = Deadline.afterMillis(10000).minusMillis(4000);
+        long remaining = deadline.getRemainingMillis();
+        assertTrue(remaining > 5000 && remaining <= 6000);
+    }
+
+    @Test
+    public void expired_deadline_has_no_remaining_time() {
+        Deadline deadline = Deadline.afterMillis(100).minusMillis(200);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.getRemainingMillis());
+    }
+
+    @Test
+    public void check_passes_before_expiry() {
+        Deadline.afterMillis(10000).check("operation");
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void check_throws_after_expiry() {
+        Deadline.afterMillis(0).check("operation");
+    }
+
+}
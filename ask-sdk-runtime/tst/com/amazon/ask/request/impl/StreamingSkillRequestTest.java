@@ -0,0 +1,75 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.request.impl;
+
+import com.amazon.ask.exception.AskSdkException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StreamingSkillRequestTest {
+
+    private static final byte[] PAYLOAD = "{\"request\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void stream_handed_out_to_be_read_in_place() {
+        InputStream input = new ByteArrayInputStream(PAYLOAD);
+        assertSame(input, new StreamingSkillRequest(input, null).getRequestStream());
+    }
+
+    @Test
+    public void raw_request_read_from_stream_once() {
+        StreamingSkillRequest request = new StreamingSkillRequest(new ByteArrayInputStream(PAYLOAD), null);
+        byte[] rawRequest = request.getRawRequest();
+        assertArrayEquals(PAYLOAD, rawRequest);
+        assertSame(rawRequest, request.getRawRequest());
+    }
+
+    @Test
+    public void stream_read_from_memory_after_raw_request_retrieved() throws IOException {
+        StreamingSkillRequest request = new StreamingSkillRequest(new ByteArrayInputStream(PAYLOAD), null);
+        request.getRawRequest();
+        InputStream stream = request.getRequestStream();
+        byte[] read = new byte[PAYLOAD.length];
+        assertEquals(PAYLOAD.length, stream.read(read));
+        assertArrayEquals(PAYLOAD, read);
+    }
+
+    @Test(expected = AskSdkException.class)
+    public void stream_handed_out_once() {
+        StreamingSkillRequest request = new StreamingSkillRequest(new ByteArrayInputStream(PAYLOAD), null);
+        request.getRequestStream();
+        request.getRequestStream();
+    }
+
+    @Test(expected = AskSdkException.class)
+    public void raw_request_unavailable_after_stream_consumed() {
+        StreamingSkillRequest request = new StreamingSkillRequest(new ByteArrayInputStream(PAYLOAD), null);
+        request.getRequestStream();
+        request.getRawRequest();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void null_stream_throws_exception() {
+        new StreamingSkillRequest(null, null);
+    }
+
+}
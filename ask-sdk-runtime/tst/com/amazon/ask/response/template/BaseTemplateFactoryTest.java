@@ -17,6 +17,7 @@ import com.amazon.ask.exception.template.TemplateFactoryException;
 import com.amazon.ask.exception.template.TemplateLoaderException;
 import com.amazon.ask.exception.template.TemplateRendererException;
 import com.amazon.ask.response.template.impl.BaseTemplateFactory;
+import com.amazon.ask.response.template.impl.RenderedOutputCache;
 import com.amazon.ask.response.template.loader.TemplateLoader;
 import com.amazon.ask.response.template.renderer.TemplateRenderer;
 import com.amazon.ask.sdk.TestHandlerInput;
@@ -31,11 +32,13 @@ import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -140,4 +143,80 @@ public class BaseTemplateFactoryTest {
         verify(mockRenderer).render(mockTemplateContentData, dataMap);
     }
 
+    @Test
+    public void process_cacheable_template_renders_once_for_same_data() {
+        TemplateContentData templateContentData = buildTemplateContentData();
+        when(mockLoader.load(anyString(), any())).thenReturn(Optional.of(templateContentData));
+        when(mockRenderer.render(any(TemplateContentData.class), anyMap())).thenReturn(buildOutput("rendered"));
+        TemplateFactory<TestHandlerInput, TestHandlerOutput> templateFactory = buildCachingFactory();
+        Map<String, Object> data = new HashMap<>();
+        data.put("key", "value");
+        TestHandlerOutput first = templateFactory.processTemplate(responseTemplateName, data, mockInput);
+        TestHandlerOutput second = templateFactory.processTemplate(responseTemplateName, new HashMap<>(data), mockInput);
+        assertEquals("rendered", first.getResponse());
+        assertEquals("rendered", second.getResponse());
+        assertNotSame(first, second);
+        verify(mockLoader, times(2)).load(responseTemplateName, mockInput);
+        verify(mockRenderer, times(1)).render(templateContentData, data);
+    }
+
+    @Test
+    public void process_cacheable_template_renders_again_for_different_data() {
+        TemplateContentData templateContentData = buildTemplateContentData();
+        when(mockLoader.load(anyString(), any())).thenReturn(Optional.of(templateContentData));
+        when(mockRenderer.render(any(TemplateContentData.class), anyMap())).thenReturn(buildOutput("rendered"));
+        TemplateFactory<TestHandlerInput, TestHandlerOutput> templateFactory = buildCachingFactory();
+        Map<String, Object> otherData = new HashMap<>();
+        otherData.put("key", "other");
+        templateFactory.processTemplate(responseTemplateName, dataMap, mockInput);
+        templateFactory.processTemplate(responseTemplateName, otherData, mockInput);
+        verify(mockRenderer, times(2)).render(any(TemplateContentData.class), anyMap());
+    }
+
+    @Test
+    public void process_cacheable_template_renders_again_for_reloaded_template() {
+        when(mockLoader.load(anyString(), any()))
+                .thenReturn(Optional.of(buildTemplateContentData()))
+                .thenReturn(Optional.of(buildTemplateContentData()));
+        when(mockRenderer.render(any(TemplateContentData.class), anyMap())).thenReturn(buildOutput("rendered"));
+        TemplateFactory<TestHandlerInput, TestHandlerOutput> templateFactory = buildCachingFactory();
+        templateFactory.processTemplate(responseTemplateName, dataMap, mockInput);
+        templateFactory.processTemplate(responseTemplateName, dataMap, mockInput);
+        verify(mockRenderer, times(2)).render(any(TemplateContentData.class), anyMap());
+    }
+
+    @Test
+    public void process_non_cacheable_template_always_renders() {
+        TemplateContentData templateContentData = buildTemplateContentData();
+        when(mockLoader.load(anyString(), any())).thenReturn(Optional.of(templateContentData));
+        when(mockRenderer.render(any(TemplateContentData.class), anyMap())).thenReturn(buildOutput("rendered"));
+        TemplateFactory<TestHandlerInput, TestHandlerOutput> templateFactory = buildCachingFactory();
+        templateFactory.processTemplate("otherTemplateName", dataMap, mockInput);
+        templateFactory.processTemplate("otherTemplateName", dataMap, mockInput);
+        verify(mockRenderer, times(2)).render(templateContentData, dataMap);
+    }
+
+    private TemplateFactory<TestHandlerInput, TestHandlerOutput> buildCachingFactory() {
+        return BaseTemplateFactory.forTypes(TestHandlerInput.class, TestHandlerOutput.class)
+                .addTemplateLoader(mockLoader)
+                .withTemplateRenderer(mockRenderer)
+                .withRenderedOutputCache(RenderedOutputCache.<TestHandlerOutput>builder().withMaxEntries(10).build())
+                .addCacheableTemplate(responseTemplateName)
+                .build();
+    }
+
+    private TemplateContentData buildTemplateContentData() {
+        return TemplateContentData.builder()
+                .withIdentifier(templateIdentifier)
+                .withTemplateContent(new byte[0])
+                .withTemplateBaseDir("basedir")
+                .build();
+    }
+
+    private TestHandlerOutput buildOutput(final String response) {
+        TestHandlerOutput output = new TestHandlerOutput();
+        output.setResponse(response);
+        return output;
+    }
+
 }
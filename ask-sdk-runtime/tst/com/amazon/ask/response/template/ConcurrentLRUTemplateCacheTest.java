@@ -92,4 +92,38 @@ public class ConcurrentLRUTemplateCacheTest {
         assertEquals(cache.getCurrentCapacity(), 0);
     }
 
+    @Test
+    public void remove_template_verify_capacity_counter() {
+        cache.put(IDENTIFIER, smallTemplate);
+        assertNotEquals(cache.getCurrentCapacity(), 0);
+        cache.remove(IDENTIFIER);
+        assertTrue(cache.isEmpty());
+        assertNull(cache.get(IDENTIFIER));
+        assertEquals(cache.getCurrentCapacity(), 0);
+    }
+
+    @Test
+    public void put_same_template_repeatedly_verify_capacity_counter() {
+        ConcurrentLRUTemplateCache cache = ConcurrentLRUTemplateCache.builder().withCapacity(100).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(IDENTIFIER, smallTemplate);
+        }
+        assertEquals(cache.size(), 1);
+        assertEquals(cache.getCurrentCapacity(), 10);
+        assertEquals(cache.get(IDENTIFIER), smallTemplate);
+    }
+
+    @Test
+    public void put_replacing_template_verify_capacity_counter() {
+        cache.put(IDENTIFIER, smallTemplate);
+        TemplateContentData reloadedTemplate = TemplateContentData.builder()
+                .withIdentifier(IDENTIFIER)
+                .withTemplateContent(new byte[25])
+                .withTemplateBaseDir(BASE_DIR)
+                .build();
+        cache.put(IDENTIFIER, reloadedTemplate);
+        assertEquals(cache.getCurrentCapacity(), 25);
+        assertEquals(cache.get(IDENTIFIER), reloadedTemplate);
+    }
+
 }
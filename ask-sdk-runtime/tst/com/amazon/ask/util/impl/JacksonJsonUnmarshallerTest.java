@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -72,6 +73,20 @@ public class JacksonJsonUnmarshallerTest extends BaseUnmarshallerTest {
         assertEquals(json.get("header").get("type").asText(), "foo.member");
     }
 
+    @Test
+    public void stream_unmarshalled_in_place() {
+        Optional<UnmarshalledRequest<BaseFoo>> unmarshalledRequest =
+                jsonUnmarshaller.unmarshall(new ByteArrayInputStream(getPayload("type", "foo.member")));
+        BaseFoo fooType = unmarshalledRequest.get().getUnmarshalledRequest();
+        assertEquals(fooType.getFoo().getValidField(), "foo");
+        assertEquals(unmarshalledRequest.get().getRequestJson().get("header").get("type").asText(), "foo.member");
+    }
+
+    @Test
+    public void stream_discriminator_not_in_subtypes_returns_empty() {
+        assertEquals(jsonUnmarshaller.unmarshall(new ByteArrayInputStream(getPayload("type", "foo.invalid"))), Optional.empty());
+    }
+
     private byte[] getPayload(String discriminatorProperty, String discriminatorValue) {
         String payload = String.format("{\"foo\":{\"validField\":\"foo\"}, \"header\":{\"%s\":\"%s\"}}", discriminatorProperty, discriminatorValue);
         return payload.getBytes();
@@ -0,0 +1,45 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.exception;
+
+/**
+ * Exception thrown by a {@link com.amazon.ask.servlet.bulkhead.SkillBulkhead} when a request is rejected because
+ * the skill is handling as many requests as it is allowed to and its queue is full or the request waited too long.
+ */
+public class SkillOverloadedException extends AskSdkException {
+
+    /**
+     * Number of seconds after which the request may be retried.
+     */
+    private final int retryAfterSeconds;
+
+    /**
+     * Constructor to build an instance of {@link SkillOverloadedException}.
+     * @param message description of the rejection.
+     * @param retryAfterSeconds number of seconds after which the request may be retried.
+     */
+    public SkillOverloadedException(final String message, final int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Returns the number of seconds after which the request may be retried.
+     * @return number of seconds.
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
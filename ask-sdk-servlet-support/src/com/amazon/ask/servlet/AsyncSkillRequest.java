@@ -0,0 +1,328 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.servlet;
+
+import com.amazon.ask.exception.AskSdkException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A skill request handled by the {@link SkillServlet} in asynchronous mode.
+ *
+ * The request body is read with a {@link ReadListener} as it arrives, the request is verified and dispatched on an
+ * executor, and the response is written with a {@link WriteListener} as the client accepts it, so no container
+ * thread waits on the client or the skill. Whichever of the response and the timeout comes first answers the
+ * request. Request bodies larger than the maximum size are answered with a 413 status code as soon as the limit
+ * is exceeded.
+ */
+final class AsyncSkillRequest implements ReadListener, WriteListener, AsyncListener {
+
+    /**
+     * Logger mechanism to log data for debugging purposes.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncSkillRequest.class);
+
+    /**
+     * Size of the chunks the request is read and the response written in.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Servlet verifying and dispatching the request.
+     */
+    private final SkillServlet servlet;
+
+    /**
+     * Request to handle.
+     */
+    private final HttpServletRequest request;
+
+    /**
+     * Response to the request.
+     */
+    private final HttpServletResponse response;
+
+    /**
+     * Executor verifying and dispatching the request.
+     */
+    private final Executor executor;
+
+    /**
+     * Maximum size in bytes of the request body.
+     */
+    private final int maxBodyBytes;
+
+    /**
+     * Request body read so far.
+     */
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(CHUNK_SIZE);
+
+    /**
+     * Buffer the request body is read into.
+     */
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+
+    /**
+     * Set once the request is being answered, by its response, an error or the timeout.
+     */
+    private final AtomicBoolean answered = new AtomicBoolean();
+
+    /**
+     * Asynchronous context of the request.
+     */
+    private AsyncContext asyncContext;
+
+    /**
+     * Stream the request body is read from.
+     */
+    private ServletInputStream input;
+
+    /**
+     * Stream the response is written to.
+     */
+    private ServletOutputStream output;
+
+    /**
+     * Serialized response.
+     */
+    private byte[] serializedResponse;
+
+    /**
+     * Number of response bytes written so far.
+     */
+    private int written;
+
+    /**
+     * Constructs an asynchronous skill request.
+     *
+     * @param servlet servlet verifying and dispatching the request
+     * @param request request to handle
+     * @param response response to the request
+     * @param executor executor verifying and dispatching the request
+     * @param maxBodyBytes maximum size in bytes of the request body
+     */
+    AsyncSkillRequest(final SkillServlet servlet, final HttpServletRequest request, final HttpServletResponse response,
+                      final Executor executor, final int maxBodyBytes) {
+        this.servlet = servlet;
+        this.request = request;
+        this.response = response;
+        this.executor = executor;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Puts the request into asynchronous mode and starts reading its body.
+     *
+     * @param timeoutMillis time in milliseconds after which the request is answered with an error
+     * @throws IOException if the request body cannot be read
+     */
+    void start(final long timeoutMillis) throws IOException {
+        asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMillis);
+        asyncContext.addListener(this);
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            rejectTooLarge();
+            return;
+        }
+        input = request.getInputStream();
+        input.setReadListener(this);
+    }
+
+    /**
+     * Reads the available part of the request body, answering the request with a 413 status code once the body
+     * exceeds the maximum size.
+     *
+     * @throws IOException if the request body cannot be read
+     */
+    @Override
+    public void onDataAvailable() throws IOException {
+        int read;
+        while (!answered.get() && input.isReady() && (read = input.read(buffer)) != -1) {
+            if (body.size() + read > maxBodyBytes) {
+                rejectTooLarge();
+                return;
+            }
+            body.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Answers the request with a 413 status code if it wasn't answered yet.
+     */
+    private void rejectTooLarge() {
+        if (fail(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body too large")) {
+            LOGGER.warn("Request body exceeds the maximum size, returning status code {}", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        }
+    }
+
+    /**
+     * Dispatches the request once its body was read, unless it was already answered.
+     */
+    @Override
+    public void onAllDataRead() {
+        if (answered.get()) {
+            return;
+        }
+        try {
+            executor.execute(this::dispatch);
+        } catch (RejectedExecutionException ex) {
+            LOGGER.warn("Rejected skill request, executor is saturated", ex);
+            fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Skill request rejected");
+        }
+    }
+
+    /**
+     * Verifies and dispatches the request, then starts writing the response.
+     */
+    private void dispatch() {
+        try {
+            byte[] result = servlet.verifyAndDispatch(request, body.toByteArray());
+            if (!answered.compareAndSet(false, true)) {
+                LOGGER.debug("Discarding response of skill request answered by its timeout");
+                return;
+            }
+            serializedResponse = result;
+            response.setContentType("application/json");
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentLength(serializedResponse.length);
+            output = response.getOutputStream();
+            output.setWriteListener(this);
+        } catch (SecurityException | AskSdkException ex) {
+            if (answered.compareAndSet(false, true)) {
+                try {
+                    SkillServlet.sendError(response, ex);
+                } catch (IOException ioEx) {
+                    LOGGER.error("Unable to send error response", ioEx);
+                }
+                asyncContext.complete();
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error("Exception occurred handling skill request asynchronously", ex);
+            fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Unable to handle skill request");
+        }
+    }
+
+    /**
+     * Writes the part of the response the client is ready to accept, completing the request once all of it was
+     * written.
+     *
+     * @throws IOException if the response cannot be written
+     */
+    @Override
+    public void onWritePossible() throws IOException {
+        while (output.isReady()) {
+            if (written >= serializedResponse.length) {
+                asyncContext.complete();
+                return;
+            }
+            int length = Math.min(CHUNK_SIZE, serializedResponse.length - written);
+            output.write(serializedResponse, written, length);
+            written += length;
+        }
+    }
+
+    /**
+     * Handles a failure to read the request or write the response.
+     *
+     * @param t failure
+     */
+    @Override
+    public void onError(final Throwable t) {
+        LOGGER.error("I/O error handling skill request asynchronously", t);
+        if (!fail(HttpServletResponse.SC_BAD_REQUEST, "Unable to read skill request")) {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * Answers the request with an error if it wasn't answered yet.
+     *
+     * @param statusCode status code of the error response
+     * @param message error message
+     * @return true if the request was answered with the error
+     */
+    private boolean fail(final int statusCode, final String message) {
+        if (!answered.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            response.sendError(statusCode, message);
+        } catch (IOException | IllegalStateException ex) {
+            LOGGER.error("Unable to send error response", ex);
+        }
+        asyncContext.complete();
+        return true;
+    }
+
+    /**
+     * Answers the request with a 503 status code if it wasn't answered within the timeout. A request already being
+     * answered is left to complete on its own, so a response being written is not cut off.
+     *
+     * @param event asynchronous event
+     */
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+        if (!answered.compareAndSet(false, true)) {
+            return;
+        }
+        LOGGER.error("Skill request timed out, returning status code {}", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        try {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Skill request timed out");
+        } catch (IOException | IllegalStateException ex) {
+            LOGGER.error("Unable to send error response", ex);
+        }
+        asyncContext.complete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onComplete(final AsyncEvent event) {
+        // nothing to clean up
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onError(final AsyncEvent event) {
+        LOGGER.error("Error handling skill request asynchronously", event.getThrowable());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+        // not restarted
+    }
+
+}
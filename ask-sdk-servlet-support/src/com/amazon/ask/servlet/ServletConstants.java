@@ -114,5 +114,29 @@ public final class ServletConstants {
         "AlexaSkillEvent.SkillPermissionAccepted",
         "AlexaSkillEvent.SkillAccountLinked").collect(Collectors.toSet());
 
+    /**
+     * Declared cost of verifiers only inspecting the request, such as the timestamp verifier. Default cost of
+     * {@link com.amazon.ask.servlet.verifiers.SkillServletVerifier}s.
+     */
+    public static final int DEFAULT_VERIFIER_COST = 0;
+
+    /**
+     * Declared cost of verifiers running cryptographic checks or remote calls, such as the signature verifier.
+     * Verifiers of at least this cost run after all cheaper verifiers passed, and concurrently with a speculative
+     * dispatch if enabled on the {@link SkillServlet}.
+     */
+    public static final int EXPENSIVE_VERIFIER_COST = 100;
+
+    /**
+     * Default time in millis after which a request handled asynchronously by the {@link SkillServlet} is answered
+     * with an error.
+     */
+    public static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Default maximum size in bytes of a request body, larger requests are rejected with a 413 status code.
+     */
+    public static final int DEFAULT_MAX_REQUEST_BODY_BYTES = 1024 * 1024;
+
 
 }
@@ -27,14 +27,22 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.net.Proxy;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import com.amazon.ask.Skill;
 import com.amazon.ask.exception.AskSdkException;
+import com.amazon.ask.exception.SkillOverloadedException;
 import com.amazon.ask.model.RequestEnvelope;
 import com.amazon.ask.model.services.Serializer;
+import com.amazon.ask.request.SkillRequest;
 import com.amazon.ask.request.impl.BaseSkillRequest;
 import com.amazon.ask.response.SkillResponse;
+import com.amazon.ask.servlet.bulkhead.SkillBulkhead;
 import com.amazon.ask.servlet.util.ServletUtils;
 import com.amazon.ask.servlet.verifiers.AlexaHttpRequest;
 import com.amazon.ask.servlet.verifiers.ServletRequest;
@@ -43,6 +51,7 @@ import com.amazon.ask.servlet.verifiers.SkillRequestTimestampVerifier;
 import com.amazon.ask.servlet.verifiers.SkillServletVerifier;
 import com.amazon.ask.util.JacksonSerializer;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -88,6 +97,33 @@ public class SkillServlet extends HttpServlet {
      */
     private transient final Serializer serializer = new JacksonSerializer();
 
+    /**
+     * Executor unmarshalling requests speculatively while expensive verifiers run, or null to unmarshall requests
+     * only once verified.
+     */
+    private transient volatile Executor speculativeDispatchExecutor;
+
+    /**
+     * Executor dispatching requests read and written with non-blocking I/O, or null to handle requests on the
+     * container thread with blocking I/O.
+     */
+    private transient volatile Executor asyncDispatchExecutor;
+
+    /**
+     * Time in milliseconds after which a request handled asynchronously is answered with an error.
+     */
+    private transient volatile long asyncTimeoutMillis = ServletConstants.DEFAULT_ASYNC_TIMEOUT_MILLIS;
+
+    /**
+     * Maximum size in bytes of a request body.
+     */
+    private transient volatile int maxRequestBodyBytes = ServletConstants.DEFAULT_MAX_REQUEST_BODY_BYTES;
+
+    /**
+     * Bulkhead limiting the number of requests dispatched to the skill concurrently, or null for no limit.
+     */
+    private transient volatile SkillBulkhead bulkhead;
+
     /**
      * Constructor to build an instance of SkillServlet.
      * @param skill an Alexa skill instance.
@@ -102,6 +138,7 @@ public class SkillServlet extends HttpServlet {
                 ? timestampToleranceProperty : DEFAULT_TOLERANCE_MILLIS));
         this.skill = skill;
         this.verifiers = defaultVerifiers;
+        sortVerifiers();
     }
 
     /**
@@ -111,7 +148,8 @@ public class SkillServlet extends HttpServlet {
      */
     SkillServlet(final Skill skill, final List<SkillServletVerifier> verifiers) {
         this.skill = skill;
-        this.verifiers = verifiers;
+        this.verifiers = new ArrayList<>(verifiers);
+        sortVerifiers();
     }
 
     /**
@@ -125,42 +163,161 @@ public class SkillServlet extends HttpServlet {
     @Override
     protected void doPost(final HttpServletRequest request, final HttpServletResponse response)
             throws IOException {
-        byte[] serializedRequestEnvelope = IOUtils.toByteArray(request.getInputStream());
+        Executor executor = asyncDispatchExecutor;
+        int maxBodyBytes = maxRequestBodyBytes;
+        if (executor != null && request.isAsyncSupported()) {
+            new AsyncSkillRequest(this, request, response, executor, maxBodyBytes).start(asyncTimeoutMillis);
+            return;
+        }
+        byte[] serializedRequestEnvelope = IOUtils.toByteArray(new BoundedInputStream(request.getInputStream(), maxBodyBytes + 1L));
+        if (serializedRequestEnvelope.length > maxBodyBytes) {
+            sendRequestTooLarge(response);
+            return;
+        }
         try {
-            final RequestEnvelope deserializedRequestEnvelope = serializer.deserialize(IOUtils.toString(
-                    serializedRequestEnvelope, ServletConstants.CHARACTER_ENCODING), RequestEnvelope.class);
-
-            final AlexaHttpRequest alexaHttpRequest = new ServletRequest(request, serializedRequestEnvelope, deserializedRequestEnvelope);
+            byte[] serializedResponse = verifyAndDispatch(request, serializedRequestEnvelope);
 
-            // Verify the authenticity of the request by executing configured verifiers.
-            for (SkillServletVerifier verifier : verifiers) {
-                verifier.verify(alexaHttpRequest);
+            // Generate JSON and send back the response
+            response.setContentType("application/json");
+            response.setStatus(HttpServletResponse.SC_OK);
+            try (OutputStream out = response.getOutputStream()) {
+                response.setContentLength(serializedResponse.length);
+                out.write(serializedResponse);
             }
+        } catch (SecurityException | AskSdkException ex) {
+            sendError(response, ex);
+        }
+    }
 
-            try (ByteArrayOutputStream skillResponse = new ByteArrayOutputStream()) {
-                handleRequest(new ByteArrayInputStream(serializedRequestEnvelope), skillResponse);
-                // Generate JSON and send back the response
-                response.setContentType("application/json");
-                response.setStatus(HttpServletResponse.SC_OK);
-                byte[] serializedResponse = skillResponse.toByteArray();
-                if (skillResponse != null) {
-                    try (OutputStream out = response.getOutputStream()) {
-                        response.setContentLength(serializedResponse.length);
-                        out.write(serializedResponse);
-                    }
-                }
-            }
-        } catch (SecurityException ex) {
+    /**
+     * Verifies a request by executing the configured verifiers, cheapest first, and dispatches it to the skill.
+     *
+     * @param request the object that contains the request the client has made of the servlet
+     * @param serializedRequestEnvelope request envelope, in serialized form
+     * @return serialized response
+     * @throws IOException if the response cannot be written
+     * @throws SecurityException if verification fails
+     * @throws AskSdkException if the skill fails to handle the request
+     */
+    byte[] verifyAndDispatch(final HttpServletRequest request, final byte[] serializedRequestEnvelope)
+            throws IOException {
+        final RequestEnvelope deserializedRequestEnvelope = serializer.deserialize(IOUtils.toString(
+                serializedRequestEnvelope, ServletConstants.CHARACTER_ENCODING), RequestEnvelope.class);
+
+        final AlexaHttpRequest alexaHttpRequest = new ServletRequest(request, serializedRequestEnvelope, deserializedRequestEnvelope);
+
+        // Verify the authenticity of the request by executing configured verifiers, cheapest first.
+        int verified = 0;
+        while (verified < verifiers.size()
+                && verifiers.get(verified).getCost() < ServletConstants.EXPENSIVE_VERIFIER_COST) {
+            verifiers.get(verified++).verify(alexaHttpRequest);
+        }
+
+        Executor executor = speculativeDispatchExecutor;
+        if (executor != null && verified < verifiers.size()) {
+            return dispatchSpeculatively(serializedRequestEnvelope, alexaHttpRequest, verified, executor);
+        }
+        while (verified < verifiers.size()) {
+            verifiers.get(verified++).verify(alexaHttpRequest);
+        }
+        return dispatch(new BaseSkillRequest(serializedRequestEnvelope));
+    }
+
+    /**
+     * Sends the error response for a request that failed verification or could not be handled.
+     *
+     * @param response object that contains the response the servlet sends to the client
+     * @param ex failure, a {@link SecurityException} if verification failed or a {@link SkillOverloadedException}
+     *           if the request was rejected by the bulkhead
+     * @throws IOException if the error response cannot be sent
+     */
+    static void sendError(final HttpServletResponse response, final RuntimeException ex) throws IOException {
+        if (ex instanceof SkillOverloadedException) {
+            int statusCode = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+            LOGGER.warn("Skill is overloaded, returning status code {}", statusCode);
+            response.setHeader("Retry-After", String.valueOf(((SkillOverloadedException) ex).getRetryAfterSeconds()));
+            response.sendError(statusCode, ex.getMessage());
+        } else if (ex instanceof SecurityException) {
             int statusCode = HttpServletResponse.SC_BAD_REQUEST;
             LOGGER.error("Incoming request failed verification {}", statusCode, ex);
             response.sendError(statusCode, ex.getMessage());
-        } catch (AskSdkException ex) {
+        } else {
             int statusCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
             LOGGER.error("Exception occurred in doPost, returning status code {}", statusCode, ex);
             response.sendError(statusCode, ex.getMessage());
         }
     }
 
+    /**
+     * Sends the error response for a request whose body exceeds the maximum size.
+     *
+     * @param response object that contains the response the servlet sends to the client
+     * @throws IOException if the error response cannot be sent
+     */
+    private static void sendRequestTooLarge(final HttpServletResponse response) throws IOException {
+        int statusCode = HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+        LOGGER.warn("Request body exceeds the maximum size, returning status code {}", statusCode);
+        response.sendError(statusCode, "Request body too large");
+    }
+
+    /**
+     * Unmarshalls a request on the given executor while the remaining, expensive verifiers run on the calling
+     * thread, and dispatches it once verified. Unmarshalling has no side effects, no handler runs and no bulkhead
+     * permit is taken for a request failing verification.
+     *
+     * @param serializedRequestEnvelope request envelope, in serialized form
+     * @param alexaHttpRequest request to verify
+     * @param verified number of verifiers already run
+     * @param executor executor unmarshalling the request
+     * @return serialized response
+     * @throws IOException if the response cannot be written
+     */
+    private byte[] dispatchSpeculatively(final byte[] serializedRequestEnvelope, final AlexaHttpRequest alexaHttpRequest,
+                                         final int verified, final Executor executor) throws IOException {
+        CompletableFuture<SkillRequest> unmarshalledRequest = CompletableFuture.supplyAsync(
+                () -> skill.unmarshall(new BaseSkillRequest(serializedRequestEnvelope)), executor);
+        try {
+            for (int i = verified; i < verifiers.size(); i++) {
+                verifiers.get(i).verify(alexaHttpRequest);
+            }
+        } catch (RuntimeException ex) {
+            unmarshalledRequest.cancel(false);
+            throw ex;
+        }
+        SkillRequest skillRequest;
+        try {
+            skillRequest = unmarshalledRequest.join();
+        } catch (CompletionException | CancellationException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AskSdkException("Speculative unmarshalling failed", cause);
+        }
+        return dispatch(skillRequest);
+    }
+
+    /**
+     * Dispatches a verified request to the skill, within the permits of the bulkhead if one is set.
+     *
+     * @param skillRequest verified request
+     * @return serialized response
+     * @throws IOException if the response cannot be written
+     * @throws SkillOverloadedException if the request is rejected by the bulkhead
+     */
+    private byte[] dispatch(final SkillRequest skillRequest) throws IOException {
+        SkillBulkhead currentBulkhead = bulkhead;
+        SkillBulkhead.Permit permit = currentBulkhead != null ? currentBulkhead.acquire() : null;
+        try (ByteArrayOutputStream skillResponse = new ByteArrayOutputStream()) {
+            writeResponse(skill.execute(skillRequest), skillResponse);
+            return skillResponse.toByteArray();
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
     /**
      * This method is the entry point when executing your servlet. The configured
      * {@code SkillServlet} determines the type of request and passes the request to
@@ -173,7 +330,18 @@ public class SkillServlet extends HttpServlet {
     public final void handleRequest(final InputStream input, final OutputStream output) throws IOException {
         byte[] inputBytes = IOUtils.toByteArray(input);
         final BaseSkillRequest skillRequest = new BaseSkillRequest(inputBytes);
-        SkillResponse<?> skillResponse = skill.execute(skillRequest);
+        writeResponse(skill.execute(skillRequest), output);
+    }
+
+    /**
+     * Writes the response of the skill.
+     *
+     * @param skillResponse response of the skill, or null if no handler handled the request
+     * @param output output stream of the response
+     * @throws IOException if the response cannot be written
+     * @throws AskSdkException if no handler handled the request
+     */
+    private static void writeResponse(final SkillResponse<?> skillResponse, final OutputStream output) throws IOException {
         if (skillResponse != null) {
             if (skillResponse.isPresent()) {
                 skillResponse.writeTo(output);
@@ -193,9 +361,81 @@ public class SkillServlet extends HttpServlet {
     public void setProxy(final Proxy proxy) {
         if (verifiers.removeIf(verifier -> verifier instanceof SkillRequestSignatureVerifier)) {
             verifiers.add(new SkillRequestSignatureVerifier(proxy));
+            sortVerifiers();
         }
     }
 
+    /**
+     * Enables speculative dispatch: once all verifiers cheaper than
+     * {@link ServletConstants#EXPENSIVE_VERIFIER_COST} passed, the request is unmarshalled by the skill on the
+     * given executor while the expensive verifiers, such as request signature verification, run. The request is
+     * dispatched to the handlers of the skill only once verification succeeded, which saves the unmarshalling time
+     * on the latency of valid requests. Requests failing verification never reach a handler.
+     *
+     * @param executor executor unmarshalling requests speculatively, or null to disable speculative dispatch
+     */
+    public void setSpeculativeDispatchExecutor(final Executor executor) {
+        this.speculativeDispatchExecutor = executor;
+    }
+
+    /**
+     * Enables asynchronous mode: when the container supports asynchronous processing for this servlet, requests are
+     * read and responses written with Servlet 3.1 non-blocking I/O, so slow clients don't hold on to container
+     * threads, and requests are verified and dispatched on the given executor. Requests not answered within the
+     * {@link #setAsyncTimeout(long) timeout} receive a 503 status code. Requires a Servlet 3.1 container and the
+     * servlet to be registered with asynchronous support.
+     *
+     * @param executor executor verifying and dispatching requests, or null to disable asynchronous mode
+     */
+    public void setAsyncDispatchExecutor(final Executor executor) {
+        this.asyncDispatchExecutor = executor;
+    }
+
+    /**
+     * Sets the time after which a request handled asynchronously is answered with a 503 status code. Defaults to
+     * {@value ServletConstants#DEFAULT_ASYNC_TIMEOUT_MILLIS} milliseconds.
+     *
+     * @param timeoutMillis timeout in milliseconds
+     */
+    public void setAsyncTimeout(final long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Async timeout must be positive");
+        }
+        this.asyncTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Sets the maximum size of a request body. Larger requests are rejected with a 413 status code without being
+     * read further. Defaults to {@value ServletConstants#DEFAULT_MAX_REQUEST_BODY_BYTES} bytes.
+     *
+     * @param maxBytes maximum size of a request body in bytes
+     */
+    public void setMaxRequestBodySize(final int maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Max request body size must be positive");
+        }
+        this.maxRequestBodyBytes = maxBytes;
+    }
+
+    /**
+     * Sets a bulkhead limiting the number of requests dispatched to the skill concurrently. Requests beyond the
+     * limit wait in the bounded queue of the bulkhead, on the thread dispatching them, and requests it rejects
+     * receive a 503 status code with a Retry-After header. Use one bulkhead per skill so that a slow skill cannot
+     * take the threads of the other skills hosted in the same container.
+     *
+     * @param bulkhead bulkhead of the skill, or null to dispatch requests without limit
+     */
+    public void setBulkhead(final SkillBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Orders verifiers by ascending cost, keeping the registration order of verifiers of equal cost.
+     */
+    private void sortVerifiers() {
+        verifiers.sort(Comparator.comparingInt(SkillServletVerifier::getCost));
+    }
+
     /**
      * Method throws an {@link NotSerializableException} if the servlet is not serializable.
      * @param in instance of {@link ObjectInputStream}.
@@ -0,0 +1,126 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.bulkhead;
+
+/**
+ * Concurrency limit adapting to the latency of the requests it admits.
+ *
+ * The lowest latency observed over a window of samples serves as the latency of the skill when it is not
+ * overloaded. While the smoothed latency stays within {@link #LATENCY_TOLERANCE} times that baseline the limit grows,
+ * as long as requests actually use most of it. Beyond that, the limit shrinks in proportion to how far latency
+ * exceeds the tolerance. The limit always stays within its configured bounds. Not thread safe, callers synchronize.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    /**
+     * Weight of the latest sample in the smoothed latency.
+     */
+    static final double SMOOTHING = 0.1;
+
+    /**
+     * Ratio of smoothed latency to baseline latency up to which the skill is not considered overloaded.
+     */
+    static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Number of samples after which the baseline latency is measured again, so that it follows changes in the
+     * latency of the skill when not overloaded.
+     */
+    static final int BASELINE_WINDOW = 500;
+
+    /**
+     * Lower bound of the limit.
+     */
+    private final int minLimit;
+
+    /**
+     * Upper bound of the limit.
+     */
+    private final int maxLimit;
+
+    /**
+     * Current limit, fractional so that it can grow by less than one permit per sample.
+     */
+    private double limit;
+
+    /**
+     * Smoothed latency in nanoseconds, or a negative value before the first sample.
+     */
+    private double smoothedLatency = -1;
+
+    /**
+     * Baseline latency in nanoseconds.
+     */
+    private long baselineLatency = Long.MAX_VALUE;
+
+    /**
+     * Lowest latency in nanoseconds observed in the current window.
+     */
+    private long windowMinLatency = Long.MAX_VALUE;
+
+    /**
+     * Number of samples in the current window.
+     */
+    private int windowSamples;
+
+    /**
+     * Constructs an adaptive limit starting at its upper bound.
+     *
+     * @param minLimit lower bound of the limit
+     * @param maxLimit upper bound of the limit
+     */
+    AdaptiveConcurrencyLimit(final int minLimit, final int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return number of requests allowed to run concurrently
+     */
+    int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Updates the limit with the latency of a completed request.
+     *
+     * @param latencyNanos time in nanoseconds the request ran
+     * @param inFlight number of requests running when the request completed, including it
+     * @return updated limit
+     */
+    int onSample(final long latencyNanos, final int inFlight) {
+        long latency = Math.max(1, latencyNanos);
+        windowMinLatency = Math.min(windowMinLatency, latency);
+        baselineLatency = Math.min(baselineLatency, latency);
+        if (++windowSamples >= BASELINE_WINDOW) {
+            baselineLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        smoothedLatency = smoothedLatency < 0 ? latency : smoothedLatency + SMOOTHING * (latency - smoothedLatency);
+
+        double gradient = Math.min(1.0, LATENCY_TOLERANCE * baselineLatency / smoothedLatency);
+        if (gradient < 1.0) {
+            limit *= 1.0 - SMOOTHING * (1.0 - gradient);
+        } else if (inFlight * 2 >= limit) {
+            limit += 1.0 / Math.sqrt(limit);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit));
+        return getLimit();
+    }
+
+}
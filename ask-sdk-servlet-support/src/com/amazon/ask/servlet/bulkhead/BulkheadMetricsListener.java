@@ -0,0 +1,53 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.bulkhead;
+
+/**
+ * Receives the measurements of a {@link SkillBulkhead}. Time spent waiting for a permit is reported separately
+ * from time spent in the skill, so that queueing and slow handlers can be told apart. Methods are called on request
+ * threads and must not block.
+ */
+public interface BulkheadMetricsListener {
+
+    /**
+     * Called when a request is admitted.
+     *
+     * @param queueTimeNanos time in nanoseconds the request waited for a permit
+     */
+    default void onAdmitted(final long queueTimeNanos) { }
+
+    /**
+     * Called when a request is rejected.
+     *
+     * @param queueTimeNanos time in nanoseconds the request waited for a permit before being rejected, 0 if the
+     *                       queue was full
+     */
+    default void onRejected(final long queueTimeNanos) { }
+
+    /**
+     * Called when an admitted request releases its permit.
+     *
+     * @param handlerTimeNanos time in nanoseconds the request held its permit
+     */
+    default void onCompleted(final long handlerTimeNanos) { }
+
+    /**
+     * Called when the concurrency limit of an adaptive bulkhead changes.
+     *
+     * @param previousLimit previous concurrency limit
+     * @param newLimit new concurrency limit
+     */
+    default void onLimitChanged(final int previousLimit, final int newLimit) { }
+
+}
@@ -0,0 +1,474 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.bulkhead;
+
+import com.amazon.ask.exception.SkillOverloadedException;
+import com.amazon.ask.util.ValidationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of requests a skill handles concurrently, so that a skill slowed down by its backend cannot
+ * take all request threads of a server hosting several skills.
+ *
+ * Requests beyond the concurrency limit wait in a bounded queue for a bounded time. Requests arriving while the
+ * queue is full, or not admitted within the maximum queue wait, are rejected immediately with a
+ * {@link SkillOverloadedException}. The limit is either fixed or, if adaptive, adjusted between the minimum and
+ * maximum concurrency according to the latency of admitted requests, shrinking while latency rises under load.
+ */
+public final class SkillBulkhead {
+
+    /**
+     * Logger mechanism to log data for debugging purposes.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkillBulkhead.class);
+
+    /**
+     * Default maximum number of requests handled concurrently.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+
+    /**
+     * Default minimum number of requests an adaptive bulkhead handles concurrently.
+     */
+    public static final int DEFAULT_MIN_CONCURRENCY = 1;
+
+    /**
+     * Default maximum number of requests waiting for a permit.
+     */
+    public static final int DEFAULT_MAX_QUEUE_DEPTH = 16;
+
+    /**
+     * Default maximum time in milliseconds a request waits for a permit.
+     */
+    public static final long DEFAULT_MAX_QUEUE_WAIT_MILLIS = 1000;
+
+    /**
+     * Default number of seconds after which rejected requests may be retried.
+     */
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * Guards the counts and the limit.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a permit may have become available.
+     */
+    private final Condition permitAvailable = lock.newCondition();
+
+    /**
+     * Adaptive limit, or null if the limit is fixed.
+     */
+    private final AdaptiveConcurrencyLimit adaptiveLimit;
+
+    /**
+     * Maximum number of requests waiting for a permit.
+     */
+    private final int maxQueueDepth;
+
+    /**
+     * Maximum time in nanoseconds a request waits for a permit.
+     */
+    private final long maxQueueWaitNanos;
+
+    /**
+     * Number of seconds after which rejected requests may be retried.
+     */
+    private final int retryAfterSeconds;
+
+    /**
+     * Receives the measurements of the bulkhead.
+     */
+    private final BulkheadMetricsListener metricsListener;
+
+    /**
+     * Source of the current time in nanoseconds.
+     */
+    private final LongSupplier nanoClock;
+
+    /**
+     * Number of requests allowed to run concurrently.
+     */
+    private int limit;
+
+    /**
+     * Number of admitted requests that haven't released their permit.
+     */
+    private int inFlight;
+
+    /**
+     * Number of requests waiting for a permit.
+     */
+    private int queued;
+
+    /**
+     * Constructor for SkillBulkhead.
+     * @param builder instance of {@link Builder}.
+     */
+    private SkillBulkhead(final Builder builder) {
+        int maxConcurrency = ValidationUtils.assertIsPositive(builder.maxConcurrency, "max concurrency");
+        if (builder.adaptive) {
+            int minConcurrency = ValidationUtils.assertIsPositive(builder.minConcurrency, "min concurrency");
+            if (minConcurrency > maxConcurrency) {
+                throw new IllegalArgumentException("min concurrency must not exceed max concurrency");
+            }
+            this.adaptiveLimit = new AdaptiveConcurrencyLimit(minConcurrency, maxConcurrency);
+        } else {
+            this.adaptiveLimit = null;
+        }
+        if (builder.maxQueueDepth < 0) {
+            throw new IllegalArgumentException("max queue depth must not be negative");
+        }
+        if (builder.maxQueueWaitMillis < 0) {
+            throw new IllegalArgumentException("max queue wait must not be negative");
+        }
+        this.limit = maxConcurrency;
+        this.maxQueueDepth = builder.maxQueueDepth;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxQueueWaitMillis);
+        this.retryAfterSeconds = ValidationUtils.assertIsPositive(builder.retryAfterSeconds, "retry after seconds");
+        this.metricsListener = builder.metricsListener != null ? builder.metricsListener : new BulkheadMetricsListener() { };
+        this.nanoClock = builder.nanoClock;
+    }
+
+    /**
+     * Static method to build an instance of Builder.
+     * @return {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Admits a request, waiting for a permit if the bulkhead is at its limit and its queue isn't full. The returned
+     * permit must be released once the request was handled.
+     *
+     * @return permit of the admitted request
+     * @throws SkillOverloadedException if the queue is full or no permit became available within the maximum
+     *                                  queue wait
+     */
+    public Permit acquire() {
+        long enqueuedAt = nanoClock.getAsLong();
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < limit) {
+                return admit(enqueuedAt);
+            }
+            if (queued >= maxQueueDepth) {
+                throw reject(enqueuedAt, "queue is full");
+            }
+            queued++;
+            try {
+                long remaining = maxQueueWaitNanos;
+                while (inFlight >= limit) {
+                    if (remaining <= 0) {
+                        throw reject(enqueuedAt, "no permit became available in time");
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw reject(enqueuedAt, "interrupted while queued");
+            } finally {
+                queued--;
+            }
+            return admit(enqueuedAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests currently allowed to run concurrently.
+     *
+     * @return concurrency limit
+     */
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of admitted requests that haven't released their permit.
+     *
+     * @return number of requests in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests waiting for a permit.
+     *
+     * @return number of queued requests
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits a request. Called while holding the lock.
+     *
+     * @param enqueuedAt time in nanoseconds the request arrived
+     * @return permit of the request
+     */
+    private Permit admit(final long enqueuedAt) {
+        inFlight++;
+        long admittedAt = nanoClock.getAsLong();
+        metricsListener.onAdmitted(admittedAt - enqueuedAt);
+        return new Permit(admittedAt);
+    }
+
+    /**
+     * Rejects a request. Called while holding the lock.
+     *
+     * @param enqueuedAt time in nanoseconds the request arrived
+     * @param reason reason of the rejection
+     * @return exception to throw
+     */
+    private SkillOverloadedException reject(final long enqueuedAt, final String reason) {
+        metricsListener.onRejected(nanoClock.getAsLong() - enqueuedAt);
+        LOGGER.warn("Rejected skill request, {} ({} in flight, limit {})", reason, inFlight, limit);
+        return new SkillOverloadedException("Skill is overloaded, " + reason, retryAfterSeconds);
+    }
+
+    /**
+     * Returns the permit of a request and adapts the limit to its latency.
+     *
+     * @param admittedAt time in nanoseconds the request was admitted
+     */
+    private void release(final long admittedAt) {
+        long handlerTime = nanoClock.getAsLong() - admittedAt;
+        lock.lock();
+        try {
+            if (adaptiveLimit != null) {
+                int previousLimit = limit;
+                limit = adaptiveLimit.onSample(handlerTime, inFlight);
+                if (limit != previousLimit) {
+                    metricsListener.onLimitChanged(previousLimit, limit);
+                    LOGGER.debug("Skill concurrency limit changed from {} to {}", previousLimit, limit);
+                }
+            }
+            inFlight--;
+            if (inFlight < limit) {
+                permitAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        metricsListener.onCompleted(handlerTime);
+    }
+
+    /**
+     * Permit of an admitted request.
+     */
+    public final class Permit {
+
+        /**
+         * Time in nanoseconds the request was admitted.
+         */
+        private final long admittedAt;
+
+        /**
+         * Set once the permit was released.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Constructor for Permit.
+         * @param admittedAt time in nanoseconds the request was admitted.
+         */
+        private Permit(final long admittedAt) {
+            this.admittedAt = admittedAt;
+        }
+
+        /**
+         * Releases the permit, letting a queued request run. Releasing a permit more than once has no effect.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                SkillBulkhead.this.release(admittedAt);
+            }
+        }
+
+    }
+
+    /**
+     * Static builder class to build an instance of {@link SkillBulkhead}.
+     */
+    public static final class Builder {
+
+        /**
+         * Maximum number of requests handled concurrently.
+         */
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+        /**
+         * Minimum number of requests an adaptive bulkhead handles concurrently.
+         */
+        private int minConcurrency = DEFAULT_MIN_CONCURRENCY;
+
+        /**
+         * Whether the limit adapts to request latency.
+         */
+        private boolean adaptive;
+
+        /**
+         * Maximum number of requests waiting for a permit.
+         */
+        private int maxQueueDepth = DEFAULT_MAX_QUEUE_DEPTH;
+
+        /**
+         * Maximum time in milliseconds a request waits for a permit.
+         */
+        private long maxQueueWaitMillis = DEFAULT_MAX_QUEUE_WAIT_MILLIS;
+
+        /**
+         * Number of seconds after which rejected requests may be retried.
+         */
+        private int retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+
+        /**
+         * Receives the measurements of the bulkhead.
+         */
+        private BulkheadMetricsListener metricsListener;
+
+        /**
+         * Source of the current time in nanoseconds.
+         */
+        private LongSupplier nanoClock = System::nanoTime;
+
+        /**
+         * Prevent instantiation.
+         */
+        private Builder() { }
+
+        /**
+         * Optional maximum number of requests handled concurrently, and the starting limit of an adaptive bulkhead.
+         * By default {@value #DEFAULT_MAX_CONCURRENCY} is used.
+         * @param maxConcurrency maximum number of concurrent requests
+         * @return builder
+         */
+        public Builder withMaxConcurrency(final int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Optional minimum number of requests an adaptive bulkhead handles concurrently. By default
+         * {@value #DEFAULT_MIN_CONCURRENCY} is used.
+         * @param minConcurrency minimum number of concurrent requests
+         * @return builder
+         */
+        public Builder withMinConcurrency(final int minConcurrency) {
+            this.minConcurrency = minConcurrency;
+            return this;
+        }
+
+        /**
+         * Optionally adapts the concurrency limit to the latency of the skill: the limit shrinks while latency rises
+         * well above the latency observed without load, and grows back once it recovers. Disabled by default.
+         * @param adaptive whether the limit adapts to request latency
+         * @return builder
+         */
+        public Builder withAdaptiveConcurrency(final boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        /**
+         * Optional maximum number of requests waiting for a permit. Requests arriving while the queue is full are
+         * rejected immediately. By default {@value #DEFAULT_MAX_QUEUE_DEPTH} is used.
+         * @param maxQueueDepth maximum number of queued requests, 0 to reject requests beyond the limit immediately
+         * @return builder
+         */
+        public Builder withMaxQueueDepth(final int maxQueueDepth) {
+            this.maxQueueDepth = maxQueueDepth;
+            return this;
+        }
+
+        /**
+         * Optional maximum time a request waits for a permit before being rejected. By default
+         * {@value #DEFAULT_MAX_QUEUE_WAIT_MILLIS} milliseconds are used.
+         * @param maxQueueWaitMillis maximum queue wait in milliseconds
+         * @return builder
+         */
+        public Builder withMaxQueueWait(final long maxQueueWaitMillis) {
+            this.maxQueueWaitMillis = maxQueueWaitMillis;
+            return this;
+        }
+
+        /**
+         * Optional number of seconds after which clients may retry rejected requests. By default
+         * {@value #DEFAULT_RETRY_AFTER_SECONDS} is used.
+         * @param retryAfterSeconds number of seconds
+         * @return builder
+         */
+        public Builder withRetryAfterSeconds(final int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        /**
+         * Optional listener receiving queueing time, handler time, rejections and limit changes.
+         * @param metricsListener listener of the measurements of the bulkhead
+         * @return builder
+         */
+        public Builder withMetricsListener(final BulkheadMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Source of the current time in nanoseconds, for tests.
+         * @param nanoClock source of the current time
+         * @return builder
+         */
+        Builder withNanoClock(final LongSupplier nanoClock) {
+            this.nanoClock = nanoClock;
+            return this;
+        }
+
+        /**
+         * Builder method to build an instance of SkillBulkhead.
+         * @return {@link SkillBulkhead}.
+         */
+        public SkillBulkhead build() {
+            return new SkillBulkhead(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.servlet.verifiers;
+
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Retrieves and validates the signing certificate chain at a signing certificate chain URL.
+ */
+@FunctionalInterface
+interface CertificateChainLoader {
+
+    /**
+     * Retrieves the certificate chain at the given URL and validates it.
+     *
+     * @param signingCertificateChainUrl URL to retrieve the certificate chain from
+     * @return the signing certificate, if the chain is valid
+     * @throws IOException if the certificate chain could not be retrieved due to an I/O or server error, the retrieval
+     *                     may be retried
+     * @throws CertificateException if the URL or the certificate chain is invalid, or the certificate chain does not
+     *                              exist at the URL
+     */
+    X509Certificate load(String signingCertificateChainUrl) throws IOException, CertificateException;
+
+}
@@ -0,0 +1,240 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.servlet.verifiers;
+
+import com.amazon.ask.servlet.ServletConstants;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Retrieves signing certificate chains over HTTPS and validates them against the trust store of the JVM.
+ */
+final class HttpCertificateChainLoader implements CertificateChainLoader {
+
+    /**
+     * Used to check if the entry is for a domain name.
+     */
+    private static final Integer DOMAIN_NAME_SUBJECT_ALTERNATIVE_NAME_ENTRY = 2;
+
+    /**
+     * Http OK response code.
+     */
+    private static final int HTTP_OK_RESPONSE_CODE = 200;
+
+    /**
+     * Lowest http status code of server errors, retrieval is retried on server errors only.
+     */
+    private static final int HTTP_SERVER_ERROR_RESPONSE_CODE = 500;
+
+    /**
+     * Connect and read timeout in milliseconds, so slow hosts cannot hold on to certificate loader threads.
+     */
+    private static final int TIMEOUT_MS = 5000;
+
+    /**
+     * Opens connections to signing certificate chain URLs.
+     */
+    private final ConnectionFactory connectionFactory;
+
+    /**
+     * Certificate factory parsing certificate chains, cached per thread as certificate factories aren't thread-safe.
+     */
+    private static final ThreadLocal<CertificateFactory> CERTIFICATE_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return CertificateFactory.getInstance(ServletConstants.SIGNATURE_CERTIFICATE_TYPE);
+        } catch (CertificateException e) {
+            throw new IllegalStateException("No X.509 certificate factory available", e);
+        }
+    });
+
+    /**
+     * Trust manager validating certificate chains, resolved from the trust store of the JVM on first use if
+     * none is configured.
+     */
+    private volatile X509TrustManager trustManager;
+
+    /**
+     * Constructs a loader retrieving certificate chains directly or through the given proxy.
+     *
+     * @param proxy proxy configuration for certificate retrieval, or null
+     */
+    HttpCertificateChainLoader(final Proxy proxy) {
+        this(url -> {
+            HttpURLConnection connection =
+                    (HttpURLConnection) (proxy != null ? url.openConnection(proxy) : url.openConnection());
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            return connection;
+        }, null);
+    }
+
+    /**
+     * Constructs a loader with the given connection factory and trust manager.
+     *
+     * @param connectionFactory opens connections to signing certificate chain URLs
+     * @param trustManager trust manager validating certificate chains, or null to use the default trust manager
+     */
+    HttpCertificateChainLoader(final ConnectionFactory connectionFactory, final X509TrustManager trustManager) {
+        this.connectionFactory = connectionFactory;
+        this.trustManager = trustManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public X509Certificate load(final String signingCertificateChainUrl) throws IOException, CertificateException {
+        URL url = SkillRequestSignatureVerifier.getAndVerifySigningCertificateChainUrl(signingCertificateChainUrl);
+        HttpURLConnection connection = connectionFactory.open(url);
+        try {
+            int responseCode = connection.getResponseCode();
+            if (responseCode >= HTTP_SERVER_ERROR_RESPONSE_CODE) {
+                throw new IOException(String.format("Got a non-200 status code: %d when retrieving certificate at URL: %s",
+                        responseCode, signingCertificateChainUrl));
+            }
+            if (responseCode != HTTP_OK_RESPONSE_CODE) {
+                throw new CertificateException(String.format("Got a non-retryable status code: %d when retrieving certificate at URL: %s",
+                        responseCode, signingCertificateChainUrl));
+            }
+            Collection<X509Certificate> certificateChain;
+            try (InputStream in = connection.getInputStream()) {
+                @SuppressWarnings("unchecked")
+                Collection<X509Certificate> certificates =
+                        (Collection<X509Certificate>) CERTIFICATE_FACTORY.get().generateCertificates(in);
+                certificateChain = certificates;
+            }
+            if (certificateChain.isEmpty()) {
+                throw new CertificateException("No certificate found at URL: " + signingCertificateChainUrl);
+            }
+            /*
+             * check the before/after dates on the certificate date to confirm that it is valid on
+             * the current date
+             */
+            X509Certificate signingCertificate = certificateChain.iterator().next();
+            signingCertificate.checkValidity();
+
+            // check the certificate chain
+            getTrustManager().checkServerTrusted(
+                    certificateChain.toArray(new X509Certificate[certificateChain.size()]),
+                    ServletConstants.SIGNATURE_TYPE);
+
+            /*
+             * verify Echo API's hostname is specified as one of subject alternative names on the
+             * signing certificate
+             */
+            if (!subjectAlernativeNameListContainsEchoSdkDomainName(signingCertificate.getSubjectAlternativeNames())) {
+                throw new CertificateException("The provided certificate is not valid for the ASK SDK");
+            }
+            return signingCertificate;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Returns the trust manager validating certificate chains, resolving the default trust manager once.
+     *
+     * @return trust manager
+     * @throws CertificateException if no X509 trust manager is available
+     */
+    private X509TrustManager getTrustManager() throws CertificateException {
+        X509TrustManager resolved = trustManager;
+        if (resolved == null) {
+            resolved = getDefaultTrustManager();
+            trustManager = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * Builds the default trust manager of the JVM.
+     *
+     * @return trust manager
+     * @throws CertificateException if no X509 trust manager is available
+     */
+    private static X509TrustManager getDefaultTrustManager() throws CertificateException {
+        try {
+            TrustManagerFactory trustManagerFactory =
+                    TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init((KeyStore) null);
+            for (TrustManager candidate : trustManagerFactory.getTrustManagers()) {
+                if (candidate instanceof X509TrustManager) {
+                    return (X509TrustManager) candidate;
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new CertificateException("Unable to initialize trust manager", e);
+        }
+        throw new IllegalStateException("No X509 TrustManager available. Unable to check certificate chain");
+    }
+
+    /**
+     * Verify Echo API's hostname is specified as one of subject alternative names on the signing certificate.
+     * @param subjectAlternativeNameEntries name entries.
+     * @return true if subject alternative entry is in the expected form and if the entry is for a domain name and that domain name
+     * matches the domain name for the echo sdk.
+     */
+    private static boolean subjectAlernativeNameListContainsEchoSdkDomainName(
+            final Collection<List<?>> subjectAlternativeNameEntries) {
+        if (subjectAlternativeNameEntries == null) {
+            return false;
+        }
+        for (List<?> entry : subjectAlternativeNameEntries) {
+            // first ensure that the subject alternative entry is in the expected form
+            if (entry.get(0) instanceof Integer && entry.get(1) instanceof String) {
+                /*
+                 * if the entry is for a domain name and that domain name matches the domain name
+                 * for the echo sdk then return true
+                 */
+                if (DOMAIN_NAME_SUBJECT_ALTERNATIVE_NAME_ENTRY.equals(entry.get(0))
+                        && ServletConstants.ECHO_API_DOMAIN_NAME.equals((entry.get(1)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens connections to signing certificate chain URLs.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+
+        /**
+         * Opens a connection to the given URL.
+         *
+         * @param url signing certificate chain URL
+         * @return connection to the URL
+         * @throws IOException if the connection cannot be opened
+         */
+        HttpURLConnection open(URL url) throws IOException;
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.servlet.verifiers;
+
+import com.amazon.ask.servlet.ServletConstants;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pools {@link Signature} instances initialized for verification, per public key.
+ *
+ * Looking up a signature implementation and initializing it with a key is comparatively expensive, while a
+ * signature object returns to its initialized state after every verification. Borrowing an initialized instance
+ * makes a verification cost little more than the digest and the RSA operation itself.
+ */
+final class SignaturePool {
+
+    /**
+     * Maximum number of public keys to pool signatures for. Signing certificates rotate rarely, so the pool is
+     * simply reset when it is exceeded.
+     */
+    private static final int MAX_PUBLIC_KEYS = 16;
+
+    /**
+     * Idle signatures initialized for verification, by public key.
+     */
+    private final Map<PublicKey, Queue<Signature>> signatures = new ConcurrentHashMap<>();
+
+    /**
+     * Verifies that the content was signed with the private key matching the given public key.
+     *
+     * @param publicKey public key of the signing certificate
+     * @param content signed content
+     * @param signature signature to verify
+     * @return true if the signature was verified
+     * @throws GeneralSecurityException if the signature cannot be processed
+     */
+    boolean verify(final PublicKey publicKey, final byte[] content, final byte[] signature)
+            throws GeneralSecurityException {
+        Queue<Signature> idle = signatures.get(publicKey);
+        if (idle == null) {
+            if (signatures.size() >= MAX_PUBLIC_KEYS) {
+                signatures.clear();
+            }
+            idle = signatures.computeIfAbsent(publicKey, key -> new ConcurrentLinkedQueue<>());
+        }
+        Signature verifier = idle.poll();
+        if (verifier == null) {
+            verifier = Signature.getInstance(ServletConstants.SIGNATURE_ALGORITHM);
+            verifier.initVerify(publicKey);
+        }
+        verifier.update(content);
+        boolean verified = verifier.verify(signature);
+        // only returned when verification completed, which resets the signature to its initialized state
+        idle.offer(verifier);
+        return verified;
+    }
+
+}
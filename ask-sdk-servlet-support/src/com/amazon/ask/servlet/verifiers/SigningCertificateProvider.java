@@ -0,0 +1,468 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.servlet.verifiers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caches signing certificates by signing certificate chain URL and loads missing certificates in the background.
+ *
+ * Concurrent requests missing the same URL share a single load. Loads failing on I/O or server errors are retried
+ * with jittered exponential backoff on a scheduler rather than by sleeping on the request thread. Certificates close
+ * to expiry are refreshed ahead of time while the cached certificate keeps being served.
+ *
+ * Signing certificate chain URLs are supplied by the caller, so they are validated before any cache or load is
+ * involved, the caches are bounded and fetches are limited: expired certificates are evicted first, URLs that failed
+ * to load are rejected without fetching until a backoff growing with every failure elapses, a URL is fetched at most
+ * once per {@link #MIN_FETCH_INTERVAL_MS} to refresh its certificate, and only a limited number of URLs are loaded
+ * at once.
+ */
+final class SigningCertificateProvider {
+
+    /**
+     * Logger instance to log information for debugging purposes.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SigningCertificateProvider.class);
+
+    /**
+     * Maximum number of retries to retrieve a certificate.
+     */
+    private static final int CERT_RETRIEVAL_RETRY_COUNT = 5;
+
+    /**
+     * Base delay between retries in milliseconds, doubled on every retry.
+     */
+    private static final long BASE_DELAY_BETWEEN_RETRIES_MS = 250;
+
+    /**
+     * Maximum delay between retries in milliseconds.
+     */
+    private static final long MAX_DELAY_BETWEEN_RETRIES_MS = 4000;
+
+    /**
+     * Time before a certificate expires from which it is refreshed in the background.
+     */
+    private static final long REFRESH_AHEAD_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Minimum time between two fetches refreshing the certificate of the same URL.
+     */
+    static final long MIN_FETCH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Maximum time a request waits for a certificate to load.
+     */
+    private static final long LOAD_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Time a URL is rejected after its first failed load, doubled on every consecutive failure.
+     */
+    static final long BASE_FAILURE_BACKOFF_MS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Maximum time a URL is rejected after a failed load.
+     */
+    static final long MAX_FAILURE_BACKOFF_MS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Maximum number of cached certificates.
+     */
+    static final int MAX_CACHED_CERTIFICATES = 32;
+
+    /**
+     * Maximum number of URLs whose failed load is remembered.
+     */
+    static final int MAX_FAILED_URLS = 1024;
+
+    /**
+     * Maximum number of URLs loaded at the same time.
+     */
+    static final int MAX_CONCURRENT_LOADS = 16;
+
+    /**
+     * Scheduler running loads and retries, shared by all providers. Its threads are daemon threads, so they don't
+     * prevent the JVM from exiting.
+     */
+    private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+    /**
+     * Retrieves and validates certificate chains.
+     */
+    private final CertificateChainLoader loader;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Cached signing certificates by signing certificate chain URL.
+     */
+    private final Map<String, CachedCertificate> certificateCache = new ConcurrentHashMap<>();
+
+    /**
+     * Failed loads by signing certificate chain URL.
+     */
+    private final Map<String, FailedLoad> failedLoads = new ConcurrentHashMap<>();
+
+    /**
+     * Loads in progress by signing certificate chain URL.
+     */
+    private final Map<String, CompletableFuture<X509Certificate>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a provider loading certificates with the given loader.
+     *
+     * @param loader retrieves and validates certificate chains
+     */
+    SigningCertificateProvider(final CertificateChainLoader loader) {
+        this(loader, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a provider loading certificates with the given loader and reading time from the given clock.
+     *
+     * @param loader retrieves and validates certificate chains
+     * @param clock source of the current time in milliseconds
+     */
+    SigningCertificateProvider(final CertificateChainLoader loader, final LongSupplier clock) {
+        this.loader = loader;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the signing certificate for the given URL, loading it if it isn't cached or has expired.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @return the signing certificate, valid at the current time
+     * @throws CertificateException if the URL is invalid, if the certificate cannot be retrieved or is invalid, or if
+     *                              the URL recently failed to load
+     */
+    X509Certificate getCertificate(final String signingCertificateChainUrl) throws CertificateException {
+        // reject invalid URLs before they take a load slot or a failed URL entry
+        SkillRequestSignatureVerifier.getAndVerifySigningCertificateChainUrl(signingCertificateChainUrl);
+        long now = clock.getAsLong();
+        CachedCertificate cached = certificateCache.get(signingCertificateChainUrl);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                /*
+                 * check the before/after dates on the certificate are still valid for the present
+                 * time
+                 */
+                cached.certificate.checkValidity();
+                if (cached.expiresAt - now < REFRESH_AHEAD_MS && now - cached.loadedAt >= MIN_FETCH_INTERVAL_MS
+                        && inFlightLoads.size() < MAX_CONCURRENT_LOADS) {
+                    load(signingCertificateChainUrl);
+                }
+                return cached.certificate;
+            }
+            certificateCache.remove(signingCertificateChainUrl, cached);
+        }
+
+        FailedLoad failedLoad = failedLoads.get(signingCertificateChainUrl);
+        if (failedLoad != null && failedLoad.retryAt > now) {
+            throw new CertificateException("Certificate retrieval from URL recently failed: "
+                    + signingCertificateChainUrl, failedLoad.failure);
+        }
+        if (!inFlightLoads.containsKey(signingCertificateChainUrl) && inFlightLoads.size() >= MAX_CONCURRENT_LOADS) {
+            throw new CertificateException("Too many certificate retrievals in progress, rejecting URL: "
+                    + signingCertificateChainUrl);
+        }
+        return await(signingCertificateChainUrl, load(signingCertificateChainUrl));
+    }
+
+    /**
+     * Starts loading the certificate for the given URL, or joins the load already in progress.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @return future completed with the loaded certificate
+     */
+    private CompletableFuture<X509Certificate> load(final String signingCertificateChainUrl) {
+        CompletableFuture<X509Certificate> load = inFlightLoads.get(signingCertificateChainUrl);
+        if (load != null) {
+            return load;
+        }
+        CompletableFuture<X509Certificate> newLoad = new CompletableFuture<>();
+        load = inFlightLoads.putIfAbsent(signingCertificateChainUrl, newLoad);
+        if (load != null) {
+            return load;
+        }
+        SCHEDULER.execute(() -> attempt(signingCertificateChainUrl, newLoad, 0));
+        return newLoad;
+    }
+
+    /**
+     * Completes a load with its certificate. The caches are updated before completing the load, so requests
+     * seeing the load complete also see its outcome cached.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @param load future to complete
+     * @param certificate loaded certificate
+     */
+    private void succeed(final String signingCertificateChainUrl, final CompletableFuture<X509Certificate> load,
+                         final X509Certificate certificate) {
+        cache(signingCertificateChainUrl, certificate);
+        inFlightLoads.remove(signingCertificateChainUrl, load);
+        load.complete(certificate);
+    }
+
+    /**
+     * Completes a load with its failure, remembering the failure before completing the load.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @param load future to complete
+     * @param failure cause of the failure
+     */
+    private void fail(final String signingCertificateChainUrl, final CompletableFuture<X509Certificate> load,
+                      final CertificateException failure) {
+        recordFailure(signingCertificateChainUrl, failure);
+        inFlightLoads.remove(signingCertificateChainUrl, load);
+        load.completeExceptionally(failure);
+    }
+
+    /**
+     * Caches a loaded certificate and forgets previous failures of its URL.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @param certificate loaded certificate
+     */
+    private void cache(final String signingCertificateChainUrl, final X509Certificate certificate) {
+        long now = clock.getAsLong();
+        certificateCache.put(signingCertificateChainUrl,
+                new CachedCertificate(certificate, now, certificate.getNotAfter().getTime()));
+        failedLoads.remove(signingCertificateChainUrl);
+        evict(certificateCache, MAX_CACHED_CERTIFICATES, entry -> entry.expiresAt, now);
+    }
+
+    /**
+     * Remembers a failed load, rejecting the URL for a backoff growing with consecutive failures.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @param failure cause of the failure
+     */
+    private void recordFailure(final String signingCertificateChainUrl, final Throwable failure) {
+        long now = clock.getAsLong();
+        FailedLoad previous = failedLoads.get(signingCertificateChainUrl);
+        int failures = previous != null ? previous.failures + 1 : 1;
+        long backoff = failureBackoff(failures);
+        LOGGER.debug("Rejecting certificate URL {} for {} ms after {} failed load(s)",
+                signingCertificateChainUrl, backoff, failures);
+        failedLoads.put(signingCertificateChainUrl, new FailedLoad(failure, failures, now + backoff));
+        evict(failedLoads, MAX_FAILED_URLS, entry -> entry.retryAt, now);
+    }
+
+    /**
+     * Attempts to load a certificate, scheduling a retry if retrieval fails.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @param load future to complete
+     * @param attempt number of the attempt, starting at 0
+     */
+    private void attempt(final String signingCertificateChainUrl, final CompletableFuture<X509Certificate> load,
+                         final int attempt) {
+        try {
+            succeed(signingCertificateChainUrl, load, loader.load(signingCertificateChainUrl));
+        } catch (IOException e) {
+            if (attempt < CERT_RETRIEVAL_RETRY_COUNT) {
+                long delay = retryDelay(attempt);
+                LOGGER.debug("Retrying certificate retrieval from {} in {} ms", signingCertificateChainUrl, delay, e);
+                SCHEDULER.schedule(() -> attempt(signingCertificateChainUrl, load, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                fail(signingCertificateChainUrl, load, new CertificateException(
+                        "Unable to retrieve certificate from URL: " + signingCertificateChainUrl, e));
+            }
+        } catch (CertificateException e) {
+            fail(signingCertificateChainUrl, load, e);
+        } catch (RuntimeException e) {
+            fail(signingCertificateChainUrl, load, new CertificateException(
+                    "Unable to verify certificate at URL: " + signingCertificateChainUrl, e));
+        }
+    }
+
+    /**
+     * Waits for a certificate load to complete.
+     *
+     * @param signingCertificateChainUrl URL of the signing certificate chain
+     * @param load future completed with the loaded certificate
+     * @return the loaded certificate
+     * @throws CertificateException if the load failed or did not complete in time
+     */
+    private static X509Certificate await(final String signingCertificateChainUrl,
+                                         final CompletableFuture<X509Certificate> load) throws CertificateException {
+        try {
+            return load.get(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CertificateException) {
+                throw (CertificateException) e.getCause();
+            }
+            throw new CertificateException("Unable to verify certificate at URL: " + signingCertificateChainUrl, e.getCause());
+        } catch (TimeoutException e) {
+            throw new CertificateException("Timed out retrieving certificate from URL: " + signingCertificateChainUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CertificateException("Interrupted while retrieving certificate from URL: " + signingCertificateChainUrl, e);
+        }
+    }
+
+    /**
+     * Evicts entries from a bounded cache once it exceeds its capacity: expired entries first, then the entries
+     * expiring soonest.
+     *
+     * @param cache cache to evict entries from
+     * @param capacity maximum number of entries
+     * @param expiry returns the time an entry expires at
+     * @param now current time in milliseconds
+     * @param <T> type of cached entries
+     */
+    private static <T> void evict(final Map<String, T> cache, final int capacity, final ToLongFunction<T> expiry,
+                                  final long now) {
+        if (cache.size() <= capacity) {
+            return;
+        }
+        cache.values().removeIf(entry -> expiry.applyAsLong(entry) <= now);
+        while (cache.size() > capacity) {
+            Map.Entry<String, T> soonest = null;
+            for (Map.Entry<String, T> entry : cache.entrySet()) {
+                if (soonest == null || expiry.applyAsLong(entry.getValue()) < expiry.applyAsLong(soonest.getValue())) {
+                    soonest = entry;
+                }
+            }
+            if (soonest == null) {
+                return;
+            }
+            cache.remove(soonest.getKey(), soonest.getValue());
+        }
+    }
+
+    /**
+     * Computes the delay before a retry, doubling with every attempt with up to half of it randomized so
+     * retries of concurrent loads spread out.
+     *
+     * @param attempt number of the failed attempt, starting at 0
+     * @return delay in milliseconds
+     */
+    static long retryDelay(final int attempt) {
+        long delay = Math.min(BASE_DELAY_BETWEEN_RETRIES_MS << attempt, MAX_DELAY_BETWEEN_RETRIES_MS);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Computes the time a URL is rejected after consecutive failed loads.
+     *
+     * @param failures number of consecutive failed loads, starting at 1
+     * @return backoff in milliseconds
+     */
+    static long failureBackoff(final int failures) {
+        return Math.min(BASE_FAILURE_BACKOFF_MS << Math.min(failures - 1, 16), MAX_FAILURE_BACKOFF_MS);
+    }
+
+    /**
+     * Creates the scheduler running loads and retries.
+     *
+     * @return scheduler
+     */
+    private static ScheduledExecutorService createScheduler() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "ask-sdk-certificate-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Cached signing certificate.
+     */
+    private static final class CachedCertificate {
+
+        /**
+         * Signing certificate.
+         */
+        private final X509Certificate certificate;
+
+        /**
+         * Time the certificate was loaded at.
+         */
+        private final long loadedAt;
+
+        /**
+         * Time the certificate expires at.
+         */
+        private final long expiresAt;
+
+        /**
+         * @param certificate signing certificate
+         * @param loadedAt time the certificate was loaded at
+         * @param expiresAt time the certificate expires at
+         */
+        private CachedCertificate(final X509Certificate certificate, final long loadedAt, final long expiresAt) {
+            this.certificate = certificate;
+            this.loadedAt = loadedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Failed load of a signing certificate chain URL.
+     */
+    private static final class FailedLoad {
+
+        /**
+         * Cause of the last failure.
+         */
+        private final Throwable failure;
+
+        /**
+         * Number of consecutive failures.
+         */
+        private final int failures;
+
+        /**
+         * Time from which the URL may be loaded again.
+         */
+        private final long retryAt;
+
+        /**
+         * @param failure cause of the last failure
+         * @param failures number of consecutive failures
+         * @param retryAt time from which the URL may be loaded again
+         */
+        private FailedLoad(final Throwable failure, final int failures, final long retryAt) {
+            this.failure = failure;
+            this.failures = failures;
+            this.retryAt = retryAt;
+        }
+    }
+
+}
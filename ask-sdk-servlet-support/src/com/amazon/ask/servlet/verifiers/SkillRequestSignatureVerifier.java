@@ -14,45 +14,32 @@
 package com.amazon.ask.servlet.verifiers;
 
 import com.amazon.ask.servlet.ServletConstants;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.IOUtils;
 
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
-import javax.net.ssl.X509TrustManager;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.security.GeneralSecurityException;
-import java.security.KeyStore;
-import java.security.Signature;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.Collection;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Base64;
 
 /**
  * Provides a utility method to verify the signature of a skill request.
  */
 public final class SkillRequestSignatureVerifier implements SkillServletVerifier {
     /**
-     * Map which serves as a cache to store public key certificates.
+     * Provider of signing certificates shared by verifiers retrieving certificates without a proxy.
      */
-    private static final Map<String, X509Certificate> CERTIFICATE_CACHE = new ConcurrentHashMap<>();
+    private static final SigningCertificateProvider DEFAULT_CERTIFICATE_PROVIDER =
+            new SigningCertificateProvider(new HttpCertificateChainLoader(null));
 
     /**
-     * Used to check if the entry is for a domain name.
+     * Decoder of request signatures. Like the decoder previously used, it ignores characters outside of the
+     * Base64 alphabet.
      */
-    private static final Integer DOMAIN_NAME_SUBJECT_ALTERNATIVE_NAME_ENTRY = 2;
+    private static final Base64.Decoder SIGNATURE_DECODER = Base64.getMimeDecoder();
 
     /**
      * Certificate chain protocol.
@@ -75,37 +62,36 @@ public final class SkillRequestSignatureVerifier implements SkillServletVerifier
     private static final int UNSPECIFIED_SIGNING_CERT_CHAIN_URL_PORT_VALUE = -1;
 
     /**
-     * Maximum number of trials to retrieve a certificate.
+     * Provides validated signing certificates by signing certificate chain URL.
      */
-    private static final int CERT_RETRIEVAL_RETRY_COUNT = 5;
+    private final SigningCertificateProvider certificateProvider;
 
     /**
-     * Delay between each retry in milliseconds.
+     * Signatures initialized for verification with the public keys of signing certificates.
      */
-    private static final int DELAY_BETWEEN_RETRIES_MS = 500;
-
-    /**
-     * Http OK response code.
-     */
-    private static final int HTTP_OK_RESPONSE_CODE = 200;
-
-    /**
-     * Represents a proxy setting, typically a type (http, socks) and a socket address.
-     */
-    private final Proxy proxy;
+    private final SignaturePool signaturePool = new SignaturePool();
 
     /**
      * Constructor to build an instance of SkillRequestSignatureVerifier.
      */
     public SkillRequestSignatureVerifier() {
-        this.proxy = null;
+        this(DEFAULT_CERTIFICATE_PROVIDER);
     }
 
     /**
      * @param proxy proxy configuration for certificate retrieval
      */
     public SkillRequestSignatureVerifier(final Proxy proxy) {
-        this.proxy = proxy;
+        this(proxy != null
+                ? new SigningCertificateProvider(new HttpCertificateChainLoader(proxy))
+                : DEFAULT_CERTIFICATE_PROVIDER);
+    }
+
+    /**
+     * @param certificateProvider provider of validated signing certificates
+     */
+    SkillRequestSignatureVerifier(final SigningCertificateProvider certificateProvider) {
+        this.certificateProvider = certificateProvider;
     }
 
     /**
@@ -124,30 +110,16 @@ public final class SkillRequestSignatureVerifier implements SkillServletVerifier
         }
 
         try {
-            X509Certificate signingCertificate = CERTIFICATE_CACHE.get(signingCertificateChainUrl);
-            if (signingCertificate != null && signingCertificate.getNotAfter().after(new Date())) {
-                /*
-                 * check the before/after dates on the certificate are still valid for the present
-                 * time
-                 */
-                signingCertificate.checkValidity();
-            } else {
-                signingCertificate = retrieveAndVerifyCertificateChain(signingCertificateChainUrl);
-
-                // if certificate is valid, then add it to the cache
-                CERTIFICATE_CACHE.put(signingCertificateChainUrl, signingCertificate);
-            }
+            X509Certificate signingCertificate = certificateProvider.getCertificate(signingCertificateChainUrl);
 
             // verify that the request was signed by the provided certificate
-            Signature signature = Signature.getInstance(ServletConstants.SIGNATURE_ALGORITHM);
-            signature.initVerify(signingCertificate.getPublicKey());
-            signature.update(alexaHttpRequest.getSerializedRequestEnvelope());
-            if (!signature.verify(Base64.decodeBase64(baseEncoded64Signature
-                    .getBytes(ServletConstants.CHARACTER_ENCODING)))) {
+            if (!signaturePool.verify(signingCertificate.getPublicKey(),
+                    alexaHttpRequest.getSerializedRequestEnvelope(),
+                    SIGNATURE_DECODER.decode(baseEncoded64Signature))) {
                 throw new SecurityException(
                         "Failed to verify the signature/certificate for the provided skill request");
             }
-        } catch (GeneralSecurityException | IOException ex) {
+        } catch (GeneralSecurityException | IllegalArgumentException ex) {
             throw new SecurityException(
                     "Failed to verify the signature/certificate for the provided skill request",
                     ex);
@@ -155,130 +127,14 @@ public final class SkillRequestSignatureVerifier implements SkillServletVerifier
     }
 
     /**
-     * Retrieves the certificate from the specified URL and confirms that the certificate is valid.
+     * Signature verification is the most expensive check, running an RSA operation and possibly retrieving the
+     * signing certificate.
      *
-     * @param signingCertificateChainUrl
-     *            the URL to retrieve the certificate chain from
-     * @return the certificate at the specified URL, if the certificate is valid
-     * @throws CertificateException
-     *             if the certificate cannot be retrieve or is invalid
-     */
-    private X509Certificate retrieveAndVerifyCertificateChain(final String signingCertificateChainUrl) throws CertificateException {
-        for (int attempt = 0; attempt <= CERT_RETRIEVAL_RETRY_COUNT; attempt++) {
-            InputStream in = null;
-            try {
-                HttpURLConnection connection =
-                        proxy != null ? (HttpURLConnection) getAndVerifySigningCertificateChainUrl(signingCertificateChainUrl).openConnection(proxy)
-                                : (HttpURLConnection) getAndVerifySigningCertificateChainUrl(signingCertificateChainUrl).openConnection();
-
-                if (connection.getResponseCode() != HTTP_OK_RESPONSE_CODE) {
-                    if (waitForRetry(attempt)) {
-                        continue;
-                    } else {
-                        throw new CertificateException("Got a non-200 status code when retrieving certificate at URL: " + signingCertificateChainUrl);
-                    }
-                }
-
-                in = connection.getInputStream();
-                CertificateFactory certificateFactory =
-                        CertificateFactory.getInstance(ServletConstants.SIGNATURE_CERTIFICATE_TYPE);
-                @SuppressWarnings("unchecked")
-                Collection<X509Certificate> certificateChain =
-                        (Collection<X509Certificate>) certificateFactory.generateCertificates(in);
-                /*
-                 * check the before/after dates on the certificate date to confirm that it is valid on
-                 * the current date
-                 */
-                X509Certificate signingCertificate = certificateChain.iterator().next();
-                signingCertificate.checkValidity();
-
-                // check the certificate chain
-                TrustManagerFactory trustManagerFactory =
-                        TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-                trustManagerFactory.init((KeyStore) null);
-
-                X509TrustManager x509TrustManager = null;
-                for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
-                    if (trustManager instanceof X509TrustManager) {
-                        x509TrustManager = (X509TrustManager) trustManager;
-                    }
-                }
-
-                if (x509TrustManager == null) {
-                    throw new IllegalStateException(
-                            "No X509 TrustManager available. Unable to check certificate chain");
-                } else {
-                    x509TrustManager.checkServerTrusted(
-                            certificateChain.toArray(new X509Certificate[certificateChain.size()]),
-                            ServletConstants.SIGNATURE_TYPE);
-                }
-
-                /*
-                 * verify Echo API's hostname is specified as one of subject alternative names on the
-                 * signing certificate
-                 */
-                if (!subjectAlernativeNameListContainsEchoSdkDomainName(signingCertificate
-                        .getSubjectAlternativeNames())) {
-                    throw new CertificateException(
-                            "The provided certificate is not valid for the ASK SDK");
-                }
-
-                return signingCertificate;
-            } catch (IOException e) {
-                if (!waitForRetry(attempt)) {
-                    throw new CertificateException("Unable to retrieve certificate from URL: " + signingCertificateChainUrl, e);
-                }
-            } catch (Exception e) {
-                throw new CertificateException("Unable to verify certificate at URL: " + signingCertificateChainUrl, e);
-            } finally {
-                if (in != null) {
-                    IOUtils.closeQuietly(in);
-                }
-            }
-        }
-        throw new RuntimeException("Unable to retrieve signing certificate due to an unhandled exception");
-    }
-
-    /**
-     * Checks if the system should retry to fetch a certificate.
-     * @param attempt Nth attempt.
-     * @return true if the number of attempts to retrieve certificates does not exceed pre-mentioned value.
-     */
-    private boolean waitForRetry(final int attempt) {
-        if (attempt < CERT_RETRIEVAL_RETRY_COUNT) {
-            try {
-                Thread.sleep(DELAY_BETWEEN_RETRIES_MS);
-                return true;
-            } catch (InterruptedException ex) {
-                throw new RuntimeException("Interrupted while waiting for certificate retrieval retry attempt", ex);
-            }
-        } else {
-            return false;
-        }
-    }
-
-    /**
-     * Verify Echo API's hostname is specified as one of subject alternative names on the signing certificate.
-     * @param subjectAlternativeNameEntries name entries.
-     * @return true if subject alternative entry is in the expected form and if the entry is for a domain name and that domain name
-     * matches the domain name for the echo sdk.
+     * {@inheritDoc}
      */
-    private boolean subjectAlernativeNameListContainsEchoSdkDomainName(
-            final Collection<List<?>> subjectAlternativeNameEntries) {
-        for (List<?> entry : subjectAlternativeNameEntries) {
-            // first ensure that the subject alternative entry is in the expected form
-            if (entry.get(0) instanceof Integer && entry.get(1) instanceof String) {
-                /*
-                 * if the entry is for a domain name and that domain name matches the domain name
-                 * for the echo sdk then return true
-                 */
-                if (DOMAIN_NAME_SUBJECT_ALTERNATIVE_NAME_ENTRY.equals(entry.get(0))
-                        && ServletConstants.ECHO_API_DOMAIN_NAME.equals((entry.get(1)))) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    @Override
+    public int getCost() {
+        return ServletConstants.EXPENSIVE_VERIFIER_COST;
     }
 
     /**
@@ -13,6 +13,8 @@
 
 package com.amazon.ask.servlet.verifiers;
 
+import com.amazon.ask.servlet.ServletConstants;
+
 /**
  * Verifiers are run against incoming requests to verify authenticity and integrity of the request before processing
  * it.
@@ -29,4 +31,14 @@ public interface SkillServletVerifier {
      */
     void verify(AlexaHttpRequest alexaHttpRequest) throws SecurityException;
 
+    /**
+     * Returns the relative cost of this verifier. Verifiers run in ascending order of cost, verifiers of equal cost
+     * in the order they were registered, and verification stops at the first failing verifier.
+     *
+     * @return cost of this verifier, {@link ServletConstants#DEFAULT_VERIFIER_COST} unless overridden
+     */
+    default int getCost() {
+        return ServletConstants.DEFAULT_VERIFIER_COST;
+    }
+
 }
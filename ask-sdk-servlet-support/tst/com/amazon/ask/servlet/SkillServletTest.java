@@ -14,22 +14,33 @@
 package com.amazon.ask.servlet;
 
 import static com.amazon.ask.util.SdkConstants.FORMAT_VERSION;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.amazon.ask.Skill;
+import com.amazon.ask.builder.CustomSkillBuilder;
+import com.amazon.ask.dispatcher.request.handler.RequestHandler;
 import com.amazon.ask.exception.AskSdkException;
 import com.amazon.ask.model.LaunchRequest;
 import com.amazon.ask.model.Response;
 import com.amazon.ask.model.ResponseEnvelope;
+import com.amazon.ask.request.SkillRequest;
+import com.amazon.ask.servlet.bulkhead.SkillBulkhead;
 import com.amazon.ask.servlet.verifiers.SkillRequestSignatureVerifier;
 import com.amazon.ask.servlet.verifiers.SkillServletVerifier;
 import com.amazon.ask.response.impl.BaseSkillResponse;
@@ -37,6 +48,8 @@ import com.amazon.ask.util.impl.JacksonJsonMarshaller;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -46,8 +59,15 @@ import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Tests that the {@link SkillServlet} respects the provided environment variables controlling
@@ -129,4 +149,313 @@ public class SkillServletTest extends SkillServletTestBase {
         PowerMockito.verifyNew(SkillRequestSignatureVerifier.class).withArguments(proxy);
     }
 
+    @Test
+    public void verifiers_run_in_order_of_cost() throws Exception {
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        SkillServletVerifier cheapVerifier = mockVerifier(ServletConstants.DEFAULT_VERIFIER_COST);
+        SkillServlet servlet = new SkillServlet(skill, Arrays.asList(expensiveVerifier, cheapVerifier));
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        InOrder inOrder = inOrder(cheapVerifier, expensiveVerifier);
+        inOrder.verify(cheapVerifier).verify(any());
+        inOrder.verify(expensiveVerifier).verify(any());
+    }
+
+    @Test
+    public void failed_cheap_verifier_short_circuits_expensive_verifier() throws Exception {
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        SkillServletVerifier cheapVerifier = mockVerifier(ServletConstants.DEFAULT_VERIFIER_COST);
+        doThrow(new SecurityException("stale")).when(cheapVerifier).verify(any());
+        SkillServlet servlet = new SkillServlet(skill, Arrays.asList(expensiveVerifier, cheapVerifier));
+        servlet.setSpeculativeDispatchExecutor(Runnable::run);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(expensiveVerifier, never()).verify(any());
+        verify(skill, never()).execute(any());
+    }
+
+    @Test
+    public void speculative_dispatch_returns_response_once_verified() throws Exception {
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        SkillServlet servlet = new SkillServlet(skill, Collections.singletonList(expensiveVerifier));
+        when(skill.unmarshall(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            servlet.setSpeculativeDispatchExecutor(executor);
+            ServletInvocationParameters invocation = buildLaunchInvocation();
+            servlet.doPost(invocation.request, invocation.response);
+            assertTrue(invocation.output.toByteArray().length > 0);
+            verify(invocation.response).setStatus(HttpServletResponse.SC_OK);
+            verify(expensiveVerifier).verify(any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void speculative_response_discarded_when_verification_fails() throws Exception {
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        doThrow(new SecurityException("bad signature")).when(expensiveVerifier).verify(any());
+        SkillServlet servlet = new SkillServlet(skill, Collections.singletonList(expensiveVerifier));
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        when(skill.unmarshall(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        servlet.setSpeculativeDispatchExecutor(Runnable::run);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(invocation.response, never()).getOutputStream();
+        assertEquals(0, invocation.output.size());
+        verify(skill).unmarshall(any());
+        verify(skill, never()).execute(any(SkillRequest.class));
+    }
+
+    @Test
+    public void speculative_dispatch_runs_no_handler_for_request_failing_verification() throws Exception {
+        RequestHandler handler = mock(RequestHandler.class);
+        when(handler.canHandle(any())).thenReturn(true);
+        when(handler.handle(any())).thenReturn(Optional.of(Response.builder().build()));
+        Skill realSkill = new CustomSkillBuilder().addRequestHandler(handler).build();
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        doThrow(new SecurityException("bad signature")).when(expensiveVerifier).verify(any());
+        SkillServlet servlet = new SkillServlet(realSkill, Collections.singletonList(expensiveVerifier));
+        SkillBulkhead bulkhead = SkillBulkhead.builder().withMaxConcurrency(1).withMaxQueueDepth(0).build();
+        servlet.setBulkhead(bulkhead);
+        servlet.setSpeculativeDispatchExecutor(Runnable::run);
+
+        SkillBulkhead.Permit held = bulkhead.acquire();
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        held.release();
+
+        // rejected by verification rather than by the exhausted bulkhead, so no permit was requested
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(handler, never()).canHandle(any());
+        verify(handler, never()).handle(any());
+    }
+
+    @Test
+    public void speculative_dispatch_runs_handler_once_verified() throws Exception {
+        RequestHandler handler = mock(RequestHandler.class);
+        when(handler.canHandle(any())).thenReturn(true);
+        when(handler.handle(any())).thenReturn(Optional.of(Response.builder().build()));
+        Skill realSkill = new CustomSkillBuilder().addRequestHandler(handler).build();
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        SkillServlet servlet = new SkillServlet(realSkill, Collections.singletonList(expensiveVerifier));
+        servlet.setSpeculativeDispatchExecutor(Runnable::run);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).setStatus(HttpServletResponse.SC_OK);
+        InOrder inOrder = inOrder(expensiveVerifier, handler);
+        inOrder.verify(expensiveVerifier).verify(any());
+        inOrder.verify(handler).handle(any());
+    }
+
+    @Test
+    public void speculative_dispatch_exception_surfaces_after_verification() throws Exception {
+        SkillServletVerifier expensiveVerifier = mockVerifier(ServletConstants.EXPENSIVE_VERIFIER_COST);
+        SkillServlet servlet = new SkillServlet(skill, Collections.singletonList(expensiveVerifier));
+        when(skill.unmarshall(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(skill.execute(any())).thenThrow(new AskSdkException("foo"));
+        servlet.setSpeculativeDispatchExecutor(Runnable::run);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_INTERNAL_SERVER_ERROR), anyString());
+        verify(expensiveVerifier).verify(any());
+    }
+
+    @Test
+    public void async_mode_reads_and_writes_with_non_blocking_io() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setAsyncDispatchExecutor(Runnable::run);
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        assertTrue(invocation.output.toByteArray().length > 0);
+        verify(invocation.response).setStatus(HttpServletResponse.SC_OK);
+        verify(invocation.response).setContentLength(invocation.output.size());
+        verify(asyncContext).setTimeout(ServletConstants.DEFAULT_ASYNC_TIMEOUT_MILLIS);
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    public void async_mode_failed_verification_responseBadRequest() throws Exception {
+        SkillServletVerifier mockVerifier = mock(SkillServletVerifier.class);
+        doThrow(new SecurityException("foo")).when(mockVerifier).verify(any());
+        SkillServlet servlet = new SkillServlet(skill, Collections.singletonList(mockVerifier));
+        servlet.setAsyncDispatchExecutor(Runnable::run);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    public void async_mode_timeout_responseServiceUnavailable() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        List<Runnable> pending = new ArrayList<>();
+        servlet.setAsyncDispatchExecutor(pending::add);
+        servlet.setAsyncTimeout(500);
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        verify(asyncContext).setTimeout(500);
+
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onTimeout(null);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_SERVICE_UNAVAILABLE), anyString());
+
+        // the response of the late dispatch is discarded
+        assertEquals(1, pending.size());
+        pending.get(0).run();
+        verify(invocation.response, never()).getOutputStream();
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    public void async_mode_timeout_leaves_response_being_written_to_complete() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setAsyncDispatchExecutor(Runnable::run);
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        ServletOutputStream stalledOutput = mock(ServletOutputStream.class);
+        when(invocation.response.getOutputStream()).thenReturn(stalledOutput);
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        verify(stalledOutput).setWriteListener(any());
+
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onTimeout(null);
+        verify(invocation.response, never()).sendError(eq(HttpServletResponse.SC_SERVICE_UNAVAILABLE), anyString());
+        verify(asyncContext, never()).complete();
+    }
+
+    @Test
+    public void async_mode_oversized_body_responseRequestEntityTooLarge() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setAsyncDispatchExecutor(Runnable::run);
+        servlet.setMaxRequestBodySize(16);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+        verify(asyncContext, times(1)).complete();
+        verify(skill, never()).execute(any());
+    }
+
+    @Test
+    public void async_mode_oversized_content_length_rejected_before_reading() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setAsyncDispatchExecutor(Runnable::run);
+        servlet.setMaxRequestBodySize(16);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        when(invocation.request.getContentLengthLong()).thenReturn(17L);
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+        verify(invocation.request, never()).getInputStream();
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    public void oversized_body_responseRequestEntityTooLarge() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setMaxRequestBodySize(16);
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+        verify(skill, never()).execute(any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void non_positive_max_request_body_size_rejected() {
+        new SkillServlet(skill, Collections.emptyList()).setMaxRequestBodySize(0);
+    }
+
+    @Test
+    public void async_mode_rejected_dispatch_responseServiceUnavailable() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setAsyncDispatchExecutor(command -> {
+            throw new RejectedExecutionException();
+        });
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        AsyncContext asyncContext = startAsync(invocation);
+        servlet.doPost(invocation.request, invocation.response);
+        verify(invocation.response).sendError(eq(HttpServletResponse.SC_SERVICE_UNAVAILABLE), anyString());
+        verify(asyncContext).complete();
+        verify(skill, never()).execute(any());
+    }
+
+    @Test
+    public void async_mode_unsupported_falls_back_to_blocking_io() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        servlet.setAsyncDispatchExecutor(Runnable::run);
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+        ServletInvocationParameters invocation = buildLaunchInvocation();
+        servlet.doPost(invocation.request, invocation.response);
+        assertTrue(invocation.output.toByteArray().length > 0);
+        verify(invocation.request, never()).startAsync(any(), any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void async_timeout_must_be_positive() {
+        new SkillServlet(skill, Collections.emptyList()).setAsyncTimeout(0);
+    }
+
+    @Test
+    public void bulkhead_rejection_responseServiceUnavailableWithRetryAfter() throws Exception {
+        SkillServlet servlet = new SkillServlet(skill, Collections.emptyList());
+        SkillBulkhead bulkhead = SkillBulkhead.builder()
+                .withMaxConcurrency(1)
+                .withMaxQueueDepth(0)
+                .withRetryAfterSeconds(2)
+                .build();
+        servlet.setBulkhead(bulkhead);
+        when(skill.execute(any())).thenReturn(buildSkillResponse());
+
+        SkillBulkhead.Permit held = bulkhead.acquire();
+        ServletInvocationParameters rejected = buildLaunchInvocation();
+        servlet.doPost(rejected.request, rejected.response);
+        verify(rejected.response).setHeader("Retry-After", "2");
+        verify(rejected.response).sendError(eq(HttpServletResponse.SC_SERVICE_UNAVAILABLE), anyString());
+        verify(skill, never()).execute(any());
+
+        held.release();
+        ServletInvocationParameters admitted = buildLaunchInvocation();
+        servlet.doPost(admitted.request, admitted.response);
+        assertTrue(admitted.output.toByteArray().length > 0);
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    private AsyncContext startAsync(final ServletInvocationParameters invocation) {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(invocation.request.isAsyncSupported()).thenReturn(true);
+        when(invocation.request.startAsync(invocation.request, invocation.response)).thenReturn(asyncContext);
+        return asyncContext;
+    }
+
+    private SkillServletVerifier mockVerifier(final int cost) {
+        SkillServletVerifier verifier = mock(SkillServletVerifier.class);
+        when(verifier.getCost()).thenReturn(cost);
+        return verifier;
+    }
+
+    private BaseSkillResponse<ResponseEnvelope> buildSkillResponse() {
+        ResponseEnvelope responseEnvelope = ResponseEnvelope.builder().withResponse(Response.builder().build()).build();
+        return new BaseSkillResponse<>(new JacksonJsonMarshaller<>(), responseEnvelope);
+    }
+
+    private ServletInvocationParameters buildLaunchInvocation() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(new Date().toInstant(), ZoneId.systemDefault());
+        LaunchRequest request = LaunchRequest.builder().withRequestId("rId").withLocale(LOCALE).withTimestamp(timestamp).build();
+        return build(FORMAT_VERSION, request, buildSession());
+    }
+
 }
@@ -0,0 +1,85 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.bulkhead;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void starts_at_max_limit() {
+        assertEquals(32, new AdaptiveConcurrencyLimit(1, 32).getLimit());
+    }
+
+    @Test
+    public void limit_held_while_latency_within_tolerance() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 32);
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(i % 2 == 0 ? BASELINE : BASELINE * 2, 32);
+        }
+        assertEquals(32, limit.getLimit());
+    }
+
+    @Test
+    public void limit_shrinks_to_min_under_rising_latency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 32);
+        limit.onSample(BASELINE, 32);
+        int previous = limit.getLimit();
+        for (int i = 0; i < 20; i++) {
+            int current = limit.onSample(BASELINE * 10, 32);
+            assertTrue(current <= previous);
+            previous = current;
+        }
+        assertTrue(previous < 32);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(BASELINE * 10, 32);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void limit_recovers_once_latency_drops() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 32);
+        limit.onSample(BASELINE, 32);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(BASELINE * 10, 32);
+        }
+        assertEquals(4, limit.getLimit());
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(BASELINE, limit.getLimit());
+        }
+        assertEquals(32, limit.getLimit());
+    }
+
+    @Test
+    public void limit_not_grown_when_mostly_unused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 32);
+        limit.onSample(BASELINE, 32);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(BASELINE * 10, 32);
+        }
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(BASELINE, 1);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.bulkhead;
+
+import com.amazon.ask.exception.SkillOverloadedException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SkillBulkheadTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void max_concurrency_must_be_positive() {
+        SkillBulkhead.builder().withMaxConcurrency(0).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void min_concurrency_must_not_exceed_max_concurrency() {
+        SkillBulkhead.builder().withAdaptiveConcurrency(true).withMinConcurrency(8).withMaxConcurrency(4).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void max_queue_depth_must_not_be_negative() {
+        SkillBulkhead.builder().withMaxQueueDepth(-1).build();
+    }
+
+    @Test
+    public void requests_beyond_limit_rejected_when_queue_full() {
+        SkillBulkhead bulkhead = SkillBulkhead.builder()
+                .withMaxConcurrency(2)
+                .withMaxQueueDepth(0)
+                .withRetryAfterSeconds(3)
+                .build();
+        SkillBulkhead.Permit first = bulkhead.acquire();
+        bulkhead.acquire();
+        assertEquals(2, bulkhead.getInFlight());
+
+        try {
+            bulkhead.acquire();
+            fail("Expected SkillOverloadedException");
+        } catch (SkillOverloadedException e) {
+            assertEquals(3, e.getRetryAfterSeconds());
+        }
+
+        first.release();
+        first.release();
+        assertEquals(1, bulkhead.getInFlight());
+        bulkhead.acquire();
+        assertEquals(2, bulkhead.getInFlight());
+    }
+
+    @Test
+    public void queued_request_admitted_when_permit_released() throws Exception {
+        SkillBulkhead bulkhead = SkillBulkhead.builder()
+                .withMaxConcurrency(1)
+                .withMaxQueueDepth(1)
+                .withMaxQueueWait(TimeUnit.SECONDS.toMillis(5))
+                .build();
+        SkillBulkhead.Permit held = bulkhead.acquire();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SkillBulkhead.Permit> queued = executor.submit(bulkhead::acquire);
+            awaitQueued(bulkhead, 1);
+            try {
+                bulkhead.acquire();
+                fail("Expected SkillOverloadedException");
+            } catch (SkillOverloadedException expected) {
+                // queue is full
+            }
+
+            held.release();
+            queued.get(5, TimeUnit.SECONDS).release();
+            assertEquals(0, bulkhead.getInFlight());
+            assertEquals(0, bulkhead.getQueued());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void queued_request_rejected_after_max_queue_wait() {
+        SkillBulkhead bulkhead = SkillBulkhead.builder()
+                .withMaxConcurrency(1)
+                .withMaxQueueWait(50)
+                .build();
+        bulkhead.acquire();
+        long start = System.nanoTime();
+        try {
+            bulkhead.acquire();
+            fail("Expected SkillOverloadedException");
+        } catch (SkillOverloadedException expected) {
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    public void metrics_report_queue_time_separately_from_handler_time() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        List<String> events = new ArrayList<>();
+        SkillBulkhead bulkhead = SkillBulkhead.builder()
+                .withMaxConcurrency(1)
+                .withMaxQueueDepth(1)
+                .withMaxQueueWait(TimeUnit.SECONDS.toMillis(5))
+                .withNanoClock(clock::get)
+                .withMetricsListener(new BulkheadMetricsListener() {
+                    @Override
+                    public void onAdmitted(final long queueTimeNanos) {
+                        record("admitted " + queueTimeNanos);
+                    }
+
+                    @Override
+                    public void onRejected(final long queueTimeNanos) {
+                        record("rejected " + queueTimeNanos);
+                    }
+
+                    @Override
+                    public void onCompleted(final long handlerTimeNanos) {
+                        record("completed " + handlerTimeNanos);
+                    }
+
+                    private void record(final String event) {
+                        synchronized (events) {
+                            events.add(event);
+                        }
+                    }
+                })
+                .build();
+
+        SkillBulkhead.Permit held = bulkhead.acquire();
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread queued = new Thread(() -> {
+            bulkhead.acquire().release();
+            admitted.countDown();
+        });
+        queued.start();
+        awaitQueued(bulkhead, 1);
+        try {
+            bulkhead.acquire();
+            fail("Expected SkillOverloadedException");
+        } catch (SkillOverloadedException expected) {
+            // queue is full
+        }
+        clock.addAndGet(30);
+        held.release();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        queued.join();
+
+        synchronized (events) {
+            assertEquals(Arrays.asList("admitted 0", "rejected 0"), events.subList(0, 2));
+            // the queued request may be admitted before the release of the first one is reported
+            assertEquals(new HashSet<>(Arrays.asList("completed 30", "admitted 30", "completed 0")),
+                    new HashSet<>(events.subList(2, events.size())));
+            assertEquals(5, events.size());
+        }
+    }
+
+    @Test
+    public void adaptive_limit_shrinks_when_latency_rises() {
+        AtomicLong clock = new AtomicLong();
+        List<Integer> limits = new ArrayList<>();
+        SkillBulkhead bulkhead = SkillBulkhead.builder()
+                .withAdaptiveConcurrency(true)
+                .withMinConcurrency(2)
+                .withMaxConcurrency(16)
+                .withNanoClock(clock::get)
+                .withMetricsListener(new BulkheadMetricsListener() {
+                    @Override
+                    public void onLimitChanged(final int previousLimit, final int newLimit) {
+                        limits.add(newLimit);
+                    }
+                })
+                .build();
+        assertEquals(16, bulkhead.getConcurrencyLimit());
+
+        runRequest(bulkhead, clock, TimeUnit.MILLISECONDS.toNanos(10));
+        for (int i = 0; i < 100; i++) {
+            runRequest(bulkhead, clock, TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        assertEquals(2, bulkhead.getConcurrencyLimit());
+        assertEquals(Integer.valueOf(2), limits.get(limits.size() - 1));
+    }
+
+    private static void runRequest(final SkillBulkhead bulkhead, final AtomicLong clock, final long latencyNanos) {
+        SkillBulkhead.Permit permit = bulkhead.acquire();
+        clock.addAndGet(latencyNanos);
+        permit.release();
+    }
+
+    private static void awaitQueued(final SkillBulkhead bulkhead, final int queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.getQueued() < queued && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(queued, bulkhead.getQueued());
+    }
+
+}
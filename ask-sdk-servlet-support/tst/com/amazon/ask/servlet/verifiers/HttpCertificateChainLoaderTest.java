@@ -0,0 +1,204 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.verifiers;
+
+import com.amazon.ask.servlet.ServletConstants;
+import org.apache.commons.codec.binary.Base64;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.x509.X509V3CertificateGenerator;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import javax.security.auth.x500.X500Principal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import static java.security.Security.addProvider;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HttpCertificateChainLoaderTest {
+
+    private static final String URL = "https://s3.amazonaws.com/echo.api/echo-api-cert.pem";
+
+    private static KeyPair caKeyPair;
+    private static X509Certificate caCertificate;
+    private static X509TrustManager trustManager;
+
+    private HttpURLConnection mockConnection;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @BeforeClass
+    public static void createCertificateAuthority() throws Exception {
+        addProvider(new BouncyCastleProvider());
+        caKeyPair = generateKeyPair();
+        caCertificate = generateCertificate("CN=Test Root", caKeyPair.getPublic(), caKeyPair.getPrivate(), null, true);
+
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("test-root", caCertificate);
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        for (TrustManager candidate : trustManagerFactory.getTrustManagers()) {
+            if (candidate instanceof X509TrustManager) {
+                trustManager = (X509TrustManager) candidate;
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mockConnection = mock(HttpURLConnection.class);
+    }
+
+    @Test
+    public void trusted_chain_returns_signing_certificate() throws Exception {
+        X509Certificate signingCertificate = generateSigningCertificate(ServletConstants.ECHO_API_DOMAIN_NAME);
+        serve(signingCertificate, caCertificate);
+
+        assertEquals(signingCertificate, loader().load(URL));
+        verify(mockConnection).disconnect();
+    }
+
+    @Test
+    public void invalid_url_rejected_before_connecting() throws Exception {
+        thrown.expect(CertificateException.class);
+        thrown.expectMessage("does not contain the required hostname");
+
+        new HttpCertificateChainLoader(url -> {
+            throw new AssertionError("Unexpected connection to " + url);
+        }, trustManager).load("https://very.bad/echo.api/cert");
+    }
+
+    @Test
+    public void non_200_status_code_is_retryable() throws Exception {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("non-200 status code");
+
+        when(mockConnection.getResponseCode()).thenReturn(503);
+        loader().load(URL);
+    }
+
+    @Test
+    public void client_error_status_code_not_retryable() throws Exception {
+        thrown.expect(CertificateException.class);
+        thrown.expectMessage("non-retryable status code: 404");
+
+        when(mockConnection.getResponseCode()).thenReturn(404);
+        loader().load(URL);
+    }
+
+    @Test
+    public void untrusted_chain_rejected() throws Exception {
+        thrown.expect(CertificateException.class);
+
+        KeyPair selfSigned = generateKeyPair();
+        serve(generateCertificate("CN=" + ServletConstants.ECHO_API_DOMAIN_NAME, selfSigned.getPublic(),
+                selfSigned.getPrivate(), ServletConstants.ECHO_API_DOMAIN_NAME, false));
+        loader().load(URL);
+    }
+
+    @Test
+    public void certificate_for_other_domain_rejected() throws Exception {
+        thrown.expect(CertificateException.class);
+        thrown.expectMessage("not valid for the ASK SDK");
+
+        serve(generateSigningCertificate("example.com"), caCertificate);
+        loader().load(URL);
+    }
+
+    @Test
+    public void certificate_without_subject_alternative_names_rejected() throws Exception {
+        thrown.expect(CertificateException.class);
+        thrown.expectMessage("not valid for the ASK SDK");
+
+        serve(generateSigningCertificate(null), caCertificate);
+        loader().load(URL);
+    }
+
+    private HttpCertificateChainLoader loader() {
+        return new HttpCertificateChainLoader(url -> mockConnection, trustManager);
+    }
+
+    private void serve(final X509Certificate... chain) throws Exception {
+        ByteArrayOutputStream pem = new ByteArrayOutputStream();
+        for (X509Certificate certificate : chain) {
+            pem.write(("-----BEGIN CERTIFICATE-----\n" + Base64.encodeBase64String(certificate.getEncoded())
+                    + "\n-----END CERTIFICATE-----\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(new ByteArrayInputStream(pem.toByteArray()));
+    }
+
+    private static X509Certificate generateSigningCertificate(final String domainName) throws Exception {
+        return generateCertificate("CN=" + ServletConstants.ECHO_API_DOMAIN_NAME, generateKeyPair().getPublic(),
+                caKeyPair.getPrivate(), domainName, false);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static X509Certificate generateCertificate(final String subject, final PublicKey publicKey,
+                                                      final PrivateKey issuerKey, final String domainName,
+                                                      final boolean certificateAuthority) throws Exception {
+        X509V3CertificateGenerator certGen = new X509V3CertificateGenerator();
+        certGen.setSerialNumber(BigInteger.valueOf(System.nanoTime()));
+        certGen.setIssuerDN(issuerKey == caKeyPair.getPrivate() && !certificateAuthority
+                ? caCertificate.getSubjectX500Principal() : new X500Principal(subject));
+        certGen.setSubjectDN(new X500Principal(subject));
+        certGen.setNotBefore(new Date(System.currentTimeMillis() - 60000));
+        certGen.setNotAfter(new Date(System.currentTimeMillis() + 3600000));
+        certGen.setPublicKey(publicKey);
+        certGen.setSignatureAlgorithm(ServletConstants.SIGNATURE_ALGORITHM);
+        certGen.addExtension(Extension.basicConstraints, true, new BasicConstraints(certificateAuthority));
+        if (domainName != null) {
+            certGen.addExtension(Extension.subjectAlternativeName, false,
+                    new GeneralNames(new GeneralName(GeneralName.dNSName, domainName)));
+        }
+        // BC means the Bouncy Castle security provider.
+        return certGen.generate(issuerKey, "BC");
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        // certificate path validation rejects RSA keys shorter than 2048 bits on recent JDKs
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(ServletConstants.SIGNATURE_TYPE);
+        keyPairGenerator.initialize(2048);
+        return keyPairGenerator.generateKeyPair();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.verifiers;
+
+import com.amazon.ask.servlet.ServletConstants;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SignaturePoolTest {
+
+    private static final byte[] CONTENT = "This is some test content.".getBytes(StandardCharsets.UTF_8);
+
+    private static KeyPair keyPair;
+    private static KeyPair otherKeyPair;
+
+    @BeforeClass
+    public static void generateKeyPairs() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(ServletConstants.SIGNATURE_TYPE);
+        keyPairGenerator.initialize(1024);
+        keyPair = keyPairGenerator.generateKeyPair();
+        otherKeyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void pooled_signature_verifies_repeatedly() throws Exception {
+        SignaturePool pool = new SignaturePool();
+        byte[] signature = sign(CONTENT, keyPair.getPrivate());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(pool.verify(keyPair.getPublic(), CONTENT, signature));
+        }
+    }
+
+    @Test
+    public void failed_verification_does_not_affect_next_verification() throws Exception {
+        SignaturePool pool = new SignaturePool();
+        assertFalse(pool.verify(keyPair.getPublic(), CONTENT, sign(CONTENT, otherKeyPair.getPrivate())));
+        assertTrue(pool.verify(keyPair.getPublic(), CONTENT, sign(CONTENT, keyPair.getPrivate())));
+    }
+
+    @Test
+    public void signatures_kept_separate_per_public_key() throws Exception {
+        SignaturePool pool = new SignaturePool();
+        assertTrue(pool.verify(keyPair.getPublic(), CONTENT, sign(CONTENT, keyPair.getPrivate())));
+        assertTrue(pool.verify(otherKeyPair.getPublic(), CONTENT, sign(CONTENT, otherKeyPair.getPrivate())));
+        assertFalse(pool.verify(otherKeyPair.getPublic(), CONTENT, sign(CONTENT, keyPair.getPrivate())));
+    }
+
+    @Test
+    public void malformed_signature_does_not_poison_pool() throws Exception {
+        SignaturePool pool = new SignaturePool();
+        try {
+            pool.verify(keyPair.getPublic(), CONTENT, new byte[] {1, 2, 3});
+        } catch (SignatureException expected) {
+            // expected for signatures of the wrong length
+        }
+        assertTrue(pool.verify(keyPair.getPublic(), CONTENT, sign(CONTENT, keyPair.getPrivate())));
+    }
+
+    @Test
+    public void concurrent_verifications_succeed() throws Exception {
+        SignaturePool pool = new SignaturePool();
+        byte[] signature = sign(CONTENT, keyPair.getPrivate());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> pool.verify(keyPair.getPublic(), CONTENT, signature)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] sign(final byte[] content, final PrivateKey key) throws Exception {
+        Signature signature = Signature.getInstance(ServletConstants.SIGNATURE_ALGORITHM);
+        signature.initSign(key);
+        signature.update(content);
+        return signature.sign();
+    }
+
+}
@@ -0,0 +1,326 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.ask.servlet.verifiers;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SigningCertificateProviderTest {
+
+    private static final String URL = "https://s3.amazonaws.com/echo.api/cert";
+
+    @Test
+    public void concurrent_requests_share_single_load() throws Exception {
+        X509Certificate certificate = certificateExpiringIn(TimeUnit.DAYS.toMillis(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return certificate;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<X509Certificate>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> provider.getCertificate(URL)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<X509Certificate> result : results) {
+                assertSame(certificate, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertSame(certificate, provider.getCertificate(URL));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void retrieval_failure_retried_off_request_thread() throws Exception {
+        X509Certificate certificate = certificateExpiringIn(TimeUnit.DAYS.toMillis(1));
+        AtomicInteger attempts = new AtomicInteger();
+        Thread requestThread = Thread.currentThread();
+        List<Thread> loaderThreads = new ArrayList<>();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            synchronized (loaderThreads) {
+                loaderThreads.add(Thread.currentThread());
+            }
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("Connection reset");
+            }
+            return certificate;
+        });
+
+        assertSame(certificate, provider.getCertificate(URL));
+        assertEquals(3, attempts.get());
+        for (Thread loaderThread : loaderThreads) {
+            assertTrue(loaderThread != requestThread);
+        }
+    }
+
+    @Test
+    public void invalid_certificate_not_retried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            attempts.incrementAndGet();
+            throw new CertificateException("The provided certificate is not valid for the ASK SDK");
+        });
+
+        try {
+            provider.getCertificate(URL);
+            fail("Expected CertificateException");
+        } catch (CertificateException e) {
+            assertEquals("The provided certificate is not valid for the ASK SDK", e.getMessage());
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void failed_url_rejected_until_backoff_elapses() throws Exception {
+        X509Certificate certificate = certificateExpiringIn(TimeUnit.DAYS.toMillis(1));
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        AtomicInteger attempts = new AtomicInteger();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new CertificateException("Certificate expired");
+            }
+            return certificate;
+        }, clock::get);
+
+        expectCertificateException(provider, URL);
+        expectCertificateException(provider, URL);
+        assertEquals(1, attempts.get());
+
+        clock.addAndGet(SigningCertificateProvider.BASE_FAILURE_BACKOFF_MS);
+        assertSame(certificate, provider.getCertificate(URL));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void backoff_grows_with_consecutive_failures() throws Exception {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        AtomicInteger attempts = new AtomicInteger();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            attempts.incrementAndGet();
+            throw new CertificateException("The provided certificate is not valid for the ASK SDK");
+        }, clock::get);
+
+        expectCertificateException(provider, URL);
+        clock.addAndGet(SigningCertificateProvider.BASE_FAILURE_BACKOFF_MS);
+        expectCertificateException(provider, URL);
+        assertEquals(2, attempts.get());
+
+        clock.addAndGet(SigningCertificateProvider.BASE_FAILURE_BACKOFF_MS);
+        expectCertificateException(provider, URL);
+        assertEquals(2, attempts.get());
+
+        clock.addAndGet(SigningCertificateProvider.BASE_FAILURE_BACKOFF_MS);
+        expectCertificateException(provider, URL);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void failure_backoff_doubles_and_is_capped() {
+        assertEquals(SigningCertificateProvider.BASE_FAILURE_BACKOFF_MS, SigningCertificateProvider.failureBackoff(1));
+        assertEquals(2 * SigningCertificateProvider.BASE_FAILURE_BACKOFF_MS, SigningCertificateProvider.failureBackoff(2));
+        assertEquals(SigningCertificateProvider.MAX_FAILURE_BACKOFF_MS, SigningCertificateProvider.failureBackoff(100));
+    }
+
+    @Test
+    public void cache_bounded_evicting_certificates_expiring_soonest() throws Exception {
+        Map<String, X509Certificate> certificates = new HashMap<>();
+        for (int i = 0; i <= SigningCertificateProvider.MAX_CACHED_CERTIFICATES; i++) {
+            certificates.put(URL + i, certificateExpiringIn(TimeUnit.DAYS.toMillis(i + 1)));
+        }
+        Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            loads.computeIfAbsent(url, key -> new AtomicInteger()).incrementAndGet();
+            return certificates.get(url);
+        });
+
+        for (int i = 0; i <= SigningCertificateProvider.MAX_CACHED_CERTIFICATES; i++) {
+            provider.getCertificate(URL + i);
+        }
+        for (int i = 1; i <= SigningCertificateProvider.MAX_CACHED_CERTIFICATES; i++) {
+            provider.getCertificate(URL + i);
+            assertEquals(1, loads.get(URL + i).get());
+        }
+        provider.getCertificate(URL + 0);
+        assertEquals(2, loads.get(URL + 0).get());
+    }
+
+    @Test
+    public void expired_certificate_reloaded() throws Exception {
+        X509Certificate expiring = certificateExpiringIn(TimeUnit.DAYS.toMillis(1));
+        X509Certificate renewed = certificateExpiringIn(TimeUnit.DAYS.toMillis(3));
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        AtomicInteger loads = new AtomicInteger();
+        SigningCertificateProvider provider = new SigningCertificateProvider(
+                url -> loads.incrementAndGet() == 1 ? expiring : renewed, clock::get);
+
+        assertSame(expiring, provider.getCertificate(URL));
+        clock.addAndGet(TimeUnit.DAYS.toMillis(2));
+        assertSame(renewed, provider.getCertificate(URL));
+    }
+
+    @Test
+    public void certificate_close_to_expiry_refreshed_in_background() throws Exception {
+        X509Certificate expiring = certificateExpiringIn(TimeUnit.MINUTES.toMillis(30));
+        X509Certificate renewed = certificateExpiringIn(TimeUnit.DAYS.toMillis(1));
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        CountDownLatch refreshed = new CountDownLatch(2);
+        AtomicInteger loads = new AtomicInteger();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            refreshed.countDown();
+            return loads.incrementAndGet() == 1 ? expiring : renewed;
+        }, clock::get);
+
+        assertSame(expiring, provider.getCertificate(URL));
+        // refreshed at most once per fetch interval
+        assertSame(expiring, provider.getCertificate(URL));
+        assertEquals(1, loads.get());
+
+        clock.addAndGet(SigningCertificateProvider.MIN_FETCH_INTERVAL_MS);
+        assertSame(expiring, provider.getCertificate(URL));
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (provider.getCertificate(URL) != renewed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertSame(renewed, provider.getCertificate(URL));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void concurrent_loads_limited() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            throw new CertificateException("Not found");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(SigningCertificateProvider.MAX_CONCURRENT_LOADS);
+        try {
+            for (int i = 0; i < SigningCertificateProvider.MAX_CONCURRENT_LOADS; i++) {
+                String url = URL + i;
+                executor.submit(() -> provider.getCertificate(url));
+            }
+            Thread.sleep(200);
+            try {
+                provider.getCertificate(URL + "-other");
+                fail("Expected CertificateException");
+            } catch (CertificateException e) {
+                assertTrue(e.getMessage().startsWith("Too many certificate retrievals in progress"));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void invalid_urls_rejected_without_taking_load_slots() throws Exception {
+        X509Certificate certificate = certificateExpiringIn(TimeUnit.DAYS.toMillis(1));
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> loadedUrls = new CopyOnWriteArrayList<>();
+        SigningCertificateProvider provider = new SigningCertificateProvider(url -> {
+            loadedUrls.add(url);
+            if (!URL.equals(url)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return certificate;
+        });
+
+        try {
+            for (int i = 0; i < 2 * SigningCertificateProvider.MAX_CONCURRENT_LOADS; i++) {
+                expectCertificateException(provider, "https://s3.amazonaws.com/not-echo.api/" + i);
+                expectCertificateException(provider, "https://attacker.example/echo.api/" + i);
+                expectCertificateException(provider, "http://s3.amazonaws.com/echo.api/" + i);
+            }
+            assertTrue(loadedUrls.isEmpty());
+            assertSame(certificate, provider.getCertificate(URL));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void retry_delay_grows_with_jitter_and_is_capped() {
+        for (int i = 0; i < 100; i++) {
+            long first = SigningCertificateProvider.retryDelay(0);
+            assertTrue(first >= 125 && first <= 250);
+            long third = SigningCertificateProvider.retryDelay(2);
+            assertTrue(third >= 500 && third <= 1000);
+            long capped = SigningCertificateProvider.retryDelay(10);
+            assertTrue(capped >= 2000 && capped <= 4000);
+        }
+    }
+
+    private static void expectCertificateException(final SigningCertificateProvider provider, final String url) {
+        try {
+            provider.getCertificate(url);
+            fail("Expected CertificateException");
+        } catch (CertificateException expected) {
+            // expected
+        }
+    }
+
+    private static X509Certificate certificateExpiringIn(final long millis) {
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getNotAfter()).thenReturn(new Date(System.currentTimeMillis() + millis));
+        return certificate;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+    Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.amazon.ask.servlet.verifiers;
+
+import com.amazon.ask.model.RequestEnvelope;
+import com.amazon.ask.servlet.ServletConstants;
+import org.apache.commons.codec.binary.Base64;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.x509.X509V3CertificateGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.security.auth.x500.X500Principal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark measuring request signature verifications per second on a single thread, with the signing
+ * certificate cached. {@code baseline} repeats the per-request work done before signatures were pooled: a
+ * signature lookup and initialization, and Base64 decoding through an intermediate byte array.
+ *
+ * Run with {@code mvn -pl ask-sdk-servlet-support -am -P benchmark verify -DskipTests}. Pass
+ * {@code -Djmh.args="SkillRequestSignatureVerifierBenchmark -t 4"} to measure scaling across threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class SkillRequestSignatureVerifierBenchmark {
+
+    private static final String CERT_URL = "https://s3.amazonaws.com/echo.api/echo-api-cert.pem";
+
+    @Param({"2048"})
+    public int envelopeSize;
+
+    private X509Certificate certificate;
+    private SkillRequestSignatureVerifier verifier;
+    private AlexaHttpRequest request;
+
+    @Setup
+    @SuppressWarnings("deprecation")
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(ServletConstants.SIGNATURE_TYPE);
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        X509V3CertificateGenerator certGen = new X509V3CertificateGenerator();
+        certGen.setSerialNumber(BigInteger.ONE);
+        X500Principal self = new X500Principal("CN=Benchmark Certificate");
+        certGen.setIssuerDN(self);
+        certGen.setSubjectDN(self);
+        certGen.setNotBefore(new Date(System.currentTimeMillis() - 60000));
+        certGen.setNotAfter(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+        certGen.setPublicKey(keyPair.getPublic());
+        certGen.setSignatureAlgorithm(ServletConstants.SIGNATURE_ALGORITHM);
+        certificate = certGen.generate(keyPair.getPrivate(), "BC");
+
+        byte[] envelope = new byte[envelopeSize];
+        Arrays.fill(envelope, (byte) 'a');
+        Signature signer = Signature.getInstance(ServletConstants.SIGNATURE_ALGORITHM);
+        signer.initSign(keyPair.getPrivate());
+        signer.update(envelope);
+        String encodedSignature = Base64.encodeBase64String(signer.sign());
+
+        request = new AlexaHttpRequest() {
+            @Override
+            public String getBaseEncoded64Signature() {
+                return encodedSignature;
+            }
+
+            @Override
+            public String getSigningCertificateChainUrl() {
+                return CERT_URL;
+            }
+
+            @Override
+            public byte[] getSerializedRequestEnvelope() {
+                return envelope;
+            }
+
+            @Override
+            public RequestEnvelope getDeserializedRequestEnvelope() {
+                return null;
+            }
+        };
+        verifier = new SkillRequestSignatureVerifier(new SigningCertificateProvider(url -> certificate));
+        verifier.verify(request);
+    }
+
+    @Benchmark
+    public void verify() {
+        verifier.verify(request);
+    }
+
+    @Benchmark
+    public boolean baseline() throws Exception {
+        Signature signature = Signature.getInstance(ServletConstants.SIGNATURE_ALGORITHM);
+        signature.initVerify(certificate.getPublicKey());
+        signature.update(request.getSerializedRequestEnvelope());
+        return signature.verify(Base64.decodeBase64(request.getBaseEncoded64Signature()
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
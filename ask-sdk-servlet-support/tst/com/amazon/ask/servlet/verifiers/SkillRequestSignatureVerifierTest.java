@@ -19,7 +19,6 @@ import static org.hamcrest.Matchers.isA;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
-import static org.powermock.api.mockito.PowerMockito.whenNew;
 
 import java.math.BigInteger;
 import java.security.KeyPair;
@@ -30,7 +29,6 @@ import java.security.Signature;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Date;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.security.auth.x500.X500Principal;
 import javax.servlet.http.HttpServletRequest;
@@ -45,14 +43,7 @@ import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.junit.runner.RunWith;
-import org.powermock.core.classloader.annotations.PowerMockIgnore;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
-
-@RunWith(PowerMockRunner.class)
-@PowerMockIgnore("javax.security.auth.x500.X500Principal")
-@PrepareForTest(SkillRequestSignatureVerifier.class)
+
 public class SkillRequestSignatureVerifierTest {
 
     private static final String PREPOPULATED_CERT_URL =
@@ -101,10 +92,12 @@ public class SkillRequestSignatureVerifierTest {
         // BC means the Bouncy Castle security provider.
         X509Certificate cert = certGen.generate(validPrivateKey, "BC");
 
-        ConcurrentHashMap<String, X509Certificate> certCache = new ConcurrentHashMap<>();
-        certCache.put(PREPOPULATED_CERT_URL, cert);
-        whenNew(ConcurrentHashMap.class).withAnyArguments().thenReturn(certCache);
-        verifier = new SkillRequestSignatureVerifier();
+        verifier = new SkillRequestSignatureVerifier(new SigningCertificateProvider(url -> {
+            if (PREPOPULATED_CERT_URL.equals(url)) {
+                return cert;
+            }
+            throw new CertificateException("No certificate at URL: " + url);
+        }));
         deserializedRequestEnvelope = RequestEnvelope.builder().build();
     }
 